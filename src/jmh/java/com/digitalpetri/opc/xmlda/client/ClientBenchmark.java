@@ -0,0 +1,93 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadResponse;
+
+/**
+ * End-to-end {@link OpcXmlDaClient} reads against a local {@link StubServer}, through the blocking Spring WS
+ * transport, the non-blocking transport and the streaming decoder.
+ * <p>
+ * {@link Mode#SampleTime} reports latency percentiles alongside throughput.
+ *
+ * @author Kevin Herron
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ClientBenchmark {
+
+    @Param({"10", "1000"})
+    int itemCount;
+
+    @Param({"JAXB", "FAST_PATH"})
+    RequestEncoding requestEncoding;
+
+    private StubServer server;
+    private OpcXmlDaClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubServer();
+        server.setResponse("Read", Payloads.readResponse(itemCount));
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(server.getEndpointUrl())
+            .setRequestEncoding(requestEncoding)
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Request {
+
+        Read read;
+
+        @Setup(Level.Trial)
+        public void setup(ClientBenchmark benchmark) {
+            read = Payloads.read(benchmark.itemCount);
+        }
+
+    }
+
+    @Benchmark
+    public ReadResponse readBlocking(Request request) {
+        return client.read(request.read);
+    }
+
+    @Benchmark
+    public ReadResponse readAsync(Request request) {
+        return client.readAsync(request.read).join();
+    }
+
+    @Benchmark
+    public StreamingResponse readStreaming(Request request, Blackhole blackhole) {
+        return client.readStreaming(request.read, blackhole::consume).join();
+    }
+
+}
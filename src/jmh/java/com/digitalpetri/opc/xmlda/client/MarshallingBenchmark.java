@@ -0,0 +1,121 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.SubscriptionPolledRefreshResponse;
+import org.opcfoundation.xmlda.Write;
+
+/**
+ * Encoding of Read and Write request envelopes and decoding of ReadResponse and SubscriptionPolledRefreshResponse
+ * envelopes, with JAXB and with the fast-path encoder and streaming decoder.
+ *
+ * @author Kevin Herron
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MarshallingBenchmark {
+
+    @Param({"10", "1000", "20000"})
+    int itemCount;
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+
+    private JaxbRequestEncoder jaxbEncoder;
+    private FastPathRequestEncoder fastPathEncoder;
+    private Unmarshaller unmarshaller;
+
+    private Read read;
+    private Write write;
+    private byte[] readResponse;
+    private byte[] refreshResponse;
+
+    @Setup
+    public void setup() throws JAXBException {
+        jaxbEncoder = new JaxbRequestEncoder(Payloads.JAXB_CONTEXT);
+        fastPathEncoder = new FastPathRequestEncoder(jaxbEncoder);
+        unmarshaller = Payloads.JAXB_CONTEXT.createUnmarshaller();
+
+        read = Payloads.read(itemCount);
+        write = Payloads.write(itemCount);
+        readResponse = Payloads.envelope(Payloads.readResponse(itemCount));
+        refreshResponse = Payloads.envelope(Payloads.subscriptionPolledRefreshResponse(itemCount));
+    }
+
+    @Benchmark
+    public byte[] marshalReadJaxb() throws IOException {
+        return jaxbEncoder.encode(read);
+    }
+
+    @Benchmark
+    public byte[] marshalReadFastPath() throws IOException {
+        return fastPathEncoder.encode(read);
+    }
+
+    @Benchmark
+    public byte[] marshalWriteJaxb() throws IOException {
+        return jaxbEncoder.encode(write);
+    }
+
+    @Benchmark
+    public byte[] marshalWriteFastPath() throws IOException {
+        return fastPathEncoder.encode(write);
+    }
+
+    @Benchmark
+    public ReadResponse unmarshalReadResponseJaxb() throws XMLStreamException, JAXBException {
+        return unmarshaller.unmarshal(bodyReader(readResponse), ReadResponse.class).getValue();
+    }
+
+    @Benchmark
+    public StreamingResponse unmarshalReadResponseStreaming(Blackhole blackhole) throws XMLStreamException {
+        return new StreamingResponseDecoder(blackhole::consume).decode(bodyReader(readResponse));
+    }
+
+    @Benchmark
+    public SubscriptionPolledRefreshResponse unmarshalSubscriptionPolledRefreshResponseJaxb()
+        throws XMLStreamException, JAXBException {
+
+        return unmarshaller
+            .unmarshal(bodyReader(refreshResponse), SubscriptionPolledRefreshResponse.class)
+            .getValue();
+    }
+
+    @Benchmark
+    public StreamingResponse unmarshalSubscriptionPolledRefreshResponseStreaming(Blackhole blackhole)
+        throws XMLStreamException {
+
+        return new StreamingResponseDecoder(blackhole::consume).decode(bodyReader(refreshResponse));
+    }
+
+    private XMLStreamReader bodyReader(byte[] envelope) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(envelope));
+        HttpSoapTransport.advanceToBodyContent(reader);
+        return reader;
+    }
+
+}
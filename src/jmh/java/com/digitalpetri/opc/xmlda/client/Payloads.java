@@ -0,0 +1,153 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCQuality;
+import org.opcfoundation.xmlda.QualityBits;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyBase;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.RequestOptions;
+import org.opcfoundation.xmlda.ServerState;
+import org.opcfoundation.xmlda.SubscribePolledRefreshReplyItemList;
+import org.opcfoundation.xmlda.SubscriptionPolledRefreshResponse;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+
+/**
+ * Requests and responses of a given size, shaped like the ones the client exchanges with a real server.
+ *
+ * @author Kevin Herron
+ */
+final class Payloads {
+
+    static final JAXBContext JAXB_CONTEXT;
+
+    static {
+        try {
+            JAXB_CONTEXT = JAXBContext.newInstance("org.opcfoundation.xmlda");
+        } catch (JAXBException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final long TIMESTAMP = 1_627_819_200_000L;
+
+    private Payloads() {}
+
+    static Read read(int itemCount) {
+        var itemList = new ReadRequestItemList();
+        for (int i = 0; i < itemCount; i++) {
+            var item = new ReadRequestItem();
+            item.setItemName(itemName(i));
+            item.setClientItemHandle(String.valueOf(i));
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setOptions(options());
+        read.setItemList(itemList);
+        return read;
+    }
+
+    static Write write(int itemCount) {
+        var itemList = new WriteRequestItemList();
+        for (int i = 0; i < itemCount; i++) {
+            var item = new ItemValue();
+            item.setItemName(itemName(i));
+            item.setClientItemHandle(String.valueOf(i));
+            item.setValue(i * 0.5);
+            itemList.getItems().add(item);
+        }
+
+        var write = new Write();
+        write.setOptions(options());
+        write.setItemList(itemList);
+        return write;
+    }
+
+    static ReadResponse readResponse(int itemCount) {
+        var itemList = new ReplyItemList();
+        for (int i = 0; i < itemCount; i++) {
+            itemList.getItems().add(itemValue(i));
+        }
+
+        var response = new ReadResponse();
+        response.setReadResult(replyBase());
+        response.setRItemList(itemList);
+        return response;
+    }
+
+    /**
+     * A SubscriptionPolledRefreshResponse with {@code itemCount} values spread over 10 subscriptions.
+     */
+    static SubscriptionPolledRefreshResponse subscriptionPolledRefreshResponse(int itemCount) {
+        var response = new SubscriptionPolledRefreshResponse();
+        response.setSubscriptionPolledRefreshResult(replyBase());
+
+        int subscriptions = Math.min(10, itemCount);
+        for (int s = 0; s < subscriptions; s++) {
+            var itemList = new SubscribePolledRefreshReplyItemList();
+            itemList.setSubscriptionHandle("sub" + s);
+            for (int i = s; i < itemCount; i += subscriptions) {
+                itemList.getItems().add(itemValue(i));
+            }
+            response.getRItemList().add(itemList);
+        }
+
+        return response;
+    }
+
+    /**
+     * Encode {@code payload} in a SOAP envelope, as it would appear on the wire.
+     */
+    static byte[] envelope(Object payload) {
+        try {
+            return new JaxbRequestEncoder(JAXB_CONTEXT).encode(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ItemValue itemValue(int i) {
+        var quality = new OPCQuality();
+        quality.setQualityField(QualityBits.GOOD);
+
+        var itemValue = new ItemValue();
+        itemValue.setItemName(itemName(i));
+        itemValue.setClientItemHandle(String.valueOf(i));
+        itemValue.setTimestamp(XmlTime.fromEpochMillis(TIMESTAMP + i));
+        itemValue.setValue(i * 0.5);
+        itemValue.setQuality(quality);
+        return itemValue;
+    }
+
+    private static ReplyBase replyBase() {
+        var replyBase = new ReplyBase();
+        replyBase.setRcvTime(XmlTime.fromEpochMillis(TIMESTAMP));
+        replyBase.setReplyTime(XmlTime.fromEpochMillis(TIMESTAMP));
+        replyBase.setServerState(ServerState.RUNNING);
+        replyBase.setClientRequestHandle("1");
+        return replyBase;
+    }
+
+    private static RequestOptions options() {
+        var options = new RequestOptions();
+        options.setLocaleID("en-US");
+        options.setClientRequestHandle("1");
+        options.setReturnItemName(true);
+        options.setReturnItemTime(true);
+        return options;
+    }
+
+    private static String itemName(int i) {
+        return "Dynamic/Analog Types/Double[" + i + "]";
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that answers each SOAPAction with a fixed, pre-encoded response envelope, so that client
+ * benchmarks measure the client rather than a server.
+ *
+ * @author Kevin Herron
+ */
+final class StubServer implements AutoCloseable {
+
+    static {
+        // otherwise Nagle's algorithm on the server side dominates small-response latency
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String getEndpointUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Respond to requests with SOAPAction {@code action}, e.g. {@code Read}, with {@code payload}.
+     */
+    void setResponse(String action, Object payload) {
+        responses.put(action, Payloads.envelope(payload));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        String soapAction = exchange.getRequestHeaders().getFirst("SOAPAction");
+        String action = soapAction == null ? "" :
+            soapAction.substring(soapAction.lastIndexOf('/') + 1).replace("\"", "");
+
+        byte[] response = responses.get(action);
+
+        if (response == null) {
+            exchange.sendResponseHeaders(404, -1);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
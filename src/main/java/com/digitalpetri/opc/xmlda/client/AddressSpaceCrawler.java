@@ -0,0 +1,378 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.Browse;
+import org.opcfoundation.xmlda.BrowseElement;
+import org.opcfoundation.xmlda.BrowseFilter;
+import org.opcfoundation.xmlda.BrowseResponse;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+/**
+ * Walks a server's address space breadth-first, keeping up to a configured number of Browse requests in flight and
+ * following ContinuationPoints so that large branches are fetched a page at a time.
+ * <p>
+ * Discovered elements are streamed to a {@link BrowseElementHandler} as each page arrives. The crawl can be
+ * stopped at any time and later resumed from its {@link CrawlState}.
+ *
+ * @author Kevin Herron
+ */
+public class AddressSpaceCrawler {
+
+    private static final String E_INVALIDCONTINUATIONPOINT = "E_INVALIDCONTINUATIONPOINT";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock handlerLock = new ReentrantLock();
+
+    private final Deque<CrawlState.Position> queue = new ArrayDeque<>();
+    private final List<CrawlState.Position> inFlight = new ArrayList<>();
+    private final AtomicLong elementCount = new AtomicLong(0L);
+
+    private CompletableFuture<CrawlState> crawlFuture;
+    private BrowseElementHandler handler;
+    private Throwable failure;
+    private boolean stopping = false;
+
+    private final OpcXmlDaClient client;
+    private final int maxConcurrentRequests;
+    private final int maxElementsReturned;
+    private final Consumer<Browse> browseCustomizer;
+
+    private AddressSpaceCrawler(
+        OpcXmlDaClient client,
+        int maxConcurrentRequests,
+        int maxElementsReturned,
+        Consumer<Browse> browseCustomizer) {
+
+        this.client = client;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxElementsReturned = maxElementsReturned;
+        this.browseCustomizer = browseCustomizer;
+    }
+
+    /**
+     * Crawl the whole address space, starting at the root.
+     *
+     * @return a future completing with the final {@link CrawlState}, which is complete unless {@link #stop()} was
+     * called, or completing exceptionally if a Browse request failed; {@link #getState()} then returns the state
+     * to resume from.
+     */
+    public CompletableFuture<CrawlState> crawl(BrowseElementHandler handler) {
+        return resume(CrawlState.startingAt(null, null), handler);
+    }
+
+    /**
+     * Continue a crawl from {@code state}.
+     * <p>
+     * A ContinuationPoint in {@code state} may have expired on the server; if the server rejects it with
+     * {@code E_INVALIDCONTINUATIONPOINT} the branch is browsed again from the start, so the handler sees its first
+     * pages again.
+     *
+     * @see #crawl(BrowseElementHandler)
+     */
+    public CompletableFuture<CrawlState> resume(CrawlState state, BrowseElementHandler handler) {
+        CompletableFuture<CrawlState> future;
+        List<CrawlState.Position> positions;
+
+        lock.lock();
+        try {
+            if (crawlFuture != null && !crawlFuture.isDone()) {
+                throw new IllegalStateException("a crawl is already in progress");
+            }
+
+            this.crawlFuture = new CompletableFuture<>();
+            this.handler = handler;
+            this.failure = null;
+            this.stopping = false;
+
+            queue.clear();
+            queue.addAll(state.getPending());
+            inFlight.clear();
+            elementCount.set(state.getElementCount());
+
+            future = crawlFuture;
+            positions = dispatch();
+        } finally {
+            lock.unlock();
+        }
+
+        send(positions);
+
+        return future;
+    }
+
+    /**
+     * Stop sending Browse requests. The crawl completes once the requests in flight have been handled.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            stopping = true;
+
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of the current crawl's frontier, including pages that are in flight.
+     */
+    public CrawlState getState() {
+        lock.lock();
+        try {
+            var pending = new ArrayList<CrawlState.Position>(inFlight.size() + queue.size());
+            pending.addAll(inFlight);
+            pending.addAll(queue);
+
+            return new CrawlState(pending, elementCount.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of elements delivered to the handler so far.
+     */
+    public long getElementCount() {
+        return elementCount.get();
+    }
+
+    /**
+     * Move queued positions in flight until the concurrency limit is reached, or complete the crawl if nothing is
+     * queued or in flight. Must be called with {@code lock} held; the returned positions are then passed to
+     * {@link #send(List)} after it has been released.
+     */
+    private List<CrawlState.Position> dispatch() {
+        if (crawlFuture == null || crawlFuture.isDone()) return List.of();
+
+        var positions = new ArrayList<CrawlState.Position>();
+
+        while (!stopping && failure == null && inFlight.size() < maxConcurrentRequests && !queue.isEmpty()) {
+            CrawlState.Position position = queue.poll();
+            inFlight.add(position);
+            positions.add(position);
+        }
+
+        if (inFlight.isEmpty() && (queue.isEmpty() || stopping || failure != null)) {
+            var pending = new ArrayList<>(queue);
+            CompletableFuture<CrawlState> future = crawlFuture;
+
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(new CrawlState(pending, elementCount.get()));
+            }
+        }
+
+        return positions;
+    }
+
+    private void send(List<CrawlState.Position> positions) {
+        for (CrawlState.Position position : positions) {
+            client.browseAsync(newRequest(position)).whenComplete(
+                (response, ex) -> onBrowseComplete(position, response, ex)
+            );
+        }
+    }
+
+    private Browse newRequest(CrawlState.Position position) {
+        var request = new Browse();
+        request.setBrowseFilter(BrowseFilter.ALL);
+
+        browseCustomizer.accept(request);
+
+        request.setItemPath(position.getItemPath());
+        request.setItemName(position.getItemName());
+        request.setContinuationPoint(position.getContinuationPoint());
+        request.setMaxElementsReturned(maxElementsReturned);
+
+        return request;
+    }
+
+    private void onBrowseComplete(CrawlState.Position position, BrowseResponse response, Throwable ex) {
+        if (ex != null) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+            if (position.getContinuationPoint() != null && isInvalidContinuationPoint(faultCode(cause))) {
+                restart(position);
+            } else {
+                onFailure(position, cause);
+            }
+            return;
+        }
+
+        if (position.getContinuationPoint() != null &&
+            response.getErrors().stream().anyMatch(e -> isInvalidContinuationPoint(e.getID()))) {
+
+            restart(position);
+            return;
+        }
+
+        Throwable handlerFailure = null;
+
+        handlerLock.lock();
+        try {
+            if (!response.getElements().isEmpty()) {
+                handler.onElements(position, response.getElements());
+            }
+            if (!response.getErrors().isEmpty()) {
+                handler.onBranchErrors(position, response.getErrors());
+            }
+        } catch (Throwable t) {
+            handlerFailure = t;
+        } finally {
+            handlerLock.unlock();
+        }
+
+        if (handlerFailure != null) {
+            onFailure(position, handlerFailure);
+            return;
+        }
+
+        elementCount.addAndGet(response.getElements().size());
+
+        List<CrawlState.Position> positions;
+
+        lock.lock();
+        try {
+            inFlight.remove(position);
+
+            String continuationPoint = response.getContinuationPoint();
+            if (continuationPoint != null && !continuationPoint.isEmpty()) {
+                // ContinuationPoints may expire on the server, so follow them before anything else
+                queue.addFirst(new CrawlState.Position(
+                    position.getItemPath(),
+                    position.getItemName(),
+                    continuationPoint
+                ));
+            }
+
+            for (BrowseElement element : response.getElements()) {
+                if (element.isHasChildren()) {
+                    queue.addLast(new CrawlState.Position(element.getItemPath(), element.getItemName(), null));
+                }
+            }
+
+            positions = dispatch();
+        } finally {
+            lock.unlock();
+        }
+
+        send(positions);
+    }
+
+    /**
+     * Browse the branch of {@code position}, whose ContinuationPoint the server rejected, again from the start.
+     */
+    private void restart(CrawlState.Position position) {
+        List<CrawlState.Position> positions;
+
+        lock.lock();
+        try {
+            inFlight.remove(position);
+            queue.addFirst(new CrawlState.Position(position.getItemPath(), position.getItemName(), null));
+
+            positions = dispatch();
+        } finally {
+            lock.unlock();
+        }
+
+        send(positions);
+    }
+
+    private static QName faultCode(Throwable ex) {
+        if (ex instanceof SoapFaultException) {
+            return ((SoapFaultException) ex).getFaultCode();
+        } else if (ex instanceof SoapFaultClientException) {
+            return ((SoapFaultClientException) ex).getFaultCode();
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean isInvalidContinuationPoint(QName resultId) {
+        return resultId != null && E_INVALIDCONTINUATIONPOINT.equals(resultId.getLocalPart());
+    }
+
+    /**
+     * Put {@code position} back at the head of the queue, so it's part of the state to resume from, and stop
+     * dispatching so the crawl completes exceptionally once the remaining requests in flight have been handled.
+     */
+    private void onFailure(CrawlState.Position position, Throwable failure) {
+        lock.lock();
+        try {
+            inFlight.remove(position);
+            queue.addFirst(position);
+
+            if (this.failure == null) this.failure = failure;
+
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static Builder newBuilder(OpcXmlDaClient client) {
+        return new Builder(client);
+    }
+
+    public static class Builder {
+
+        private int maxConcurrentRequests = 4;
+        private int maxElementsReturned = 1000;
+        private Consumer<Browse> browseCustomizer = request -> {};
+
+        private final OpcXmlDaClient client;
+
+        Builder(OpcXmlDaClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Set the maximum number of Browse requests in flight at once. Defaults to 4.
+         */
+        public Builder setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Set the MaxElementsReturned of each Browse request, i.e. the page size. Defaults to 1000.
+         */
+        public Builder setMaxElementsReturned(int maxElementsReturned) {
+            this.maxElementsReturned = maxElementsReturned;
+            return this;
+        }
+
+        /**
+         * Set a customizer applied to every Browse request, e.g. to request properties or set an
+         * ElementNameFilter. The crawler overrides ItemPath, ItemName, ContinuationPoint and MaxElementsReturned.
+         * <p>
+         * A BrowseFilter of {@code ITEM} stops the crawl from descending into branches.
+         */
+        public Builder setBrowseCustomizer(Consumer<Browse> browseCustomizer) {
+            this.browseCustomizer = browseCustomizer;
+            return this;
+        }
+
+        public AddressSpaceCrawler build() {
+            if (maxConcurrentRequests < 1) {
+                throw new IllegalArgumentException("maxConcurrentRequests must be >= 1");
+            }
+
+            return new AddressSpaceCrawler(client, maxConcurrentRequests, maxElementsReturned, browseCustomizer);
+        }
+
+    }
+
+}
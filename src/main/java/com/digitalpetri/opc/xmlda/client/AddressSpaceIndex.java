@@ -0,0 +1,472 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.namespace.QName;
+
+/**
+ * An immutable catalog of a server's address space: every branch and item found by browsing, with the
+ * {@code dataType} and {@code accessRights} properties of each item.
+ * <p>
+ * An index is stored in a compact binary file that {@link #load(Path)} memory-maps rather than reads. The file
+ * starts with a table of record offsets, so loading does not depend on the number of entries and an entry is only
+ * decoded when it is accessed.
+ *
+ * @author Kevin Herron
+ * @see AddressSpaceIndexer
+ */
+public final class AddressSpaceIndex {
+
+    private static final int MAGIC = 0x58444149; // "XDAI"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int MAX_STRING_LENGTH = NULL_STRING - 1;
+
+    private static final int FLAG_IS_ITEM = 1;
+    private static final int FLAG_HAS_CHILDREN = 1 << 1;
+
+    private static final AddressSpaceIndex EMPTY = of(0L, List.of());
+
+    private volatile Map<ItemKey, Integer> lookup;
+
+    private final ByteBuffer buffer;
+    private final long createdTime;
+    private final String[] strings;
+    private final int entryCount;
+    private final int offsetsPosition;
+
+    private AddressSpaceIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.remaining() < 20 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not an address space index");
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported address space index format: " + version);
+        }
+
+        this.createdTime = buffer.getLong(8);
+
+        var reader = buffer.duplicate();
+        reader.position(16);
+
+        strings = new String[reader.getShort() & 0xFFFF];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(reader);
+        }
+
+        this.entryCount = reader.getInt();
+        this.offsetsPosition = reader.position();
+    }
+
+    /**
+     * @return an index with no entries.
+     */
+    public static AddressSpaceIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create an index from {@code entries}, whose parent indices refer to positions in the same list.
+     *
+     * @throws IllegalArgumentException if an entry's parent does not come before it.
+     */
+    public static AddressSpaceIndex of(long createdTime, List<Entry> entries) {
+        try {
+            return new AddressSpaceIndex(encode(createdTime, entries));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Memory-map the index stored in {@code file}.
+     *
+     * @throws IOException if the file can't be read or is not an index.
+     */
+    public static AddressSpaceIndex load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new AddressSpaceIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write this index to {@code file}, replacing it atomically if it exists.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer source = buffer.duplicate();
+                source.clear();
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                channel.force(false);
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the time, in epoch milliseconds, the crawl this index was built from finished.
+     */
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Decode the entry at {@code index}.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is not in {@code [0, size())}.
+     */
+    public Entry get(int index) {
+        Objects.checkIndex(index, entryCount);
+
+        var reader = buffer.duplicate();
+        reader.position(buffer.getInt(offsetsPosition + index * 4));
+
+        int flags = reader.get();
+        int parentIndex = reader.getInt();
+        String itemPath = readString(reader);
+        String itemName = readString(reader);
+        String name = readString(reader);
+        String dataType = stringRef(reader.getShort());
+        String accessRights = stringRef(reader.getShort());
+
+        return new Entry(
+            index,
+            parentIndex,
+            itemPath,
+            itemName,
+            name,
+            (flags & FLAG_IS_ITEM) != 0,
+            (flags & FLAG_HAS_CHILDREN) != 0,
+            dataType != null ? QName.valueOf(dataType) : null,
+            accessRights
+        );
+    }
+
+    /**
+     * Find an entry by ItemPath and ItemName. The first lookup decodes every entry to build a hash index.
+     *
+     * @return the entry, or {@code null} if there is none.
+     */
+    public Entry get(String itemPath, String itemName) {
+        Integer index = lookup().get(new ItemKey(itemPath, itemName, null));
+
+        return index != null ? get(index) : null;
+    }
+
+    /**
+     * @return a view of all entries, parents before their children, decoding each one as it is accessed.
+     */
+    public List<Entry> getEntries() {
+        return new AbstractList<>() {
+            @Override
+            public Entry get(int index) {
+                return AddressSpaceIndex.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return entryCount;
+            }
+        };
+    }
+
+    /**
+     * @return the entries whose parent is {@code parent}, or the top-level entries if {@code parent} is
+     * {@code null}.
+     */
+    public List<Entry> getChildren(Entry parent) {
+        int parentIndex = parent != null ? parent.getIndex() : -1;
+
+        var children = new ArrayList<Entry>();
+        for (int i = parentIndex + 1; i < entryCount; i++) {
+            if (buffer.getInt(buffer.getInt(offsetsPosition + i * 4) + 1) == parentIndex) {
+                children.add(get(i));
+            }
+        }
+        return children;
+    }
+
+    private Map<ItemKey, Integer> lookup() {
+        Map<ItemKey, Integer> lookup = this.lookup;
+
+        if (lookup == null) {
+            lookup = new HashMap<>(entryCount * 4 / 3 + 1);
+            for (int i = 0; i < entryCount; i++) {
+                Entry entry = get(i);
+                lookup.putIfAbsent(new ItemKey(entry.getItemPath(), entry.getItemName(), null), i);
+            }
+            this.lookup = lookup;
+        }
+
+        return lookup;
+    }
+
+    private String stringRef(short ref) {
+        int i = ref & 0xFFFF;
+
+        return i == NULL_STRING ? null : strings[i];
+    }
+
+    @Override
+    public String toString() {
+        return "AddressSpaceIndex{size=" + entryCount + ", createdTime=" + createdTime + "}";
+    }
+
+    //region Encoding
+
+    /*
+     * Layout, big-endian:
+     *
+     *   int     magic, int version, long createdTime
+     *   u16     string count, then each string     (distinct dataType and accessRights values)
+     *   int     entry count
+     *   int[]   offset of each entry record
+     *   records byte flags, int parentIndex, string itemPath, string itemName, string name,
+     *           u16 dataType ref, u16 accessRights ref
+     *
+     * Strings are a u16 UTF-8 length, 0xFFFF for null, followed by the bytes.
+     */
+
+    private static ByteBuffer encode(long createdTime, List<Entry> entries) {
+        Map<String, Integer> refs = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.getDataType() != null) {
+                refs.putIfAbsent(entry.getDataType().toString(), refs.size());
+            }
+            if (entry.getAccessRights() != null) {
+                refs.putIfAbsent(entry.getAccessRights(), refs.size());
+            }
+        }
+        if (refs.size() >= NULL_STRING) {
+            throw new IllegalArgumentException("too many distinct dataType and accessRights values");
+        }
+
+        var records = new ArrayList<byte[]>(entries.size());
+        int recordBytes = 0;
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+
+            if (entry.getParentIndex() >= i || entry.getParentIndex() < -1) {
+                throw new IllegalArgumentException("parent of entry " + i + " must come before it");
+            }
+
+            byte[] itemPath = encodeString(entry.getItemPath());
+            byte[] itemName = encodeString(entry.getItemName());
+            byte[] name = encodeString(entry.getName());
+
+            var record = ByteBuffer.allocate(1 + 4 + itemPath.length + itemName.length + name.length + 2 + 2);
+            record.put((byte) ((entry.isItem() ? FLAG_IS_ITEM : 0) | (entry.hasChildren() ? FLAG_HAS_CHILDREN : 0)));
+            record.putInt(entry.getParentIndex());
+            record.put(itemPath).put(itemName).put(name);
+            record.putShort(ref(refs, entry.getDataType() != null ? entry.getDataType().toString() : null));
+            record.putShort(ref(refs, entry.getAccessRights()));
+
+            records.add(record.array());
+            recordBytes += record.capacity();
+        }
+
+        var encodedStrings = new ArrayList<byte[]>(refs.size());
+        int stringBytes = 0;
+        for (String s : refs.keySet()) {
+            byte[] bytes = encodeString(s);
+            encodedStrings.add(bytes);
+            stringBytes += bytes.length;
+        }
+
+        int offsetsPosition = 16 + 2 + stringBytes + 4;
+        var buffer = ByteBuffer.allocate(offsetsPosition + records.size() * 4 + recordBytes);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(createdTime);
+        buffer.putShort((short) encodedStrings.size());
+        encodedStrings.forEach(buffer::put);
+        buffer.putInt(records.size());
+
+        int offset = offsetsPosition + records.size() * 4;
+        for (byte[] record : records) {
+            buffer.putInt(offset);
+            offset += record.length;
+        }
+        records.forEach(buffer::put);
+
+        return buffer.flip();
+    }
+
+    private static short ref(Map<String, Integer> refs, String s) {
+        return (short) (s != null ? refs.get(s) : NULL_STRING);
+    }
+
+    private static byte[] encodeString(String s) {
+        if (s == null) {
+            return new byte[]{(byte) 0xFF, (byte) 0xFF};
+        }
+
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("string too long: " + s.substring(0, 64) + "...");
+        }
+
+        return ByteBuffer.allocate(2 + bytes.length).putShort((short) bytes.length).put(bytes).array();
+    }
+
+    private static String readString(ByteBuffer reader) {
+        int length = reader.getShort() & 0xFFFF;
+        if (length == NULL_STRING) return null;
+
+        byte[] bytes = new byte[length];
+        reader.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //endregion
+
+    /**
+     * A branch or item in an {@link AddressSpaceIndex}.
+     */
+    public static final class Entry {
+
+        private final int index;
+        private final int parentIndex;
+        private final String itemPath;
+        private final String itemName;
+        private final String name;
+        private final boolean item;
+        private final boolean hasChildren;
+        private final QName dataType;
+        private final String accessRights;
+
+        /**
+         * @param parentIndex the index of the parent branch's entry, or -1 for a top-level entry.
+         */
+        public Entry(
+            int parentIndex,
+            String itemPath,
+            String itemName,
+            String name,
+            boolean item,
+            boolean hasChildren,
+            QName dataType,
+            String accessRights) {
+
+            this(-1, parentIndex, itemPath, itemName, name, item, hasChildren, dataType, accessRights);
+        }
+
+        Entry(
+            int index,
+            int parentIndex,
+            String itemPath,
+            String itemName,
+            String name,
+            boolean item,
+            boolean hasChildren,
+            QName dataType,
+            String accessRights) {
+
+            this.index = index;
+            this.parentIndex = parentIndex;
+            this.itemPath = itemPath;
+            this.itemName = itemName;
+            this.name = name;
+            this.item = item;
+            this.hasChildren = hasChildren;
+            this.dataType = dataType;
+            this.accessRights = accessRights;
+        }
+
+        /**
+         * @return the position of this entry in its index, or -1 if it is not part of one.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public int getParentIndex() {
+            return parentIndex;
+        }
+
+        public String getItemPath() {
+            return itemPath;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isItem() {
+            return item;
+        }
+
+        public boolean hasChildren() {
+            return hasChildren;
+        }
+
+        /**
+         * @return the item's canonical data type, or {@code null} if the server didn't return one.
+         */
+        public QName getDataType() {
+            return dataType;
+        }
+
+        /**
+         * @return the item's access rights, e.g. {@code readable} or {@code readWritable}, or {@code null} if the
+         * server didn't return them.
+         */
+        public String getAccessRights() {
+            return accessRights;
+        }
+
+        /**
+         * @return a copy of this entry with a different parent, for building a new index.
+         */
+        Entry withParentIndex(int parentIndex) {
+            return new Entry(parentIndex, itemPath, itemName, name, item, hasChildren, dataType, accessRights);
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                "itemPath='" + itemPath + '\'' +
+                ", itemName='" + itemName + '\'' +
+                ", item=" + item +
+                ", hasChildren=" + hasChildren +
+                ", dataType=" + dataType +
+                ", accessRights='" + accessRights + '\'' +
+                '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,355 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.BrowseElement;
+import org.opcfoundation.xmlda.ItemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps an {@link AddressSpaceIndex} of a server up to date, persisting it to a file so the next process can start
+ * from the previous catalog instead of browsing the whole address space first.
+ * <p>
+ * The index file, if it exists, is loaded when the indexer is built. {@link #refresh()} re-crawls the address
+ * space with an {@link AddressSpaceCrawler}, asking for the {@code dataType} and {@code accessRights} properties as
+ * part of each Browse rather than with a GetProperties per item; {@link #refresh(String, String)} re-crawls a
+ * single branch and merges it into the current index. {@link #getIndex()} returns the previous index until a
+ * refresh completes.
+ *
+ * @author Kevin Herron
+ */
+public class AddressSpaceIndexer {
+
+    private static final String OPC_NS = "http://opcfoundation.org/webservices/XMLDA/1.0/";
+
+    private static final QName DATA_TYPE = new QName(OPC_NS, "dataType");
+    private static final QName ACCESS_RIGHTS = new QName(OPC_NS, "accessRights");
+
+    private static final Logger LOG = LoggerFactory.getLogger(AddressSpaceIndexer.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile AddressSpaceIndex index;
+
+    private CompletableFuture<AddressSpaceIndex> refreshFuture;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private final OpcXmlDaClient client;
+    private final Path indexFile;
+    private final int maxConcurrentRequests;
+    private final int maxElementsReturned;
+    private final ScheduledExecutorService scheduler;
+
+    private AddressSpaceIndexer(
+        OpcXmlDaClient client,
+        Path indexFile,
+        int maxConcurrentRequests,
+        int maxElementsReturned,
+        ScheduledExecutorService scheduler,
+        AddressSpaceIndex index) {
+
+        this.client = client;
+        this.indexFile = indexFile;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxElementsReturned = maxElementsReturned;
+        this.scheduler = scheduler;
+        this.index = index;
+    }
+
+    /**
+     * @return the most recently loaded or refreshed index; empty if there is no index file and no refresh has
+     * completed yet.
+     */
+    public AddressSpaceIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Re-crawl the whole address space and replace the index with the result.
+     * <p>
+     * If a refresh is already running its future is returned instead of starting another.
+     */
+    public CompletableFuture<AddressSpaceIndex> refresh() {
+        return refresh(null, null);
+    }
+
+    /**
+     * Re-crawl the branch identified by {@code itemPath} and {@code itemName} and replace its descendants in the
+     * index with the result. A {@code null} ItemName refreshes the whole address space.
+     * <p>
+     * If a refresh is already running its future is returned instead of starting another.
+     */
+    public CompletableFuture<AddressSpaceIndex> refresh(String itemPath, String itemName) {
+        lock.lock();
+        try {
+            if (refreshFuture != null && !refreshFuture.isDone()) {
+                return refreshFuture;
+            }
+
+            AddressSpaceIndex current = index;
+            AddressSpaceIndex.Entry branch = itemName != null ? current.get(itemPath, itemName) : null;
+
+            if (itemName != null && branch == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    String.format("branch not in index: itemPath=%s, itemName=%s", itemPath, itemName)));
+            }
+
+            var collector = new EntryCollector();
+
+            AddressSpaceCrawler crawler = AddressSpaceCrawler.newBuilder(client)
+                .setMaxConcurrentRequests(maxConcurrentRequests)
+                .setMaxElementsReturned(maxElementsReturned)
+                .setBrowseCustomizer(request -> {
+                    request.setReturnPropertyValues(true);
+                    request.getPropertyNames().add(DATA_TYPE);
+                    request.getPropertyNames().add(ACCESS_RIGHTS);
+                })
+                .build();
+
+            CompletableFuture<AddressSpaceIndex> future = crawler
+                .resume(CrawlState.startingAt(itemPath, itemName), collector)
+                .thenApply(state -> {
+                    List<AddressSpaceIndex.Entry> entries = branch == null ?
+                        collector.entries : merge(current, branch.getIndex(), collector.entries);
+
+                    AddressSpaceIndex updated = AddressSpaceIndex.of(System.currentTimeMillis(), entries);
+
+                    if (indexFile != null) {
+                        try {
+                            updated.writeTo(indexFile);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    index = updated;
+
+                    return updated;
+                });
+
+            refreshFuture = future;
+
+            return future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Refresh the whole address space every {@code interval}, starting after {@code initialDelay}. Failed
+     * refreshes are logged and retried at the next interval.
+     */
+    public void startRefreshing(Duration initialDelay, Duration interval) {
+        lock.lock();
+        try {
+            stopRefreshing();
+
+            scheduledRefresh = scheduler.scheduleWithFixedDelay(
+                () -> refresh().whenComplete((updated, ex) -> {
+                    if (ex != null) {
+                        LOG.warn("Address space refresh failed: {}", ex.getMessage(), ex);
+                    } else {
+                        LOG.debug("Address space refreshed: {} entries", updated.size());
+                    }
+                }),
+                initialDelay.toMillis(),
+                interval.toMillis(),
+                TimeUnit.MILLISECONDS
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the periodic refresh started by {@link #startRefreshing(Duration, Duration)}. A refresh in progress
+     * is allowed to complete.
+     */
+    public void stopRefreshing() {
+        lock.lock();
+        try {
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+                scheduledRefresh = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replace the descendants of {@code branchIndex} in {@code current} with {@code subtree}, whose top-level
+     * entries have a parent index of -1 and whose other parent indices refer to {@code subtree}.
+     */
+    private static List<AddressSpaceIndex.Entry> merge(
+        AddressSpaceIndex current,
+        int branchIndex,
+        List<AddressSpaceIndex.Entry> subtree) {
+
+        int size = current.size();
+
+        // parents come before children, so one pass finds every descendant
+        var removed = new boolean[size];
+        var newIndices = new int[size];
+        var entries = new ArrayList<AddressSpaceIndex.Entry>(size + subtree.size());
+
+        for (int i = 0; i < size; i++) {
+            AddressSpaceIndex.Entry entry = current.get(i);
+            int parent = entry.getParentIndex();
+
+            if (parent >= 0 && (parent == branchIndex || removed[parent])) {
+                removed[i] = true;
+            } else {
+                newIndices[i] = entries.size();
+                entries.add(entry.withParentIndex(parent >= 0 ? newIndices[parent] : -1));
+            }
+        }
+
+        int offset = entries.size();
+        for (AddressSpaceIndex.Entry entry : subtree) {
+            int parent = entry.getParentIndex();
+            entries.add(entry.withParentIndex(parent < 0 ? newIndices[branchIndex] : parent + offset));
+        }
+
+        return entries;
+    }
+
+    public static Builder newBuilder(OpcXmlDaClient client) {
+        return new Builder(client);
+    }
+
+    /**
+     * Builds index entries from crawled elements. Calls are serialized by the crawler.
+     */
+    private static final class EntryCollector implements BrowseElementHandler {
+
+        private final List<AddressSpaceIndex.Entry> entries = new ArrayList<>();
+        private final Map<ItemKey, Integer> branches = new HashMap<>();
+
+        @Override
+        public void onElements(CrawlState.Position parent, List<BrowseElement> elements) {
+            Integer parentIndex = branches.get(new ItemKey(parent.getItemPath(), parent.getItemName(), null));
+
+            for (BrowseElement element : elements) {
+                QName dataType = null;
+                String accessRights = null;
+
+                for (ItemProperty property : element.getProperties()) {
+                    Object value = property.getValue();
+                    if (value == null || property.getName() == null) continue;
+
+                    if (DATA_TYPE.getLocalPart().equals(property.getName().getLocalPart())) {
+                        dataType = value instanceof QName ? (QName) value : QName.valueOf(value.toString());
+                    } else if (ACCESS_RIGHTS.getLocalPart().equals(property.getName().getLocalPart())) {
+                        accessRights = value.toString();
+                    }
+                }
+
+                if (element.isHasChildren()) {
+                    branches.put(new ItemKey(element.getItemPath(), element.getItemName(), null), entries.size());
+                }
+
+                entries.add(new AddressSpaceIndex.Entry(
+                    parentIndex != null ? parentIndex : -1,
+                    element.getItemPath(),
+                    element.getItemName(),
+                    element.getName(),
+                    element.isIsItem(),
+                    element.isHasChildren(),
+                    dataType,
+                    accessRights
+                ));
+            }
+        }
+
+    }
+
+    public static class Builder {
+
+        private Path indexFile;
+        private int maxConcurrentRequests = 4;
+        private int maxElementsReturned = 1000;
+        private ScheduledExecutorService scheduler;
+
+        private final OpcXmlDaClient client;
+
+        Builder(OpcXmlDaClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Set the file the index is loaded from and saved to. If not set, the index is kept in memory only.
+         */
+        public Builder setIndexFile(Path indexFile) {
+            this.indexFile = indexFile;
+            return this;
+        }
+
+        /**
+         * @see AddressSpaceCrawler.Builder#setMaxConcurrentRequests(int)
+         */
+        public Builder setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * @see AddressSpaceCrawler.Builder#setMaxElementsReturned(int)
+         */
+        public Builder setMaxElementsReturned(int maxElementsReturned) {
+            this.maxElementsReturned = maxElementsReturned;
+            return this;
+        }
+
+        /**
+         * Set the scheduler periodic refreshes run on. If not set, a daemon scheduler shared by all clients is
+         * used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Build the indexer, loading the index file if it exists. A file that can't be read is logged and ignored;
+         * it is replaced by the next refresh.
+         */
+        public AddressSpaceIndexer build() {
+            AddressSpaceIndex index = AddressSpaceIndex.empty();
+
+            if (indexFile != null && Files.exists(indexFile)) {
+                try {
+                    index = AddressSpaceIndex.load(indexFile);
+                } catch (IOException e) {
+                    LOG.warn("Ignoring unreadable address space index {}: {}", indexFile, e.getMessage());
+                }
+            }
+
+            return new AddressSpaceIndexer(
+                client,
+                indexFile,
+                maxConcurrentRequests,
+                maxElementsReturned,
+                scheduler != null ? scheduler : OpcXmlDaClient.sharedScheduler(),
+                index
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+
+import org.opcfoundation.xmlda.BrowseElement;
+import org.opcfoundation.xmlda.OPCError;
+
+/**
+ * Receives the {@link BrowseElement}s discovered by an {@link AddressSpaceCrawler}, one page at a time.
+ * <p>
+ * Calls are made one at a time, but not necessarily from the same thread.
+ *
+ * @author Kevin Herron
+ */
+@FunctionalInterface
+public interface BrowseElementHandler {
+
+    /**
+     * @param parent   the branch that was browsed.
+     * @param elements the next page of its children.
+     */
+    void onElements(CrawlState.Position parent, List<BrowseElement> elements);
+
+    /**
+     * Called when the server returns errors instead of children for a branch; the crawl continues without it.
+     */
+    default void onBranchErrors(CrawlState.Position parent, List<OPCError> errors) {}
+
+}
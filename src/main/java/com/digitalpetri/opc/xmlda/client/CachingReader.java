@@ -0,0 +1,160 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyBase;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.ServerState;
+
+/**
+ * Serves {@link Read} items from an {@link ItemValueCache} where their MaxAge allows and reads only the rest from
+ * the server, storing what comes back.
+ *
+ * @author Kevin Herron
+ */
+class CachingReader {
+
+    /**
+     * The ServerState from the most recent server reply, reported on replies served entirely from cache.
+     */
+    private volatile ServerState lastServerState;
+
+    private final ItemValueCache cache;
+    private final Function<Read, CompletableFuture<ReadResponse>> next;
+
+    CachingReader(ItemValueCache cache, Function<Read, CompletableFuture<ReadResponse>> next) {
+        this.cache = cache;
+        this.next = next;
+    }
+
+    CompletableFuture<ReadResponse> read(Read readRequest) {
+        ReadRequestItemList itemList = readRequest.getItemList();
+        if (itemList == null || itemList.getItems().isEmpty()) {
+            return next.apply(readRequest);
+        }
+
+        List<ReadRequestItem> items = itemList.getItems();
+        var keys = new ItemKey[items.size()];
+        var values = new ItemValue[items.size()];
+
+        var missList = new ReadRequestItemList();
+        missList.setItemPath(itemList.getItemPath());
+        missList.setReqType(itemList.getReqType());
+        missList.setMaxAge(itemList.getMaxAge());
+
+        for (int i = 0; i < items.size(); i++) {
+            ReadRequestItem item = items.get(i);
+            Integer maxAge = item.getMaxAge() != null ? item.getMaxAge() : itemList.getMaxAge();
+
+            keys[i] = ItemKey.of(item, itemList);
+
+            ItemValue cached = cache.get(keys[i], maxAge);
+            if (cached != null) {
+                values[i] = ItemValues.copy(cached);
+                values[i].setClientItemHandle(item.getClientItemHandle());
+            } else {
+                var miss = new ReadRequestItem();
+                miss.setItemPath(item.getItemPath());
+                miss.setItemName(item.getItemName());
+                miss.setReqType(item.getReqType());
+                miss.setMaxAge(item.getMaxAge());
+                miss.setClientItemHandle(String.valueOf(i));
+                missList.getItems().add(miss);
+            }
+        }
+
+        if (missList.getItems().isEmpty()) {
+            return CompletableFuture.completedFuture(cachedResponse(readRequest, values));
+        }
+
+        var missRead = new Read();
+        missRead.setOptions(readRequest.getOptions());
+        missRead.setItemList(missList);
+
+        long generation = cache.generation();
+
+        return next.apply(missRead).thenApply(response -> {
+            if (response.getReadResult() != null) {
+                lastServerState = response.getReadResult().getServerState();
+            }
+
+            List<ItemValue> replyItems = response.getRItemList() != null ?
+                response.getRItemList().getItems() : List.of();
+
+            Map<Integer, ItemValue> byIndex = indexReply(missList.getItems(), replyItems);
+
+            byIndex.forEach((index, itemValue) -> {
+                cache.put(keys[index], itemValue, generation);
+
+                itemValue.setClientItemHandle(items.get(index).getClientItemHandle());
+                values[index] = itemValue;
+            });
+
+            var replyList = new ReplyItemList();
+            for (ItemValue value : values) {
+                if (value != null) {
+                    replyList.getItems().add(value);
+                }
+            }
+            if (response.getRItemList() != null) {
+                replyList.setReserved(response.getRItemList().getReserved());
+            }
+
+            response.setRItemList(replyList);
+            return response;
+        });
+    }
+
+    /**
+     * Map each reply item to the index of the original request item it answers.
+     */
+    private static Map<Integer, ItemValue> indexReply(List<ReadRequestItem> requested, List<ItemValue> reply) {
+        var byIndex = new HashMap<Integer, ItemValue>(reply.size() * 2);
+
+        boolean echoed = reply.stream().allMatch(item -> item.getClientItemHandle() != null);
+
+        for (int i = 0; i < reply.size(); i++) {
+            ItemValue itemValue = reply.get(i);
+
+            if (echoed) {
+                byIndex.put(Integer.valueOf(itemValue.getClientItemHandle()), itemValue);
+            } else if (reply.size() == requested.size()) {
+                byIndex.put(Integer.valueOf(requested.get(i).getClientItemHandle()), itemValue);
+            }
+        }
+
+        return byIndex;
+    }
+
+    private ReadResponse cachedResponse(Read readRequest, ItemValue[] values) {
+        var now = XmlTime.fromEpochMillis(System.currentTimeMillis());
+
+        var replyBase = new ReplyBase();
+        replyBase.setRcvTime(now);
+        replyBase.setReplyTime(now);
+        replyBase.setServerState(lastServerState);
+        if (readRequest.getOptions() != null) {
+            replyBase.setClientRequestHandle(readRequest.getOptions().getClientRequestHandle());
+            replyBase.setRevisedLocaleID(readRequest.getOptions().getLocaleID());
+        }
+
+        var replyList = new ReplyItemList();
+        replyList.getItems().addAll(List.of(values));
+
+        var response = new ReadResponse();
+        response.setReadResult(replyBase);
+        response.setRItemList(replyList);
+        return response;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One request and its response, as captured by a {@link TrafficRecorder}.
+ *
+ * @author Kevin Herron
+ * @see TrafficReplayer
+ */
+public final class CapturedExchange {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CapturedExchange.class);
+
+    private final String operation;
+    private final long startTimeNanos;
+    private final long durationNanos;
+    private final int statusCode;
+    private final byte[] request;
+    private final byte[] response;
+
+    CapturedExchange(
+        String operation,
+        long startTimeNanos,
+        long durationNanos,
+        int statusCode,
+        byte[] request,
+        byte[] response) {
+
+        this.operation = operation;
+        this.startTimeNanos = startTimeNanos;
+        this.durationNanos = durationNanos;
+        this.statusCode = statusCode;
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * @return the SOAP operation, e.g. {@code Read} or {@code SubscriptionPolledRefresh}.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return when the request was sent, in nanoseconds since the epoch. Only differences between exchanges are
+     * exact; the absolute value is as accurate as the system clock when the recorder was started.
+     */
+    public long getStartTimeNanos() {
+        return startTimeNanos;
+    }
+
+    /**
+     * @return how long the server took to respond, in nanoseconds, from sending the request to receiving the
+     * response, not counting encoding or decoding.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the HTTP status of the response, or -1 if no response was received.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the request's SOAP envelope, uncompressed.
+     */
+    public byte[] getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the response's SOAP envelope, uncompressed, or an empty array if no response was received.
+     */
+    public byte[] getResponse() {
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return "CapturedExchange{" +
+            "operation=" + operation +
+            ", durationNanos=" + durationNanos +
+            ", statusCode=" + statusCode +
+            ", requestBytes=" + request.length +
+            ", responseBytes=" + response.length +
+            '}';
+    }
+
+    /**
+     * Read every exchange captured into {@code directory} by one or more {@link TrafficRecorder}s.
+     * <p>
+     * A segment whose last record was cut short, e.g. because the process died while writing it, is read up to
+     * that record.
+     *
+     * @return the exchanges, in the order their requests were sent.
+     */
+    public static List<CapturedExchange> read(Path directory) throws IOException {
+        var exchanges = new ArrayList<CapturedExchange>();
+
+        for (Path segment : TrafficRecorder.listSegments(directory)) {
+            try (InputStream in = Files.newInputStream(segment)) {
+                readSegment(new DataInputStream(new BufferedInputStream(new GZIPInputStream(in))), exchanges);
+            } catch (EOFException | ZipException e) {
+                LOG.debug("Capture segment {} ends in a partial record", segment);
+            }
+        }
+
+        exchanges.sort(Comparator.comparingLong(CapturedExchange::getStartTimeNanos));
+
+        return exchanges;
+    }
+
+    private static void readSegment(DataInputStream in, List<CapturedExchange> exchanges) throws IOException {
+        if (in.readInt() != TrafficRecorder.MAGIC) {
+            throw new IOException("not a traffic capture segment");
+        }
+        int version = in.readUnsignedByte();
+        if (version != TrafficRecorder.FORMAT_VERSION) {
+            throw new IOException("unsupported traffic capture format: " + version);
+        }
+        long epochNanos = in.readLong();
+
+        int marker;
+        while ((marker = in.read()) == TrafficRecorder.RECORD_MARKER) {
+            String operation = new String(readBytes(in), StandardCharsets.UTF_8);
+            long offsetNanos = in.readLong();
+            long durationNanos = in.readLong();
+            int statusCode = in.readInt();
+            byte[] request = readBytes(in);
+            byte[] response = readBytes(in);
+
+            exchanges.add(new CapturedExchange(
+                operation,
+                epochNanos + offsetNanos,
+                durationNanos,
+                statusCode,
+                request,
+                response
+            ));
+        }
+
+        if (marker != -1) {
+            throw new IOException("corrupt traffic capture segment");
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        var bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configures client-side change filtering for subscriptions, for servers that ignore the {@code Deadband} of a
+ * Subscribe request and report every value on every refresh.
+ * <p>
+ * Each subscription of an {@link OpcXmlDaSubscriptionManager} built with a filter remembers the last value it
+ * delivered for each item, and suppresses updates that don't differ from it according to the {@link Trigger} and
+ * deadband. Numeric values are compared against the deadband; other values must differ to be delivered.
+ * <p>
+ * The deadband of an item is the {@code Deadband} of its {@code SubscribeRequestItem}, or of the item list, or
+ * else {@link Builder#setDeadband(double)}. With {@link DeadbandType#PERCENT}, as the OPC XML-DA specification
+ * defines it, the deadband is a percentage of the item's engineering unit range, which must be given with
+ * {@link Builder#setEuRange(String, double, double)}; items without one are delivered on any change.
+ *
+ * @author Kevin Herron
+ * @see OpcXmlDaSubscription#getChangeFilterStats()
+ */
+public final class ChangeFilter {
+
+    /**
+     * What must change for an update to be delivered.
+     */
+    public enum Trigger {
+        /** The value. */
+        VALUE,
+        /** The value or the quality. */
+        VALUE_QUALITY,
+        /** The value, the quality or the timestamp. */
+        VALUE_QUALITY_TIMESTAMP
+    }
+
+    public enum DeadbandType {
+        /** The deadband is in the item's engineering units. */
+        ABSOLUTE,
+        /** The deadband is a percentage of the item's engineering unit range. */
+        PERCENT
+    }
+
+    private final Trigger trigger;
+    private final DeadbandType deadbandType;
+    private final double deadband;
+    private final Map<String, double[]> euRanges;
+
+    private ChangeFilter(Trigger trigger, DeadbandType deadbandType, double deadband, Map<String, double[]> euRanges) {
+        this.trigger = trigger;
+        this.deadbandType = deadbandType;
+        this.deadband = deadband;
+        this.euRanges = euRanges;
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public DeadbandType getDeadbandType() {
+        return deadbandType;
+    }
+
+    /**
+     * @return the deadband of items whose Subscribe request doesn't set one.
+     */
+    public double getDeadband() {
+        return deadband;
+    }
+
+    /**
+     * @return the smallest change in value of item {@code itemName} that is delivered for {@code deadband}, or 0
+     * if every change is.
+     */
+    double threshold(String itemName, double deadband) {
+        if (deadband <= 0.0) return 0.0;
+
+        if (deadbandType == DeadbandType.ABSOLUTE) {
+            return deadband;
+        }
+
+        double[] euRange = itemName != null ? euRanges.get(itemName) : null;
+
+        return euRange != null ? deadband / 100.0 * (euRange[1] - euRange[0]) : 0.0;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private Trigger trigger = Trigger.VALUE_QUALITY;
+        private DeadbandType deadbandType = DeadbandType.PERCENT;
+        private double deadband = 0.0;
+        private final Map<String, double[]> euRanges = new HashMap<>();
+
+        /**
+         * Set what must change for an update to be delivered. Defaults to {@link Trigger#VALUE_QUALITY}.
+         */
+        public Builder setTrigger(Trigger trigger) {
+            this.trigger = trigger;
+            return this;
+        }
+
+        /**
+         * Set how deadbands are interpreted. Defaults to {@link DeadbandType#PERCENT}.
+         */
+        public Builder setDeadbandType(DeadbandType deadbandType) {
+            this.deadbandType = deadbandType;
+            return this;
+        }
+
+        /**
+         * Set the deadband of items whose Subscribe request doesn't set one. Defaults to 0, delivering every
+         * change.
+         */
+        public Builder setDeadband(double deadband) {
+            this.deadband = deadband;
+            return this;
+        }
+
+        /**
+         * Set the engineering unit range of item {@code itemName}, which {@link DeadbandType#PERCENT} deadbands
+         * are a percentage of.
+         */
+        public Builder setEuRange(String itemName, double low, double high) {
+            euRanges.put(itemName, new double[]{low, high});
+            return this;
+        }
+
+        public ChangeFilter build() {
+            return new ChangeFilter(trigger, deadbandType, deadband, Map.copyOf(euRanges));
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * A snapshot of how many updates a subscription's {@link ChangeFilter} has let through and suppressed.
+ *
+ * @author Kevin Herron
+ */
+public final class ChangeFilterStats {
+
+    private final long received;
+    private final long suppressed;
+    private final long suppressedByDeadband;
+
+    ChangeFilterStats(long received, long suppressed, long suppressedByDeadband) {
+        this.received = received;
+        this.suppressed = suppressed;
+        this.suppressedByDeadband = suppressedByDeadband;
+    }
+
+    /**
+     * @return the number of updates received from the server.
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return the number of updates delivered to listeners.
+     */
+    public long getDelivered() {
+        return received - suppressed;
+    }
+
+    /**
+     * @return the number of updates suppressed, for any reason.
+     */
+    public long getSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * @return the number of updates suppressed because a numeric value changed by no more than the deadband.
+     */
+    public long getSuppressedByDeadband() {
+        return suppressedByDeadband;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeFilterStats{" +
+            "received=" + received +
+            ", suppressed=" + suppressed +
+            ", suppressedByDeadband=" + suppressedByDeadband +
+            '}';
+    }
+
+}
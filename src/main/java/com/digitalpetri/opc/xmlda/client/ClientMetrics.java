@@ -0,0 +1,60 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+
+/**
+ * Receives a timing and size breakdown of every request an {@link OpcXmlDaClient} sends.
+ * <p>
+ * Implementations are called on the thread that sent or completed the request, so they should be cheap and must
+ * be thread-safe. When a client has no metrics configured nothing is measured.
+ *
+ * @author Kevin Herron
+ * @see MicrometerClientMetrics
+ * @see JfrClientMetrics
+ */
+public interface ClientMetrics {
+
+    /**
+     * Called when a request for {@code operation}, e.g. {@code Read}, is about to be encoded.
+     *
+     * @return a context to pass back to {@link #onComplete(Object, OperationSample)}, or {@code null}.
+     */
+    default Object onStart(String operation) {
+        return null;
+    }
+
+    /**
+     * Called once the request has completed, successfully or not.
+     *
+     * @param context the value {@link #onStart(String)} returned for this request.
+     * @param sample  measurements of the request.
+     */
+    void onComplete(Object context, OperationSample sample);
+
+    /**
+     * @return a {@link ClientMetrics} that forwards to each of {@code metrics}.
+     */
+    static ClientMetrics composite(ClientMetrics... metrics) {
+        List<ClientMetrics> delegates = List.of(metrics);
+
+        return new ClientMetrics() {
+            @Override
+            public Object onStart(String operation) {
+                var contexts = new Object[delegates.size()];
+                for (int i = 0; i < contexts.length; i++) {
+                    contexts[i] = delegates.get(i).onStart(operation);
+                }
+                return contexts;
+            }
+
+            @Override
+            public void onComplete(Object context, OperationSample sample) {
+                var contexts = (Object[]) context;
+                for (int i = 0; i < contexts.length; i++) {
+                    delegates.get(i).onComplete(contexts[i], sample);
+                }
+            }
+        };
+    }
+
+}
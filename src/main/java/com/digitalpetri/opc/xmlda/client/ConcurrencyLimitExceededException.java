@@ -0,0 +1,39 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import org.springframework.ws.client.WebServiceClientException;
+
+/**
+ * Thrown when a request is rejected by a {@link ConcurrencyLimiter} without being sent, because its queue was full
+ * or the request waited in the queue for longer than allowed.
+ *
+ * @author Kevin Herron
+ */
+public class ConcurrencyLimitExceededException extends WebServiceClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+    private final int queueDepth;
+
+    public ConcurrencyLimitExceededException(String message, int limit, int queueDepth) {
+        super(message);
+
+        this.limit = limit;
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * @return the concurrency limit at the time the request was rejected.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of requests queued at the time the request was rejected.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+}
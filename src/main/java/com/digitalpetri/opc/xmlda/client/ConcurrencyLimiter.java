@@ -0,0 +1,463 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.ws.client.WebServiceTransportException;
+
+/**
+ * Limits the number of requests in flight to a server, adapting the limit to how the server copes.
+ * <p>
+ * The limit follows an additive-increase, multiplicative-decrease rule. Each request that completes in less than
+ * {@code latencyTolerance} times the lowest latency seen recently raises the limit by {@code 1 / limit}, so it
+ * grows by about one per round of requests. The rise only happens while at least half the limit is in use. The
+ * limit is multiplied by {@code backoffRatio} when a request times out or fails with an HTTP error status, and at
+ * most once per round of requests while requests are slower than that.
+ * <p>
+ * A request that arrives while the limit is reached waits in a FIFO queue. It is rejected with a
+ * {@link ConcurrencyLimitExceededException} if the queue is full, or if it waits longer than
+ * {@code maxQueueTime}.
+ * <p>
+ * A limiter can be shared by several clients that talk to the same server.
+ *
+ * @author Kevin Herron
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * Forget the lowest latency after this many samples so the baseline can follow a server that got slower.
+     */
+    private static final int MIN_LATENCY_WINDOW = 1000;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<CompletableFuture<Void>> queue = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight = 0;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private int samples = 0;
+    private int samplesSinceDecrease = 0;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int maxQueueSize;
+    private final Duration maxQueueTime;
+    private final ScheduledExecutorService scheduler;
+
+    private ConcurrencyLimiter(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double backoffRatio,
+        double latencyTolerance,
+        int maxQueueSize,
+        Duration maxQueueTime,
+        ScheduledExecutorService scheduler) {
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueTime = maxQueueTime;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Start {@code operation} once the limit allows it.
+     * <p>
+     * Cancelling the returned future removes the request from the queue if it is still waiting, so the operation
+     * is never started, or cancels the future the operation returned if it was already started.
+     *
+     * @return the operation's result, or a future failed with {@link ConcurrencyLimitExceededException} if it was
+     * rejected.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+        var result = new CompletableFuture<T>();
+
+        CompletableFuture<Void> permit = acquire();
+
+        permit.whenComplete((v, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                return;
+            }
+
+            if (result.isDone()) {
+                // cancelled after the permit was granted but before the operation was started
+                release(0L, new CancellationException());
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+
+            CompletableFuture<T> future;
+            try {
+                future = operation.get();
+            } catch (Throwable t) {
+                release(System.nanoTime() - startNanos, t);
+                result.completeExceptionally(t);
+                return;
+            }
+
+            future.whenComplete((r, failure) -> {
+                release(System.nanoTime() - startNanos, failure);
+
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(r);
+                }
+            });
+
+            result.whenComplete((r, failure) -> {
+                if (result.isCancelled()) future.cancel(true);
+            });
+        });
+
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) remove(permit);
+        });
+
+        return result;
+    }
+
+    /**
+     * Run {@code operation} on the calling thread once the limit allows it, blocking until then.
+     *
+     * @throws ConcurrencyLimitExceededException if the operation was rejected.
+     */
+    public <T> T execute(Supplier<T> operation) {
+        try {
+            acquire().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            T result = operation.get();
+            release(System.nanoTime() - startNanos, null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            release(System.nanoTime() - startNanos, e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the current limit on requests in flight.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for the limit to allow them.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests rejected because the queue was full or they waited too long.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the number of times the limit was lowered.
+     */
+    public long getDecreaseCount() {
+        return decreases.sum();
+    }
+
+    private CompletableFuture<Void> acquire() {
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (queue.size() >= maxQueueSize) {
+                rejected.increment();
+
+                return CompletableFuture.failedFuture(new ConcurrencyLimitExceededException(
+                    String.format("queue full: limit=%d, queueDepth=%d", (int) limit, queue.size()),
+                    (int) limit,
+                    queue.size()
+                ));
+            }
+
+            var waiter = new CompletableFuture<Void>();
+            queue.add(waiter);
+
+            if (maxQueueTime != null) {
+                scheduler.schedule(() -> expire(waiter), maxQueueTime.toNanos(), TimeUnit.NANOSECONDS);
+            }
+
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a waiter whose request was cancelled from the queue, if it is still waiting.
+     */
+    private void remove(CompletableFuture<Void> waiter) {
+        boolean removed;
+
+        lock.lock();
+        try {
+            removed = queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        if (removed) waiter.cancel(false);
+    }
+
+    private void expire(CompletableFuture<Void> waiter) {
+        int limit;
+        int queueDepth;
+
+        lock.lock();
+        try {
+            if (!queue.remove(waiter)) return;
+
+            limit = (int) this.limit;
+            queueDepth = queue.size();
+        } finally {
+            lock.unlock();
+        }
+
+        rejected.increment();
+
+        waiter.completeExceptionally(new ConcurrencyLimitExceededException(
+            String.format("timed out after %dms in queue: limit=%d, queueDepth=%d",
+                maxQueueTime.toMillis(), limit, queueDepth),
+            limit,
+            queueDepth
+        ));
+    }
+
+    private void release(long latencyNanos, Throwable failure) {
+        List<CompletableFuture<Void>> admitted;
+
+        lock.lock();
+        try {
+            if (failure == null) {
+                onSuccess(latencyNanos);
+            } else if (isOverload(failure)) {
+                decrease();
+            }
+
+            inFlight--;
+
+            admitted = new ArrayList<>();
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                admitted.add(queue.poll());
+                inFlight++;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        admitted.forEach(waiter -> waiter.complete(null));
+    }
+
+    private void onSuccess(long latencyNanos) {
+        if (++samples >= MIN_LATENCY_WINDOW) {
+            samples = 0;
+            minLatencyNanos = latencyNanos;
+        } else {
+            minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+        }
+
+        samplesSinceDecrease++;
+
+        if (latencyNanos > minLatencyNanos * latencyTolerance) {
+            // one slow round of requests should only lower the limit once
+            if (samplesSinceDecrease >= limit) {
+                decrease();
+            }
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private void decrease() {
+        decreases.increment();
+
+        limit = Math.max(minLimit, limit * backoffRatio);
+        samplesSinceDecrease = 0;
+    }
+
+    /**
+     * @return {@code true} if {@code failure} suggests the server is overloaded: a timeout or an HTTP error
+     * status, rather than e.g. a SOAP Fault.
+     */
+    private static boolean isOverload(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException ||
+                t instanceof SocketTimeoutException ||
+                t instanceof TimeoutException ||
+                t instanceof WebServiceTransportException) {
+
+                return true;
+            }
+            if (t.getCause() == t) break;
+        }
+
+        return false;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2.0;
+        private int maxQueueSize = 1000;
+        private Duration maxQueueTime;
+        private ScheduledExecutorService scheduler;
+
+        /**
+         * Set the limit to start with. Defaults to 20.
+         */
+        public Builder setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Set the lowest the limit can fall to. Defaults to 1.
+         */
+        public Builder setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * Set the highest the limit can rise to. Defaults to 200.
+         */
+        public Builder setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Set the factor the limit is multiplied by when the server appears overloaded. Defaults to 0.9.
+         */
+        public Builder setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Set how many times slower than the lowest recent latency a request may be before it counts as a sign of
+         * overload. Defaults to 2; raise it for clients whose requests vary widely in size.
+         */
+        public Builder setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Set the number of requests that may wait for the limit before further requests are rejected. Defaults
+         * to 1000; 0 rejects every request over the limit immediately.
+         */
+        public Builder setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * Set how long a request may wait for the limit before it is rejected, or {@code null} to wait
+         * indefinitely. Defaults to {@code null}.
+         */
+        public Builder setMaxQueueTime(Duration maxQueueTime) {
+            this.maxQueueTime = maxQueueTime;
+            return this;
+        }
+
+        /**
+         * Set the scheduler queue timeouts run on. If not set, a daemon scheduler shared by all clients is used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public ConcurrencyLimiter build() {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalArgumentException("require 1 <= minLimit <= maxLimit");
+            }
+            if (backoffRatio <= 0.0 || backoffRatio >= 1.0) {
+                throw new IllegalArgumentException("backoffRatio must be in (0, 1)");
+            }
+
+            return new ConcurrencyLimiter(
+                Math.max(minLimit, Math.min(maxLimit, initialLimit)),
+                minLimit,
+                maxLimit,
+                backoffRatio,
+                latencyTolerance,
+                maxQueueSize,
+                maxQueueTime,
+                scheduler != null ? scheduler : OpcXmlDaClient.sharedScheduler()
+            );
+        }
+
+    }
+
+}
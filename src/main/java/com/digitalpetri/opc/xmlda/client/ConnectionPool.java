@@ -0,0 +1,109 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * The pooling connection manager behind the blocking transport, counting the connections it opens.
+ * <p>
+ * A pool shared by the clients of an {@link OpcXmlDaClientPool} hands each client a view scoped to the route of
+ * its server; see {@link #forServer(URI, int)}.
+ *
+ * @author Kevin Herron
+ */
+class ConnectionPool {
+
+    private final LongAdder connectionsCreated;
+    private final Map<HttpRoute, LongAdder> connectionsCreatedByRoute;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * The route this view is scoped to, or {@code null} for the whole pool.
+     */
+    private final HttpRoute route;
+
+    ConnectionPool(int maxConnections, int maxConnectionsPerRoute) {
+        connectionsCreated = new LongAdder();
+        connectionsCreatedByRoute = new ConcurrentHashMap<>();
+
+        connectionManager = new PoolingHttpClientConnectionManager((route, config) -> {
+            connectionsCreated.increment();
+            connectionsCreatedByRoute.computeIfAbsent(route, r -> new LongAdder()).increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        });
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        route = null;
+    }
+
+    private ConnectionPool(ConnectionPool pool, HttpRoute route) {
+        this.connectionsCreated = pool.connectionsCreated;
+        this.connectionsCreatedByRoute = pool.connectionsCreatedByRoute;
+        this.connectionManager = pool.connectionManager;
+        this.route = route;
+    }
+
+    /**
+     * Get a view of this pool for the server at {@code serverUri}, allowing it up to {@code maxConnections}
+     * connections.
+     */
+    ConnectionPool forServer(URI serverUri, int maxConnections) {
+        HttpRoute serverRoute = route(serverUri);
+
+        connectionManager.setMaxPerRoute(serverRoute, maxConnections);
+
+        return new ConnectionPool(this, serverRoute);
+    }
+
+    /**
+     * @return the route this view is scoped to, or {@code null} if it covers the whole pool.
+     */
+    HttpRoute getRoute() {
+        return route;
+    }
+
+    PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    ConnectionPoolStats getStats() {
+        PoolStats stats = route != null ? connectionManager.getStats(route) : connectionManager.getTotalStats();
+
+        long created;
+        if (route != null) {
+            LongAdder routeCreated = connectionsCreatedByRoute.get(route);
+            created = routeCreated != null ? routeCreated.sum() : 0L;
+        } else {
+            created = connectionsCreated.sum();
+        }
+
+        return new ConnectionPoolStats(
+            stats.getLeased(),
+            stats.getAvailable(),
+            stats.getPending(),
+            stats.getMax(),
+            created
+        );
+    }
+
+    /**
+     * @return the route HttpClient plans for a request to {@code serverUri} when no proxy is configured.
+     */
+    static HttpRoute route(URI serverUri) {
+        boolean secure = "https".equalsIgnoreCase(serverUri.getScheme());
+        int port = serverUri.getPort() > 0 ? serverUri.getPort() : secure ? 443 : 80;
+
+        return new HttpRoute(new HttpHost(serverUri.getHost(), port, serverUri.getScheme()), null, secure);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * A snapshot of the state of the connection pool used by the blocking transport.
+ *
+ * @author Kevin Herron
+ */
+public final class ConnectionPoolStats {
+
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+    private final long connectionsCreated;
+
+    ConnectionPoolStats(int leased, int available, int pending, int max, long connectionsCreated) {
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+        this.connectionsCreated = connectionsCreated;
+    }
+
+    /**
+     * @return the number of connections currently carrying a request.
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * @return the number of idle, open connections kept for reuse.
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * @return the number of requests waiting for a connection.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return the maximum number of connections.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return the number of connections opened since the client was created; growth while the number of leased
+     * and available connections stays flat indicates connection churn.
+     */
+    public long getConnectionsCreated() {
+        return connectionsCreated;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+            "leased=" + leased +
+            ", available=" + available +
+            ", pending=" + pending +
+            ", max=" + max +
+            ", connectionsCreated=" + connectionsCreated +
+            '}';
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The frontier of an {@link AddressSpaceCrawler}: the branches, and pages of branches, still to be browsed.
+ * <p>
+ * A crawl that was stopped or failed can be resumed from its state with
+ * {@link AddressSpaceCrawler#resume(CrawlState, BrowseElementHandler)}; pages that were in flight when it
+ * stopped are browsed again, as are branches whose ContinuationPoint the server no longer accepts, so a handler
+ * may see some elements twice.
+ *
+ * @author Kevin Herron
+ */
+public final class CrawlState {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<Position> pending;
+    private final long elementCount;
+
+    CrawlState(List<Position> pending, long elementCount) {
+        this.pending = Collections.unmodifiableList(new ArrayList<>(pending));
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * @return a state that starts a crawl at the given branch.
+     */
+    public static CrawlState startingAt(String itemPath, String itemName) {
+        return new CrawlState(List.of(new Position(itemPath, itemName, null)), 0L);
+    }
+
+    public List<Position> getPending() {
+        return pending;
+    }
+
+    /**
+     * @return the number of elements delivered before this state was taken.
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * @return {@code true} if there is nothing left to browse.
+     */
+    public boolean isComplete() {
+        return pending.isEmpty();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        var data = new DataOutputStream(out);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(elementCount);
+        data.writeInt(pending.size());
+        for (Position position : pending) {
+            writeNullable(data, position.getItemPath());
+            writeNullable(data, position.getItemName());
+            writeNullable(data, position.getContinuationPoint());
+        }
+        data.flush();
+    }
+
+    public static CrawlState readFrom(InputStream in) throws IOException {
+        var data = new DataInputStream(in);
+
+        int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported CrawlState format: " + version);
+        }
+
+        long elementCount = data.readLong();
+        int size = data.readInt();
+
+        var pending = new ArrayList<Position>(size);
+        for (int i = 0; i < size; i++) {
+            pending.add(new Position(readNullable(data), readNullable(data), readNullable(data)));
+        }
+
+        return new CrawlState(pending, elementCount);
+    }
+
+    private static void writeNullable(DataOutputStream data, String s) throws IOException {
+        data.writeBoolean(s != null);
+        if (s != null) data.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlState{pending=" + pending.size() + ", elementCount=" + elementCount + '}';
+    }
+
+    /**
+     * A branch to browse, and the ContinuationPoint to resume browsing it from, if any.
+     */
+    public static final class Position {
+
+        private final String itemPath;
+        private final String itemName;
+        private final String continuationPoint;
+
+        public Position(String itemPath, String itemName, String continuationPoint) {
+            this.itemPath = itemPath;
+            this.itemName = itemName;
+            this.continuationPoint = continuationPoint;
+        }
+
+        public String getItemPath() {
+            return itemPath;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public String getContinuationPoint() {
+            return continuationPoint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Position position = (Position) o;
+            return Objects.equals(itemPath, position.itemPath) &&
+                Objects.equals(itemName, position.itemName) &&
+                Objects.equals(continuationPoint, position.continuationPoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(itemPath, itemName, continuationPoint);
+        }
+
+        @Override
+        public String toString() {
+            return "Position{" +
+                "itemPath='" + itemPath + '\'' +
+                ", itemName='" + itemName + '\'' +
+                ", continuationPoint='" + continuationPoint + '\'' +
+                '}';
+        }
+
+    }
+
+}
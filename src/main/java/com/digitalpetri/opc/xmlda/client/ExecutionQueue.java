@@ -0,0 +1,70 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs submitted tasks one at a time, in submission order, on an underlying {@link Executor}.
+ *
+ * @author Kevin Herron
+ */
+class ExecutionQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionQueue.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean running = false;
+
+    private final Executor executor;
+
+    ExecutionQueue(Executor executor) {
+        this.executor = executor;
+    }
+
+    void submit(Runnable task) {
+        lock.lock();
+        try {
+            tasks.add(task);
+
+            if (running) {
+                return;
+            }
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+
+        executor.execute(this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+
+            lock.lock();
+            try {
+                task = tasks.poll();
+
+                if (task == null) {
+                    running = false;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.warn("Uncaught Throwable running queued task.", t);
+            }
+        }
+    }
+
+}
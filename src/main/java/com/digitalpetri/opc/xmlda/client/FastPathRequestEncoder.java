@@ -0,0 +1,522 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.xml.XMLConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.LimitBits;
+import org.opcfoundation.xmlda.OPCQuality;
+import org.opcfoundation.xmlda.QualityBits;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.RequestOptions;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+
+/**
+ * {@link RequestEncoder} that writes Read, Write and SubscriptionPolledRefresh envelopes directly as UTF-8 into a
+ * per-thread buffer, using pre-encoded fragments for all markup.
+ * <p>
+ * Requests it cannot encode (other operations, ReqTypes outside the XML Schema namespace, values of types other
+ * than the XML Schema primitives) are delegated to a fallback encoder, normally JAXB.
+ *
+ * @author Kevin Herron
+ */
+class FastPathRequestEncoder implements RequestEncoder {
+
+    private static final String OPC_NS = "http://opcfoundation.org/webservices/XMLDA/1.0/";
+
+    private static final byte[] ENVELOPE_START = bytes(
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<soap:Envelope xmlns:soap=\"" + HttpSoapTransport.SOAP_ENV_NS + "\"" +
+            " xmlns:xsd=\"" + XMLConstants.W3C_XML_SCHEMA_NS_URI + "\"" +
+            " xmlns:xsi=\"" + XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI + "\">" +
+            "<soap:Body>"
+    );
+    private static final byte[] ENVELOPE_END = bytes("</soap:Body></soap:Envelope>");
+
+    private static final byte[] READ_START = bytes("<Read xmlns=\"" + OPC_NS + "\">");
+    private static final byte[] READ_END = bytes("</Read>");
+    private static final byte[] WRITE_START = bytes("<Write xmlns=\"" + OPC_NS + "\"");
+    private static final byte[] WRITE_END = bytes("</Write>");
+    private static final byte[] REFRESH_START = bytes("<SubscriptionPolledRefresh xmlns=\"" + OPC_NS + "\"");
+    private static final byte[] REFRESH_END = bytes("</SubscriptionPolledRefresh>");
+
+    private static final byte[] OPTIONS_START = bytes("<Options");
+    private static final byte[] ITEM_LIST_START = bytes("<ItemList");
+    private static final byte[] ITEM_LIST_END = bytes("</ItemList>");
+    private static final byte[] ITEMS_START = bytes("<Items");
+    private static final byte[] ITEMS_END = bytes("</Items>");
+    private static final byte[] DIAGNOSTIC_INFO_START = bytes("<DiagnosticInfo>");
+    private static final byte[] DIAGNOSTIC_INFO_END = bytes("</DiagnosticInfo>");
+    private static final byte[] VALUE_START = bytes("<Value xsi:type=\"xsd:");
+    private static final byte[] VALUE_END = bytes("</Value>");
+    private static final byte[] QUALITY_START = bytes("<Quality");
+    private static final byte[] SERVER_SUB_HANDLES_START = bytes("<ServerSubHandles>");
+    private static final byte[] SERVER_SUB_HANDLES_END = bytes("</ServerSubHandles>");
+
+    private static final byte[] ATTR_RETURN_ERROR_TEXT = bytes(" ReturnErrorText=\"");
+    private static final byte[] ATTR_RETURN_DIAGNOSTIC_INFO = bytes(" ReturnDiagnosticInfo=\"");
+    private static final byte[] ATTR_RETURN_ITEM_TIME = bytes(" ReturnItemTime=\"");
+    private static final byte[] ATTR_RETURN_ITEM_PATH = bytes(" ReturnItemPath=\"");
+    private static final byte[] ATTR_RETURN_ITEM_NAME = bytes(" ReturnItemName=\"");
+    private static final byte[] ATTR_REQUEST_DEADLINE = bytes(" RequestDeadline=\"");
+    private static final byte[] ATTR_CLIENT_REQUEST_HANDLE = bytes(" ClientRequestHandle=\"");
+    private static final byte[] ATTR_LOCALE_ID = bytes(" LocaleID=\"");
+    private static final byte[] ATTR_ITEM_PATH = bytes(" ItemPath=\"");
+    private static final byte[] ATTR_ITEM_NAME = bytes(" ItemName=\"");
+    private static final byte[] ATTR_REQ_TYPE = bytes(" ReqType=\"");
+    private static final byte[] ATTR_CLIENT_ITEM_HANDLE = bytes(" ClientItemHandle=\"");
+    private static final byte[] ATTR_MAX_AGE = bytes(" MaxAge=\"");
+    private static final byte[] ATTR_RETURN_VALUES_ON_REPLY = bytes(" ReturnValuesOnReply=\"");
+    private static final byte[] ATTR_VALUE_TYPE_QUALIFIER = bytes(" ValueTypeQualifier=\"");
+    private static final byte[] ATTR_TIMESTAMP = bytes(" Timestamp=\"");
+    private static final byte[] ATTR_RESULT_ID = bytes(" ResultID=\"");
+    private static final byte[] ATTR_QUALITY_FIELD = bytes(" QualityField=\"");
+    private static final byte[] ATTR_LIMIT_FIELD = bytes(" LimitField=\"");
+    private static final byte[] ATTR_VENDOR_FIELD = bytes(" VendorField=\"");
+    private static final byte[] ATTR_HOLD_TIME = bytes(" HoldTime=\"");
+    private static final byte[] ATTR_WAIT_TIME = bytes(" WaitTime=\"");
+    private static final byte[] ATTR_RETURN_ALL_ITEMS = bytes(" ReturnAllItems=\"");
+
+    private static final byte[] TRUE = bytes("true");
+    private static final byte[] FALSE = bytes("false");
+
+    /**
+     * Buffers that grew beyond this while encoding an unusually large request are not kept for reuse.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<Utf8Buffer> BUFFERS = ThreadLocal.withInitial(() -> new Utf8Buffer(8192));
+
+    private final RequestEncoder fallback;
+
+    FastPathRequestEncoder(RequestEncoder fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] encode(Object requestPayload) throws IOException {
+        if (!(requestPayload instanceof Read ||
+            requestPayload instanceof Write ||
+            requestPayload instanceof SubscriptionPolledRefresh)) {
+
+            return fallback.encode(requestPayload);
+        }
+
+        // Virtual threads are cheap and plentiful, so a buffer per thread would rarely be reused; give each
+        // request on one its own buffer instead.
+        boolean virtual = VirtualThreads.isVirtual(Thread.currentThread());
+
+        Utf8Buffer buffer = virtual ? new Utf8Buffer(8192) : BUFFERS.get();
+        buffer.reset();
+
+        try {
+            buffer.raw(ENVELOPE_START);
+
+            if (requestPayload instanceof Read) {
+                writeRead(buffer, (Read) requestPayload);
+            } else if (requestPayload instanceof Write) {
+                writeWrite(buffer, (Write) requestPayload);
+            } else {
+                writeRefresh(buffer, (SubscriptionPolledRefresh) requestPayload);
+            }
+
+            buffer.raw(ENVELOPE_END);
+
+            return buffer.toByteArray();
+        } catch (UnsupportedContentException e) {
+            return fallback.encode(requestPayload);
+        } finally {
+            if (!virtual && buffer.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    private static void writeRead(Utf8Buffer buffer, Read read) {
+        buffer.raw(READ_START);
+
+        writeOptions(buffer, read.getOptions());
+
+        ReadRequestItemList itemList = read.getItemList();
+        if (itemList != null) {
+            buffer.raw(ITEM_LIST_START);
+            buffer.attribute(ATTR_ITEM_PATH, itemList.getItemPath());
+            buffer.qnameAttribute(ATTR_REQ_TYPE, itemList.getReqType());
+            buffer.intAttribute(ATTR_MAX_AGE, itemList.getMaxAge());
+            buffer.raw('>');
+
+            for (ReadRequestItem item : itemList.getItems()) {
+                buffer.raw(ITEMS_START);
+                buffer.attribute(ATTR_ITEM_PATH, item.getItemPath());
+                buffer.qnameAttribute(ATTR_REQ_TYPE, item.getReqType());
+                buffer.attribute(ATTR_ITEM_NAME, item.getItemName());
+                buffer.attribute(ATTR_CLIENT_ITEM_HANDLE, item.getClientItemHandle());
+                buffer.intAttribute(ATTR_MAX_AGE, item.getMaxAge());
+                buffer.raw('/').raw('>');
+            }
+
+            buffer.raw(ITEM_LIST_END);
+        }
+
+        buffer.raw(READ_END);
+    }
+
+    private static void writeWrite(Utf8Buffer buffer, Write write) {
+        buffer.raw(WRITE_START);
+        buffer.booleanAttribute(ATTR_RETURN_VALUES_ON_REPLY, write.isReturnValuesOnReply());
+        buffer.raw('>');
+
+        writeOptions(buffer, write.getOptions());
+
+        WriteRequestItemList itemList = write.getItemList();
+        if (itemList != null) {
+            buffer.raw(ITEM_LIST_START);
+            buffer.attribute(ATTR_ITEM_PATH, itemList.getItemPath());
+            buffer.raw('>');
+
+            for (ItemValue item : itemList.getItems()) {
+                writeItemValue(buffer, item);
+            }
+
+            buffer.raw(ITEM_LIST_END);
+        }
+
+        buffer.raw(WRITE_END);
+    }
+
+    private static void writeRefresh(Utf8Buffer buffer, SubscriptionPolledRefresh refresh) {
+        buffer.raw(REFRESH_START);
+        buffer.calendarAttribute(ATTR_HOLD_TIME, refresh.getHoldTime());
+        if (refresh.getWaitTime() != 0) {
+            buffer.intAttribute(ATTR_WAIT_TIME, refresh.getWaitTime());
+        }
+        buffer.booleanAttribute(ATTR_RETURN_ALL_ITEMS, refresh.isReturnAllItems(), false);
+        buffer.raw('>');
+
+        writeOptions(buffer, refresh.getOptions());
+
+        for (String handle : refresh.getServerSubHandles()) {
+            buffer.raw(SERVER_SUB_HANDLES_START);
+            buffer.text(handle);
+            buffer.raw(SERVER_SUB_HANDLES_END);
+        }
+
+        buffer.raw(REFRESH_END);
+    }
+
+    private static void writeOptions(Utf8Buffer buffer, RequestOptions options) {
+        if (options == null) return;
+
+        buffer.raw(OPTIONS_START);
+        buffer.booleanAttribute(ATTR_RETURN_ERROR_TEXT, options.isReturnErrorText(), true);
+        buffer.booleanAttribute(ATTR_RETURN_DIAGNOSTIC_INFO, options.isReturnDiagnosticInfo(), false);
+        buffer.booleanAttribute(ATTR_RETURN_ITEM_TIME, options.isReturnItemTime(), false);
+        buffer.booleanAttribute(ATTR_RETURN_ITEM_PATH, options.isReturnItemPath(), false);
+        buffer.booleanAttribute(ATTR_RETURN_ITEM_NAME, options.isReturnItemName(), false);
+        buffer.calendarAttribute(ATTR_REQUEST_DEADLINE, options.getRequestDeadline());
+        buffer.attribute(ATTR_CLIENT_REQUEST_HANDLE, options.getClientRequestHandle());
+        buffer.attribute(ATTR_LOCALE_ID, options.getLocaleID());
+        buffer.raw('/').raw('>');
+    }
+
+    private static void writeItemValue(Utf8Buffer buffer, ItemValue item) {
+        buffer.raw(ITEMS_START);
+        buffer.qnameAttribute(ATTR_VALUE_TYPE_QUALIFIER, item.getValueTypeQualifier());
+        buffer.attribute(ATTR_ITEM_PATH, item.getItemPath());
+        buffer.attribute(ATTR_ITEM_NAME, item.getItemName());
+        buffer.attribute(ATTR_CLIENT_ITEM_HANDLE, item.getClientItemHandle());
+        buffer.calendarAttribute(ATTR_TIMESTAMP, item.getTimestamp());
+        buffer.qnameAttribute(ATTR_RESULT_ID, item.getResultID());
+        buffer.raw('>');
+
+        if (item.getDiagnosticInfo() != null) {
+            buffer.raw(DIAGNOSTIC_INFO_START);
+            buffer.text(item.getDiagnosticInfo());
+            buffer.raw(DIAGNOSTIC_INFO_END);
+        }
+
+        if (item.getValue() != null) {
+            writeValue(buffer, item.getValue());
+        }
+
+        OPCQuality quality = item.getQuality();
+        if (quality != null) {
+            buffer.raw(QUALITY_START);
+            if (quality.getQualityField() != QualityBits.GOOD) {
+                buffer.attribute(ATTR_QUALITY_FIELD, quality.getQualityField().value());
+            }
+            if (quality.getLimitField() != LimitBits.NONE) {
+                buffer.attribute(ATTR_LIMIT_FIELD, quality.getLimitField().value());
+            }
+            if (quality.getVendorField() != 0) {
+                buffer.intAttribute(ATTR_VENDOR_FIELD, (int) quality.getVendorField());
+            }
+            buffer.raw('/').raw('>');
+        }
+
+        buffer.raw(ITEMS_END);
+    }
+
+    private static void writeValue(Utf8Buffer buffer, Object value) {
+        String type;
+        String text;
+
+        if (value instanceof String) {
+            type = "string";
+            text = (String) value;
+        } else if (value instanceof Double) {
+            type = "double";
+            text = xsdDouble((Double) value);
+        } else if (value instanceof Float) {
+            type = "float";
+            text = xsdDouble((Float) value);
+        } else if (value instanceof Integer) {
+            type = "int";
+            text = value.toString();
+        } else if (value instanceof Long) {
+            type = "long";
+            text = value.toString();
+        } else if (value instanceof Short) {
+            type = "short";
+            text = value.toString();
+        } else if (value instanceof Byte) {
+            type = "byte";
+            text = value.toString();
+        } else if (value instanceof Boolean) {
+            type = "boolean";
+            text = value.toString();
+        } else if (value instanceof BigDecimal) {
+            type = "decimal";
+            text = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof XMLGregorianCalendar) {
+            type = "dateTime";
+            text = ((XMLGregorianCalendar) value).toXMLFormat();
+        } else {
+            throw UnsupportedContentException.INSTANCE;
+        }
+
+        buffer.raw(VALUE_START);
+        buffer.ascii(type);
+        buffer.raw('"').raw('>');
+        buffer.text(text);
+        buffer.raw(VALUE_END);
+    }
+
+    private static String xsdDouble(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (value == Double.POSITIVE_INFINITY) return "INF";
+        if (value == Double.NEGATIVE_INFINITY) return "-INF";
+        return Double.toString(value);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Signals that a request contains something only the fallback encoder can write.
+     */
+    private static final class UnsupportedContentException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        static final UnsupportedContentException INSTANCE = new UnsupportedContentException();
+
+        private UnsupportedContentException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /**
+     * Growable byte buffer that encodes and XML-escapes strings as UTF-8.
+     */
+    static final class Utf8Buffer {
+
+        private byte[] bytes;
+        private int length = 0;
+
+        Utf8Buffer(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        Utf8Buffer raw(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+            return this;
+        }
+
+        Utf8Buffer raw(char c) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) c;
+            return this;
+        }
+
+        /**
+         * Append {@code s}, known to be ASCII and free of markup characters, without escaping.
+         */
+        void ascii(String s) {
+            ensureCapacity(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+        }
+
+        void attribute(byte[] nameEq, String value) {
+            if (value == null) return;
+
+            raw(nameEq);
+            escaped(value, true);
+            raw('"');
+        }
+
+        void intAttribute(byte[] nameEq, Integer value) {
+            if (value == null) return;
+
+            raw(nameEq);
+            ascii(Integer.toString(value));
+            raw('"');
+        }
+
+        /**
+         * Write a boolean attribute unless it has its schema default value; the generated getters cannot tell an
+         * absent attribute from one explicitly set to its default.
+         */
+        void booleanAttribute(byte[] nameEq, boolean value, boolean defaultValue) {
+            if (value == defaultValue) return;
+
+            raw(nameEq);
+            raw(value ? TRUE : FALSE);
+            raw('"');
+        }
+
+        void booleanAttribute(byte[] nameEq, boolean value) {
+            raw(nameEq);
+            raw(value ? TRUE : FALSE);
+            raw('"');
+        }
+
+        void calendarAttribute(byte[] nameEq, XMLGregorianCalendar value) {
+            if (value == null) return;
+
+            raw(nameEq);
+            ascii(value.toXMLFormat());
+            raw('"');
+        }
+
+        /**
+         * Write a QName-valued attribute; only names in the XML Schema namespace, which the envelope binds to
+         * {@code xsd}, or without a namespace can be written.
+         */
+        void qnameAttribute(byte[] nameEq, QName value) {
+            if (value == null) return;
+
+            String namespace = value.getNamespaceURI();
+
+            raw(nameEq);
+            if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(namespace)) {
+                ascii("xsd:");
+            } else if (!namespace.isEmpty()) {
+                throw UnsupportedContentException.INSTANCE;
+            }
+            escaped(value.getLocalPart(), true);
+            raw('"');
+        }
+
+        void text(String value) {
+            escaped(value, false);
+        }
+
+        private void escaped(String s, boolean attribute) {
+            int n = s.length();
+            ensureCapacity(n);
+
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+
+                if (c < 0x80) {
+                    switch (c) {
+                        case '&':
+                            raw(AMP);
+                            break;
+                        case '<':
+                            raw(LT);
+                            break;
+                        case '>':
+                            raw(GT);
+                            break;
+                        case '"':
+                            raw(QUOT);
+                            break;
+                        case '\t':
+                            if (attribute) raw(TAB); else raw(c);
+                            break;
+                        case '\n':
+                            if (attribute) raw(LF); else raw(c);
+                            break;
+                        case '\r':
+                            raw(CR);
+                            break;
+                        default:
+                            raw(c);
+                            break;
+                    }
+                } else if (c < 0x800) {
+                    ensureCapacity(2);
+                    bytes[length++] = (byte) (0xC0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    ensureCapacity(4);
+                    bytes[length++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    ensureCapacity(3);
+                    bytes[length++] = (byte) (0xE0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+            }
+        }
+
+        private static final byte[] AMP = bytes("&amp;");
+        private static final byte[] LT = bytes("&lt;");
+        private static final byte[] GT = bytes("&gt;");
+        private static final byte[] QUOT = bytes("&quot;");
+        private static final byte[] TAB = bytes("&#9;");
+        private static final byte[] LF = bytes("&#10;");
+        private static final byte[] CR = bytes("&#13;");
+
+    }
+
+}
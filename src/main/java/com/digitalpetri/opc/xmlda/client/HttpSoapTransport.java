@@ -0,0 +1,496 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.WebServiceTransportException;
+
+/**
+ * Non-blocking SOAP 1.1 transport built on the JDK {@link HttpClient}.
+ * <p>
+ * Requests are encoded into a SOAP envelope by a {@link RequestEncoder} on the calling thread, sent with
+ * {@link HttpClient#sendAsync(HttpRequest, HttpResponse.BodyHandler)} and unmarshalled on the
+ * {@link HttpClient}'s executor once the full response body has arrived, so no thread is parked
+ * while a request is in flight.
+ *
+ * @author Kevin Herron
+ */
+class HttpSoapTransport {
+
+    static final String SOAP_ENV_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private static final String CONTENT_TYPE = "text/xml; charset=utf-8";
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+
+    private final HttpClient httpClient;
+    private final URI serverUri;
+    private final Duration requestTimeout;
+    private final JAXBContext jaxbContext;
+    private final RequestEncoder requestEncoder;
+    private final boolean requestCompression;
+    private final boolean responseCompression;
+
+    private volatile ClientMetrics metrics;
+    private volatile TrafficRecorder recorder;
+
+    HttpSoapTransport(HttpClient httpClient, URI serverUri, Duration requestTimeout, JAXBContext jaxbContext) {
+        this(httpClient, serverUri, requestTimeout, jaxbContext, RequestEncoding.JAXB, false, true);
+    }
+
+    /**
+     * @param requestCompression  gzip request bodies.
+     * @param responseCompression accept gzip-compressed response bodies.
+     */
+    HttpSoapTransport(
+        HttpClient httpClient,
+        URI serverUri,
+        Duration requestTimeout,
+        JAXBContext jaxbContext,
+        RequestEncoding requestEncoding,
+        boolean requestCompression,
+        boolean responseCompression) {
+
+        this.httpClient = httpClient;
+        this.serverUri = serverUri;
+        this.requestTimeout = requestTimeout;
+        this.jaxbContext = jaxbContext;
+        this.requestCompression = requestCompression;
+        this.responseCompression = responseCompression;
+
+        RequestEncoder jaxbEncoder = new JaxbRequestEncoder(jaxbContext);
+        this.requestEncoder = requestEncoding == RequestEncoding.FAST_PATH ?
+            new FastPathRequestEncoder(jaxbEncoder) : jaxbEncoder;
+
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Encode {@code requestPayload} as a SOAP envelope the way this transport would send it.
+     */
+    byte[] encode(Object requestPayload) throws IOException {
+        return requestEncoder.encode(requestPayload);
+    }
+
+    /**
+     * Report every request this transport sends to {@code metrics}, or to nothing if {@code null}.
+     */
+    void setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Capture every request this transport sends, and its response, to {@code recorder}, or to nothing if
+     * {@code null}.
+     */
+    void setRecorder(TrafficRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    <T> CompletableFuture<T> invoke(OpcXmlDaClient.SoapAction soapAction, Object requestPayload, Class<T> responseClass) {
+        return invoke(soapAction, requestPayload, responseClass, requestTimeout);
+    }
+
+    <T> CompletableFuture<T> invoke(
+        OpcXmlDaClient.SoapAction soapAction,
+        Object requestPayload,
+        Class<T> responseClass,
+        Duration timeout) {
+
+        return invoke(soapAction, requestPayload, requestEncoder, responseClass, timeout);
+    }
+
+    /**
+     * Invoke {@code soapAction}, encoding the request envelope with {@code encoder} instead of this transport's
+     * {@link RequestEncoder}, e.g. to send a pre-encoded body.
+     */
+    <T> CompletableFuture<T> invoke(
+        OpcXmlDaClient.SoapAction soapAction,
+        Object requestPayload,
+        RequestEncoder encoder,
+        Class<T> responseClass,
+        Duration timeout) {
+
+        OperationTimer timer = OperationTimer.start(metrics, soapAction, requestPayload);
+
+        byte[] requestBody;
+        try {
+            requestBody = encoder.encode(requestPayload);
+        } catch (IOException e) {
+            var ex = new WebServiceIOException("failed to marshal " + soapAction + " request", e);
+            timer.complete(null, ex);
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        HttpRequest httpRequest = newRequest(soapAction, requestBody, timeout);
+        timer.marshalled(httpRequest.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(-1L));
+
+        TrafficRecorder recorder = this.recorder;
+        long sentNanos = System.nanoTime();
+
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+            httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+        CompletableFuture<T> result = timer.track(exchange.handle((response, ex) -> {
+            if (ex != null) {
+                if (recorder != null) {
+                    recorder.record(soapAction.getName(), sentNanos, System.nanoTime() - sentNanos, -1,
+                        requestBody, null);
+                }
+                throw new CompletionException(translate(soapAction, ex));
+            }
+
+            timer.received(response.body().length);
+
+            try {
+                byte[] body = decompress(response);
+
+                if (recorder != null) {
+                    recorder.record(soapAction.getName(), sentNanos, System.nanoTime() - sentNanos,
+                        response.statusCode(), requestBody, body);
+                }
+
+                return decode(response.statusCode(), body, responseClass);
+            } catch (UncheckedIOException e) {
+                throw new CompletionException(translate(soapAction, e.getCause()));
+            }
+        }));
+
+        // cancelling the result, e.g. when a hedged request loses, cancels the exchange; from JDK 16 on that also
+        // aborts it
+        result.whenComplete((response, ex) -> {
+            if (ex instanceof CancellationException) {
+                exchange.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Invoke {@code soapAction} and decode the response body with {@code bodyDecoder} while it is still arriving.
+     * <p>
+     * The decoder reads from the network stream, so it occupies an {@link HttpClient} executor thread until the
+     * last byte of the response has been received.
+     */
+    <T> CompletableFuture<T> invokeStreaming(
+        OpcXmlDaClient.SoapAction soapAction,
+        Object requestPayload,
+        BodyDecoder<T> bodyDecoder,
+        Duration timeout) {
+
+        OperationTimer timer = OperationTimer.start(metrics, soapAction, requestPayload);
+
+        byte[] requestBody;
+        try {
+            requestBody = requestEncoder.encode(requestPayload);
+        } catch (IOException e) {
+            var ex = new WebServiceIOException("failed to marshal " + soapAction + " request", e);
+            timer.complete(null, ex);
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        HttpRequest httpRequest = newRequest(soapAction, requestBody, timeout);
+        timer.marshalled(httpRequest.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(-1L));
+
+        TrafficRecorder recorder = this.recorder;
+        long sentNanos = System.nanoTime();
+
+        return timer.track(httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream())
+            .handle((response, ex) -> {
+                if (ex != null) {
+                    if (recorder != null) {
+                        recorder.record(soapAction.getName(), sentNanos, System.nanoTime() - sentNanos, -1,
+                            requestBody, null);
+                    }
+                    throw new CompletionException(translate(soapAction, ex));
+                }
+
+                // the body is decoded as it arrives, so its size isn't known and the network phase ends here
+                timer.received(-1L);
+                long receivedNanos = System.nanoTime();
+
+                InputStream decompressed;
+                try {
+                    decompressed = decompress(response, response.body());
+                } catch (IOException e) {
+                    throw new CompletionException(translate(soapAction, e));
+                }
+
+                // copy the body aside as it is decoded so it can be captured afterwards
+                var captured = recorder != null ? new ByteArrayOutputStream() : null;
+                if (captured != null) {
+                    decompressed = new TeeInputStream(decompressed, captured);
+                }
+
+                try (InputStream body = new BufferedInputStream(decompressed)) {
+                    if (response.statusCode() / 100 != 2 && !looksLikeXml(body)) {
+                        throw new WebServiceTransportException(
+                            String.format("HTTP %d returned by %s", response.statusCode(), serverUri));
+                    }
+
+                    return decodeBody(inputFactory.createXMLStreamReader(body), bodyDecoder);
+                } catch (IOException e) {
+                    throw new CompletionException(translate(soapAction, e));
+                } catch (XMLStreamException e) {
+                    throw new WebServiceIOException("failed to decode response", new IOException(e));
+                } finally {
+                    if (captured != null) {
+                        recorder.record(soapAction.getName(), sentNanos, receivedNanos - sentNanos,
+                            response.statusCode(), requestBody, captured.toByteArray());
+                    }
+                }
+            }));
+    }
+
+    private HttpRequest newRequest(OpcXmlDaClient.SoapAction soapAction, byte[] requestBody, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(serverUri)
+            .timeout(timeout)
+            .header("Content-Type", CONTENT_TYPE)
+            .header("SOAPAction", "\"" + soapAction.getActionPath() + "\"");
+
+        if (responseCompression) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+
+        if (requestCompression) {
+            builder.header("Content-Encoding", "gzip");
+            requestBody = gzip(requestBody);
+        }
+
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(requestBody)).build();
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        var buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+
+        try (var out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Wrap {@code body} to decompress it if the response was gzip-encoded.
+     */
+    private static InputStream decompress(HttpResponse<?> response, InputStream body) throws IOException {
+        boolean gzipped = response.headers()
+            .firstValue("Content-Encoding")
+            .map(encoding -> encoding.trim().equalsIgnoreCase("gzip"))
+            .orElse(false);
+
+        return gzipped ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * @return the body of {@code response}, decompressed if it was gzip-encoded.
+     */
+    private static byte[] decompress(HttpResponse<byte[]> response) {
+        try {
+            return decompress(response, new ByteArrayInputStream(response.body())).readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T decode(int statusCode, byte[] body, Class<T> responseClass) {
+        if (statusCode / 100 != 2 && !looksLikeXml(body)) {
+            throw new WebServiceTransportException(
+                String.format("HTTP %d returned by %s", statusCode, serverUri));
+        }
+
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(body));
+
+            return decodeBody(reader, r -> {
+                try {
+                    return jaxbContext.createUnmarshaller().unmarshal(r, responseClass).getValue();
+                } catch (JAXBException e) {
+                    throw new XMLStreamException(e);
+                }
+            });
+        } catch (XMLStreamException e) {
+            throw new WebServiceIOException("failed to unmarshal response", new IOException(e));
+        }
+    }
+
+    /**
+     * Position {@code reader} on the SOAP Body content, throw a {@link SoapFaultException} if it is a Fault, and
+     * otherwise decode it with {@code bodyDecoder}.
+     */
+    private static <T> T decodeBody(XMLStreamReader reader, BodyDecoder<T> bodyDecoder) throws XMLStreamException {
+        try {
+            advanceToBodyContent(reader);
+
+            if (SOAP_ENV_NS.equals(reader.getNamespaceURI()) && "Fault".equals(reader.getLocalName())) {
+                throw readFault(reader);
+            }
+
+            return bodyDecoder.decode(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Position {@code reader} on the first element inside the SOAP Body.
+     */
+    static void advanceToBodyContent(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT &&
+                SOAP_ENV_NS.equals(reader.getNamespaceURI()) &&
+                "Body".equals(reader.getLocalName())) {
+
+                reader.nextTag();
+                return;
+            }
+        }
+
+        throw new XMLStreamException("SOAP Body not found");
+    }
+
+    static SoapFaultException readFault(XMLStreamReader reader) throws XMLStreamException {
+        QName faultCode = null;
+        String faultString = null;
+
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (depth == 1 && "faultcode".equals(reader.getLocalName())) {
+                    String text = reader.getElementText().trim();
+                    int colon = text.indexOf(':');
+                    if (colon > 0) {
+                        String namespace = reader.getNamespaceContext().getNamespaceURI(text.substring(0, colon));
+                        faultCode = new QName(namespace, text.substring(colon + 1));
+                    } else {
+                        faultCode = new QName(text);
+                    }
+                } else if (depth == 1 && "faultstring".equals(reader.getLocalName())) {
+                    faultString = reader.getElementText().trim();
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+
+        return new SoapFaultException(faultCode, faultString);
+    }
+
+    private static boolean looksLikeXml(InputStream body) throws IOException {
+        body.mark(256);
+        try {
+            int b;
+            while ((b = body.read()) != -1) {
+                if (!Character.isWhitespace(b)) {
+                    return b == '<';
+                }
+            }
+            return false;
+        } finally {
+            body.reset();
+        }
+    }
+
+    private static boolean looksLikeXml(byte[] body) {
+        for (byte b : body) {
+            if (!Character.isWhitespace(b)) {
+                return b == '<';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies every byte read through it to {@code copy}.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) copy.write(b);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) copy.write(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // read rather than skip so skipped bytes are copied too
+            return n > 0 ? Math.max(0, read(new byte[(int) Math.min(n, 8192)])) : 0;
+        }
+
+    }
+
+    /**
+     * Decodes the content of a SOAP Body, starting from the {@link XMLStreamReader} positioned on its first element.
+     */
+    @FunctionalInterface
+    interface BodyDecoder<T> {
+
+        T decode(XMLStreamReader reader) throws XMLStreamException;
+
+    }
+
+    private RuntimeException translate(OpcXmlDaClient.SoapAction soapAction, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+        if (cause instanceof IOException) {
+            return new WebServiceIOException(
+                String.format("I/O error during %s request to %s", soapAction, serverUri), (IOException) cause);
+        } else if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else {
+            return new CompletionException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.Objects;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+/**
+ * Identifies an item by ItemPath, ItemName and requested type.
+ * <p>
+ * A {@code null} ItemPath is equivalent to an empty one.
+ *
+ * @author Kevin Herron
+ */
+final class ItemKey {
+
+    private final String itemPath;
+    private final String itemName;
+    private final QName reqType;
+
+    ItemKey(String itemPath, String itemName, QName reqType) {
+        this.itemPath = itemPath != null ? itemPath : "";
+        this.itemName = itemName;
+        this.reqType = reqType;
+    }
+
+    String getItemPath() {
+        return itemPath;
+    }
+
+    String getItemName() {
+        return itemName;
+    }
+
+    QName getReqType() {
+        return reqType;
+    }
+
+    /**
+     * Key {@code item}, inheriting ItemPath and ReqType from {@code itemList} where the item does not set them.
+     */
+    static ItemKey of(ReadRequestItem item, ReadRequestItemList itemList) {
+        return new ItemKey(
+            item.getItemPath() != null ? item.getItemPath() : itemList.getItemPath(),
+            item.getItemName(),
+            item.getReqType() != null ? item.getReqType() : itemList.getReqType()
+        );
+    }
+
+    /**
+     * Key {@code item}, inheriting ItemPath and ReqType from {@code itemList} where the item does not set them.
+     */
+    static ItemKey of(SubscribeRequestItem item, SubscribeRequestItemList itemList) {
+        return new ItemKey(
+            item.getItemPath() != null ? item.getItemPath() : itemList.getItemPath(),
+            item.getItemName(),
+            item.getReqType() != null ? item.getReqType() : itemList.getReqType()
+        );
+    }
+
+    static ItemKey of(ItemValue itemValue, QName reqType) {
+        return new ItemKey(itemValue.getItemPath(), itemValue.getItemName(), reqType);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ItemKey itemKey = (ItemKey) o;
+        return itemPath.equals(itemKey.itemPath) &&
+            Objects.equals(itemName, itemKey.itemName) &&
+            Objects.equals(reqType, itemKey.reqType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(itemPath, itemName, reqType);
+    }
+
+    @Override
+    public String toString() {
+        return "ItemKey{itemPath='" + itemPath + "', itemName='" + itemName + "', reqType=" + reqType + "}";
+    }
+
+}
@@ -0,0 +1,477 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+
+/**
+ * A reusable, column-oriented batch of item values.
+ * <p>
+ * Each attribute of an item value is kept in its own array: values in {@code long[]} and {@code double[]}
+ * columns by {@link StreamedItemValue.ValueKind}, quality as an int-coded {@link QualityCodes} word and timestamps as
+ * epoch milliseconds. Item names, paths, handles and types are interned per batch, so repeated refreshes of the same
+ * items share one {@link String} instance per item. Once a batch has grown to fit a response and its strings have
+ * been interned, filling it again allocates nothing beyond what the XML parser itself does.
+ * <p>
+ * A batch is an {@link ItemValueHandler}, so it can be filled directly by
+ * {@link OpcXmlDaClient#readStreaming} or {@link OpcXmlDaClient#subscriptionPolledRefreshStreaming}. It is not
+ * thread-safe; {@link #clear()} it before reuse.
+ *
+ * @author Kevin Herron
+ */
+public final class ItemValueBatch implements ItemValueHandler {
+
+    private static final String OPC_NS = "http://opcfoundation.org/webservices/XMLDA/1.0/";
+
+    private static final StreamedItemValue.ValueKind[] VALUE_KINDS = StreamedItemValue.ValueKind.values();
+
+    /**
+     * Start over once this many distinct strings have been interned, so a batch reused across an unbounded set
+     * of items can't grow without limit.
+     */
+    private static final int MAX_INTERNED = 1 << 20;
+
+    private final Map<String, String> interned = new HashMap<>();
+
+    private int size = 0;
+
+    private String[] subscriptionHandles;
+    private String[] itemPaths;
+    private String[] itemNames;
+    private String[] clientItemHandles;
+    private String[] resultIds;
+    private String[] diagnosticInfos;
+    private String[] valueTypes;
+    private byte[] valueKinds;
+    private long[] longValues;
+    private double[] doubleValues;
+    private Object[] objectValues;
+    private int[] qualities;
+    private long[] timestamps;
+
+    public ItemValueBatch() {
+        this(64);
+    }
+
+    /**
+     * @param initialCapacity the number of item values to make room for up front.
+     */
+    public ItemValueBatch(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * Append {@code itemValue} to this batch.
+     */
+    @Override
+    public void onItemValue(StreamedItemValue itemValue) {
+        if (size == qualities.length) {
+            allocate(size + (size >> 1) + 1);
+        }
+
+        int i = size++;
+
+        subscriptionHandles[i] = intern(itemValue.getSubscriptionHandle());
+        itemPaths[i] = intern(itemValue.getItemPath());
+        itemNames[i] = intern(itemValue.getItemName());
+        clientItemHandles[i] = intern(itemValue.getClientItemHandle());
+        resultIds[i] = intern(itemValue.getResultId());
+        diagnosticInfos[i] = itemValue.getDiagnosticInfo();
+        valueTypes[i] = intern(itemValue.getValueType());
+        qualities[i] = itemValue.getQuality();
+        timestamps[i] = itemValue.getTimestamp();
+
+        StreamedItemValue.ValueKind kind = itemValue.getValueKind();
+        valueKinds[i] = (byte) kind.ordinal();
+
+        switch (kind) {
+            case BOOLEAN:
+                longValues[i] = itemValue.getBooleanValue() ? 1L : 0L;
+                objectValues[i] = null;
+                break;
+            case LONG:
+            case DATE_TIME:
+                longValues[i] = itemValue.getLongValue();
+                objectValues[i] = null;
+                break;
+            case DOUBLE:
+                doubleValues[i] = itemValue.getDoubleValue();
+                objectValues[i] = null;
+                break;
+            default:
+                objectValues[i] = itemValue.getObjectValue();
+                break;
+        }
+    }
+
+    /**
+     * Remove every item value, keeping the capacity and interned strings for the next fill.
+     */
+    public void clear() {
+        Arrays.fill(objectValues, 0, size, null);
+        Arrays.fill(diagnosticInfos, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Keep only the item values whose index {@code keep} accepts, preserving their order. {@code keep} is called
+     * once for each index, in order, and may read this batch.
+     */
+    void retain(IntPredicate keep) {
+        int retained = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (keep.test(i)) {
+                if (retained != i) {
+                    move(i, retained);
+                }
+                retained++;
+            }
+        }
+
+        Arrays.fill(objectValues, retained, size, null);
+        Arrays.fill(diagnosticInfos, retained, size, null);
+        size = retained;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the SubscriptionHandle of the reply list item {@code index} was in, or {@code null} outside a
+     * SubscriptionPolledRefresh response.
+     */
+    public String getSubscriptionHandle(int index) {
+        return subscriptionHandles[checkIndex(index)];
+    }
+
+    public String getItemPath(int index) {
+        return itemPaths[checkIndex(index)];
+    }
+
+    public String getItemName(int index) {
+        return itemNames[checkIndex(index)];
+    }
+
+    public String getClientItemHandle(int index) {
+        return clientItemHandles[checkIndex(index)];
+    }
+
+    /**
+     * @return the local part of the ResultID, e.g. {@code E_UNKNOWNITEMNAME}, or {@code null} if none.
+     */
+    public String getResultId(int index) {
+        return resultIds[checkIndex(index)];
+    }
+
+    public String getDiagnosticInfo(int index) {
+        return diagnosticInfos[checkIndex(index)];
+    }
+
+    /**
+     * @return the local part of the value's {@code xsi:type}, e.g. {@code double}, or {@code null} if untyped.
+     */
+    public String getValueType(int index) {
+        return valueTypes[checkIndex(index)];
+    }
+
+    public StreamedItemValue.ValueKind getValueKind(int index) {
+        return VALUE_KINDS[valueKinds[checkIndex(index)]];
+    }
+
+    public boolean getBooleanValue(int index) {
+        return getValueKind(index) == StreamedItemValue.ValueKind.BOOLEAN && longValues[index] != 0L;
+    }
+
+    /**
+     * @return the value of a {@code LONG} or {@code DATE_TIME} item, or 1 or 0 for a {@code BOOLEAN} one.
+     */
+    public long getLongValue(int index) {
+        switch (getValueKind(index)) {
+            case BOOLEAN:
+            case LONG:
+            case DATE_TIME:
+                return longValues[index];
+            default:
+                return 0L;
+        }
+    }
+
+    public double getDoubleValue(int index) {
+        return getValueKind(index) == StreamedItemValue.ValueKind.DOUBLE ? doubleValues[index] : 0.0;
+    }
+
+    /**
+     * @return the value of a {@code STRING}, {@code ARRAY} or {@code OTHER} item.
+     */
+    public Object getObjectValue(int index) {
+        return objectValues[checkIndex(index)];
+    }
+
+    /**
+     * @return the value boxed as the closest Java type; allocates for primitive kinds.
+     * @see StreamedItemValue#getValue()
+     */
+    public Object getValue(int index) {
+        switch (getValueKind(index)) {
+            case BOOLEAN:
+                return longValues[index] != 0L;
+            case LONG:
+            case DATE_TIME:
+                return longValues[index];
+            case DOUBLE:
+                return doubleValues[index];
+            default:
+                return objectValues[index];
+        }
+    }
+
+    /**
+     * @return the quality as an OPC DA quality word; see {@link QualityCodes}.
+     */
+    public int getQuality(int index) {
+        return qualities[checkIndex(index)];
+    }
+
+    /**
+     * @return the timestamp in epoch milliseconds, or {@link StreamedItemValue#NO_TIMESTAMP}.
+     */
+    public long getTimestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    /**
+     * Convert item value {@code index} to a JAXB {@link ItemValue}, with the value as the type JAXB would have
+     * unmarshalled it to. {@code ArrayOf*} values become a {@code String[]} of element texts.
+     */
+    public ItemValue toItemValue(int index) {
+        return toItemValue(
+            getItemPath(index),
+            itemNames[index],
+            clientItemHandles[index],
+            diagnosticInfos[index],
+            toJavaValue(getValueKind(index), valueTypes[index], longValues[index], doubleValues[index],
+                objectValues[index]),
+            qualities[index],
+            resultIds[index],
+            timestamps[index]
+        );
+    }
+
+    /**
+     * @return a copy of item value {@code index} that outlives this batch being cleared or refilled, without
+     * converting it to an {@link ItemValue} yet.
+     */
+    Row copyRow(int index) {
+        return new Row(this, index);
+    }
+
+    /**
+     * @return every item value in this batch as a JAXB {@link ItemValue}.
+     * @see #toItemValue(int)
+     */
+    public List<ItemValue> toItemValues() {
+        var itemValues = new ArrayList<ItemValue>(size);
+        for (int i = 0; i < size; i++) {
+            itemValues.add(toItemValue(i));
+        }
+        return itemValues;
+    }
+
+    private static ItemValue toItemValue(
+        String itemPath,
+        String itemName,
+        String clientItemHandle,
+        String diagnosticInfo,
+        Object value,
+        int quality,
+        String resultId,
+        long timestamp) {
+
+        var itemValue = new ItemValue();
+        itemValue.setItemPath(itemPath);
+        itemValue.setItemName(itemName);
+        itemValue.setClientItemHandle(clientItemHandle);
+        itemValue.setDiagnosticInfo(diagnosticInfo);
+        itemValue.setValue(value);
+        itemValue.setQuality(QualityCodes.decode(quality));
+
+        if (resultId != null) {
+            itemValue.setResultID(new QName(OPC_NS, resultId));
+        }
+        if (timestamp != StreamedItemValue.NO_TIMESTAMP) {
+            itemValue.setTimestamp(XmlTime.fromEpochMillis(timestamp));
+        }
+
+        return itemValue;
+    }
+
+    private static Object toJavaValue(StreamedItemValue.ValueKind kind, String type, long l, double d, Object o) {
+        switch (kind) {
+            case BOOLEAN:
+                return l != 0L;
+
+            case LONG:
+                if (type == null) return l;
+                switch (type) {
+                    case "byte":            return (byte) l;
+                    case "short":
+                    case "unsignedByte":    return (short) l;
+                    case "int":
+                    case "unsignedShort":   return (int) l;
+                    case "unsignedLong":    return new BigInteger(Long.toUnsignedString(l));
+                    default:                return l;
+                }
+
+            case DOUBLE:
+                if ("float".equals(type)) return (float) d;
+                if ("decimal".equals(type)) return BigDecimal.valueOf(d);
+                return d;
+
+            case DATE_TIME:
+                return XmlTime.fromEpochMillis(l);
+
+            default:
+                return o;
+        }
+    }
+
+    private String intern(String s) {
+        if (s == null) return null;
+
+        String canonical = interned.get(s);
+        if (canonical == null) {
+            if (interned.size() >= MAX_INTERNED) {
+                interned.clear();
+            }
+            interned.put(s, s);
+            canonical = s;
+        }
+        return canonical;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    private void move(int from, int to) {
+        subscriptionHandles[to] = subscriptionHandles[from];
+        itemPaths[to] = itemPaths[from];
+        itemNames[to] = itemNames[from];
+        clientItemHandles[to] = clientItemHandles[from];
+        resultIds[to] = resultIds[from];
+        diagnosticInfos[to] = diagnosticInfos[from];
+        valueTypes[to] = valueTypes[from];
+        valueKinds[to] = valueKinds[from];
+        longValues[to] = longValues[from];
+        doubleValues[to] = doubleValues[from];
+        objectValues[to] = objectValues[from];
+        qualities[to] = qualities[from];
+        timestamps[to] = timestamps[from];
+    }
+
+    private void allocate(int capacity) {
+        if (qualities == null) {
+            subscriptionHandles = new String[capacity];
+            itemPaths = new String[capacity];
+            itemNames = new String[capacity];
+            clientItemHandles = new String[capacity];
+            resultIds = new String[capacity];
+            diagnosticInfos = new String[capacity];
+            valueTypes = new String[capacity];
+            valueKinds = new byte[capacity];
+            longValues = new long[capacity];
+            doubleValues = new double[capacity];
+            objectValues = new Object[capacity];
+            qualities = new int[capacity];
+            timestamps = new long[capacity];
+        } else {
+            subscriptionHandles = Arrays.copyOf(subscriptionHandles, capacity);
+            itemPaths = Arrays.copyOf(itemPaths, capacity);
+            itemNames = Arrays.copyOf(itemNames, capacity);
+            clientItemHandles = Arrays.copyOf(clientItemHandles, capacity);
+            resultIds = Arrays.copyOf(resultIds, capacity);
+            diagnosticInfos = Arrays.copyOf(diagnosticInfos, capacity);
+            valueTypes = Arrays.copyOf(valueTypes, capacity);
+            valueKinds = Arrays.copyOf(valueKinds, capacity);
+            longValues = Arrays.copyOf(longValues, capacity);
+            doubleValues = Arrays.copyOf(doubleValues, capacity);
+            objectValues = Arrays.copyOf(objectValues, capacity);
+            qualities = Arrays.copyOf(qualities, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ItemValueBatch{size=" + size + "}";
+    }
+
+    /**
+     * One item value copied out of a batch, in the batch's primitive form.
+     */
+    static final class Row {
+
+        private final String itemPath;
+        private final String itemName;
+        private final String clientItemHandle;
+        private final String resultId;
+        private final String diagnosticInfo;
+        private final String valueType;
+        private final StreamedItemValue.ValueKind valueKind;
+        private final long longValue;
+        private final double doubleValue;
+        private final Object objectValue;
+        private final int quality;
+        private final long timestamp;
+
+        private Row(ItemValueBatch batch, int index) {
+            itemPath = batch.getItemPath(index);
+            itemName = batch.itemNames[index];
+            clientItemHandle = batch.clientItemHandles[index];
+            resultId = batch.resultIds[index];
+            diagnosticInfo = batch.diagnosticInfos[index];
+            valueType = batch.valueTypes[index];
+            valueKind = batch.getValueKind(index);
+            longValue = batch.longValues[index];
+            doubleValue = batch.doubleValues[index];
+            objectValue = batch.objectValues[index];
+            quality = batch.qualities[index];
+            timestamp = batch.timestamps[index];
+        }
+
+        /**
+         * @see ItemValueBatch#toItemValue(int)
+         */
+        ItemValue toItemValue() {
+            return ItemValueBatch.toItemValue(
+                itemPath,
+                itemName,
+                clientItemHandle,
+                diagnosticInfo,
+                toJavaValue(valueKind, valueType, longValue, doubleValue, objectValue),
+                quality,
+                resultId,
+                timestamp
+            );
+        }
+
+    }
+
+}
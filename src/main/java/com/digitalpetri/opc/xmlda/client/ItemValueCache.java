@@ -0,0 +1,282 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+
+/**
+ * An in-process cache of item values keyed by ItemPath, ItemName and ReqType.
+ * <p>
+ * A cached value satisfies a read if its {@code Timestamp} is no older than the MaxAge the read requested. Items
+ * read with no MaxAge, or a MaxAge of 0, always go to the server.
+ * <p>
+ * The cache holds at most {@code maxSize} entries, evicting the least recently used, and discards entries that
+ * were stored more than {@code timeToLive} ago regardless of MaxAge.
+ * <p>
+ * Invalidating an item advances the cache's generation. A value read by a request issued before the invalidation
+ * is not stored when it arrives afterwards, so a read racing a write can't cache the value the write replaced.
+ *
+ * @author Kevin Herron
+ */
+public class ItemValueCache {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<ItemKey, CachedValue> entries;
+
+    /**
+     * The generation each recently invalidated item, keyed without ReqType, was invalidated in.
+     */
+    private final LinkedHashMap<ItemKey, Long> invalidations;
+
+    /**
+     * The latest generation an item was invalidated in that is no longer tracked in {@link #invalidations}.
+     */
+    private long forgottenGeneration = 0L;
+
+    private volatile long generation = 0L;
+
+    private final int maxSize;
+    private final long timeToLiveNanos;
+
+    public ItemValueCache(int maxSize, Duration timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ItemKey, CachedValue> eldest) {
+                if (size() > ItemValueCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.invalidations = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ItemKey, Long> eldest) {
+                if (size() > ItemValueCache.this.maxSize) {
+                    forgottenGeneration = Math.max(forgottenGeneration, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the current generation; capture it before sending a request whose values will be {@link #put}.
+     */
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Get the cached value for {@code key} if its timestamp is within {@code maxAge} milliseconds of now.
+     *
+     * @return the cached {@link ItemValue}, or {@code null} on a miss. The instance is shared; copy it before
+     * modifying it.
+     */
+    ItemValue get(ItemKey key, Integer maxAge) {
+        if (maxAge == null || maxAge <= 0) {
+            misses.increment();
+            return null;
+        }
+
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+
+        lock.lock();
+        try {
+            CachedValue entry = entries.get(key);
+
+            if (entry != null && nowNanos - entry.storedNanos > timeToLiveNanos) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+
+            if (entry != null && nowMillis - entry.timestampMillis <= maxAge) {
+                hits.increment();
+                return entry.itemValue();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Store {@code itemValue}, read just now, unless it carries an error ResultID.
+     */
+    void put(ItemKey key, ItemValue itemValue) {
+        put(key, itemValue, generation);
+    }
+
+    /**
+     * Store {@code itemValue} unless it carries an error ResultID or its item was invalidated after
+     * {@code generation}, the {@link #generation()} captured before the request that read it was sent.
+     */
+    void put(ItemKey key, ItemValue itemValue, long generation) {
+        if (key.getItemName() == null) return;
+
+        QName resultId = itemValue.getResultID();
+        if (resultId != null && resultId.getLocalPart().startsWith("E_")) {
+            return;
+        }
+
+        long timestampMillis = itemValue.getTimestamp() != null ?
+            XmlTime.toEpochMillis(itemValue.getTimestamp()) : System.currentTimeMillis();
+
+        store(key, new CachedValue(ItemValues.copy(itemValue), null, timestampMillis, System.nanoTime()), generation);
+    }
+
+    /**
+     * Store item value {@code index} of {@code batch} unless it carries an error ResultID or its item was
+     * invalidated after {@code generation}.
+     * <p>
+     * The value is kept in the batch's primitive form and only converted to an {@link ItemValue} when a read is
+     * served from it, so caching a refresh delivered as a batch doesn't convert every item in it.
+     */
+    void put(ItemKey key, ItemValueBatch batch, int index, long generation) {
+        if (key.getItemName() == null) return;
+
+        String resultId = batch.getResultId(index);
+        if (resultId != null && resultId.startsWith("E_")) {
+            return;
+        }
+
+        long timestamp = batch.getTimestamp(index);
+        long timestampMillis = timestamp != StreamedItemValue.NO_TIMESTAMP ? timestamp : System.currentTimeMillis();
+
+        store(key, new CachedValue(null, batch.copyRow(index), timestampMillis, System.nanoTime()), generation);
+    }
+
+    private void store(ItemKey key, CachedValue entry, long generation) {
+        long timestampMillis = entry.timestampMillis;
+
+        lock.lock();
+        try {
+            if (generation < invalidatedIn(key)) return;
+
+            CachedValue existing = entries.get(key);
+
+            // Don't let an out-of-order reply replace a newer value.
+            if (existing == null || existing.timestampMillis <= timestampMillis) {
+                entries.put(key, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry for the item identified by {@code itemPath} and {@code itemName}, whatever its ReqType.
+     * <p>
+     * This scans the whole cache; it is meant for writes, which are far rarer than reads.
+     */
+    void invalidate(String itemPath, String itemName) {
+        var probe = new ItemKey(itemPath, itemName, null);
+
+        lock.lock();
+        try {
+            generation++;
+            // re-insert so the most recently invalidated items are the last forgotten
+            invalidations.remove(probe);
+            invalidations.put(probe, generation);
+
+            Iterator<ItemKey> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                ItemKey key = iterator.next();
+                if (key.getItemPath().equals(probe.getItemPath()) && Objects.equals(key.getItemName(), itemName)) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the generation the item identified by {@code key} was last invalidated in, or a later one if that is
+     * no longer known.
+     */
+    private long invalidatedIn(ItemKey key) {
+        if (invalidations.isEmpty() && forgottenGeneration == 0L) return 0L;
+
+        Long itemGeneration = invalidations.get(new ItemKey(key.getItemPath(), key.getItemName(), null));
+
+        return itemGeneration != null ? itemGeneration : forgottenGeneration;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * A cached {@link ItemValue}, or the batch row it is converted from on first use. Guarded by {@code lock}.
+     */
+    private static class CachedValue {
+        final long timestampMillis;
+        final long storedNanos;
+
+        private ItemValue itemValue;
+        private ItemValueBatch.Row row;
+
+        CachedValue(ItemValue itemValue, ItemValueBatch.Row row, long timestampMillis, long storedNanos) {
+            this.itemValue = itemValue;
+            this.row = row;
+            this.timestampMillis = timestampMillis;
+            this.storedNanos = storedNanos;
+        }
+
+        ItemValue itemValue() {
+            if (itemValue == null) {
+                itemValue = row.toItemValue();
+                row = null;
+            }
+            return itemValue;
+        }
+    }
+
+}
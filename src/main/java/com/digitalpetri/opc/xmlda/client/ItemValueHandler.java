@@ -0,0 +1,18 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * Receives item values one at a time as a response is decoded.
+ *
+ * @author Kevin Herron
+ */
+@FunctionalInterface
+public interface ItemValueHandler {
+
+    /**
+     * Called for each item value, in document order.
+     *
+     * @param itemValue the decoded item value. The instance is reused for the next item once this method returns.
+     */
+    void onItemValue(StreamedItemValue itemValue);
+
+}
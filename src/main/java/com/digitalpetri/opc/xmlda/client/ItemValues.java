@@ -0,0 +1,100 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.ReplyBase;
+
+/**
+ * Helpers for copying and regrouping reply items when one server reply is split among several callers.
+ *
+ * @author Kevin Herron
+ */
+final class ItemValues {
+
+    private ItemValues() {}
+
+    /**
+     * Shallow copy of {@code itemValue}; the value, quality and timestamp objects are shared.
+     */
+    static ItemValue copy(ItemValue itemValue) {
+        var copy = new ItemValue();
+        copy.setDiagnosticInfo(itemValue.getDiagnosticInfo());
+        copy.setValue(itemValue.getValue());
+        copy.setQuality(itemValue.getQuality());
+        copy.setValueTypeQualifier(itemValue.getValueTypeQualifier());
+        copy.setItemPath(itemValue.getItemPath());
+        copy.setItemName(itemValue.getItemName());
+        copy.setClientItemHandle(itemValue.getClientItemHandle());
+        copy.setTimestamp(itemValue.getTimestamp());
+        copy.setResultID(itemValue.getResultID());
+        return copy;
+    }
+
+    /**
+     * Copy of {@code replyBase} answering the request identified by {@code clientRequestHandle}.
+     */
+    static ReplyBase copy(ReplyBase replyBase, String clientRequestHandle) {
+        if (replyBase == null) return null;
+
+        var copy = new ReplyBase();
+        copy.setRcvTime(replyBase.getRcvTime());
+        copy.setReplyTime(replyBase.getReplyTime());
+        copy.setClientRequestHandle(clientRequestHandle);
+        copy.setRevisedLocaleID(replyBase.getRevisedLocaleID());
+        copy.setServerState(replyBase.getServerState());
+        return copy;
+    }
+
+    /**
+     * Index reply items by ClientItemHandle, for requests whose items were given the handles {@code "0"} to
+     * {@code requestedCount - 1}, falling back to request order if the server didn't echo handles.
+     */
+    static Map<String, ItemValue> indexByHandle(List<ItemValue> items, int requestedCount) {
+        var byHandle = new HashMap<String, ItemValue>(items.size() * 2);
+
+        boolean echoed = items.stream().allMatch(item -> item.getClientItemHandle() != null);
+
+        if (echoed) {
+            for (ItemValue item : items) {
+                byHandle.put(item.getClientItemHandle(), item);
+            }
+        } else if (items.size() == requestedCount) {
+            for (int i = 0; i < items.size(); i++) {
+                byHandle.put(String.valueOf(i), items.get(i));
+            }
+        }
+
+        return byHandle;
+    }
+
+    /**
+     * Select the {@link OPCError}s referenced by the ResultIDs of {@code itemValues}.
+     */
+    static List<OPCError> errorsFor(List<ItemValue> itemValues, List<OPCError> errors) {
+        if (errors.isEmpty()) return List.of();
+
+        Set<QName> resultIds = new HashSet<>();
+        for (ItemValue itemValue : itemValues) {
+            if (itemValue.getResultID() != null) {
+                resultIds.add(itemValue.getResultID());
+            }
+        }
+
+        var selected = new ArrayList<OPCError>();
+        for (OPCError error : errors) {
+            if (resultIds.contains(error.getID())) {
+                selected.add(error);
+            }
+        }
+        return selected;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * {@link RequestEncoder} that marshals the payload with JAXB inside a SOAP envelope written with StAX.
+ *
+ * @author Kevin Herron
+ */
+class JaxbRequestEncoder implements RequestEncoder {
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+    private final JAXBContext jaxbContext;
+
+    JaxbRequestEncoder(JAXBContext jaxbContext) {
+        this.jaxbContext = jaxbContext;
+    }
+
+    @Override
+    public byte[] encode(Object requestPayload) throws IOException {
+        var buffer = new ByteArrayOutputStream(1024);
+
+        try {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(buffer, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("soap", "Envelope", HttpSoapTransport.SOAP_ENV_NS);
+            writer.writeNamespace("soap", HttpSoapTransport.SOAP_ENV_NS);
+            writer.writeStartElement("soap", "Body", HttpSoapTransport.SOAP_ENV_NS);
+
+            Marshaller marshaller = jaxbContext.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.marshal(requestPayload, writer);
+
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IOException(e);
+        }
+
+        return buffer.toByteArray();
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link ClientMetrics} that emits a {@code com.digitalpetri.opc.xmlda.Operation} JDK Flight Recorder event for
+ * every request.
+ * <p>
+ * While no recording has the event enabled nothing is measured beyond the check that it is disabled.
+ *
+ * @author Kevin Herron
+ */
+public class JfrClientMetrics implements ClientMetrics {
+
+    @Override
+    public Object onStart(String operation) {
+        var event = new OperationEvent();
+        if (!event.isEnabled()) return null;
+
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void onComplete(Object context, OperationSample sample) {
+        if (context == null) return;
+
+        var event = (OperationEvent) context;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.operation = sample.getOperation();
+            event.blocking = sample.isBlocking();
+            event.marshalTime = sample.getMarshalNanos();
+            event.networkTime = sample.getNetworkNanos();
+            event.unmarshalTime = sample.getUnmarshalNanos();
+            event.requestSize = sample.getRequestBytes();
+            event.responseSize = sample.getResponseBytes();
+            event.requestItems = sample.getRequestItemCount();
+            event.responseItems = sample.getResponseItemCount();
+            event.opcErrors = sample.getOpcErrorCount();
+            event.failure = sample.getFailure() != null ? sample.getFailure().toString() : null;
+            event.commit();
+        }
+    }
+
+    @Name("com.digitalpetri.opc.xmlda.Operation")
+    @Label("OPC XML-DA Operation")
+    @Category({"OPC XML-DA", "Client"})
+    @Description("A SOAP request made by an OpcXmlDaClient")
+    @StackTrace(false)
+    static class OperationEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Blocking")
+        boolean blocking;
+
+        @Label("Marshal Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long marshalTime;
+
+        @Label("Network Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long networkTime;
+
+        @Label("Unmarshal Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long unmarshalTime;
+
+        @Label("Request Size")
+        @DataAmount
+        long requestSize;
+
+        @Label("Response Size")
+        @DataAmount
+        long responseSize;
+
+        @Label("Request Items")
+        int requestItems;
+
+        @Label("Response Items")
+        int responseItems;
+
+        @Label("OPC Errors")
+        int opcErrors;
+
+        @Label("Failure")
+        String failure;
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.context.MessageContext;
+
+/**
+ * Marks the end of the marshal and network phases of blocking requests for the {@link OperationTimer} started on
+ * the calling thread.
+ * <p>
+ * {@link org.springframework.ws.client.core.WebServiceTemplate} calls {@link #handleRequest} once the request
+ * message has been marshalled and {@link #handleResponse} or {@link #handleFault} once the response has been
+ * received, before it is unmarshalled.
+ *
+ * @author Kevin Herron
+ */
+class MetricsInterceptor implements ClientInterceptor {
+
+    @Override
+    public boolean handleRequest(MessageContext messageContext) {
+        OperationTimer.current().marshalled(-1L);
+        return true;
+    }
+
+    @Override
+    public boolean handleResponse(MessageContext messageContext) {
+        OperationTimer.current().received(-1L);
+        return true;
+    }
+
+    @Override
+    public boolean handleFault(MessageContext messageContext) {
+        OperationTimer.current().received(-1L);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(MessageContext messageContext, Exception ex) {}
+
+}
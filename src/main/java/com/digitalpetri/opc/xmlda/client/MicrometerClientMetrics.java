@@ -0,0 +1,188 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+/**
+ * {@link ClientMetrics} that records to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * Every meter is tagged with {@code operation}, e.g. {@code Read}:
+ * <ul>
+ *     <li>{@code opcxmlda.client.requests}: a timer of whole requests, also tagged with {@code outcome}, one of
+ *     {@code success}, {@code fault} for a SOAP Fault or {@code error}.</li>
+ *     <li>{@code opcxmlda.client.request.phase}: a timer of each {@code phase}: {@code marshal},
+ *     {@code network} and {@code unmarshal}.</li>
+ *     <li>{@code opcxmlda.client.request.size} and {@code opcxmlda.client.response.size}: message sizes in
+ *     bytes, as sent and received.</li>
+ *     <li>{@code opcxmlda.client.items}: items per message, tagged with {@code direction} {@code request} or
+ *     {@code response}.</li>
+ *     <li>{@code opcxmlda.client.opc.errors}: a count of {@code OPCError}s returned.</li>
+ *     <li>{@code opcxmlda.client.requests.active}: a gauge of requests in flight.</li>
+ * </ul>
+ * Requires {@code io.micrometer:micrometer-core} on the classpath.
+ *
+ * @author Kevin Herron
+ */
+public class MicrometerClientMetrics implements ClientMetrics {
+
+    private final ConcurrentMap<String, OperationMeters> meters = new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+
+    public MicrometerClientMetrics(MeterRegistry registry) {
+        this(registry, List.of());
+    }
+
+    /**
+     * @param registry the {@link MeterRegistry} to register meters with.
+     * @param tags     tags to add to every meter, e.g. to tell several clients apart.
+     */
+    public MicrometerClientMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+        this.registry = registry;
+        this.tags = Tags.of(tags);
+    }
+
+    @Override
+    public Object onStart(String operation) {
+        OperationMeters operationMeters = meters(operation);
+        operationMeters.active.incrementAndGet();
+        return operationMeters;
+    }
+
+    @Override
+    public void onComplete(Object context, OperationSample sample) {
+        var operationMeters = (OperationMeters) context;
+        operationMeters.active.decrementAndGet();
+
+        Throwable failure = sample.getFailure();
+        Timer requests = failure == null ? operationMeters.success :
+            isFault(failure) ? operationMeters.fault : operationMeters.error;
+        requests.record(sample.getTotalNanos(), TimeUnit.NANOSECONDS);
+
+        if (sample.getMarshalNanos() >= 0) {
+            operationMeters.marshal.record(sample.getMarshalNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (sample.getNetworkNanos() >= 0) {
+            operationMeters.network.record(sample.getNetworkNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (sample.getUnmarshalNanos() >= 0) {
+            operationMeters.unmarshal.record(sample.getUnmarshalNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (sample.getRequestBytes() >= 0) {
+            operationMeters.requestSize.record(sample.getRequestBytes());
+        }
+        if (sample.getResponseBytes() >= 0) {
+            operationMeters.responseSize.record(sample.getResponseBytes());
+        }
+
+        operationMeters.requestItems.record(sample.getRequestItemCount());
+        if (failure == null) {
+            operationMeters.responseItems.record(sample.getResponseItemCount());
+        }
+        if (sample.getOpcErrorCount() > 0) {
+            operationMeters.opcErrors.increment(sample.getOpcErrorCount());
+        }
+    }
+
+    private static boolean isFault(Throwable failure) {
+        return failure instanceof SoapFaultException || failure instanceof SoapFaultClientException;
+    }
+
+    private OperationMeters meters(String operation) {
+        OperationMeters operationMeters = meters.get(operation);
+
+        return operationMeters != null ? operationMeters :
+            meters.computeIfAbsent(operation, op -> new OperationMeters(registry, tags.and("operation", op)));
+    }
+
+    private static final class OperationMeters {
+
+        final AtomicInteger active = new AtomicInteger(0);
+
+        final Timer success;
+        final Timer fault;
+        final Timer error;
+        final Timer marshal;
+        final Timer network;
+        final Timer unmarshal;
+        final DistributionSummary requestSize;
+        final DistributionSummary responseSize;
+        final DistributionSummary requestItems;
+        final DistributionSummary responseItems;
+        final Counter opcErrors;
+
+        OperationMeters(MeterRegistry registry, Tags tags) {
+            success = requestTimer(registry, tags, "success");
+            fault = requestTimer(registry, tags, "fault");
+            error = requestTimer(registry, tags, "error");
+
+            marshal = phaseTimer(registry, tags, "marshal");
+            network = phaseTimer(registry, tags, "network");
+            unmarshal = phaseTimer(registry, tags, "unmarshal");
+
+            requestSize = DistributionSummary.builder("opcxmlda.client.request.size")
+                .description("Size of request bodies as sent")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+
+            responseSize = DistributionSummary.builder("opcxmlda.client.response.size")
+                .description("Size of response bodies as received")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+
+            requestItems = itemSummary(registry, tags, "request");
+            responseItems = itemSummary(registry, tags, "response");
+
+            opcErrors = Counter.builder("opcxmlda.client.opc.errors")
+                .description("OPCErrors returned in responses")
+                .tags(tags)
+                .register(registry);
+
+            Gauge.builder("opcxmlda.client.requests.active", active, AtomicInteger::get)
+                .description("Requests in flight")
+                .tags(tags)
+                .register(registry);
+        }
+
+        private static Timer requestTimer(MeterRegistry registry, Tags tags, String outcome) {
+            return Timer.builder("opcxmlda.client.requests")
+                .description("Duration of requests, from encoding the request to decoding the response")
+                .tags(tags)
+                .tag("outcome", outcome)
+                .register(registry);
+        }
+
+        private static Timer phaseTimer(MeterRegistry registry, Tags tags, String phase) {
+            return Timer.builder("opcxmlda.client.request.phase")
+                .description("Duration of each phase of a request")
+                .tags(tags)
+                .tag("phase", phase)
+                .register(registry);
+        }
+
+        private static DistributionSummary itemSummary(MeterRegistry registry, Tags tags, String direction) {
+            return DistributionSummary.builder("opcxmlda.client.items")
+                .description("Items per message")
+                .tags(tags)
+                .tag("direction", direction)
+                .register(registry);
+        }
+
+    }
+
+}
@@ -1,9 +1,37 @@
 package com.digitalpetri.opc.xmlda.client;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
-
+import java.util.function.Supplier;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.opcfoundation.xmlda.Browse;
 import org.opcfoundation.xmlda.BrowseFilter;
 import org.opcfoundation.xmlda.BrowseResponse;
@@ -11,6 +39,7 @@ import org.opcfoundation.xmlda.GetProperties;
 import org.opcfoundation.xmlda.GetPropertiesResponse;
 import org.opcfoundation.xmlda.GetStatus;
 import org.opcfoundation.xmlda.GetStatusResponse;
+import org.opcfoundation.xmlda.ItemValue;
 import org.opcfoundation.xmlda.Read;
 import org.opcfoundation.xmlda.ReadResponse;
 import org.opcfoundation.xmlda.RequestOptions;
@@ -25,12 +54,25 @@ import org.opcfoundation.xmlda.WriteResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.soap.SoapBody;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.client.SoapFaultClientException;
 import org.springframework.ws.soap.client.core.SoapActionCallback;
+import org.springframework.ws.soap.soap11.Soap11Body;
+import org.springframework.ws.transport.WebServiceMessageSender;
 import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender.RemoveSoapHeadersInterceptor;
 
 /**
  * OPC XML-DA SOAP Client.
+ * <p>
+ * Every operation is available in a blocking form, backed by the {@link WebServiceTemplate}, and a
+ * non-blocking {@code *Async} form returning a {@link CompletableFuture}, backed by the JDK
+ * {@link HttpClient}.
  *
  * @author Kevin Herron
  * @author Yuriy Tumakha
@@ -44,13 +86,83 @@ public class OpcXmlDaClient {
     private final Locale defaultLocale;
     private final WebServiceTemplate webServiceTemplate;
 
+    private final URI asyncServerUri;
+    private final Duration asyncConnectTimeout;
+    private final Duration asyncRequestTimeout;
+
+    private final ReentrantLock transportLock = new ReentrantLock();
+
+    private volatile HttpSoapTransport transport;
+
+    private ReadBatcher readBatcher;
+    private ItemValueCache itemValueCache;
+    private CachingReader cachingReader;
+    private ConnectionPool connectionPool;
+    private RequestChunker requestChunker;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private ClientMetrics metrics;
+    private TrafficRecorder trafficRecorder;
+    private RequestHedger requestHedger;
+
+    /**
+     * @see #OpcXmlDaClient(WebServiceTemplate, Locale)
+     */
     public OpcXmlDaClient(WebServiceTemplate webServiceTemplate) {
         this(webServiceTemplate, Locale.US);
     }
 
+    /**
+     * Create a client for {@code webServiceTemplate}.
+     * <p>
+     * The non-blocking {@code *Async} operations send requests with the JDK {@link HttpClient}, not the
+     * template's {@link WebServiceMessageSender}, so they bypass its timeouts, connection settings and
+     * {@link ClientInterceptor}s. They are sent to the template's default URI with a connect and request timeout of
+     * {@value Builder#DEFAULT_TIMEOUT}ms; use
+     * {@link #OpcXmlDaClient(WebServiceTemplate, Locale, URI, Duration, Duration)} to set them, or {@link Builder}
+     * to configure both transports together.
+     */
     public OpcXmlDaClient(WebServiceTemplate webServiceTemplate, Locale defaultLocale) {
+        this(
+            webServiceTemplate,
+            defaultLocale,
+            webServiceTemplate.getDefaultUri() != null ? URI.create(webServiceTemplate.getDefaultUri()) : null,
+            Duration.ofMillis(Builder.DEFAULT_TIMEOUT),
+            Duration.ofMillis(Builder.DEFAULT_TIMEOUT)
+        );
+    }
+
+    /**
+     * Create a client for {@code webServiceTemplate} whose non-blocking {@code *Async} operations are sent to
+     * {@code serverUri} with the JDK {@link HttpClient}.
+     * <p>
+     * The template's {@link WebServiceMessageSender} and {@link ClientInterceptor}s only apply to the blocking
+     * operations, so pass the same timeouts it is configured with.
+     *
+     * @param serverUri      the server URI for async operations, or {@code null} if they are not used.
+     * @param connectTimeout the connect timeout for async operations.
+     * @param requestTimeout the request timeout for async operations.
+     */
+    public OpcXmlDaClient(
+        WebServiceTemplate webServiceTemplate,
+        Locale defaultLocale,
+        URI serverUri,
+        Duration connectTimeout,
+        Duration requestTimeout) {
+
+        this.webServiceTemplate = webServiceTemplate;
+        this.defaultLocale = defaultLocale;
+        this.asyncServerUri = serverUri;
+        this.asyncConnectTimeout = connectTimeout;
+        this.asyncRequestTimeout = requestTimeout;
+    }
+
+    OpcXmlDaClient(WebServiceTemplate webServiceTemplate, HttpSoapTransport transport, Locale defaultLocale) {
         this.webServiceTemplate = webServiceTemplate;
+        this.transport = transport;
         this.defaultLocale = defaultLocale;
+        this.asyncServerUri = null;
+        this.asyncConnectTimeout = null;
+        this.asyncRequestTimeout = null;
     }
 
     //region GetStatus
@@ -68,12 +180,56 @@ public class OpcXmlDaClient {
     }
 
     public GetStatusResponse getStatus(GetStatus request) {
-        request.setLocaleID(getOrDefaultLang(request.getLocaleID()));
-        request.setClientRequestHandle(getOrDefaultHandle(request.getClientRequestHandle()));
+        if (requestHedger != null) {
+            return join(getStatusAsync(request));
+        }
+
+        prepare(request);
 
         return invokeAction(SoapAction.GET_STATUS, request, GetStatusResponse.class);
     }
 
+    /**
+     * Get the server status, failing if it hasn't responded within {@code deadline}.
+     * <p>
+     * GetStatus has no RequestDeadline, so the deadline only replaces the request timeout.
+     */
+    public GetStatusResponse getStatus(GetStatus request, Duration deadline) {
+        return join(getStatusAsync(request, deadline));
+    }
+
+    public CompletableFuture<GetStatusResponse> getStatusAsync() {
+        return getStatusAsync(new GetStatus());
+    }
+
+    public CompletableFuture<GetStatusResponse> getStatusAsync(Consumer<GetStatus> requestCustomizer) {
+        var request = new GetStatus();
+
+        requestCustomizer.accept(request);
+
+        return getStatusAsync(request);
+    }
+
+    public CompletableFuture<GetStatusResponse> getStatusAsync(GetStatus request) {
+        prepare(request);
+
+        return invokeActionAsync(SoapAction.GET_STATUS, request, GetStatusResponse.class);
+    }
+
+    /**
+     * @see #getStatus(GetStatus, Duration)
+     */
+    public CompletableFuture<GetStatusResponse> getStatusAsync(GetStatus request, Duration deadline) {
+        prepare(request);
+
+        return invokeActionAsync(SoapAction.GET_STATUS, request, GetStatusResponse.class, deadline);
+    }
+
+    private void prepare(GetStatus request) {
+        request.setLocaleID(getOrDefaultLang(request.getLocaleID()));
+        request.setClientRequestHandle(getOrDefaultHandle(request.getClientRequestHandle()));
+    }
+
     //endregion
 
     //region Browse
@@ -95,34 +251,266 @@ public class OpcXmlDaClient {
     }
 
     public BrowseResponse browse(Browse browseRequest) {
-        browseRequest.setLocaleID(getOrDefaultLang(browseRequest.getLocaleID()));
-        browseRequest.setClientRequestHandle(getOrDefaultHandle(browseRequest.getClientRequestHandle()));
+        if (requestHedger != null) {
+            return join(browseAsync(browseRequest));
+        }
+
+        prepare(browseRequest);
 
         return invokeAction(SoapAction.BROWSE, browseRequest, BrowseResponse.class);
     }
 
+    /**
+     * Browse, failing if the server hasn't responded within {@code deadline}.
+     * <p>
+     * Browse has no RequestDeadline, so the deadline only replaces the request timeout.
+     */
+    public BrowseResponse browse(Browse browseRequest, Duration deadline) {
+        return join(browseAsync(browseRequest, deadline));
+    }
+
+    public CompletableFuture<BrowseResponse> browseAsync() {
+        var browseRequest = new Browse();
+        browseRequest.setBrowseFilter(BrowseFilter.ALL);
+
+        return browseAsync(browseRequest);
+    }
+
+    public CompletableFuture<BrowseResponse> browseAsync(Consumer<Browse> requestCustomizer) {
+        var browseRequest = new Browse();
+        browseRequest.setBrowseFilter(BrowseFilter.ALL);
+
+        requestCustomizer.accept(browseRequest);
+
+        return browseAsync(browseRequest);
+    }
+
+    public CompletableFuture<BrowseResponse> browseAsync(Browse browseRequest) {
+        prepare(browseRequest);
+
+        return invokeActionAsync(SoapAction.BROWSE, browseRequest, BrowseResponse.class);
+    }
+
+    /**
+     * @see #browse(Browse, Duration)
+     */
+    public CompletableFuture<BrowseResponse> browseAsync(Browse browseRequest, Duration deadline) {
+        prepare(browseRequest);
+
+        return invokeActionAsync(SoapAction.BROWSE, browseRequest, BrowseResponse.class, deadline);
+    }
+
+    private void prepare(Browse browseRequest) {
+        browseRequest.setLocaleID(getOrDefaultLang(browseRequest.getLocaleID()));
+        browseRequest.setClientRequestHandle(getOrDefaultHandle(browseRequest.getClientRequestHandle()));
+    }
+
     //endregion
 
     //region GetProperties
 
     public GetPropertiesResponse getProperties(GetProperties getPropertiesRequest) {
-        getPropertiesRequest.setLocaleID(getOrDefaultLang(getPropertiesRequest.getLocaleID()));
-        getPropertiesRequest.setClientRequestHandle(getOrDefaultHandle(getPropertiesRequest.getClientRequestHandle()));
+        if (requestHedger != null) {
+            return join(getPropertiesAsync(getPropertiesRequest));
+        }
+
+        prepare(getPropertiesRequest);
 
         return invokeAction(SoapAction.GET_PROPERTIES, getPropertiesRequest, GetPropertiesResponse.class);
     }
 
+    public CompletableFuture<GetPropertiesResponse> getPropertiesAsync(GetProperties getPropertiesRequest) {
+        prepare(getPropertiesRequest);
+
+        return invokeActionAsync(SoapAction.GET_PROPERTIES, getPropertiesRequest, GetPropertiesResponse.class);
+    }
+
+    private void prepare(GetProperties getPropertiesRequest) {
+        getPropertiesRequest.setLocaleID(getOrDefaultLang(getPropertiesRequest.getLocaleID()));
+        getPropertiesRequest.setClientRequestHandle(getOrDefaultHandle(getPropertiesRequest.getClientRequestHandle()));
+    }
+
     //endregion
 
     //region Read
 
     public ReadResponse read(Read readRequest) {
+        if (readBatcher != null || cachingReader != null || requestHedger != null ||
+            (requestChunker != null && requestChunker.exceedsLimit(readRequest))) {
+
+            return join(readAsync(readRequest));
+        }
+
+        prepare(readRequest);
+
+        return invokeAction(SoapAction.READ, readRequest, ReadResponse.class);
+    }
+
+    public CompletableFuture<ReadResponse> readAsync(Read readRequest) {
+        prepare(readRequest);
+
+        if (cachingReader != null) {
+            return cachingReader.read(readRequest);
+        }
+
+        return sendRead(readRequest);
+    }
+
+    /**
+     * Read, with a RequestDeadline {@code deadline} from now that also replaces the request timeout, so the server
+     * can stop working on a read the client is no longer waiting for.
+     *
+     * @param readRequest the {@link Read} request; any RequestDeadline already set is replaced. The deadline is
+     *                    set on a copy, so {@code readRequest} can be reused without one.
+     * @param deadline    how long the server has to respond.
+     */
+    public ReadResponse read(Read readRequest, Duration deadline) {
+        return join(readAsync(readRequest, deadline));
+    }
+
+    /**
+     * @see #read(Read, Duration)
+     */
+    public CompletableFuture<ReadResponse> readAsync(Read readRequest, Duration deadline) {
+        var copy = new Read();
+        copy.setOptions(withDeadline(readRequest.getOptions(), deadline));
+        copy.setItemList(readRequest.getItemList());
+
+        return readAsync(copy);
+    }
+
+    /**
+     * Read, passing each item value to {@code handler} as it is decoded instead of building a {@link ReadResponse}.
+     * <p>
+     * Streaming reads bypass read batching, chunking and the {@link ItemValueCache}.
+     *
+     * @param readRequest the {@link Read} request.
+     * @param handler     the {@link ItemValueHandler} to receive item values.
+     * @return the rest of the response once the last item value has been handled.
+     */
+    public CompletableFuture<StreamingResponse> readStreaming(Read readRequest, ItemValueHandler handler) {
+        prepare(readRequest);
+
+        HttpSoapTransport t = getTransport();
+
+        return limit(() -> t.invokeStreaming(
+            SoapAction.READ,
+            readRequest,
+            new StreamingResponseDecoder(handler)::decode,
+            t.getRequestTimeout()
+        ));
+    }
+
+    private CompletableFuture<ReadResponse> sendRead(Read readRequest) {
+        if (readBatcher != null) {
+            return readBatcher.read(readRequest);
+        }
+
+        return invokeRead(readRequest);
+    }
+
+    private CompletableFuture<ReadResponse> dispatchRead(Read readRequest) {
+        prepare(readRequest);
+
+        return invokeRead(readRequest);
+    }
+
+    private CompletableFuture<ReadResponse> invokeRead(Read readRequest) {
+        Duration timeout = timeoutFor(readRequest.getOptions());
+
+        if (requestChunker != null) {
+            return requestChunker.read(
+                readRequest,
+                chunk -> invokeActionAsync(SoapAction.READ, chunk, ReadResponse.class, timeout)
+            );
+        }
+
+        return invokeActionAsync(SoapAction.READ, readRequest, ReadResponse.class, timeout);
+    }
+
+    /**
+     * Prepare {@code readRequest} to be sent repeatedly.
+     * <p>
+     * Default options are applied and the request envelope is encoded once; each send of the returned
+     * {@link PreparedRead} only patches in a new ClientRequestHandle and, optionally, a RequestDeadline. Any
+     * ClientRequestHandle or RequestDeadline already set on {@code readRequest} is ignored. The item list is shared,
+     * not copied, and must not be modified afterwards.
+     * <p>
+     * Prepared reads bypass read batching and the {@link ItemValueCache}. Reads with more items than
+     * {@link Builder#setMaxItemsPerRequest(int)} are chunked as usual, without the pre-encoded envelope.
+     *
+     * @param readRequest the {@link Read} request.
+     * @return the {@link PreparedRead}.
+     */
+    public PreparedRead prepareRead(Read readRequest) {
+        String token = "prepared-" + nextClientRequestHandle();
+
+        Read template = PreparedRead.copyOf(readRequest, token, null);
+        prepare(template);
+
+        if (requestChunker != null && requestChunker.exceedsLimit(template)) {
+            return new PreparedRead(template, null, null);
+        }
+
+        byte[][] parts;
+        try {
+            parts = PreparedRead.split(getTransport().encode(template), token);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to encode Read", e);
+        }
+
+        if (parts == null) {
+            LOG.debug("ClientRequestHandle not found in encoded Read; sending prepared read unencoded");
+            return new PreparedRead(template, null, null);
+        }
+
+        return new PreparedRead(template, parts[0], parts[1]);
+    }
+
+    public ReadResponse read(PreparedRead preparedRead) {
+        return join(readAsync(preparedRead));
+    }
+
+    public CompletableFuture<ReadResponse> readAsync(PreparedRead preparedRead) {
+        return readAsync(preparedRead, null);
+    }
+
+    /**
+     * Send a {@link PreparedRead}.
+     *
+     * @param preparedRead the {@link PreparedRead}.
+     * @param deadline     how long the server has to respond, sent as the RequestDeadline and replacing the
+     *                     request timeout, or {@code null} for none.
+     */
+    public CompletableFuture<ReadResponse> readAsync(PreparedRead preparedRead, Duration deadline) {
+        String clientRequestHandle = nextClientRequestHandle();
+        Instant requestDeadline = deadline != null ? Instant.now().plus(deadline) : null;
+
+        if (!preparedRead.isEncoded()) {
+            return invokeRead(preparedRead.copy(clientRequestHandle, requestDeadline));
+        }
+
+        HttpSoapTransport t = getTransport();
+        Duration timeout = deadline != null ? deadline : t.getRequestTimeout();
+
+        if (timeout.isZero() || timeout.isNegative()) {
+            return deadlinePassed(SoapAction.READ);
+        }
+
+        return hedge(SoapAction.READ, timeout, () -> t.invoke(
+            SoapAction.READ,
+            preparedRead.getTemplate(),
+            payload -> preparedRead.encode(clientRequestHandle, requestDeadline),
+            ReadResponse.class,
+            timeout
+        ));
+    }
+
+    private void prepare(Read readRequest) {
         if (readRequest.getOptions() == null) {
             readRequest.setOptions(new RequestOptions());
         }
         setDefaultOptions(readRequest.getOptions());
-
-        return invokeAction(SoapAction.READ, readRequest, ReadResponse.class);
     }
 
     //endregion
@@ -130,12 +518,83 @@ public class OpcXmlDaClient {
     //region Write
 
     public WriteResponse write(Write writeRequest) {
+        if (requestChunker != null && requestChunker.exceedsLimit(writeRequest)) {
+            return join(writeAsync(writeRequest));
+        }
+
+        prepare(writeRequest);
+
+        try {
+            return invokeAction(SoapAction.WRITE, writeRequest, WriteResponse.class);
+        } finally {
+            invalidateCache(writeRequest);
+        }
+    }
+
+    public CompletableFuture<WriteResponse> writeAsync(Write writeRequest) {
+        prepare(writeRequest);
+
+        Duration timeout = timeoutFor(writeRequest.getOptions());
+
+        CompletableFuture<WriteResponse> future;
+        if (requestChunker != null) {
+            future = requestChunker.write(
+                writeRequest,
+                chunk -> invokeActionAsync(SoapAction.WRITE, chunk, WriteResponse.class, timeout)
+            );
+        } else {
+            future = invokeActionAsync(SoapAction.WRITE, writeRequest, WriteResponse.class, timeout);
+        }
+
+        return future.whenComplete((response, ex) -> invalidateCache(writeRequest));
+    }
+
+    /**
+     * Write, with a RequestDeadline {@code deadline} from now that also replaces the request timeout.
+     * <p>
+     * A write that times out may still have been applied by the server.
+     *
+     * @param writeRequest the {@link Write} request; any RequestDeadline already set is replaced. The deadline is
+     *                     set on a copy, so {@code writeRequest} can be reused without one.
+     * @param deadline     how long the server has to respond.
+     */
+    public WriteResponse write(Write writeRequest, Duration deadline) {
+        return join(writeAsync(writeRequest, deadline));
+    }
+
+    /**
+     * @see #write(Write, Duration)
+     */
+    public CompletableFuture<WriteResponse> writeAsync(Write writeRequest, Duration deadline) {
+        var copy = new Write();
+        copy.setOptions(withDeadline(writeRequest.getOptions(), deadline));
+        copy.setItemList(writeRequest.getItemList());
+        copy.setReturnValuesOnReply(writeRequest.isReturnValuesOnReply());
+
+        return writeAsync(copy);
+    }
+
+    /**
+     * Drop cached values for the items in {@code writeRequest}, written or not, since they may now be stale.
+     */
+    private void invalidateCache(Write writeRequest) {
+        if (itemValueCache == null || writeRequest.getItemList() == null) return;
+
+        String listItemPath = writeRequest.getItemList().getItemPath();
+
+        for (ItemValue item : writeRequest.getItemList().getItems()) {
+            itemValueCache.invalidate(
+                item.getItemPath() != null ? item.getItemPath() : listItemPath,
+                item.getItemName()
+            );
+        }
+    }
+
+    private void prepare(Write writeRequest) {
         if (writeRequest.getOptions() == null) {
             writeRequest.setOptions(new RequestOptions());
         }
         setDefaultOptions(writeRequest.getOptions());
-
-        return invokeAction(SoapAction.WRITE, writeRequest, WriteResponse.class);
     }
 
     //endregion
@@ -143,12 +602,65 @@ public class OpcXmlDaClient {
     //region Subscribe
 
     public SubscribeResponse subscribe(Subscribe subscribeRequest) {
+        prepare(subscribeRequest);
+
+        return invokeAction(SoapAction.SUBSCRIBE, subscribeRequest, SubscribeResponse.class);
+    }
+
+    public CompletableFuture<SubscribeResponse> subscribeAsync(Subscribe subscribeRequest) {
+        prepare(subscribeRequest);
+
+        return invokeActionAsync(SoapAction.SUBSCRIBE, subscribeRequest, SubscribeResponse.class);
+    }
+
+    /**
+     * Subscribe, splitting the item list into requests of at most {@link Builder#setMaxItemsPerRequest(int)}
+     * items.
+     * <p>
+     * Every chunk creates a separate subscription on the server, so there is one {@link SubscribeResponse}, with
+     * its own ServerSubHandle, per chunk, in item order. A single SubscriptionPolledRefresh can poll all of them.
+     * <p>
+     * If any chunk fails the returned future fails, and the subscriptions created by the chunks that succeeded are
+     * cancelled.
+     *
+     * @param subscribeRequest the {@link Subscribe} request.
+     * @return the response to each chunk.
+     */
+    public CompletableFuture<List<SubscribeResponse>> subscribeChunked(Subscribe subscribeRequest) {
+        prepare(subscribeRequest);
+
+        if (requestChunker == null) {
+            return subscribeAsync(subscribeRequest).thenApply(List::of);
+        }
+
+        return requestChunker.subscribe(
+            subscribeRequest,
+            chunk -> invokeActionAsync(SoapAction.SUBSCRIBE, chunk, SubscribeResponse.class),
+            this::cancelAbandoned
+        );
+    }
+
+    /**
+     * Cancel the subscription created by a chunk of a {@link #subscribeChunked(Subscribe)} call that failed.
+     */
+    private void cancelAbandoned(SubscribeResponse response) {
+        if (response.getServerSubHandle() == null) return;
+
+        var cancel = new SubscriptionCancel();
+        cancel.setServerSubHandle(response.getServerSubHandle());
+
+        subscriptionCancelAsync(cancel).whenComplete((r, ex) -> {
+            if (ex != null) {
+                LOG.debug("Failed to cancel abandoned subscription {}", response.getServerSubHandle(), ex);
+            }
+        });
+    }
+
+    private void prepare(Subscribe subscribeRequest) {
         if (subscribeRequest.getOptions() == null) {
             subscribeRequest.setOptions(new RequestOptions());
         }
         setDefaultOptions(subscribeRequest.getOptions());
-
-        return invokeAction(SoapAction.SUBSCRIBE, subscribeRequest, SubscribeResponse.class);
     }
 
     //endregion
@@ -156,11 +668,7 @@ public class OpcXmlDaClient {
     //region SubscriptionPolledRefresh
 
     public SubscriptionPolledRefreshResponse subscriptionPolledRefresh(SubscriptionPolledRefresh subscriptionRefresh) {
-        if (subscriptionRefresh.getOptions() == null) {
-            subscriptionRefresh.setOptions(new RequestOptions());
-        }
-
-        setDefaultOptions(subscriptionRefresh.getOptions());
+        prepare(subscriptionRefresh);
 
         return invokeAction(
             SoapAction.SUBSCRIPTION_POLLED_REFRESH,
@@ -169,14 +677,105 @@ public class OpcXmlDaClient {
         );
     }
 
+    public CompletableFuture<SubscriptionPolledRefreshResponse> subscriptionPolledRefreshAsync(
+        SubscriptionPolledRefresh subscriptionRefresh) {
+
+        prepare(subscriptionRefresh);
+
+        return invokeActionAsync(
+            SoapAction.SUBSCRIPTION_POLLED_REFRESH,
+            subscriptionRefresh,
+            SubscriptionPolledRefreshResponse.class
+        );
+    }
+
+    /**
+     * SubscriptionPolledRefresh, passing each item value to {@code handler} as it is decoded instead of building
+     * a {@link SubscriptionPolledRefreshResponse}.
+     *
+     * @param subscriptionRefresh the {@link SubscriptionPolledRefresh} request.
+     * @param handler             the {@link ItemValueHandler} to receive item values.
+     * @return the rest of the response once the last item value has been handled.
+     */
+    public CompletableFuture<StreamingResponse> subscriptionPolledRefreshStreaming(
+        SubscriptionPolledRefresh subscriptionRefresh, ItemValueHandler handler) {
+
+        return subscriptionPolledRefreshStreaming(subscriptionRefresh, handler, holdAndWait(subscriptionRefresh));
+    }
+
+    /**
+     * Issue a streaming SubscriptionPolledRefresh whose HTTP timeout is extended by {@code holdAndWait}.
+     *
+     * @see #subscriptionPolledRefreshAsync(SubscriptionPolledRefresh, Duration)
+     */
+    CompletableFuture<StreamingResponse> subscriptionPolledRefreshStreaming(
+        SubscriptionPolledRefresh subscriptionRefresh, ItemValueHandler handler, Duration holdAndWait) {
+
+        prepare(subscriptionRefresh);
+
+        HttpSoapTransport t = getTransport();
+
+        Supplier<CompletableFuture<StreamingResponse>> operation = () -> t.invokeStreaming(
+            SoapAction.SUBSCRIPTION_POLLED_REFRESH,
+            subscriptionRefresh,
+            new StreamingResponseDecoder(handler)::decode,
+            t.getRequestTimeout().plus(holdAndWait)
+        );
+
+        // a refresh the server holds open isn't load on it; don't let it occupy a slot while it waits
+        return holdAndWait.isZero() ? limit(operation) : operation.get();
+    }
+
+    /**
+     * @return how much longer than usual the server may take to answer {@code subscriptionRefresh} because of its
+     * HoldTime and WaitTime.
+     */
+    private static Duration holdAndWait(SubscriptionPolledRefresh subscriptionRefresh) {
+        long millis = subscriptionRefresh.getWaitTime();
+
+        if (subscriptionRefresh.getHoldTime() != null) {
+            long holdMillis = XmlTime.toEpochMillis(subscriptionRefresh.getHoldTime()) - System.currentTimeMillis();
+            millis += Math.max(0L, holdMillis);
+        }
+
+        return Duration.ofMillis(millis);
+    }
+
+    /**
+     * Issue a SubscriptionPolledRefresh whose HTTP timeout is extended by {@code holdAndWait}, the time the
+     * server is allowed to hold the request open before it must reply.
+     */
+    CompletableFuture<SubscriptionPolledRefreshResponse> subscriptionPolledRefreshAsync(
+        SubscriptionPolledRefresh subscriptionRefresh, Duration holdAndWait) {
+
+        prepare(subscriptionRefresh);
+
+        HttpSoapTransport t = getTransport();
+
+        Supplier<CompletableFuture<SubscriptionPolledRefreshResponse>> operation = () -> t.invoke(
+            SoapAction.SUBSCRIPTION_POLLED_REFRESH,
+            subscriptionRefresh,
+            SubscriptionPolledRefreshResponse.class,
+            t.getRequestTimeout().plus(holdAndWait)
+        );
+
+        return holdAndWait.isZero() ? limit(operation) : operation.get();
+    }
+
+    private void prepare(SubscriptionPolledRefresh subscriptionRefresh) {
+        if (subscriptionRefresh.getOptions() == null) {
+            subscriptionRefresh.setOptions(new RequestOptions());
+        }
+
+        setDefaultOptions(subscriptionRefresh.getOptions());
+    }
+
     //endregion
 
     //region SubscriptionCancel
 
     public SubscriptionCancelResponse subscriptionCancel(SubscriptionCancel subscriptionCancelRequest) {
-        subscriptionCancelRequest.setClientRequestHandle(
-            getOrDefaultHandle(subscriptionCancelRequest.getClientRequestHandle())
-        );
+        prepare(subscriptionCancelRequest);
 
         return invokeAction(
             SoapAction.SUBSCRIPTION_CANCEL,
@@ -185,19 +784,272 @@ public class OpcXmlDaClient {
         );
     }
 
+    public CompletableFuture<SubscriptionCancelResponse> subscriptionCancelAsync(
+        SubscriptionCancel subscriptionCancelRequest) {
+
+        prepare(subscriptionCancelRequest);
+
+        return invokeActionAsync(
+            SoapAction.SUBSCRIPTION_CANCEL,
+            subscriptionCancelRequest,
+            SubscriptionCancelResponse.class
+        );
+    }
+
+    private void prepare(SubscriptionCancel subscriptionCancelRequest) {
+        subscriptionCancelRequest.setClientRequestHandle(
+            getOrDefaultHandle(subscriptionCancelRequest.getClientRequestHandle())
+        );
+    }
+
     //endregion
 
+    /**
+     * @return the {@link ItemValueCache} reads are served from, or {@code null} if this client has none.
+     */
+    public ItemValueCache getItemValueCache() {
+        return itemValueCache;
+    }
+
+    /**
+     * @return the {@link ConcurrencyLimiter} requests from this client pass through, or {@code null} if this
+     * client has none.
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * @return the {@link RequestHedger} idempotent requests from this client are hedged by, or {@code null} if this
+     * client has none.
+     */
+    public RequestHedger getRequestHedger() {
+        return requestHedger;
+    }
+
+    /**
+     * @return the {@link ClientMetrics} requests from this client are reported to, or {@code null} if this client
+     * has none.
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return statistics for the connection pool of the blocking transport, or {@code null} if the
+     * {@link WebServiceTemplate} was not created by {@link Builder}.
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return connectionPool != null ? connectionPool.getStats() : null;
+    }
+
+    WebServiceTemplate getWebServiceTemplate() {
+        return webServiceTemplate;
+    }
+
     public String nextClientRequestHandle() {
         return String.valueOf(clientRequestHandles.getAndIncrement());
     }
 
     private <T> T invokeAction(SoapAction soapAction, Object requestPayload, Class<T> responseClass) {
-        Object response = webServiceTemplate.marshalSendAndReceive(
-            requestPayload,
-            new SoapActionCallback(soapAction.getActionPath())
-        );
+        Supplier<T> operation = () -> {
+            OperationTimer timer = OperationTimer.startBlocking(metrics, soapAction, requestPayload);
+            try {
+                T response = responseClass.cast(
+                    webServiceTemplate.marshalSendAndReceive(
+                        requestPayload,
+                        new SoapActionCallback(soapAction.getActionPath())
+                    )
+                );
+                timer.complete(response, null);
+                return response;
+            } catch (RuntimeException | Error e) {
+                timer.complete(null, e);
+                throw e;
+            }
+        };
+
+        return concurrencyLimiter != null ? concurrencyLimiter.execute(operation) : operation.get();
+    }
+
+    /**
+     * Wait for {@code future}, rethrowing the exception it completed with the way the blocking path would have
+     * thrown it: as-is, except that a {@link SoapFaultException} becomes a {@link SoapFaultClientException}.
+     */
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SoapFaultException) {
+                throw soapFaultClientException((SoapFaultException) e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Re-create {@code fault}, raised by the non-blocking transport, as the {@link SoapFaultClientException}
+     * {@link WebServiceTemplate} throws for a SOAP Fault, or return it as-is if that isn't possible.
+     */
+    private RuntimeException soapFaultClientException(SoapFaultException fault) {
+        try {
+            WebServiceMessage message = webServiceTemplate.getMessageFactory().createWebServiceMessage();
+            if (!(message instanceof SoapMessage)) return fault;
+
+            SoapBody body = ((SoapMessage) message).getSoapBody();
+            QName faultCode = fault.getFaultCode();
+            String faultString = fault.getFaultString() != null ? fault.getFaultString() : "";
+
+            if (body instanceof Soap11Body && faultCode != null && !faultCode.getNamespaceURI().isEmpty()) {
+                ((Soap11Body) body).addFault(faultCode, faultString, defaultLocale);
+            } else {
+                body.addServerOrReceiverFault(faultString, defaultLocale);
+            }
+
+            var exception = new SoapFaultClientException((SoapMessage) message);
+            exception.initCause(fault);
+            return exception;
+        } catch (RuntimeException e) {
+            LOG.debug("Failed to re-create SOAP Fault {}", fault, e);
+            return fault;
+        }
+    }
+
+    private <T> CompletableFuture<T> invokeActionAsync(
+        SoapAction soapAction, Object requestPayload, Class<T> responseClass) {
+
+        return invokeActionAsync(soapAction, requestPayload, responseClass, null);
+    }
 
-        return responseClass.cast(response);
+    /**
+     * @param timeout how long to wait for the response, or {@code null} for the transport's request timeout. A
+     *                timeout that has already passed fails without sending the request.
+     */
+    private <T> CompletableFuture<T> invokeActionAsync(
+        SoapAction soapAction, Object requestPayload, Class<T> responseClass, Duration timeout) {
+
+        HttpSoapTransport t = getTransport();
+        Duration requestTimeout = timeout != null ? timeout : t.getRequestTimeout();
+
+        if (requestTimeout.isZero() || requestTimeout.isNegative()) {
+            return deadlinePassed(soapAction);
+        }
+
+        return hedge(soapAction, requestTimeout, () ->
+            t.invoke(soapAction, requestPayload, responseClass, requestTimeout));
+    }
+
+    /**
+     * @return a future failed the way a request timing out would, for a request whose deadline passed before it
+     * could be sent.
+     */
+    private static <T> CompletableFuture<T> deadlinePassed(SoapAction soapAction) {
+        return CompletableFuture.failedFuture(new WebServiceIOException(
+            String.format("deadline passed before %s request was sent", soapAction),
+            new HttpTimeoutException("deadline passed")
+        ));
+    }
+
+    /**
+     * Send an operation through the {@link ConcurrencyLimiter} and, if it is idempotent, the {@link RequestHedger}.
+     */
+    private <T> CompletableFuture<T> hedge(
+        SoapAction soapAction, Duration timeout, Supplier<CompletableFuture<T>> operation) {
+
+        RequestHedger hedger = requestHedger;
+
+        if (hedger != null && hedger.isHedged(soapAction)) {
+            return hedger.invoke(soapAction, timeout, () -> limit(operation));
+        }
+
+        return limit(operation);
+    }
+
+    private <T> CompletableFuture<T> limit(Supplier<CompletableFuture<T>> operation) {
+        return concurrencyLimiter != null ? concurrencyLimiter.submit(operation) : operation.get();
+    }
+
+    /**
+     * Get the non-blocking transport, deriving one from the {@link WebServiceTemplate}'s default URI and
+     * marshaller if this client was not built with one.
+     */
+    private HttpSoapTransport getTransport() {
+        HttpSoapTransport t = transport;
+
+        if (t == null) {
+            // a lock rather than a monitor so a virtual thread creating the transport doesn't pin its carrier
+            transportLock.lock();
+            try {
+                t = transport;
+                if (t == null) {
+                    transport = t = createTransport();
+                    t.setMetrics(metrics);
+                    t.setRecorder(trafficRecorder);
+                }
+            } finally {
+                transportLock.unlock();
+            }
+        }
+
+        return t;
+    }
+
+    private HttpSoapTransport createTransport() {
+        if (asyncServerUri == null) {
+            throw new IllegalStateException("no server URI for async operations; create the client with " +
+                "OpcXmlDaClient.Builder or a WebServiceTemplate that has a default URI");
+        }
+
+        JAXBContext jaxbContext;
+        if (webServiceTemplate.getMarshaller() instanceof Jaxb2Marshaller) {
+            jaxbContext = ((Jaxb2Marshaller) webServiceTemplate.getMarshaller()).getJaxbContext();
+        } else {
+            try {
+                jaxbContext = JAXBContext.newInstance(Builder.CONTEXT_PATH);
+            } catch (JAXBException e) {
+                throw new IllegalStateException("failed to create JAXBContext", e);
+            }
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(asyncConnectTimeout)
+            .build();
+
+        return new HttpSoapTransport(httpClient, asyncServerUri, asyncRequestTimeout, jaxbContext);
+    }
+
+    /**
+     * @return the time left until {@code options}' RequestDeadline, or {@code null} if it has none.
+     */
+    private static Duration timeoutFor(RequestOptions options) {
+        if (options == null || options.getRequestDeadline() == null) return null;
+
+        return Duration.ofMillis(XmlTime.toEpochMillis(options.getRequestDeadline()) - System.currentTimeMillis());
+    }
+
+    private static XMLGregorianCalendar requestDeadline(Duration deadline) {
+        return XmlTime.fromEpochMillis(System.currentTimeMillis() + deadline.toMillis());
+    }
+
+    /**
+     * @return a copy of {@code options}, which may be {@code null}, with a RequestDeadline {@code deadline} from now.
+     */
+    private static RequestOptions withDeadline(RequestOptions options, Duration deadline) {
+        var copy = new RequestOptions();
+        if (options != null) {
+            copy.setReturnErrorText(options.isReturnErrorText());
+            copy.setReturnDiagnosticInfo(options.isReturnDiagnosticInfo());
+            copy.setReturnItemTime(options.isReturnItemTime());
+            copy.setReturnItemPath(options.isReturnItemPath());
+            copy.setReturnItemName(options.isReturnItemName());
+            copy.setClientRequestHandle(options.getClientRequestHandle());
+            copy.setLocaleID(options.getLocaleID());
+        }
+        copy.setRequestDeadline(requestDeadline(deadline));
+        return copy;
     }
 
     private void setDefaultOptions(RequestOptions requestOptions) {
@@ -217,11 +1069,29 @@ public class OpcXmlDaClient {
         return requestHandle == null || requestHandle.isEmpty() ? nextClientRequestHandle() : requestHandle;
     }
 
+    /**
+     * @return a daemon {@link ScheduledExecutorService} shared by clients and subscription managers that were
+     * not given one of their own.
+     */
+    static ScheduledExecutorService sharedScheduler() {
+        return SharedScheduler.INSTANCE;
+    }
+
     public static OpcXmlDaClient.Builder newBuilder() {
         return new Builder();
     }
 
-    private enum SoapAction {
+    private static final class SharedScheduler {
+
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "opc-xmlda-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+    enum SoapAction {
 
         GET_STATUS("GetStatus"),
         BROWSE("Browse"),
@@ -232,14 +1102,23 @@ public class OpcXmlDaClient {
         SUBSCRIPTION_POLLED_REFRESH("SubscriptionPolledRefresh"),
         SUBSCRIPTION_CANCEL("SubscriptionCancel");
 
-        private static final String ACTION_BASE = "http://opcfoundation.org/webservices/XMLDA/1.0/";
+        static final String ACTION_BASE = "http://opcfoundation.org/webservices/XMLDA/1.0/";
 
+        private final String name;
         private final String actionPath;
 
         SoapAction(String action) {
+            this.name = action;
             this.actionPath = ACTION_BASE + action;
         }
 
+        /**
+         * @return the operation name, e.g. {@code Read}.
+         */
+        String getName() {
+            return name;
+        }
+
         String getActionPath() {
             return actionPath;
         }
@@ -249,11 +1128,44 @@ public class OpcXmlDaClient {
 
     public static class Builder {
 
+        static final String CONTEXT_PATH = "org.opcfoundation.xmlda";
+        static final int DEFAULT_TIMEOUT = 5000;
+        static final int DEFAULT_MAX_CONNECTIONS = 20;
+        static final Duration DEFAULT_IDLE_CONNECTION_TIMEOUT = Duration.ofSeconds(60);
+
         private String serverUrl;
-        private int connectTimeout = 5000;
-        private int requestTimeout = 5000;
+        private int connectTimeout = DEFAULT_TIMEOUT;
+        private int requestTimeout = DEFAULT_TIMEOUT;
         private Locale defaultLocale = Locale.US;
         private WebServiceTemplate webServiceTemplate;
+        private HttpClient httpClient;
+        private Executor executor;
+        private ScheduledExecutorService scheduler;
+        private Duration readBatchWindow;
+        private int readBatchMaxItems = 1000;
+        private ItemValueCache itemValueCache;
+        private RequestEncoding requestEncoding = RequestEncoding.JAXB;
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS;
+        private Duration connectionKeepAlive;
+        private Duration idleConnectionTimeout = DEFAULT_IDLE_CONNECTION_TIMEOUT;
+        private boolean requestCompression = false;
+        private boolean responseCompression = true;
+        private boolean tcpNoDelay = true;
+        private boolean socketKeepAlive = false;
+        private int maxItemsPerRequest = 0;
+        private int maxConcurrentChunks = 4;
+        private ConcurrencyLimiter concurrencyLimiter;
+        private ClientMetrics metrics;
+        private TrafficRecorder trafficRecorder;
+        private RequestHedger requestHedger;
+        private boolean virtualThreads = false;
+
+        /**
+         * Resources shared by the clients of an {@link OpcXmlDaClientPool}, or {@code null} for a standalone client.
+         */
+        Jaxb2Marshaller sharedMarshaller;
+        ConnectionPool sharedConnectionPool;
 
         public Builder setServerUrl(String serverUrl) {
             this.serverUrl = serverUrl;
@@ -275,23 +1187,274 @@ public class OpcXmlDaClient {
             return this;
         }
 
+        /**
+         * Set the {@link WebServiceTemplate} blocking operations are sent with, instead of creating one.
+         * <p>
+         * Non-blocking operations don't go through the template's message sender or interceptors; they use an
+         * {@link HttpClient} configured by this builder, with its connect and request timeouts.
+         */
         public Builder setWebServiceTemplate(WebServiceTemplate webServiceTemplate) {
             this.webServiceTemplate = webServiceTemplate;
             return this;
         }
 
+        /**
+         * Set the {@link HttpClient} used by the non-blocking {@code *Async} operations.
+         * <p>
+         * If not set, one is created using the configured connect timeout and {@link #setExecutor(Executor)}.
+         */
+        public Builder setHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Set the {@link Executor} the non-blocking transport completes responses on.
+         * <p>
+         * Ignored if an {@link HttpClient} is provided via {@link #setHttpClient(HttpClient)}.
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set the {@link ScheduledExecutorService} used for time-based work such as read batching.
+         * <p>
+         * If not set, a daemon scheduler shared by all clients is used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Enable read batching: {@link Read} requests arriving within {@code readBatchWindow} of each other are
+         * merged into a single request and the response is split back per caller.
+         *
+         * @param readBatchWindow how long to hold a request waiting for others to batch it with, or {@code null}
+         *                        to disable batching.
+         */
+        public Builder setReadBatchWindow(Duration readBatchWindow) {
+            this.readBatchWindow = readBatchWindow;
+            return this;
+        }
+
+        /**
+         * Set the number of items at which a batch is sent without waiting for the rest of its window.
+         */
+        public Builder setReadBatchMaxItems(int readBatchMaxItems) {
+            this.readBatchMaxItems = readBatchMaxItems;
+            return this;
+        }
+
+        /**
+         * Set an {@link ItemValueCache} to serve reads from when the cached value satisfies the requested
+         * MaxAge. The cache is also kept current by read replies and by subscriptions managed by an
+         * {@link OpcXmlDaSubscriptionManager} for this client.
+         */
+        public Builder setItemValueCache(ItemValueCache itemValueCache) {
+            this.itemValueCache = itemValueCache;
+            return this;
+        }
+
+        /**
+         * Set how the non-blocking transport encodes request envelopes. Defaults to {@link RequestEncoding#JAXB}.
+         */
+        public Builder setRequestEncoding(RequestEncoding requestEncoding) {
+            this.requestEncoding = requestEncoding;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of pooled connections kept by the blocking transport. Defaults to 20.
+         */
+        public Builder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of pooled connections to a single server. Defaults to 20; a client talks to one
+         * server, so there is little reason for this to be lower than {@link #setMaxConnections(int)}.
+         */
+        public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Set how long an idle connection is kept open for reuse when the server's response does not say.
+         * <p>
+         * If not set, connections are kept until the server's {@code Keep-Alive} timeout, if any, or until they
+         * are evicted for being idle.
+         */
+        public Builder setConnectionKeepAlive(Duration connectionKeepAlive) {
+            this.connectionKeepAlive = connectionKeepAlive;
+            return this;
+        }
+
+        /**
+         * Set how long a pooled connection may sit idle before a background thread closes it, or {@code null} to
+         * never evict idle connections. Defaults to 60 seconds.
+         */
+        public Builder setIdleConnectionTimeout(Duration idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        /**
+         * Set whether request bodies are gzip-compressed. Defaults to {@code false}; only enable this for servers
+         * known to accept {@code Content-Encoding: gzip}.
+         */
+        public Builder setRequestCompression(boolean requestCompression) {
+            this.requestCompression = requestCompression;
+            return this;
+        }
+
+        /**
+         * Set whether gzip-compressed responses are accepted. Defaults to {@code true}.
+         */
+        public Builder setResponseCompression(boolean responseCompression) {
+            this.responseCompression = responseCompression;
+            return this;
+        }
+
+        /**
+         * Set {@code TCP_NODELAY} on the blocking transport's sockets. Defaults to {@code true}.
+         */
+        public Builder setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * Set {@code SO_KEEPALIVE} on the blocking transport's sockets. Defaults to {@code false}.
+         */
+        public Builder setSocketKeepAlive(boolean socketKeepAlive) {
+            this.socketKeepAlive = socketKeepAlive;
+            return this;
+        }
+
+        /**
+         * Split Read and Write requests with more than {@code maxItemsPerRequest} items into several requests and
+         * merge their responses, for servers that reject or are slow to answer large item lists. Defaults to 0,
+         * which sends every request whole.
+         * <p>
+         * Affects the non-blocking transport; blocking reads and writes over the limit are sent through it.
+         * <p>
+         * Chunks are separate requests, so a chunked Write is not atomic: if one chunk fails the call fails, but
+         * chunks the server already accepted have been applied, and chunks not yet sent are not sent at all.
+         *
+         * @see #setMaxConcurrentChunks(int)
+         * @see OpcXmlDaClient#subscribeChunked(Subscribe)
+         */
+        public Builder setMaxItemsPerRequest(int maxItemsPerRequest) {
+            this.maxItemsPerRequest = maxItemsPerRequest;
+            return this;
+        }
+
+        /**
+         * Set how many chunks of a single split request may be in flight at once. Defaults to 4.
+         */
+        public Builder setMaxConcurrentChunks(int maxConcurrentChunks) {
+            this.maxConcurrentChunks = maxConcurrentChunks;
+            return this;
+        }
+
+        /**
+         * Set a {@link ConcurrencyLimiter} that every request, blocking or not, must pass through. Requests over
+         * its limit wait in its queue or fail with {@link ConcurrencyLimitExceededException}.
+         * <p>
+         * SubscriptionPolledRefresh requests with a HoldTime or WaitTime made by an
+         * {@link OpcXmlDaSubscriptionManager} or {@link OpcXmlDaClient#subscriptionPolledRefreshStreaming} are not
+         * limited, since the server holds them open rather than working on them.
+         */
+        public Builder setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * Set a {@link ClientMetrics} to report the timing, size and outcome of every request to, e.g. a
+         * {@link MicrometerClientMetrics} or {@link JfrClientMetrics}. Defaults to none.
+         * <p>
+         * The blocking transport doesn't expose message sizes, so byte counts are only reported for requests sent
+         * by the non-blocking transport.
+         */
+        public Builder setMetrics(ClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Capture every request and response, with timings, to {@code trafficRecorder}. Defaults to none.
+         * <p>
+         * A recorder may be shared by several clients; it is not closed with the client.
+         */
+        public Builder setTrafficRecorder(TrafficRecorder trafficRecorder) {
+            this.trafficRecorder = trafficRecorder;
+            return this;
+        }
+
+        /**
+         * Hedge slow Read, GetStatus, Browse and GetProperties requests with {@code requestHedger}. Defaults to
+         * none.
+         * <p>
+         * Hedged requests are sent by the non-blocking transport, blocking calls included.
+         */
+        public Builder setRequestHedger(RequestHedger requestHedger) {
+            this.requestHedger = requestHedger;
+            return this;
+        }
+
+        /**
+         * Run the non-blocking transport's response handling on virtual threads. Defaults to {@code false}.
+         * <p>
+         * Blocking operations run on the calling thread, so they run on a virtual thread when called from one; the
+         * blocking transport uses locks rather than monitors around socket I/O and won't pin it to its carrier.
+         * This setting makes the {@link HttpClient} complete responses, and run anything chained on the returned
+         * futures, on a new virtual thread per response, where blocking is cheap.
+         * <p>
+         * Ignored if an {@link HttpClient} or {@link Executor} is provided.
+         *
+         * @see VirtualThreads
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @throws UnsupportedOperationException if virtual threads were requested and the running JVM doesn't
+         *                                       support them.
+         */
         public OpcXmlDaClient build() {
+            ConnectionPool connectionPool = null;
+
+            if (virtualThreads && executor == null && httpClient == null) {
+                executor = VirtualThreads.newExecutor("opc-xmlda-http-");
+            }
+
             if (webServiceTemplate == null) {
                 if (serverUrl == null) {
                     throw new IllegalArgumentException("serverUrl must be specified");
                 }
 
-                var marshaller = new Jaxb2Marshaller();
-                marshaller.setContextPath("org.opcfoundation.xmlda");
+                Jaxb2Marshaller marshaller = sharedMarshaller;
+                if (marshaller == null) {
+                    marshaller = new Jaxb2Marshaller();
+                    marshaller.setContextPath(CONTEXT_PATH);
+                }
+
+                if (sharedConnectionPool != null) {
+                    connectionPool = sharedConnectionPool.forServer(URI.create(serverUrl), maxConnectionsPerRoute);
+                } else {
+                    connectionPool = new ConnectionPool(maxConnections, maxConnectionsPerRoute);
+                }
 
-                var messageSender = new HttpComponentsMessageSender();
-                messageSender.setConnectionTimeout(connectTimeout);
-                messageSender.setReadTimeout(requestTimeout);
+                var messageSender = new HttpComponentsMessageSender(createHttpComponentsClient(connectionPool));
+                messageSender.setAcceptGzipEncoding(responseCompression);
 
                 webServiceTemplate = new WebServiceTemplate();
                 webServiceTemplate.setDefaultUri(serverUrl);
@@ -300,7 +1463,148 @@ public class OpcXmlDaClient {
                 webServiceTemplate.setMessageSender(messageSender);
             }
 
-            return new OpcXmlDaClient(webServiceTemplate, defaultLocale);
+            HttpSoapTransport transport = null;
+
+            if (webServiceTemplate.getDefaultUri() != null &&
+                webServiceTemplate.getMarshaller() instanceof Jaxb2Marshaller) {
+
+                if (httpClient == null) {
+                    HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                        .connectTimeout(Duration.ofMillis(connectTimeout));
+
+                    if (executor != null) {
+                        httpClientBuilder.executor(executor);
+                    }
+
+                    httpClient = httpClientBuilder.build();
+                }
+
+                transport = new HttpSoapTransport(
+                    httpClient,
+                    URI.create(webServiceTemplate.getDefaultUri()),
+                    Duration.ofMillis(requestTimeout),
+                    ((Jaxb2Marshaller) webServiceTemplate.getMarshaller()).getJaxbContext(),
+                    requestEncoding,
+                    requestCompression,
+                    responseCompression
+                );
+            }
+
+            if (metrics != null) {
+                ClientInterceptor[] interceptors = webServiceTemplate.getInterceptors();
+                ClientInterceptor[] withMetrics = interceptors != null ?
+                    Arrays.copyOf(interceptors, interceptors.length + 1) : new ClientInterceptor[1];
+                withMetrics[withMetrics.length - 1] = new MetricsInterceptor();
+                webServiceTemplate.setInterceptors(withMetrics);
+
+                if (transport != null) {
+                    transport.setMetrics(metrics);
+                }
+            }
+
+            if (trafficRecorder != null) {
+                ClientInterceptor[] interceptors = webServiceTemplate.getInterceptors();
+                ClientInterceptor[] withRecorder = interceptors != null ?
+                    Arrays.copyOf(interceptors, interceptors.length + 1) : new ClientInterceptor[1];
+                withRecorder[withRecorder.length - 1] = new RecordingInterceptor(trafficRecorder);
+                webServiceTemplate.setInterceptors(withRecorder);
+
+                if (transport != null) {
+                    transport.setRecorder(trafficRecorder);
+                }
+            }
+
+            var client = new OpcXmlDaClient(webServiceTemplate, transport, defaultLocale);
+            client.connectionPool = connectionPool;
+            client.concurrencyLimiter = concurrencyLimiter;
+            client.metrics = metrics;
+            client.trafficRecorder = trafficRecorder;
+            client.requestHedger = requestHedger;
+
+            if (maxItemsPerRequest > 0) {
+                client.requestChunker = new RequestChunker(maxItemsPerRequest, Math.max(1, maxConcurrentChunks));
+            }
+
+            if (readBatchWindow != null && !readBatchWindow.isZero()) {
+                client.readBatcher = new ReadBatcher(
+                    client::dispatchRead,
+                    readBatchWindow,
+                    readBatchMaxItems,
+                    scheduler != null ? scheduler : sharedScheduler()
+                );
+            }
+
+            if (itemValueCache != null) {
+                client.itemValueCache = itemValueCache;
+                client.cachingReader = new CachingReader(itemValueCache, client::sendRead);
+            }
+
+            return client;
+        }
+
+        private org.apache.http.client.HttpClient createHttpComponentsClient(ConnectionPool connectionPool) {
+            PoolingHttpClientConnectionManager connectionManager = connectionPool.getConnectionManager();
+
+            SocketConfig socketConfig = SocketConfig.custom()
+                .setTcpNoDelay(tcpNoDelay)
+                .setSoKeepAlive(socketKeepAlive)
+                .setSoTimeout(requestTimeout)
+                .build();
+
+            // a shared pool belongs to an OpcXmlDaClientPool, which also evicts its idle connections
+            boolean shared = connectionPool.getRoute() != null;
+
+            if (shared) {
+                connectionManager.setSocketConfig(connectionPool.getRoute().getTargetHost(), socketConfig);
+            } else {
+                connectionManager.setDefaultSocketConfig(socketConfig);
+            }
+
+            HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(shared)
+                .setDefaultRequestConfig(
+                    RequestConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setConnectionRequestTimeout(connectTimeout)
+                        .setSocketTimeout(requestTimeout)
+                        .build()
+                )
+                // Spring WS handles Accept-Encoding and decompression itself; see setAcceptGzipEncoding
+                .disableContentCompression();
+
+            if (requestCompression) {
+                httpClientBuilder.addInterceptorFirst((HttpRequestInterceptor) (request, context) -> {
+                    if (request instanceof HttpEntityEnclosingRequest) {
+                        var entityRequest = (HttpEntityEnclosingRequest) request;
+                        if (entityRequest.getEntity() != null) {
+                            entityRequest.setEntity(new GzipCompressingEntity(entityRequest.getEntity()));
+                        }
+                    }
+                });
+            }
+
+            // must run before the protocol interceptors that set Content-Length and Transfer-Encoding
+            httpClientBuilder.addInterceptorFirst(new RemoveSoapHeadersInterceptor());
+
+            if (connectionKeepAlive != null) {
+                long keepAliveMillis = connectionKeepAlive.toMillis();
+
+                httpClientBuilder.setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                        .getKeepAliveDuration(response, context);
+
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+                });
+            }
+
+            if (idleConnectionTimeout != null && !shared) {
+                httpClientBuilder
+                    .evictExpiredConnections()
+                    .evictIdleConnections(idleConnectionTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            return httpClientBuilder.build();
         }
 
     }
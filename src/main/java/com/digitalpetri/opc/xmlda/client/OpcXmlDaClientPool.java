@@ -0,0 +1,303 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+/**
+ * A set of {@link OpcXmlDaClient}s, one per server, sharing the resources that a standalone client would create
+ * for itself.
+ * <p>
+ * Every client in the pool uses the same {@link Jaxb2Marshaller} and JAXB context, the same JDK {@link HttpClient}
+ * (and with it one selector thread and executor) for non-blocking operations, the same connection manager for
+ * blocking operations, and the same scheduler. Each client still has its own configuration, e.g. timeouts,
+ * {@link ConcurrencyLimiter} and {@link ClientMetrics}, set by the customizer passed to
+ * {@link #addServer(String, String, Consumer)}.
+ * <p>
+ * Servers can be added and removed at any time.
+ *
+ * @author Kevin Herron
+ */
+public class OpcXmlDaClientPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpcXmlDaClientPool.class);
+
+    private final Map<String, OpcXmlDaClient> clients = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean closed = false;
+
+    private final Jaxb2Marshaller marshaller;
+    private final ConnectionPool connectionPool;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledFuture<?> evictionTask;
+
+    private OpcXmlDaClientPool(
+        Jaxb2Marshaller marshaller,
+        ConnectionPool connectionPool,
+        HttpClient httpClient,
+        ScheduledExecutorService scheduler,
+        Duration idleConnectionTimeout) {
+
+        this.marshaller = marshaller;
+        this.connectionPool = connectionPool;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+
+        if (idleConnectionTimeout != null) {
+            long idleMillis = idleConnectionTimeout.toMillis();
+
+            evictionTask = scheduler.scheduleWithFixedDelay(() -> {
+                PoolingHttpClientConnectionManager connectionManager = connectionPool.getConnectionManager();
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+            }, idleMillis, idleMillis, TimeUnit.MILLISECONDS);
+        } else {
+            evictionTask = null;
+        }
+    }
+
+    public OpcXmlDaClient addServer(String serverId, String serverUrl) {
+        return addServer(serverId, serverUrl, builder -> {});
+    }
+
+    /**
+     * Create a client for the server at {@code serverUrl} and add it to the pool.
+     *
+     * @param serverId   the id to look the client up by.
+     * @param serverUrl  the server's endpoint URL.
+     * @param customizer configures the client, e.g. its timeouts, limiter or metrics. Its
+     *                   {@link OpcXmlDaClient.Builder#setMaxConnectionsPerRoute(int)} sets how many of the pool's
+     *                   connections the server may use; {@link OpcXmlDaClient.Builder#setMaxConnections(int)} is
+     *                   ignored in favor of the pool's.
+     * @return the new client.
+     * @throws IllegalArgumentException if a server with {@code serverId} is already in the pool.
+     * @throws IllegalStateException    if the pool is closed.
+     */
+    public OpcXmlDaClient addServer(String serverId, String serverUrl, Consumer<OpcXmlDaClient.Builder> customizer) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("pool is closed");
+            }
+            if (clients.containsKey(serverId)) {
+                throw new IllegalArgumentException("server already in pool: " + serverId);
+            }
+
+            OpcXmlDaClient.Builder builder = OpcXmlDaClient.newBuilder()
+                .setServerUrl(serverUrl)
+                .setHttpClient(httpClient)
+                .setScheduler(scheduler);
+
+            builder.sharedMarshaller = marshaller;
+            builder.sharedConnectionPool = connectionPool;
+
+            customizer.accept(builder);
+
+            OpcXmlDaClient client = builder.build();
+            clients.put(serverId, client);
+
+            LOG.debug("Added server {} at {}", serverId, serverUrl);
+
+            return client;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a server from the pool. Its idle connections are closed by the pool's idle connection eviction.
+     *
+     * @return the removed client, or {@code null} if no server with {@code serverId} was in the pool.
+     */
+    public OpcXmlDaClient removeServer(String serverId) {
+        OpcXmlDaClient client = clients.remove(serverId);
+
+        if (client != null) {
+            LOG.debug("Removed server {}", serverId);
+        }
+
+        return client;
+    }
+
+    /**
+     * @return the client for {@code serverId}, or {@code null} if no server with that id is in the pool.
+     */
+    public OpcXmlDaClient getClient(String serverId) {
+        return clients.get(serverId);
+    }
+
+    /**
+     * @return the ids of the servers in the pool.
+     */
+    public Set<String> getServerIds() {
+        return Set.copyOf(clients.keySet());
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * @return statistics for the connection pool shared by every server's blocking transport. Each client's
+     * {@link OpcXmlDaClient#getConnectionPoolStats()} reports its own server's share.
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return connectionPool.getStats();
+    }
+
+    /**
+     * Remove every server and close the shared connections. The shared {@link HttpClient} and scheduler are left
+     * running; they may have been provided by the caller.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+
+        clients.clear();
+        connectionPool.getConnectionManager().shutdown();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private int maxConnections = 200;
+        private int connectTimeout = OpcXmlDaClient.Builder.DEFAULT_TIMEOUT;
+        private Duration idleConnectionTimeout = OpcXmlDaClient.Builder.DEFAULT_IDLE_CONNECTION_TIMEOUT;
+        private HttpClient httpClient;
+        private Executor executor;
+        private ScheduledExecutorService scheduler;
+        private boolean virtualThreads = false;
+
+        /**
+         * Set the maximum number of pooled connections across all servers for blocking operations. Defaults to
+         * 200.
+         */
+        public Builder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Set the connect timeout of the shared {@link HttpClient}, in milliseconds. Defaults to 5000.
+         * <p>
+         * Ignored if an {@link HttpClient} is provided via {@link #setHttpClient(HttpClient)}.
+         */
+        public Builder setConnectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Set how long a pooled connection may sit idle before it is closed, or {@code null} to never evict idle
+         * connections. Defaults to 60 seconds.
+         */
+        public Builder setIdleConnectionTimeout(Duration idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        /**
+         * Set the {@link HttpClient} shared by the non-blocking operations of every server.
+         * <p>
+         * If not set, one is created using the configured connect timeout and {@link #setExecutor(Executor)}.
+         */
+        public Builder setHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Set the {@link Executor} the shared {@link HttpClient} completes responses on.
+         * <p>
+         * Ignored if an {@link HttpClient} is provided via {@link #setHttpClient(HttpClient)}.
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set the {@link ScheduledExecutorService} shared by every server's clients and used for idle connection
+         * eviction.
+         * <p>
+         * If not set, a daemon scheduler shared by all clients is used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Complete non-blocking responses on virtual threads. Defaults to {@code false}.
+         * <p>
+         * Ignored if an {@link HttpClient} or {@link Executor} is provided.
+         *
+         * @see OpcXmlDaClient.Builder#setVirtualThreads(boolean)
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @throws UnsupportedOperationException if virtual threads were requested and the running JVM doesn't
+         *                                       support them.
+         */
+        public OpcXmlDaClientPool build() {
+            var marshaller = new Jaxb2Marshaller();
+            marshaller.setContextPath(OpcXmlDaClient.Builder.CONTEXT_PATH);
+
+            HttpClient httpClient = this.httpClient;
+            if (httpClient == null) {
+                HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofMillis(connectTimeout));
+
+                if (executor != null) {
+                    httpClientBuilder.executor(executor);
+                } else if (virtualThreads) {
+                    httpClientBuilder.executor(VirtualThreads.newExecutor("opc-xmlda-http-"));
+                }
+
+                httpClient = httpClientBuilder.build();
+            }
+
+            return new OpcXmlDaClientPool(
+                marshaller,
+                new ConnectionPool(maxConnections, OpcXmlDaClient.Builder.DEFAULT_MAX_CONNECTIONS),
+                httpClient,
+                scheduler != null ? scheduler : OpcXmlDaClient.sharedScheduler(),
+                idleConnectionTimeout
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A subscription managed by an {@link OpcXmlDaSubscriptionManager}.
+ *
+ * @author Kevin Herron
+ */
+public class OpcXmlDaSubscription {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpcXmlDaSubscription.class);
+
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean active = new AtomicBoolean(true);
+    private volatile String serverSubHandle;
+    private volatile int resubscribeCount = 0;
+    private volatile Throwable deactivationCause;
+
+    private final Subscribe subscribeRequest;
+    private final ExecutionQueue deliveryQueue;
+    private final SubscriptionChangeFilter changeFilter;
+
+    /**
+     * Keys of the subscribed items, by ClientItemHandle, for items that were given one.
+     */
+    private final Map<String, ItemKey> itemKeys = new HashMap<>();
+
+    OpcXmlDaSubscription(Subscribe subscribeRequest, String serverSubHandle, Executor deliveryExecutor) {
+        this(subscribeRequest, serverSubHandle, deliveryExecutor, null);
+    }
+
+    OpcXmlDaSubscription(
+        Subscribe subscribeRequest,
+        String serverSubHandle,
+        Executor deliveryExecutor,
+        ChangeFilter changeFilter) {
+
+        this.subscribeRequest = subscribeRequest;
+        this.serverSubHandle = serverSubHandle;
+        this.deliveryQueue = new ExecutionQueue(deliveryExecutor);
+        this.changeFilter = changeFilter != null ? new SubscriptionChangeFilter(changeFilter, subscribeRequest) : null;
+
+        SubscribeRequestItemList itemList = subscribeRequest.getItemList();
+        if (itemList != null) {
+            for (SubscribeRequestItem item : itemList.getItems()) {
+                if (item.getClientItemHandle() != null) {
+                    itemKeys.put(item.getClientItemHandle(), ItemKey.of(item, itemList));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the {@link Subscribe} request this subscription was created from.
+     */
+    public Subscribe getSubscribeRequest() {
+        return subscribeRequest;
+    }
+
+    /**
+     * @return the ServerSubHandle assigned by the server. It changes each time the subscription is re-created.
+     */
+    public String getServerSubHandle() {
+        return serverSubHandle;
+    }
+
+    /**
+     * @return how many times this subscription has been re-created on the server.
+     */
+    public int getResubscribeCount() {
+        return resubscribeCount;
+    }
+
+    /**
+     * @return {@code true} until this subscription is deleted.
+     */
+    public boolean isActive() {
+        return active.get();
+    }
+
+    /**
+     * @return how many updates the {@link ChangeFilter} has suppressed, or {@code null} if this subscription is
+     * not filtered.
+     */
+    public ChangeFilterStats getChangeFilterStats() {
+        return changeFilter != null ? changeFilter.getStats() : null;
+    }
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Add a listener, or notify it right away if this subscription is no longer active, so it is never left
+     * waiting for {@link SubscriptionListener#onDeactivated}.
+     */
+    void addListenerOrNotify(SubscriptionListener listener) {
+        listeners.add(listener);
+
+        if (!active.get() && listeners.remove(listener)) {
+            deliveryQueue.submit(() -> listener.onDeactivated(this));
+        }
+    }
+
+    /**
+     * @return why this subscription was deactivated, or {@code null} if it is active or was deleted.
+     */
+    Throwable getDeactivationCause() {
+        return deactivationCause;
+    }
+
+    public void removeListener(SubscriptionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the cache key for {@code itemValue}, resolving it through its ClientItemHandle when possible so the
+     * subscribed ReqType is part of the key.
+     */
+    ItemKey itemKey(ItemValue itemValue) {
+        ItemKey key = itemValue.getClientItemHandle() != null ? itemKeys.get(itemValue.getClientItemHandle()) : null;
+
+        return key != null ? key : ItemKey.of(itemValue, null);
+    }
+
+    /**
+     * @see #itemKey(ItemValue)
+     */
+    ItemKey itemKey(ItemValueBatch batch, int index) {
+        String clientItemHandle = batch.getClientItemHandle(index);
+        ItemKey key = clientItemHandle != null ? itemKeys.get(clientItemHandle) : null;
+
+        return key != null ? key : new ItemKey(batch.getItemPath(index), batch.getItemName(index), null);
+    }
+
+    void deactivate() {
+        deactivate(null);
+    }
+
+    /**
+     * Stop this subscription because of {@code cause}, e.g. the server reporting its ServerSubHandle as invalid,
+     * rather than because it was deleted.
+     */
+    void deactivate(Throwable cause) {
+        if (!active.compareAndSet(true, false)) return;
+
+        deactivationCause = cause;
+
+        deliveryQueue.submit(() -> {
+            for (SubscriptionListener listener : listeners) {
+                try {
+                    listener.onDeactivated(this);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable notifying listener of deactivation.", t);
+                }
+            }
+        });
+    }
+
+    /**
+     * Switch to {@code serverSubHandle} after the subscription was re-created and notify listeners.
+     */
+    void resubscribed(String serverSubHandle) {
+        this.serverSubHandle = serverSubHandle;
+        resubscribeCount++;
+
+        deliveryQueue.submit(() -> {
+            for (SubscriptionListener listener : listeners) {
+                try {
+                    listener.onResubscribed(this);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable notifying listener of resubscribe.", t);
+                }
+            }
+        });
+    }
+
+    void deliverDataBufferOverflow() {
+        deliveryQueue.submit(() -> {
+            for (SubscriptionListener listener : listeners) {
+                try {
+                    listener.onDataBufferOverflow(this);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable notifying listener of data buffer overflow.", t);
+                }
+            }
+        });
+    }
+
+    void deliverItemValues(List<ItemValue> itemValues) {
+        if (itemValues.isEmpty()) return;
+
+        deliveryQueue.submit(() -> {
+            List<ItemValue> delivered = changeFilter != null ? changeFilter.filter(itemValues) : itemValues;
+            if (delivered.isEmpty()) return;
+
+            for (SubscriptionListener listener : listeners) {
+                try {
+                    listener.onItemValues(this, delivered);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable notifying listener of item values.", t);
+                }
+            }
+        });
+    }
+
+    /**
+     * Deliver {@code batch} to listeners, then run {@code release} so the batch can be reused.
+     */
+    void deliverItemValueBatch(ItemValueBatch batch, Runnable release) {
+        if (batch.isEmpty()) {
+            release.run();
+            return;
+        }
+
+        deliveryQueue.submit(() -> {
+            try {
+                if (changeFilter != null) {
+                    changeFilter.filter(batch);
+                    if (batch.isEmpty()) return;
+                }
+
+                for (SubscriptionListener listener : listeners) {
+                    try {
+                        listener.onItemValueBatch(this, batch);
+                    } catch (Throwable t) {
+                        LOG.warn("Uncaught Throwable notifying listener of item value batch.", t);
+                    }
+                }
+            } finally {
+                release.run();
+            }
+        });
+    }
+
+    void deliverError(Throwable error) {
+        deliveryQueue.submit(() -> {
+            for (SubscriptionListener listener : listeners) {
+                try {
+                    listener.onError(this, error);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable notifying listener of error.", t);
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "OpcXmlDaSubscription{serverSubHandle='" + serverSubHandle + "'}";
+    }
+
+}
@@ -0,0 +1,794 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.ReplyBase;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeItemValue;
+import org.opcfoundation.xmlda.SubscribePolledRefreshReplyItemList;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.SubscriptionCancel;
+import org.opcfoundation.xmlda.SubscriptionCancelResponse;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates subscriptions and keeps them refreshed with back-to-back long-polls.
+ * <p>
+ * All subscriptions managed by one instance are refreshed together: a single SubscriptionPolledRefresh carries
+ * every active ServerSubHandle and the returned item lists are routed back to their subscriptions by handle, so
+ * each refresh cycle costs one HTTP round trip no matter how many subscriptions there are.
+ * <p>
+ * Each refresh carries a {@code HoldTime}, before which the server must not reply, and a {@code WaitTime}, how
+ * long past the {@code HoldTime} the server may keep the request open waiting for a change. With a short hold
+ * time and a long wait time the server replies as soon as something changes, so there is roughly one outstanding
+ * HTTP request per manager and changes arrive with about one network round trip of latency.
+ * <p>
+ * The next refresh is issued as soon as a response arrives, before its values are delivered to listeners.
+ * <p>
+ * Subscriptions survive a server restart. When the server reports a ServerSubHandle as invalid, or GetStatus
+ * shows the server restarted while refreshes were failing, the affected subscriptions are re-created with their
+ * original Subscribe requests and keep their listeners. Failed refreshes and re-creations are retried with
+ * exponential backoff and jitter, and the {@code WaitTime} of each refresh is kept short enough that handles with a
+ * {@code SubscriptionPingRate} don't expire while the manager is polling.
+ * <p>
+ * With {@link Builder#setBatchDelivery(boolean)} refreshes are decoded straight into pooled
+ * {@link ItemValueBatch}es and delivered to {@link SubscriptionListener#onItemValueBatch}, so steady-state polling
+ * builds no JAXB object graph.
+ *
+ * @author Kevin Herron
+ */
+public class OpcXmlDaSubscriptionManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpcXmlDaSubscriptionManager.class);
+
+    private final Map<String, OpcXmlDaSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Subscriptions being re-created on the server, which are not refreshed until they have a new ServerSubHandle.
+     */
+    private final Set<OpcXmlDaSubscription> recovering = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    /**
+     * The number of refreshes that have failed in a row.
+     */
+    private final AtomicInteger refreshFailures = new AtomicInteger(0);
+
+    /**
+     * The server StartTime last reported by GetStatus, or {@code null} if not yet known.
+     */
+    private volatile XMLGregorianCalendar serverStartTime;
+
+    private final ReentrantLock batchPoolLock = new ReentrantLock();
+    private final ArrayDeque<ItemValueBatch> batchPool = new ArrayDeque<>();
+
+    /**
+     * Estimated offset, in milliseconds, between the server's clock and ours, so that {@code HoldTime} is
+     * expressed in server time.
+     */
+    private volatile long serverTimeOffset = 0L;
+
+    private final OpcXmlDaClient client;
+    private final Duration holdTime;
+    private final Duration waitTime;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+    private final boolean resubscribe;
+    private final boolean batchDelivery;
+    private final ChangeFilter changeFilter;
+    private final Executor deliveryExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    OpcXmlDaSubscriptionManager(
+        OpcXmlDaClient client,
+        Duration holdTime,
+        Duration waitTime,
+        Duration retryDelay,
+        Duration maxRetryDelay,
+        boolean resubscribe,
+        boolean batchDelivery,
+        ChangeFilter changeFilter,
+        Executor deliveryExecutor,
+        ScheduledExecutorService scheduler) {
+
+        this.client = client;
+        this.holdTime = holdTime;
+        this.waitTime = waitTime;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.resubscribe = resubscribe;
+        this.batchDelivery = batchDelivery;
+        this.changeFilter = changeFilter;
+        this.deliveryExecutor = deliveryExecutor;
+        this.scheduler = scheduler;
+    }
+
+    public OpcXmlDaClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return the subscriptions currently managed.
+     */
+    public List<OpcXmlDaSubscription> getSubscriptions() {
+        var managed = new ArrayList<>(subscriptions.values());
+        managed.addAll(recovering);
+        return managed;
+    }
+
+    public CompletableFuture<OpcXmlDaSubscription> createSubscription(Subscribe subscribeRequest) {
+        return createSubscription(subscribeRequest, null);
+    }
+
+    /**
+     * Create a subscription and start refreshing it.
+     * <p>
+     * {@code listener} is registered before any values are delivered, so it also receives the initial values
+     * returned when {@link Subscribe#isReturnValuesOnReply()} is set.
+     *
+     * @param subscribeRequest the {@link Subscribe} request.
+     * @param listener         a {@link SubscriptionListener} to register, or {@code null}.
+     * @return the created {@link OpcXmlDaSubscription}.
+     */
+    public CompletableFuture<OpcXmlDaSubscription> createSubscription(
+        Subscribe subscribeRequest, SubscriptionListener listener) {
+
+        long cacheGeneration = cacheGeneration();
+
+        return client.subscribeAsync(subscribeRequest).thenApply(response -> {
+            var subscription = new OpcXmlDaSubscription(
+                subscribeRequest,
+                response.getServerSubHandle(),
+                deliveryExecutor,
+                changeFilter
+            );
+
+            if (listener != null) {
+                subscription.addListener(listener);
+            }
+
+            subscriptions.put(subscription.getServerSubHandle(), subscription);
+
+            List<ItemValue> initialValues = initialValues(response);
+            updateCache(subscription, initialValues, cacheGeneration);
+            subscription.deliverItemValues(initialValues);
+
+            startPolling();
+
+            return subscription;
+        });
+    }
+
+    /**
+     * Stop refreshing {@code subscription} and cancel it on the server.
+     */
+    public CompletableFuture<SubscriptionCancelResponse> deleteSubscription(OpcXmlDaSubscription subscription) {
+        subscription.deactivate();
+        subscriptions.remove(subscription.getServerSubHandle());
+        recovering.remove(subscription);
+
+        var cancel = new SubscriptionCancel();
+        cancel.setServerSubHandle(subscription.getServerSubHandle());
+
+        return client.subscriptionCancelAsync(cancel);
+    }
+
+    /**
+     * Delete every managed subscription.
+     */
+    public CompletableFuture<Void> deleteAll() {
+        CompletableFuture<?>[] futures = getSubscriptions().stream()
+            .map(this::deleteSubscription)
+            .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Start the refresh loop if it isn't already running.
+     */
+    private void startPolling() {
+        if (polling.compareAndSet(false, true)) {
+            if (resubscribe && serverStartTime == null) {
+                checkServerRestarted();
+            }
+
+            poll();
+        }
+    }
+
+    /**
+     * Refresh every active subscription with a single SubscriptionPolledRefresh.
+     * <p>
+     * The group is re-evaluated on every cycle, so subscriptions created while a refresh is outstanding join the
+     * next cycle and deleted subscriptions drop out of it.
+     */
+    private void poll() {
+        var group = new HashMap<String, OpcXmlDaSubscription>();
+        for (OpcXmlDaSubscription subscription : subscriptions.values()) {
+            if (subscription.isActive()) {
+                group.put(subscription.getServerSubHandle(), subscription);
+            }
+        }
+
+        if (group.isEmpty()) {
+            polling.set(false);
+
+            // An active subscription may have been added after the snapshot but before the flag was cleared.
+            // Checking for an active one, not any, keeps inactive subscriptions from re-entering poll() forever.
+            for (OpcXmlDaSubscription subscription : subscriptions.values()) {
+                if (subscription.isActive()) {
+                    startPolling();
+                    break;
+                }
+            }
+            return;
+        }
+
+        var refresh = new SubscriptionPolledRefresh();
+        refresh.getServerSubHandles().addAll(group.keySet());
+        refresh.setHoldTime(serverHoldTime());
+        refresh.setWaitTime((int) keepAliveWaitTime(group.values()).toMillis());
+        refresh.setReturnAllItems(false);
+
+        if (batchDelivery) {
+            pollBatches(group, refresh);
+            return;
+        }
+
+        Duration holdAndWait = holdTime.plusMillis(refresh.getWaitTime());
+        long cacheGeneration = cacheGeneration();
+
+        client.subscriptionPolledRefreshAsync(refresh, holdAndWait).whenComplete((response, ex) -> {
+            if (ex != null) {
+                onRefreshFailure(group.values(), ex);
+            } else {
+                refreshFailures.set(0);
+                updateServerTimeOffset(response.getSubscriptionPolledRefreshResult());
+                onInvalidHandles(group, response.getInvalidServerSubHandles());
+
+                // Pipeline the next refresh before handing this response to listeners.
+                poll();
+
+                if (response.isDataBufferOverflow()) {
+                    onDataBufferOverflow(group.values());
+                }
+
+                for (SubscribePolledRefreshReplyItemList itemList : response.getRItemList()) {
+                    OpcXmlDaSubscription subscription = group.get(itemList.getSubscriptionHandle());
+
+                    if (subscription != null && subscription.isActive()) {
+                        updateCache(subscription, itemList.getItems(), cacheGeneration);
+                        subscription.deliverItemValues(itemList.getItems());
+                    }
+                }
+            }
+        });
+    }
+
+    private void pollBatches(Map<String, OpcXmlDaSubscription> group, SubscriptionPolledRefresh refresh) {
+        var collector = new BatchCollector();
+
+        Duration holdAndWait = holdTime.plusMillis(refresh.getWaitTime());
+        long cacheGeneration = cacheGeneration();
+
+        client.subscriptionPolledRefreshStreaming(refresh, collector, holdAndWait)
+            .whenComplete((response, ex) -> {
+                if (ex != null) {
+                    collector.batches.values().forEach(this::releaseBatch);
+                    onRefreshFailure(group.values(), ex);
+                    return;
+                }
+
+                refreshFailures.set(0);
+                updateServerTimeOffset(response.getReplyTime());
+                onInvalidHandles(group, response.getInvalidServerSubHandles());
+
+                // Pipeline the next refresh before handing this response to listeners.
+                poll();
+
+                if (response.isDataBufferOverflow()) {
+                    onDataBufferOverflow(group.values());
+                }
+
+                collector.batches.forEach((handle, batch) -> {
+                    OpcXmlDaSubscription subscription = group.get(handle);
+
+                    if (subscription != null && subscription.isActive()) {
+                        updateCache(subscription, batch, cacheGeneration);
+                        subscription.deliverItemValueBatch(batch, () -> releaseBatch(batch));
+                    } else {
+                        releaseBatch(batch);
+                    }
+                });
+            });
+    }
+
+    private ItemValueBatch acquireBatch() {
+        batchPoolLock.lock();
+        try {
+            ItemValueBatch batch = batchPool.poll();
+            return batch != null ? batch : new ItemValueBatch();
+        } finally {
+            batchPoolLock.unlock();
+        }
+    }
+
+    private void releaseBatch(ItemValueBatch batch) {
+        batch.clear();
+
+        batchPoolLock.lock();
+        try {
+            batchPool.push(batch);
+        } finally {
+            batchPoolLock.unlock();
+        }
+    }
+
+    private void onRefreshFailure(Collection<OpcXmlDaSubscription> group, Throwable ex) {
+        int failures = refreshFailures.incrementAndGet();
+        long delayMillis = backoffMillis(failures);
+
+        LOG.debug("Refresh failed for {} subscription(s); retrying in {}ms", group.size(), delayMillis, ex);
+
+        for (OpcXmlDaSubscription subscription : group) {
+            if (subscription.isActive()) {
+                subscription.deliverError(ex);
+            }
+        }
+
+        if (!resubscribe) {
+            scheduler.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        checkServerRestarted().whenComplete((restarted, ignored) -> {
+            // Some servers fault the whole refresh instead of reporting which handles are invalid.
+            boolean repeatedFault = failures >= 2 && unwrap(ex) instanceof SoapFaultException;
+
+            if (Boolean.TRUE.equals(restarted) || repeatedFault) {
+                LOG.info("Re-creating {} subscription(s) after {}", group.size(),
+                    Boolean.TRUE.equals(restarted) ? "server restart" : "repeated refresh faults");
+
+                resubscribe(new ArrayList<>(group));
+            }
+
+            scheduler.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void onDataBufferOverflow(Collection<OpcXmlDaSubscription> group) {
+        LOG.debug("Server reported DataBufferOverflow refreshing {} subscription(s)", group.size());
+
+        for (OpcXmlDaSubscription subscription : group) {
+            if (subscription.isActive()) {
+                subscription.deliverDataBufferOverflow();
+            }
+        }
+    }
+
+    private void onInvalidHandles(Map<String, OpcXmlDaSubscription> group, List<String> invalidHandles) {
+        var invalid = new ArrayList<OpcXmlDaSubscription>();
+
+        for (String handle : invalidHandles) {
+            OpcXmlDaSubscription subscription = group.remove(handle);
+            if (subscription != null) {
+                invalid.add(subscription);
+            }
+        }
+
+        if (invalid.isEmpty()) return;
+
+        if (resubscribe) {
+            LOG.info("Server reported {} subscription(s) as invalid; re-creating them", invalid.size());
+
+            resubscribe(invalid);
+        } else {
+            for (OpcXmlDaSubscription subscription : invalid) {
+                LOG.warn("Server reported {} as invalid; it will no longer be refreshed", subscription);
+
+                var error = new IllegalStateException(
+                    "invalid ServerSubHandle: " + subscription.getServerSubHandle());
+
+                subscriptions.remove(subscription.getServerSubHandle());
+                subscription.deliverError(error);
+                subscription.deactivate(error);
+            }
+        }
+    }
+
+    /**
+     * Stop refreshing {@code group} and re-create each subscription on the server, all at once.
+     */
+    private void resubscribe(List<OpcXmlDaSubscription> group) {
+        var pending = new ArrayList<OpcXmlDaSubscription>(group.size());
+
+        for (OpcXmlDaSubscription subscription : group) {
+            // only the first of concurrent attempts to re-create a subscription proceeds
+            if (subscription.isActive() && subscriptions.remove(subscription.getServerSubHandle(), subscription)) {
+                recovering.add(subscription);
+                pending.add(subscription);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            recreate(pending, 0);
+        }
+    }
+
+    private void recreate(List<OpcXmlDaSubscription> pending, int attempt) {
+        var failed = new ConcurrentLinkedQueue<OpcXmlDaSubscription>();
+        long cacheGeneration = cacheGeneration();
+
+        CompletableFuture<?>[] futures = pending.stream().map(subscription ->
+            client.subscribeAsync(subscription.getSubscribeRequest()).handle((response, ex) -> {
+                if (ex != null) {
+                    if (subscription.isActive()) {
+                        failed.add(subscription);
+                        subscription.deliverError(unwrap(ex));
+                    }
+                } else {
+                    onRecreated(subscription, response, cacheGeneration);
+                }
+                return null;
+            })
+        ).toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).thenRun(() -> {
+            if (!failed.isEmpty()) {
+                long delayMillis = backoffMillis(attempt + 1);
+
+                LOG.debug("Failed to re-create {} subscription(s); retrying in {}ms", failed.size(), delayMillis);
+
+                scheduler.schedule(() -> recreate(new ArrayList<>(failed), attempt + 1), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private void onRecreated(OpcXmlDaSubscription subscription, SubscribeResponse response, long cacheGeneration) {
+        recovering.remove(subscription);
+
+        if (!subscription.isActive()) {
+            // deleted while it was being re-created
+            var cancel = new SubscriptionCancel();
+            cancel.setServerSubHandle(response.getServerSubHandle());
+            client.subscriptionCancelAsync(cancel);
+            return;
+        }
+
+        LOG.debug("Re-created {} as {}", subscription, response.getServerSubHandle());
+
+        subscription.resubscribed(response.getServerSubHandle());
+        subscriptions.put(subscription.getServerSubHandle(), subscription);
+
+        List<ItemValue> initialValues = initialValues(response);
+        updateCache(subscription, initialValues, cacheGeneration);
+        subscription.deliverItemValues(initialValues);
+
+        startPolling();
+    }
+
+    /**
+     * Ask the server for its StartTime and compare it with the last one seen.
+     *
+     * @return {@code true} if the server has restarted since the last check; {@code false} if it hasn't, this is
+     * the first check, or the server couldn't be reached.
+     */
+    private CompletableFuture<Boolean> checkServerRestarted() {
+        return client.getStatusAsync().handle((response, ex) -> {
+            if (ex != null || response.getStatus() == null || response.getStatus().getStartTime() == null) {
+                return false;
+            }
+
+            XMLGregorianCalendar previous = serverStartTime;
+            XMLGregorianCalendar current = response.getStatus().getStartTime();
+            serverStartTime = current;
+
+            return previous != null && !previous.equals(current);
+        });
+    }
+
+    /**
+     * @return {@code waitTime}, shortened if needed so every refresh returns well within the shortest
+     * {@code SubscriptionPingRate} in {@code group}.
+     */
+    private Duration keepAliveWaitTime(Collection<OpcXmlDaSubscription> group) {
+        long waitMillis = waitTime.toMillis();
+
+        for (OpcXmlDaSubscription subscription : group) {
+            int pingRate = subscription.getSubscribeRequest().getSubscriptionPingRate();
+
+            if (pingRate > 0) {
+                // leave a fifth of the ping rate for the round trip and the next refresh to arrive
+                long maxWaitMillis = pingRate * 4L / 5L - holdTime.toMillis();
+                waitMillis = Math.min(waitMillis, Math.max(0L, maxWaitMillis));
+            }
+        }
+
+        return Duration.ofMillis(waitMillis);
+    }
+
+    /**
+     * @return the delay before retry number {@code attempt}: {@code retryDelay} doubled for each earlier attempt,
+     * capped at {@code maxRetryDelay}, with a random half of it taken off so clients don't retry in lockstep.
+     */
+    private long backoffMillis(int attempt) {
+        long delayMillis = retryDelay.toMillis();
+        for (int i = 1; i < attempt && delayMillis < maxRetryDelay.toMillis(); i++) {
+            delayMillis *= 2;
+        }
+        delayMillis = Math.min(delayMillis, maxRetryDelay.toMillis());
+
+        long half = delayMillis / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * @return the generation of the client's {@link ItemValueCache}, to capture before sending a request whose values
+     * will be cached.
+     */
+    private long cacheGeneration() {
+        ItemValueCache cache = client.getItemValueCache();
+
+        return cache != null ? cache.generation() : 0L;
+    }
+
+    private void updateCache(OpcXmlDaSubscription subscription, List<ItemValue> itemValues, long cacheGeneration) {
+        ItemValueCache cache = client.getItemValueCache();
+
+        if (cache != null) {
+            for (ItemValue itemValue : itemValues) {
+                cache.put(subscription.itemKey(itemValue), itemValue, cacheGeneration);
+            }
+        }
+    }
+
+    private void updateCache(OpcXmlDaSubscription subscription, ItemValueBatch batch, long cacheGeneration) {
+        ItemValueCache cache = client.getItemValueCache();
+
+        if (cache != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                cache.put(subscription.itemKey(batch, i), batch, i, cacheGeneration);
+            }
+        }
+    }
+
+    private XMLGregorianCalendar serverHoldTime() {
+        return XmlTime.fromEpochMillis(System.currentTimeMillis() + serverTimeOffset + holdTime.toMillis());
+    }
+
+    private void updateServerTimeOffset(ReplyBase replyBase) {
+        if (replyBase != null && replyBase.getReplyTime() != null) {
+            serverTimeOffset = XmlTime.toEpochMillis(replyBase.getReplyTime()) - System.currentTimeMillis();
+        }
+    }
+
+    private void updateServerTimeOffset(long replyTime) {
+        if (replyTime != StreamedItemValue.NO_TIMESTAMP) {
+            serverTimeOffset = replyTime - System.currentTimeMillis();
+        }
+    }
+
+    private static List<ItemValue> initialValues(SubscribeResponse response) {
+        if (response.getRItemList() == null) {
+            return List.of();
+        }
+
+        var itemValues = new ArrayList<ItemValue>(response.getRItemList().getItems().size());
+        for (SubscribeItemValue item : response.getRItemList().getItems()) {
+            if (item.getItemValue() != null) {
+                itemValues.add(item.getItemValue());
+            }
+        }
+        return itemValues;
+    }
+
+    /**
+     * Routes each item value of a streamed refresh into a batch for its subscription.
+     */
+    private final class BatchCollector implements ItemValueHandler {
+
+        final Map<String, ItemValueBatch> batches = new HashMap<>();
+
+        private String lastHandle;
+        private ItemValueBatch lastBatch;
+
+        @Override
+        public void onItemValue(StreamedItemValue itemValue) {
+            String handle = itemValue.getSubscriptionHandle();
+
+            // item values arrive grouped by subscription, so this is almost always the previous batch
+            if (lastBatch == null || !Objects.equals(handle, lastHandle)) {
+                lastHandle = handle;
+                lastBatch = batches.computeIfAbsent(handle, h -> acquireBatch());
+            }
+
+            lastBatch.onItemValue(itemValue);
+        }
+
+    }
+
+    public static Builder newBuilder(OpcXmlDaClient client) {
+        return new Builder(client);
+    }
+
+    public static class Builder {
+
+        private Duration holdTime = Duration.ZERO;
+        private Duration waitTime = Duration.ofSeconds(10);
+        private Duration retryDelay = Duration.ofSeconds(1);
+        private Duration maxRetryDelay = Duration.ofSeconds(30);
+        private boolean resubscribe = true;
+        private boolean batchDelivery = false;
+        private ChangeFilter changeFilter;
+        private Executor deliveryExecutor;
+        private boolean virtualThreads = false;
+        private ScheduledExecutorService scheduler;
+
+        private final OpcXmlDaClient client;
+
+        Builder(OpcXmlDaClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Set how long after a refresh is sent the server must wait before replying. A non-zero hold time
+         * batches changes that occur close together into one response at the cost of latency.
+         */
+        public Builder setHoldTime(Duration holdTime) {
+            this.holdTime = holdTime;
+            return this;
+        }
+
+        /**
+         * Set how long past the hold time the server may wait for a change before replying with nothing.
+         * <p>
+         * It is shortened as needed for refreshes to return well within the {@code SubscriptionPingRate} of the
+         * managed subscriptions.
+         */
+        public Builder setWaitTime(Duration waitTime) {
+            this.waitTime = waitTime;
+            return this;
+        }
+
+        /**
+         * Set how long to wait before retrying a failed refresh or re-creation the first time. The delay doubles
+         * with each further failure, up to {@link #setMaxRetryDelay(Duration)}, and is jittered by up to half.
+         * Defaults to 1 second.
+         */
+        public Builder setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+            return this;
+        }
+
+        /**
+         * Set the longest delay between retries. Defaults to 30 seconds.
+         */
+        public Builder setMaxRetryDelay(Duration maxRetryDelay) {
+            this.maxRetryDelay = maxRetryDelay;
+            return this;
+        }
+
+        /**
+         * Set whether subscriptions whose ServerSubHandle the server no longer recognizes, e.g. after a restart,
+         * are re-created automatically. If not, they are deactivated and their listeners notified with an error.
+         * Defaults to {@code true}.
+         */
+        public Builder setResubscribe(boolean resubscribe) {
+            this.resubscribe = resubscribe;
+            return this;
+        }
+
+        /**
+         * Set whether refreshes are decoded straight into reusable {@link ItemValueBatch}es and delivered to
+         * {@link SubscriptionListener#onItemValueBatch} instead of {@link SubscriptionListener#onItemValues}.
+         * Defaults to {@code false}.
+         * <p>
+         * Initial values returned by Subscribe are still delivered to {@link SubscriptionListener#onItemValues}.
+         */
+        public Builder setBatchDelivery(boolean batchDelivery) {
+            this.batchDelivery = batchDelivery;
+            return this;
+        }
+
+        /**
+         * Set a {@link ChangeFilter} to apply to every subscription's updates before they are delivered, for
+         * servers that ignore the requested deadband. Defaults to none.
+         * <p>
+         * The {@link ItemValueCache} is still updated with every value the server reports.
+         */
+        public Builder setChangeFilter(ChangeFilter changeFilter) {
+            this.changeFilter = changeFilter;
+            return this;
+        }
+
+        /**
+         * Set the {@link Executor} {@link SubscriptionListener}s are notified on. Defaults to
+         * {@link ForkJoinPool#commonPool()}.
+         */
+        public Builder setDeliveryExecutor(Executor deliveryExecutor) {
+            this.deliveryExecutor = deliveryExecutor;
+            return this;
+        }
+
+        /**
+         * Notify {@link SubscriptionListener}s on virtual threads, so a listener may block, e.g. on a write or a
+         * database call, without holding up other subscriptions or starving a shared pool. Each subscription's
+         * callbacks are still delivered one at a time, in order. Defaults to {@code false}.
+         * <p>
+         * Ignored if a delivery executor is provided via {@link #setDeliveryExecutor(Executor)}.
+         *
+         * @see VirtualThreads
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Set the {@link ScheduledExecutorService} used to delay retries.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * @throws UnsupportedOperationException if virtual threads were requested and the running JVM doesn't
+         *                                       support them.
+         */
+        public OpcXmlDaSubscriptionManager build() {
+            if (scheduler == null) {
+                scheduler = OpcXmlDaClient.sharedScheduler();
+            }
+            if (deliveryExecutor == null) {
+                deliveryExecutor = virtualThreads ?
+                    VirtualThreads.newExecutor("opc-xmlda-delivery-") : ForkJoinPool.commonPool();
+            }
+
+            return new OpcXmlDaSubscriptionManager(
+                client,
+                holdTime,
+                waitTime,
+                retryDelay,
+                maxRetryDelay.compareTo(retryDelay) < 0 ? retryDelay : maxRetryDelay,
+                resubscribe,
+                batchDelivery,
+                changeFilter,
+                deliveryExecutor,
+                scheduler
+            );
+        }
+
+    }
+
+}
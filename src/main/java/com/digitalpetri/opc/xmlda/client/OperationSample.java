@@ -0,0 +1,154 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * Measurements of a single request, passed to {@link ClientMetrics}.
+ * <p>
+ * Durations are in nanoseconds. A phase or size that could not be measured is -1: the blocking transport does
+ * not report byte counts, and a request that failed before a phase was reached has no duration for it.
+ *
+ * @author Kevin Herron
+ */
+public final class OperationSample {
+
+    private final String operation;
+    private final boolean blocking;
+    private final long totalNanos;
+    private final long marshalNanos;
+    private final long networkNanos;
+    private final long unmarshalNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final int requestItemCount;
+    private final int responseItemCount;
+    private final int opcErrorCount;
+    private final Throwable failure;
+
+    OperationSample(
+        String operation,
+        boolean blocking,
+        long totalNanos,
+        long marshalNanos,
+        long networkNanos,
+        long unmarshalNanos,
+        long requestBytes,
+        long responseBytes,
+        int requestItemCount,
+        int responseItemCount,
+        int opcErrorCount,
+        Throwable failure) {
+
+        this.operation = operation;
+        this.blocking = blocking;
+        this.totalNanos = totalNanos;
+        this.marshalNanos = marshalNanos;
+        this.networkNanos = networkNanos;
+        this.unmarshalNanos = unmarshalNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.requestItemCount = requestItemCount;
+        this.responseItemCount = responseItemCount;
+        this.opcErrorCount = opcErrorCount;
+        this.failure = failure;
+    }
+
+    /**
+     * @return the SOAP operation, e.g. {@code Read} or {@code SubscriptionPolledRefresh}.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return {@code true} if the request was sent by the blocking {@code WebServiceTemplate} transport.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return time spent encoding the request envelope.
+     */
+    public long getMarshalNanos() {
+        return marshalNanos;
+    }
+
+    /**
+     * @return time from the request being encoded until the response was received; for streaming calls, until
+     * the response headers were received.
+     */
+    public long getNetworkNanos() {
+        return networkNanos;
+    }
+
+    /**
+     * @return time spent decoding the response.
+     */
+    public long getUnmarshalNanos() {
+        return unmarshalNanos;
+    }
+
+    /**
+     * @return the size of the request body as sent, after any compression.
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return the size of the response body as received, before any decompression.
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return the number of items, item IDs or subscription handles in the request.
+     */
+    public int getRequestItemCount() {
+        return requestItemCount;
+    }
+
+    /**
+     * @return the number of items, browse elements or property lists in the response.
+     */
+    public int getResponseItemCount() {
+        return responseItemCount;
+    }
+
+    /**
+     * @return the number of {@code OPCError}s in the response.
+     */
+    public int getOpcErrorCount() {
+        return opcErrorCount;
+    }
+
+    /**
+     * @return the exception the request failed with, or {@code null} if it succeeded.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationSample{" +
+            "operation='" + operation + '\'' +
+            ", blocking=" + blocking +
+            ", totalNanos=" + totalNanos +
+            ", marshalNanos=" + marshalNanos +
+            ", networkNanos=" + networkNanos +
+            ", unmarshalNanos=" + unmarshalNanos +
+            ", requestBytes=" + requestBytes +
+            ", responseBytes=" + responseBytes +
+            ", requestItemCount=" + requestItemCount +
+            ", responseItemCount=" + responseItemCount +
+            ", opcErrorCount=" + opcErrorCount +
+            ", failure=" + failure +
+            '}';
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.opcfoundation.xmlda.BrowseResponse;
+import org.opcfoundation.xmlda.GetProperties;
+import org.opcfoundation.xmlda.GetPropertiesResponse;
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribePolledRefreshReplyItemList;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.opcfoundation.xmlda.SubscriptionPolledRefreshResponse;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteResponse;
+
+/**
+ * Measures the phases of a single request and reports them to a {@link ClientMetrics} when it completes.
+ * <p>
+ * When no {@link ClientMetrics} is configured {@link #start} returns {@link #NOOP}, which ignores every call.
+ *
+ * @author Kevin Herron
+ */
+class OperationTimer {
+
+    static final OperationTimer NOOP = new OperationTimer();
+
+    /**
+     * The timer of the blocking request in progress on this thread, for {@link MetricsInterceptor}.
+     */
+    private static final ThreadLocal<OperationTimer> CURRENT = new ThreadLocal<>();
+
+    private final ClientMetrics metrics;
+    private final String operation;
+    private final boolean blocking;
+    private final Object context;
+    private final int requestItemCount;
+    private final long startNanos;
+
+    private long marshalledNanos = -1L;
+    private long receivedNanos = -1L;
+    private long requestBytes = -1L;
+    private long responseBytes = -1L;
+
+    private OperationTimer() {
+        this.metrics = null;
+        this.operation = null;
+        this.blocking = false;
+        this.context = null;
+        this.requestItemCount = 0;
+        this.startNanos = 0L;
+    }
+
+    private OperationTimer(ClientMetrics metrics, String operation, boolean blocking, Object request) {
+        this.metrics = metrics;
+        this.operation = operation;
+        this.blocking = blocking;
+        this.context = metrics.onStart(operation);
+        this.requestItemCount = requestItemCount(request);
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start timing a request sent by the non-blocking transport.
+     */
+    static OperationTimer start(ClientMetrics metrics, OpcXmlDaClient.SoapAction soapAction, Object request) {
+        return metrics != null ? new OperationTimer(metrics, soapAction.getName(), false, request) : NOOP;
+    }
+
+    /**
+     * Start timing a request sent by the blocking transport on the calling thread, making it visible to
+     * {@link #current()} until it completes.
+     */
+    static OperationTimer startBlocking(ClientMetrics metrics, OpcXmlDaClient.SoapAction soapAction, Object request) {
+        if (metrics == null) return NOOP;
+
+        var timer = new OperationTimer(metrics, soapAction.getName(), true, request);
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    /**
+     * @return the timer of the blocking request in progress on this thread, or {@link #NOOP}.
+     */
+    static OperationTimer current() {
+        OperationTimer timer = CURRENT.get();
+        return timer != null ? timer : NOOP;
+    }
+
+    /**
+     * The request has been encoded into {@code bytes} bytes, or -1 if unknown.
+     */
+    void marshalled(long bytes) {
+        if (this == NOOP) return;
+
+        marshalledNanos = System.nanoTime();
+        requestBytes = bytes;
+    }
+
+    /**
+     * A response of {@code bytes} bytes, or -1 if unknown, has been received and is about to be decoded.
+     */
+    void received(long bytes) {
+        if (this == NOOP) return;
+
+        receivedNanos = System.nanoTime();
+        responseBytes = bytes;
+    }
+
+    /**
+     * The request completed with {@code response}, or failed with {@code failure}.
+     */
+    void complete(Object response, Throwable failure) {
+        if (this == NOOP) return;
+
+        if (blocking && CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+
+        long endNanos = System.nanoTime();
+
+        var sample = new OperationSample(
+            operation,
+            blocking,
+            endNanos - startNanos,
+            marshalledNanos >= 0 ? marshalledNanos - startNanos : -1L,
+            marshalledNanos >= 0 && receivedNanos >= 0 ? receivedNanos - marshalledNanos : -1L,
+            receivedNanos >= 0 ? endNanos - receivedNanos : -1L,
+            requestBytes,
+            responseBytes,
+            requestItemCount,
+            response != null ? responseItemCount(response) : 0,
+            response != null ? errorCount(response) : 0,
+            failure
+        );
+
+        metrics.onComplete(context, sample);
+    }
+
+    /**
+     * Complete this timer when {@code future} completes.
+     *
+     * @return {@code future}, or a future that completes after this timer has reported.
+     */
+    <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        if (this == NOOP) return future;
+
+        return future.whenComplete((response, ex) -> {
+            Throwable failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            complete(response, failure);
+        });
+    }
+
+    private static int requestItemCount(Object request) {
+        if (request instanceof Read) {
+            var itemList = ((Read) request).getItemList();
+            return itemList != null ? itemList.getItems().size() : 0;
+        } else if (request instanceof Write) {
+            var itemList = ((Write) request).getItemList();
+            return itemList != null ? itemList.getItems().size() : 0;
+        } else if (request instanceof Subscribe) {
+            var itemList = ((Subscribe) request).getItemList();
+            return itemList != null ? itemList.getItems().size() : 0;
+        } else if (request instanceof SubscriptionPolledRefresh) {
+            return ((SubscriptionPolledRefresh) request).getServerSubHandles().size();
+        } else if (request instanceof GetProperties) {
+            return ((GetProperties) request).getItemIDs().size();
+        } else {
+            return 0;
+        }
+    }
+
+    private static int responseItemCount(Object response) {
+        if (response instanceof ReadResponse) {
+            var itemList = ((ReadResponse) response).getRItemList();
+            return itemList != null ? itemList.getItems().size() : 0;
+        } else if (response instanceof WriteResponse) {
+            var itemList = ((WriteResponse) response).getRItemList();
+            return itemList != null ? itemList.getItems().size() : 0;
+        } else if (response instanceof SubscribeResponse) {
+            var itemList = ((SubscribeResponse) response).getRItemList();
+            return itemList != null ? itemList.getItems().size() : 0;
+        } else if (response instanceof SubscriptionPolledRefreshResponse) {
+            int count = 0;
+            for (SubscribePolledRefreshReplyItemList itemList :
+                ((SubscriptionPolledRefreshResponse) response).getRItemList()) {
+
+                count += itemList.getItems().size();
+            }
+            return count;
+        } else if (response instanceof BrowseResponse) {
+            return ((BrowseResponse) response).getElements().size();
+        } else if (response instanceof GetPropertiesResponse) {
+            return ((GetPropertiesResponse) response).getPropertyLists().size();
+        } else if (response instanceof StreamingResponse) {
+            return ((StreamingResponse) response).getItemCount();
+        } else {
+            return 0;
+        }
+    }
+
+    private static int errorCount(Object response) {
+        List<OPCError> errors;
+
+        if (response instanceof ReadResponse) {
+            errors = ((ReadResponse) response).getErrors();
+        } else if (response instanceof WriteResponse) {
+            errors = ((WriteResponse) response).getErrors();
+        } else if (response instanceof SubscribeResponse) {
+            errors = ((SubscribeResponse) response).getErrors();
+        } else if (response instanceof SubscriptionPolledRefreshResponse) {
+            errors = ((SubscriptionPolledRefreshResponse) response).getErrors();
+        } else if (response instanceof BrowseResponse) {
+            errors = ((BrowseResponse) response).getErrors();
+        } else if (response instanceof GetPropertiesResponse) {
+            errors = ((GetPropertiesResponse) response).getErrors();
+        } else if (response instanceof StreamingResponse) {
+            errors = ((StreamingResponse) response).getErrors();
+        } else {
+            errors = List.of();
+        }
+
+        return errors.size();
+    }
+
+}
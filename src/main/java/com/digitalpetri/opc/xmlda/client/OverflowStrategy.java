@@ -0,0 +1,32 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * What a {@link SubscriptionPublisher} does with an update that arrives while a subscriber's buffer is full.
+ *
+ * @author Kevin Herron
+ */
+public enum OverflowStrategy {
+
+    /**
+     * Discard the oldest buffered update to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard the new update.
+     */
+    DROP_LATEST,
+
+    /**
+     * Merge the new update into the newest buffered one, replacing the buffered value of each item the new update
+     * also carries, so a slow subscriber receives the latest value of every item without the buffer growing.
+     */
+    CONFLATE,
+
+    /**
+     * Cancel the subscriber and signal {@link java.util.concurrent.Flow.Subscriber#onError} with an
+     * {@link IllegalStateException}.
+     */
+    ERROR
+
+}
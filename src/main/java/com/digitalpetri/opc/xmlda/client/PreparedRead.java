@@ -0,0 +1,162 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.RequestOptions;
+
+/**
+ * A {@link Read} whose item list and options were prepared, and whose SOAP envelope was encoded, once by
+ * {@link OpcXmlDaClient#prepareRead(Read)}, so it can be sent repeatedly with only its ClientRequestHandle and
+ * RequestDeadline differing between sends.
+ * <p>
+ * A PreparedRead is immutable and may be sent concurrently from any number of threads.
+ *
+ * @author Kevin Herron
+ */
+public final class PreparedRead {
+
+    private static final byte[] ATTR_CLIENT_REQUEST_HANDLE = bytes("ClientRequestHandle=\"");
+    private static final byte[] ATTR_REQUEST_DEADLINE = bytes("\" RequestDeadline=\"");
+
+    private final Read template;
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    /**
+     * @param template the prepared request, used for metrics and whenever it can't be sent pre-encoded.
+     * @param prefix   the encoded envelope up to the ClientRequestHandle attribute, or {@code null} if it couldn't
+     *                 be split there.
+     * @param suffix   the encoded envelope after the ClientRequestHandle attribute's closing quote.
+     */
+    PreparedRead(Read template, byte[] prefix, byte[] suffix) {
+        this.template = template;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @return the number of items this read requests.
+     */
+    public int getItemCount() {
+        return template.getItemList() != null ? template.getItemList().getItems().size() : 0;
+    }
+
+    Read getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return {@code true} if this read carries a pre-encoded envelope.
+     */
+    boolean isEncoded() {
+        return prefix != null;
+    }
+
+    /**
+     * @return a copy of the template with its own {@link RequestOptions}, to be sent the ordinary way.
+     */
+    Read copy(String clientRequestHandle, Instant deadline) {
+        return copyOf(template, clientRequestHandle, deadline);
+    }
+
+    /**
+     * @return a copy of {@code read} sharing its item list but with its own {@link RequestOptions}.
+     */
+    static Read copyOf(Read read, String clientRequestHandle, Instant deadline) {
+        var copyOptions = new RequestOptions();
+
+        RequestOptions options = read.getOptions();
+        if (options != null) {
+            copyOptions.setReturnErrorText(options.isReturnErrorText());
+            copyOptions.setReturnDiagnosticInfo(options.isReturnDiagnosticInfo());
+            copyOptions.setReturnItemTime(options.isReturnItemTime());
+            copyOptions.setReturnItemPath(options.isReturnItemPath());
+            copyOptions.setReturnItemName(options.isReturnItemName());
+            copyOptions.setLocaleID(options.getLocaleID());
+        }
+        copyOptions.setClientRequestHandle(clientRequestHandle);
+        if (deadline != null) {
+            copyOptions.setRequestDeadline(XmlTime.fromEpochMillis(deadline.toEpochMilli()));
+        }
+
+        var copy = new Read();
+        copy.setOptions(copyOptions);
+        copy.setItemList(read.getItemList());
+        return copy;
+    }
+
+    /**
+     * Assemble the envelope for one send.
+     *
+     * @param clientRequestHandle the handle; must not need XML escaping.
+     * @param deadline            the request deadline, or {@code null} for none.
+     */
+    byte[] encode(String clientRequestHandle, Instant deadline) {
+        byte[] handle = bytes(clientRequestHandle);
+        byte[] deadlineBytes = deadline != null ? bytes(deadline.toString()) : null;
+
+        int length = prefix.length + ATTR_CLIENT_REQUEST_HANDLE.length + handle.length + suffix.length;
+        if (deadlineBytes != null) {
+            length += ATTR_REQUEST_DEADLINE.length + deadlineBytes.length;
+        }
+
+        var body = new byte[length];
+        int position = put(body, 0, prefix);
+        position = put(body, position, ATTR_CLIENT_REQUEST_HANDLE);
+        position = put(body, position, handle);
+        if (deadlineBytes != null) {
+            position = put(body, position, ATTR_REQUEST_DEADLINE);
+            position = put(body, position, deadlineBytes);
+        }
+        put(body, position, suffix);
+
+        return body;
+    }
+
+    /**
+     * Split {@code envelope}, encoded with ClientRequestHandle set to {@code token}, around that attribute.
+     *
+     * @return the prefix and suffix, or {@code null} if the attribute wasn't found exactly once.
+     */
+    static byte[][] split(byte[] envelope, String token) {
+        byte[] attribute = bytes("ClientRequestHandle=\"" + token + "\"");
+
+        int index = indexOf(envelope, attribute, 0);
+        if (index < 0 || indexOf(envelope, attribute, index + 1) >= 0) {
+            return null;
+        }
+
+        var prefix = new byte[index];
+        System.arraycopy(envelope, 0, prefix, 0, index);
+
+        // the suffix starts at the attribute's closing quote so a deadline can be appended before it
+        int suffixStart = index + attribute.length - 1;
+        var suffix = new byte[envelope.length - suffixStart];
+        System.arraycopy(envelope, suffixStart, suffix, 0, suffix.length);
+
+        return new byte[][]{prefix, suffix};
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= bytes.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int put(byte[] dst, int position, byte[] src) {
+        System.arraycopy(src, 0, dst, position, src.length);
+        return position + src.length;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import org.opcfoundation.xmlda.LimitBits;
+import org.opcfoundation.xmlda.OPCQuality;
+import org.opcfoundation.xmlda.QualityBits;
+
+/**
+ * Encodes {@link OPCQuality} as the 16-bit quality word used by OPC DA: the vendor field in the high byte, then
+ * the quality, sub-status and limit bits ({@code QQSSSSLL}) in the low byte.
+ *
+ * @author Kevin Herron
+ */
+public final class QualityCodes {
+
+    public static final int GOOD = 0xC0;
+    public static final int UNCERTAIN = 0x40;
+    public static final int BAD = 0x00;
+
+    private static final int QUALITY_MASK = 0xC0;
+
+    private QualityCodes() {}
+
+    public static int encode(OPCQuality quality) {
+        if (quality == null) return GOOD;
+
+        return encode(quality.getQualityField(), quality.getLimitField(), quality.getVendorField());
+    }
+
+    public static int encode(QualityBits qualityBits, LimitBits limitBits, Short vendorField) {
+        int code = qualityBits != null ? qualityBits(qualityBits.value()) : GOOD;
+        code |= limitBits != null ? limitBits(limitBits.value()) : 0;
+        code |= vendorField != null ? (vendorField & 0xFF) << 8 : 0;
+        return code;
+    }
+
+    /**
+     * Encode the raw {@code QualityField}, {@code LimitField} and {@code VendorField} attribute values of an
+     * {@code OPCQuality} element. Absent attributes take their schema defaults.
+     */
+    static int encode(String qualityField, String limitField, String vendorField) {
+        int code = qualityField != null ? qualityBits(qualityField) : GOOD;
+        code |= limitField != null ? limitBits(limitField) : 0;
+        code |= vendorField != null ? (Integer.parseInt(vendorField.trim()) & 0xFF) << 8 : 0;
+        return code;
+    }
+
+    /**
+     * Decode a quality word produced by {@link #encode(OPCQuality)}.
+     */
+    public static OPCQuality decode(int code) {
+        var quality = new OPCQuality();
+        quality.setQualityField(QualityBits.fromValue(qualityName(code & 0xFC)));
+        quality.setLimitField(LimitBits.fromValue(limitName(code & 0x03)));
+
+        int vendorField = (code >> 8) & 0xFF;
+        if (vendorField != 0) {
+            quality.setVendorField((short) vendorField);
+        }
+
+        return quality;
+    }
+
+    public static boolean isGood(int code) {
+        return (code & QUALITY_MASK) == GOOD;
+    }
+
+    public static boolean isUncertain(int code) {
+        return (code & QUALITY_MASK) == UNCERTAIN;
+    }
+
+    public static boolean isBad(int code) {
+        return (code & QUALITY_MASK) == BAD;
+    }
+
+    private static int qualityBits(String value) {
+        switch (value) {
+            case "bad":                         return 0x00;
+            case "badConfigurationError":       return 0x04;
+            case "badNotConnected":             return 0x08;
+            case "badDeviceFailure":            return 0x0C;
+            case "badSensorFailure":            return 0x10;
+            case "badLastKnownValue":           return 0x14;
+            case "badCommFailure":              return 0x18;
+            case "badOutOfService":             return 0x1C;
+            case "badWaitingForInitialData":    return 0x20;
+            case "uncertain":                   return 0x40;
+            case "uncertainLastUsableValue":    return 0x44;
+            case "uncertainSensorNotAccurate":  return 0x50;
+            case "uncertainEUExceeded":         return 0x54;
+            case "uncertainSubNormal":          return 0x58;
+            case "good":                        return 0xC0;
+            case "goodLocalOverride":           return 0xD8;
+            default:                            return BAD;
+        }
+    }
+
+    private static String qualityName(int bits) {
+        switch (bits) {
+            case 0x04:  return "badConfigurationError";
+            case 0x08:  return "badNotConnected";
+            case 0x0C:  return "badDeviceFailure";
+            case 0x10:  return "badSensorFailure";
+            case 0x14:  return "badLastKnownValue";
+            case 0x18:  return "badCommFailure";
+            case 0x1C:  return "badOutOfService";
+            case 0x20:  return "badWaitingForInitialData";
+            case 0x40:  return "uncertain";
+            case 0x44:  return "uncertainLastUsableValue";
+            case 0x50:  return "uncertainSensorNotAccurate";
+            case 0x54:  return "uncertainEUExceeded";
+            case 0x58:  return "uncertainSubNormal";
+            case 0xC0:  return "good";
+            case 0xD8:  return "goodLocalOverride";
+            default:    return "bad";
+        }
+    }
+
+    private static String limitName(int bits) {
+        switch (bits) {
+            case 0x01:  return "low";
+            case 0x02:  return "high";
+            case 0x03:  return "constant";
+            default:    return "none";
+        }
+    }
+
+    private static int limitBits(String value) {
+        switch (value) {
+            case "low":         return 0x01;
+            case "high":        return 0x02;
+            case "constant":    return 0x03;
+            default:            return 0x00;
+        }
+    }
+
+}
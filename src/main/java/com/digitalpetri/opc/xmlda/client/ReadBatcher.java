@@ -0,0 +1,262 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.RequestOptions;
+
+/**
+ * Merges {@link Read} requests that arrive within a short window into a single request.
+ * <p>
+ * Requests are grouped by LocaleID. A batch is sent when its window elapses or when it reaches the maximum item
+ * count, whichever comes first. Items requested by more than one caller are read once, with the strictest MaxAge
+ * any of them asked for. Each caller's response contains its own items, in its own order, with its own
+ * ClientItemHandles and only the {@code OPCError}s those items reference.
+ * <p>
+ * Reads with a RequestDeadline are not batched: the deadline is also the HTTP timeout, and a merged read would
+ * impose the earliest deadline on every caller.
+ *
+ * @author Kevin Herron
+ */
+class ReadBatcher {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private final Function<Read, CompletableFuture<ReadResponse>> dispatcher;
+    private final Duration window;
+    private final int maxItems;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param dispatcher sends a {@link Read} to the server.
+     * @param window     how long to wait for more requests after the first request of a batch arrives.
+     * @param maxItems   send a batch immediately once it holds at least this many items.
+     * @param scheduler  schedules batch windows.
+     */
+    ReadBatcher(
+        Function<Read, CompletableFuture<ReadResponse>> dispatcher,
+        Duration window,
+        int maxItems,
+        ScheduledExecutorService scheduler) {
+
+        this.dispatcher = dispatcher;
+        this.window = window;
+        this.maxItems = maxItems;
+        this.scheduler = scheduler;
+    }
+
+    CompletableFuture<ReadResponse> read(Read readRequest) {
+        RequestOptions requestOptions = readRequest.getOptions();
+
+        if (readRequest.getItemList() == null ||
+            (requestOptions != null && requestOptions.getRequestDeadline() != null)) {
+
+            return dispatcher.apply(readRequest);
+        }
+
+        var pending = new PendingRead(readRequest);
+        String key = localeOf(readRequest);
+
+        Batch full = null;
+
+        lock.lock();
+        try {
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                Batch b = batch = new Batch();
+                batches.put(key, batch);
+                batch.timeout = scheduler.schedule(
+                    () -> flush(key, b),
+                    window.toNanos(),
+                    TimeUnit.NANOSECONDS
+                );
+            }
+
+            batch.reads.add(pending);
+            batch.itemCount += pending.itemCount();
+
+            if (batch.itemCount >= maxItems) {
+                batches.remove(key);
+                batch.timeout.cancel(false);
+                full = batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            send(full);
+        }
+
+        return pending.future;
+    }
+
+    private void flush(String key, Batch batch) {
+        lock.lock();
+        try {
+            if (batches.get(key) != batch) return;
+
+            batches.remove(key);
+        } finally {
+            lock.unlock();
+        }
+
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        if (batch.reads.size() == 1) {
+            PendingRead pending = batch.reads.get(0);
+
+            dispatcher.apply(pending.request).whenComplete((response, ex) -> {
+                if (ex != null) {
+                    pending.future.completeExceptionally(ex);
+                } else {
+                    pending.future.complete(response);
+                }
+            });
+            return;
+        }
+
+        // Assign each distinct item a merged handle, remembering where every caller's item maps to.
+        var merged = new LinkedHashMap<ItemKey, ReadRequestItem>();
+        boolean returnItemPath = false;
+
+        for (PendingRead pending : batch.reads) {
+            ReadRequestItemList itemList = pending.request.getItemList();
+            RequestOptions options = pending.request.getOptions();
+
+            if (options != null) {
+                returnItemPath |= Boolean.TRUE.equals(options.isReturnItemPath());
+            }
+
+            for (ReadRequestItem item : itemList.getItems()) {
+                ItemKey key = ItemKey.of(item, itemList);
+                Integer maxAge = item.getMaxAge() != null ? item.getMaxAge() : itemList.getMaxAge();
+
+                ReadRequestItem mergedItem = merged.get(key);
+                if (mergedItem == null) {
+                    mergedItem = new ReadRequestItem();
+                    mergedItem.setItemPath(key.getItemPath().isEmpty() ? null : key.getItemPath());
+                    mergedItem.setItemName(key.getItemName());
+                    mergedItem.setReqType(key.getReqType());
+                    mergedItem.setMaxAge(maxAge);
+                    mergedItem.setClientItemHandle(String.valueOf(merged.size()));
+                    merged.put(key, mergedItem);
+                } else if (maxAge != null && (mergedItem.getMaxAge() == null || maxAge < mergedItem.getMaxAge())) {
+                    mergedItem.setMaxAge(maxAge);
+                }
+
+                pending.mergedHandles.add(mergedItem.getClientItemHandle());
+            }
+        }
+
+        var itemList = new ReadRequestItemList();
+        itemList.getItems().addAll(merged.values());
+
+        var options = new RequestOptions();
+        options.setLocaleID(localeOf(batch.reads.get(0).request));
+        options.setReturnItemPath(returnItemPath);
+
+        var mergedRead = new Read();
+        mergedRead.setOptions(options);
+        mergedRead.setItemList(itemList);
+
+        dispatcher.apply(mergedRead).whenComplete((response, ex) -> {
+            if (ex != null) {
+                batch.reads.forEach(pending -> pending.future.completeExceptionally(ex));
+            } else {
+                List<ItemValue> items = response.getRItemList() != null ?
+                    response.getRItemList().getItems() : List.of();
+
+                Map<String, ItemValue> byHandle = ItemValues.indexByHandle(items, merged.size());
+
+                for (PendingRead pending : batch.reads) {
+                    try {
+                        pending.future.complete(split(pending, response, byHandle));
+                    } catch (Throwable t) {
+                        pending.future.completeExceptionally(t);
+                    }
+                }
+            }
+        });
+    }
+
+    private static ReadResponse split(PendingRead pending, ReadResponse response, Map<String, ItemValue> byHandle) {
+        List<ReadRequestItem> requestItems = pending.request.getItemList().getItems();
+        var itemValues = new ArrayList<ItemValue>(requestItems.size());
+
+        for (int i = 0; i < requestItems.size(); i++) {
+            ItemValue mergedValue = byHandle.get(pending.mergedHandles.get(i));
+
+            if (mergedValue != null) {
+                ItemValue itemValue = ItemValues.copy(mergedValue);
+                itemValue.setClientItemHandle(requestItems.get(i).getClientItemHandle());
+                itemValues.add(itemValue);
+            }
+        }
+
+        var itemList = new ReplyItemList();
+        itemList.getItems().addAll(itemValues);
+        if (response.getRItemList() != null) {
+            itemList.setReserved(response.getRItemList().getReserved());
+        }
+
+        var split = new ReadResponse();
+        split.setReadResult(ItemValues.copy(
+            response.getReadResult(),
+            pending.request.getOptions() != null ? pending.request.getOptions().getClientRequestHandle() : null
+        ));
+        split.setRItemList(itemList);
+        split.getErrors().addAll(ItemValues.errorsFor(itemValues, response.getErrors()));
+        return split;
+    }
+
+    private static String localeOf(Read readRequest) {
+        RequestOptions options = readRequest.getOptions();
+
+        return options != null ? Objects.toString(options.getLocaleID(), "") : "";
+    }
+
+    private static class Batch {
+        final List<PendingRead> reads = new ArrayList<>();
+        int itemCount = 0;
+        ScheduledFuture<?> timeout;
+    }
+
+    private static class PendingRead {
+        final CompletableFuture<ReadResponse> future = new CompletableFuture<>();
+        final List<String> mergedHandles = new ArrayList<>();
+
+        final Read request;
+
+        PendingRead(Read request) {
+            this.request = request;
+        }
+
+        int itemCount() {
+            ReadRequestItemList itemList = request.getItemList();
+
+            return itemList != null ? itemList.getItems().size() : 0;
+        }
+    }
+
+}
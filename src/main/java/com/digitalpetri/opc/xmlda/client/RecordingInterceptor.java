@@ -0,0 +1,102 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+
+/**
+ * Captures the requests and responses of blocking operations to a {@link TrafficRecorder}.
+ * <p>
+ * {@link org.springframework.ws.client.core.WebServiceTemplate} only exposes messages, not the HTTP exchange, so
+ * the captured envelopes are the messages re-serialized, the status is 200 for a response and 500 for a fault, and
+ * the duration includes the time the template spends creating the response message.
+ *
+ * @author Kevin Herron
+ */
+class RecordingInterceptor implements ClientInterceptor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecordingInterceptor.class);
+
+    private static final String SENT_NANOS = RecordingInterceptor.class.getName() + ".sentNanos";
+    private static final String RECORDED = RecordingInterceptor.class.getName() + ".recorded";
+
+    private final TrafficRecorder recorder;
+
+    RecordingInterceptor(TrafficRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean handleRequest(MessageContext messageContext) {
+        messageContext.setProperty(SENT_NANOS, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public boolean handleResponse(MessageContext messageContext) {
+        record(messageContext, 200, messageContext.getResponse());
+        return true;
+    }
+
+    @Override
+    public boolean handleFault(MessageContext messageContext) {
+        record(messageContext, 500, messageContext.getResponse());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(MessageContext messageContext, Exception ex) {
+        if (messageContext.getProperty(RECORDED) == null) {
+            record(messageContext, -1, null);
+        }
+    }
+
+    private void record(MessageContext messageContext, int statusCode, WebServiceMessage response) {
+        Object sentNanos = messageContext.getProperty(SENT_NANOS);
+        if (sentNanos == null) return;
+
+        long durationNanos = System.nanoTime() - (long) sentNanos;
+        messageContext.setProperty(RECORDED, Boolean.TRUE);
+
+        try {
+            recorder.record(
+                operation(messageContext.getRequest()),
+                (long) sentNanos,
+                durationNanos,
+                statusCode,
+                serialize(messageContext.getRequest()),
+                response != null ? serialize(response) : null
+            );
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Failed to capture exchange", e);
+        }
+    }
+
+    /**
+     * @return the SOAP operation, taken from the SOAPAction, e.g. {@code Read} for
+     * {@code http://opcfoundation.org/webservices/XMLDA/1.0/Read}.
+     */
+    private static String operation(WebServiceMessage request) {
+        if (request instanceof SoapMessage) {
+            String soapAction = ((SoapMessage) request).getSoapAction();
+            if (soapAction != null) {
+                soapAction = soapAction.replace("\"", "");
+                return soapAction.substring(soapAction.lastIndexOf('/') + 1);
+            }
+        }
+        return "";
+    }
+
+    private static byte[] serialize(WebServiceMessage message) throws IOException {
+        var buffer = new ByteArrayOutputStream(1024);
+        message.writeTo(buffer);
+        return buffer.toByteArray();
+    }
+
+}
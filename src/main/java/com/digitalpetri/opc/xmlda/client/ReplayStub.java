@@ -0,0 +1,216 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local HTTP endpoint that answers OPC XML-DA requests with the responses of a captured session, each after its
+ * captured duration, so latency problems seen against a real server can be reproduced offline.
+ * <p>
+ * A request sent by {@link TrafficReplayer} carries the index of the exchange it replays and is answered with
+ * that exchange's response. Any other request, e.g. from an {@link OpcXmlDaClient} pointed at the stub, is answered
+ * with the next unused response captured for its SOAPAction. A request with no response left is answered with HTTP
+ * 503, and an exchange that failed without a response when captured is answered by closing the connection.
+ *
+ * @author Kevin Herron
+ */
+public class ReplayStub implements AutoCloseable {
+
+    /**
+     * The header {@link TrafficReplayer} sends the replayed exchange's index in.
+     */
+    static final String CAPTURE_INDEX_HEADER = "X-Capture-Index";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplayStub.class);
+
+    private final Map<String, Queue<CapturedExchange>> byOperation = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+
+    private final List<CapturedExchange> exchanges;
+    private final double speed;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private ReplayStub(List<CapturedExchange> exchanges, double speed, int port) throws IOException {
+        this.exchanges = List.copyOf(exchanges);
+        this.speed = speed;
+
+        for (CapturedExchange exchange : this.exchanges) {
+            byOperation.computeIfAbsent(exchange.getOperation(), o -> new ConcurrentLinkedQueue<>()).add(exchange);
+        }
+
+        var threadCount = new AtomicInteger(0);
+        executor = Executors.newCachedThreadPool(r -> {
+            var thread = new Thread(r, "opc-xmlda-replay-stub-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return the URL to point an {@link OpcXmlDaClient} or {@link TrafficReplayer} at.
+     */
+    public String getEndpointUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return the number of requests received.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of requests no captured response was left for.
+     */
+    public long getUnmatchedCount() {
+        return unmatched.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange httpExchange) throws IOException {
+        requests.increment();
+
+        try {
+            try (InputStream in = httpExchange.getRequestBody()) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+
+            CapturedExchange exchange = match(httpExchange);
+
+            if (exchange == null) {
+                unmatched.increment();
+                httpExchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            long delayNanos = (long) (exchange.getDurationNanos() / speed);
+            if (delayNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            }
+
+            if (exchange.getStatusCode() < 0) {
+                // no response was captured; the connection is closed without one
+                return;
+            }
+
+            byte[] body = exchange.getResponse();
+            httpExchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+            httpExchange.sendResponseHeaders(exchange.getStatusCode(), body.length > 0 ? body.length : -1);
+
+            if (body.length > 0) {
+                try (OutputStream out = httpExchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Failed to replay response", e);
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    private CapturedExchange match(HttpExchange httpExchange) {
+        String index = httpExchange.getRequestHeaders().getFirst(CAPTURE_INDEX_HEADER);
+
+        if (index != null) {
+            try {
+                int i = Integer.parseInt(index);
+                return i >= 0 && i < exchanges.size() ? exchanges.get(i) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        String soapAction = httpExchange.getRequestHeaders().getFirst("SOAPAction");
+        if (soapAction == null) return null;
+
+        soapAction = soapAction.replace("\"", "");
+        Queue<CapturedExchange> queue = byOperation.get(soapAction.substring(soapAction.lastIndexOf('/') + 1));
+
+        return queue != null ? queue.poll() : null;
+    }
+
+    /**
+     * @param exchanges the captured exchanges to answer with, e.g. from {@link CapturedExchange#read}.
+     */
+    public static Builder newBuilder(List<CapturedExchange> exchanges) {
+        return new Builder(exchanges);
+    }
+
+    public static class Builder {
+
+        private double speed = 1.0;
+        private int port = 0;
+
+        private final List<CapturedExchange> exchanges;
+
+        Builder(List<CapturedExchange> exchanges) {
+            this.exchanges = exchanges;
+        }
+
+        /**
+         * Set how much faster than captured to respond, e.g. {@code 10.0} to respond after a tenth of each
+         * captured duration. Defaults to {@code 1.0}.
+         */
+        public Builder setSpeed(double speed) {
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * Set the local port to listen on. Defaults to 0, any free port.
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Start listening.
+         *
+         * @throws IOException if the port can't be bound.
+         */
+        public ReplayStub build() throws IOException {
+            if (!(speed > 0.0)) {
+                throw new IllegalArgumentException("speed must be > 0");
+            }
+
+            return new ReplayStub(exchanges, speed, port);
+        }
+
+    }
+
+}
@@ -0,0 +1,368 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyBase;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+import org.opcfoundation.xmlda.WriteResponse;
+
+/**
+ * Splits {@link Read}, {@link Write} and {@link Subscribe} requests with more than a configured number of items
+ * into several smaller requests, sent with a bounded number in flight.
+ * <p>
+ * Read and Write replies are merged back into one response with the items in request order and each distinct
+ * {@code OPCError} once. Each Subscribe chunk creates its own subscription on the server, so Subscribe replies are
+ * returned as a list instead.
+ *
+ * @author Kevin Herron
+ */
+class RequestChunker {
+
+    private final int maxItems;
+    private final int maxConcurrentRequests;
+
+    /**
+     * @param maxItems              the most items to send in a single request.
+     * @param maxConcurrentRequests the most chunks of a single request to have in flight at once.
+     */
+    RequestChunker(int maxItems, int maxConcurrentRequests) {
+        this.maxItems = maxItems;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    boolean exceedsLimit(Read readRequest) {
+        return readRequest.getItemList() != null && readRequest.getItemList().getItems().size() > maxItems;
+    }
+
+    boolean exceedsLimit(Write writeRequest) {
+        return writeRequest.getItemList() != null && writeRequest.getItemList().getItems().size() > maxItems;
+    }
+
+    CompletableFuture<ReadResponse> read(
+        Read readRequest, Function<Read, CompletableFuture<ReadResponse>> dispatcher) {
+
+        if (!exceedsLimit(readRequest)) {
+            return dispatcher.apply(readRequest);
+        }
+
+        ReadRequestItemList itemList = readRequest.getItemList();
+        var chunks = new ArrayList<Read>();
+
+        for (List<ReadRequestItem> items : partition(itemList.getItems())) {
+            var chunkItemList = new ReadRequestItemList();
+            chunkItemList.setItemPath(itemList.getItemPath());
+            chunkItemList.setReqType(itemList.getReqType());
+            chunkItemList.setMaxAge(itemList.getMaxAge());
+            chunkItemList.getItems().addAll(items);
+
+            var chunk = new Read();
+            chunk.setOptions(readRequest.getOptions());
+            chunk.setItemList(chunkItemList);
+            chunks.add(chunk);
+        }
+
+        return dispatch(chunks, dispatcher, response -> {}).thenApply(responses -> {
+            var replyItemList = new ReplyItemList();
+            var replies = new ArrayList<ReplyBase>(responses.size());
+            var errors = new ArrayList<OPCError>();
+
+            for (ReadResponse response : responses) {
+                replies.add(response.getReadResult());
+                errors.addAll(response.getErrors());
+
+                if (response.getRItemList() != null) {
+                    replyItemList.getItems().addAll(response.getRItemList().getItems());
+                    if (replyItemList.getReserved() == null) {
+                        replyItemList.setReserved(response.getRItemList().getReserved());
+                    }
+                }
+            }
+
+            var merged = new ReadResponse();
+            merged.setReadResult(mergeReplyBase(replies));
+            merged.setRItemList(replyItemList);
+            merged.getErrors().addAll(distinct(errors));
+            return merged;
+        });
+    }
+
+    CompletableFuture<WriteResponse> write(
+        Write writeRequest, Function<Write, CompletableFuture<WriteResponse>> dispatcher) {
+
+        if (!exceedsLimit(writeRequest)) {
+            return dispatcher.apply(writeRequest);
+        }
+
+        WriteRequestItemList itemList = writeRequest.getItemList();
+        var chunks = new ArrayList<Write>();
+
+        for (List<ItemValue> items : partition(itemList.getItems())) {
+            var chunkItemList = new WriteRequestItemList();
+            chunkItemList.setItemPath(itemList.getItemPath());
+            chunkItemList.getItems().addAll(items);
+
+            var chunk = new Write();
+            chunk.setOptions(writeRequest.getOptions());
+            chunk.setReturnValuesOnReply(writeRequest.isReturnValuesOnReply());
+            chunk.setItemList(chunkItemList);
+            chunks.add(chunk);
+        }
+
+        return dispatch(chunks, dispatcher, response -> {}).thenApply(responses -> {
+            var replyItemList = new ReplyItemList();
+            var replies = new ArrayList<ReplyBase>(responses.size());
+            var errors = new ArrayList<OPCError>();
+
+            for (WriteResponse response : responses) {
+                replies.add(response.getWriteResult());
+                errors.addAll(response.getErrors());
+
+                if (response.getRItemList() != null) {
+                    replyItemList.getItems().addAll(response.getRItemList().getItems());
+                    if (replyItemList.getReserved() == null) {
+                        replyItemList.setReserved(response.getRItemList().getReserved());
+                    }
+                }
+            }
+
+            var merged = new WriteResponse();
+            merged.setWriteResult(mergeReplyBase(replies));
+            merged.setRItemList(replyItemList);
+            merged.getErrors().addAll(distinct(errors));
+            return merged;
+        });
+    }
+
+    /**
+     * @param dispatcher sends one chunk.
+     * @param abandoned  called with the response to each chunk that succeeded when another chunk failed, so the
+     *                   subscription it created can be cancelled.
+     */
+    CompletableFuture<List<SubscribeResponse>> subscribe(
+        Subscribe subscribeRequest,
+        Function<Subscribe, CompletableFuture<SubscribeResponse>> dispatcher,
+        Consumer<SubscribeResponse> abandoned) {
+
+        SubscribeRequestItemList itemList = subscribeRequest.getItemList();
+
+        if (itemList == null || itemList.getItems().size() <= maxItems) {
+            return dispatcher.apply(subscribeRequest).thenApply(List::of);
+        }
+
+        var chunks = new ArrayList<Subscribe>();
+
+        for (List<SubscribeRequestItem> items : partition(itemList.getItems())) {
+            var chunkItemList = new SubscribeRequestItemList();
+            chunkItemList.setItemPath(itemList.getItemPath());
+            chunkItemList.setReqType(itemList.getReqType());
+            chunkItemList.setDeadband(itemList.getDeadband());
+            chunkItemList.setRequestedSamplingRate(itemList.getRequestedSamplingRate());
+            chunkItemList.setEnableBuffering(itemList.isEnableBuffering());
+            chunkItemList.getItems().addAll(items);
+
+            var chunk = new Subscribe();
+            chunk.setOptions(subscribeRequest.getOptions());
+            chunk.setReturnValuesOnReply(subscribeRequest.isReturnValuesOnReply());
+            chunk.setSubscriptionPingRate(subscribeRequest.getSubscriptionPingRate());
+            chunk.setItemList(chunkItemList);
+            chunks.add(chunk);
+        }
+
+        return dispatch(chunks, dispatcher, abandoned);
+    }
+
+    private <T> List<List<T>> partition(List<T> items) {
+        var partitions = new ArrayList<List<T>>((items.size() + maxItems - 1) / maxItems);
+
+        for (int i = 0; i < items.size(); i += maxItems) {
+            partitions.add(items.subList(i, Math.min(i + maxItems, items.size())));
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Send {@code chunks}, keeping at most {@code maxConcurrentRequests} in flight. The first failure completes
+     * the returned future exceptionally and no further chunks are sent; the response to every chunk that
+     * succeeded, before or after the failure, is passed to {@code abandoned}.
+     */
+    private <Q, R> CompletableFuture<List<R>> dispatch(
+        List<Q> chunks, Function<Q, CompletableFuture<R>> dispatcher, Consumer<R> abandoned) {
+
+        var dispatch = new ChunkDispatch<>(chunks, dispatcher, abandoned);
+
+        for (int i = 0; i < Math.min(maxConcurrentRequests, chunks.size()); i++) {
+            dispatch.sendNext();
+        }
+
+        return dispatch.future;
+    }
+
+    /**
+     * Combine the ReplyBase of each chunk: the earliest RcvTime, the latest ReplyTime, and the rest from the
+     * last reply.
+     */
+    private static ReplyBase mergeReplyBase(List<ReplyBase> replies) {
+        ReplyBase merged = null;
+        XMLGregorianCalendar rcvTime = null;
+        XMLGregorianCalendar replyTime = null;
+
+        for (ReplyBase reply : replies) {
+            if (reply == null) continue;
+
+            merged = reply;
+
+            if (reply.getRcvTime() != null && (rcvTime == null || reply.getRcvTime().compare(rcvTime) < 0)) {
+                rcvTime = reply.getRcvTime();
+            }
+            if (reply.getReplyTime() != null && (replyTime == null || reply.getReplyTime().compare(replyTime) > 0)) {
+                replyTime = reply.getReplyTime();
+            }
+        }
+
+        if (merged == null) return null;
+
+        ReplyBase replyBase = ItemValues.copy(merged, merged.getClientRequestHandle());
+        replyBase.setRcvTime(rcvTime);
+        replyBase.setReplyTime(replyTime);
+        return replyBase;
+    }
+
+    /**
+     * @return {@code errors} with only the first {@code OPCError} for each ID.
+     */
+    private static List<OPCError> distinct(List<OPCError> errors) {
+        Map<QName, OPCError> byId = new LinkedHashMap<>();
+
+        for (OPCError error : errors) {
+            byId.putIfAbsent(error.getID(), error);
+        }
+
+        return new ArrayList<>(byId.values());
+    }
+
+    private static final class ChunkDispatch<Q, R> {
+
+        final CompletableFuture<List<R>> future = new CompletableFuture<>();
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger next = new AtomicInteger(0);
+        private final AtomicInteger remaining;
+        private final AtomicReferenceArray<R> results;
+
+        /**
+         * Set, holding {@code lock}, once a chunk has failed.
+         */
+        private boolean failed = false;
+
+        private final List<Q> chunks;
+        private final Function<Q, CompletableFuture<R>> dispatcher;
+        private final Consumer<R> abandoned;
+
+        ChunkDispatch(List<Q> chunks, Function<Q, CompletableFuture<R>> dispatcher, Consumer<R> abandoned) {
+            this.chunks = chunks;
+            this.dispatcher = dispatcher;
+            this.abandoned = abandoned;
+
+            remaining = new AtomicInteger(chunks.size());
+            results = new AtomicReferenceArray<>(chunks.size());
+        }
+
+        void sendNext() {
+            int index = next.getAndIncrement();
+            if (index >= chunks.size() || future.isDone()) return;
+
+            CompletableFuture<R> chunkFuture;
+            try {
+                chunkFuture = dispatcher.apply(chunks.get(index));
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+
+            chunkFuture.whenComplete((response, ex) -> {
+                if (ex != null) {
+                    fail(ex);
+                } else {
+                    succeed(index, response);
+                }
+            });
+        }
+
+        private void succeed(int index, R response) {
+            boolean abandon;
+
+            lock.lock();
+            try {
+                abandon = failed;
+                if (!abandon) {
+                    results.set(index, response);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (abandon) {
+                abandoned.accept(response);
+            } else if (remaining.decrementAndGet() == 0) {
+                @SuppressWarnings("unchecked")
+                R[] responses = (R[]) new Object[chunks.size()];
+                for (int i = 0; i < responses.length; i++) {
+                    responses[i] = results.get(i);
+                }
+                future.complete(Arrays.asList(responses));
+            } else {
+                sendNext();
+            }
+        }
+
+        private void fail(Throwable ex) {
+            var succeeded = new ArrayList<R>();
+
+            lock.lock();
+            try {
+                if (failed) return;
+                failed = true;
+
+                for (int i = 0; i < results.length(); i++) {
+                    R response = results.get(i);
+                    if (response != null) {
+                        succeeded.add(response);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            future.completeExceptionally(ex);
+
+            succeeded.forEach(abandoned);
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+
+/**
+ * Encodes a request payload as a complete SOAP 1.1 envelope.
+ *
+ * @author Kevin Herron
+ */
+interface RequestEncoder {
+
+    byte[] encode(Object requestPayload) throws IOException;
+
+}
@@ -0,0 +1,22 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * How the non-blocking transport serializes requests.
+ *
+ * @author Kevin Herron
+ */
+public enum RequestEncoding {
+
+    /**
+     * Marshal every request with JAXB.
+     */
+    JAXB,
+
+    /**
+     * Write Read, Write and SubscriptionPolledRefresh requests with a hand-written encoder that emits the SOAP
+     * envelope directly into a reused buffer, and marshal everything else, including requests carrying values or
+     * types the encoder does not handle, with JAXB.
+     */
+    FAST_PATH
+
+}
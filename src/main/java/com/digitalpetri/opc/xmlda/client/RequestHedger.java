@@ -0,0 +1,343 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cuts tail latency by sending a second copy of a slow request and taking whichever response arrives first.
+ * <p>
+ * Only idempotent operations are hedged: Read, GetStatus, Browse and GetProperties. A request that hasn't completed
+ * after the {@code percentile} latency of recent successful requests of the same operation, but at least
+ * {@code minDelay}, is sent again. The first successful response completes the call and the other request's
+ * future is cancelled; the call only fails if both requests fail. No request is hedged until {@code minSamples}
+ * latencies have been seen for its operation.
+ * <p>
+ * Cancelling a request cancels its {@link java.net.http.HttpClient} exchange. From JDK 16 on that aborts the
+ * exchange; on earlier JDKs the exchange runs until the server responds and the response is discarded.
+ * <p>
+ * To keep a server that is slow across the board from receiving twice the load, at most {@code maxHedgeRatio}
+ * hedges are sent per request.
+ * <p>
+ * Latencies are tracked per operation, not per server, so a hedger should not be shared by clients of different
+ * servers.
+ *
+ * @author Kevin Herron
+ * @see OpcXmlDaClient.Builder#setRequestHedger(RequestHedger)
+ */
+public class RequestHedger {
+
+    /**
+     * How many recent latencies the percentile is taken over.
+     */
+    private static final int LATENCY_WINDOW = 1000;
+
+    /**
+     * How many new latencies are recorded between recomputing the percentile.
+     */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private final Map<OpcXmlDaClient.SoapAction, LatencyWindow> windows =
+        new EnumMap<>(OpcXmlDaClient.SoapAction.class);
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final double maxHedgeRatio;
+    private final ScheduledExecutorService scheduler;
+
+    private RequestHedger(
+        double percentile,
+        Duration minDelay,
+        int minSamples,
+        double maxHedgeRatio,
+        ScheduledExecutorService scheduler) {
+
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = minSamples;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.scheduler = scheduler;
+
+        windows.put(OpcXmlDaClient.SoapAction.READ, new LatencyWindow());
+        windows.put(OpcXmlDaClient.SoapAction.GET_STATUS, new LatencyWindow());
+        windows.put(OpcXmlDaClient.SoapAction.BROWSE, new LatencyWindow());
+        windows.put(OpcXmlDaClient.SoapAction.GET_PROPERTIES, new LatencyWindow());
+    }
+
+    /**
+     * @return the number of requests that could have been hedged.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of hedged requests sent.
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return the number of hedged requests that responded before the request they hedged.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * @return {@code true} if {@code soapAction} is idempotent and may be hedged.
+     */
+    boolean isHedged(OpcXmlDaClient.SoapAction soapAction) {
+        return windows.containsKey(soapAction);
+    }
+
+    /**
+     * Send a request with {@code send}, and again if the first hasn't completed after the hedge delay.
+     *
+     * @param soapAction the operation {@code send} invokes.
+     * @param timeout    how long each request may take; no hedge is sent once it has passed.
+     * @param send       sends the request; called once or twice.
+     */
+    <T> CompletableFuture<T> invoke(
+        OpcXmlDaClient.SoapAction soapAction,
+        Duration timeout,
+        Supplier<CompletableFuture<T>> send) {
+
+        LatencyWindow window = windows.get(soapAction);
+
+        if (window == null) {
+            return send.get();
+        }
+
+        requests.increment();
+
+        long delayNanos = window.delayNanos;
+        CompletableFuture<T> primary = timed(window, send);
+
+        if (delayNanos < 0L || delayNanos >= timeout.toNanos()) {
+            return primary;
+        }
+
+        var call = new Call<T>(primary);
+
+        ScheduledFuture<?> hedge = scheduler.schedule(() -> {
+            if (call.result.isDone() || hedges.sum() >= maxHedgeRatio * requests.sum()) return;
+
+            call.hedge(() -> timed(window, send));
+        }, delayNanos, TimeUnit.NANOSECONDS);
+
+        call.result.whenComplete((r, ex) -> hedge.cancel(false));
+
+        return call.result;
+    }
+
+    private static <T> CompletableFuture<T> timed(LatencyWindow window, Supplier<CompletableFuture<T>> send) {
+        long startNanos = System.nanoTime();
+
+        CompletableFuture<T> future;
+        try {
+            future = send.get();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+
+        future.whenComplete((r, ex) -> {
+            // a request cancelled because its hedge won took at least this long; leaving it out would hide the tail
+            if (ex == null || ex instanceof CancellationException) {
+                window.record(System.nanoTime() - startNanos);
+            }
+        });
+
+        return future;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A call whose request may have been hedged: completed by the first successful response, or by the primary
+     * request's failure once no request is left in flight.
+     */
+    private final class Call<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        /**
+         * Requests in flight, counting the primary and, once sent, the hedge.
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private final CompletableFuture<T> primary;
+        private volatile CompletableFuture<T> hedge;
+        private volatile Throwable primaryFailure;
+
+        Call(CompletableFuture<T> primary) {
+            this.primary = primary;
+
+            primary.whenComplete((r, ex) -> onComplete(r, ex, false));
+        }
+
+        /**
+         * Send the hedge, unless the primary request has already failed.
+         */
+        void hedge(Supplier<CompletableFuture<T>> send) {
+            // count the hedge in flight before sending it so a failing primary waits for it
+            if (pending.getAndUpdate(n -> n > 0 ? n + 1 : n) == 0) return;
+
+            hedges.increment();
+            CompletableFuture<T> hedge = send.get();
+            this.hedge = hedge;
+
+            hedge.whenComplete((r, ex) -> onComplete(r, ex, true));
+        }
+
+        private void onComplete(T response, Throwable ex, boolean isHedge) {
+            if (ex == null) {
+                if (result.complete(response)) {
+                    if (isHedge) {
+                        hedgeWins.increment();
+                        primary.cancel(false);
+                    } else if (hedge != null) {
+                        hedge.cancel(false);
+                    }
+                }
+                return;
+            }
+
+            if (!isHedge) {
+                primaryFailure = ex;
+            }
+
+            if (pending.decrementAndGet() == 0) {
+                Throwable failure = primaryFailure;
+                result.completeExceptionally(failure != null ? failure : ex);
+            }
+        }
+
+    }
+
+    /**
+     * The most recent latencies of one operation and the hedge delay derived from them.
+     */
+    private final class LatencyWindow {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] latencies = new long[LATENCY_WINDOW];
+
+        private long count = 0L;
+        private long computedAt = 0L;
+
+        /**
+         * The current hedge delay, or -1 until {@code minSamples} latencies have been recorded.
+         */
+        volatile long delayNanos = -1L;
+
+        void record(long latencyNanos) {
+            lock.lock();
+            try {
+                latencies[(int) (count++ % LATENCY_WINDOW)] = latencyNanos;
+
+                if (count >= minSamples && (delayNanos < 0L || count - computedAt >= RECOMPUTE_INTERVAL)) {
+                    int size = (int) Math.min(count, LATENCY_WINDOW);
+                    long[] sorted = Arrays.copyOf(latencies, size);
+                    Arrays.sort(sorted);
+
+                    int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+                    delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+                    computedAt = count;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    public static class Builder {
+
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(10);
+        private int minSamples = 20;
+        private double maxHedgeRatio = 0.1;
+        private ScheduledExecutorService scheduler;
+
+        /**
+         * Set the latency percentile, between 0 and 1, after which a request is hedged. Defaults to 0.95.
+         */
+        public Builder setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Set the shortest time to wait before hedging, however fast recent requests were. Defaults to 10ms.
+         */
+        public Builder setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Set how many latencies must be seen for an operation before its requests are hedged. Defaults to 20.
+         */
+        public Builder setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Set the most hedges that may be sent per request, e.g. {@code 0.1} for one in ten. Defaults to 0.1.
+         */
+        public Builder setMaxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        /**
+         * Set the scheduler hedges are sent from. If not set, a daemon scheduler shared by all clients is used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public RequestHedger build() {
+            if (!(percentile > 0.0 && percentile <= 1.0)) {
+                throw new IllegalArgumentException("percentile must be in (0, 1]");
+            }
+            if (minSamples < 1) {
+                throw new IllegalArgumentException("minSamples must be >= 1");
+            }
+            if (maxHedgeRatio < 0.0) {
+                throw new IllegalArgumentException("maxHedgeRatio must be >= 0");
+            }
+
+            return new RequestHedger(
+                percentile,
+                minDelay,
+                minSamples,
+                maxHedgeRatio,
+                scheduler != null ? scheduler : OpcXmlDaClient.sharedScheduler()
+            );
+        }
+
+    }
+
+}
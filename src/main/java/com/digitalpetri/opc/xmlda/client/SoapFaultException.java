@@ -0,0 +1,34 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import javax.xml.namespace.QName;
+
+import org.springframework.ws.client.WebServiceClientException;
+
+/**
+ * Thrown when the server answers a request made through the non-blocking transport with a SOAP Fault.
+ *
+ * @author Kevin Herron
+ */
+public class SoapFaultException extends WebServiceClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final QName faultCode;
+    private final String faultString;
+
+    public SoapFaultException(QName faultCode, String faultString) {
+        super(faultString != null ? faultString : String.valueOf(faultCode));
+
+        this.faultCode = faultCode;
+        this.faultString = faultString;
+    }
+
+    public QName getFaultCode() {
+        return faultCode;
+    }
+
+    public String getFaultString() {
+        return faultString;
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.digitalpetri.opc.xmlda.client;
+
+/**
+ * A reusable view of one item value as it is decoded from a response.
+ * <p>
+ * The decoder fills and hands out the same instance for every item in a response; an {@link ItemValueHandler}
+ * must copy out anything it wants to keep before returning.
+ *
+ * @author Kevin Herron
+ */
+public final class StreamedItemValue {
+
+    /**
+     * How the value of a {@link StreamedItemValue} is represented.
+     */
+    public enum ValueKind {
+        /** No value, or {@code xsi:nil}. */
+        NULL,
+        /** {@link #getBooleanValue()}. */
+        BOOLEAN,
+        /** Any integral type; {@link #getLongValue()}. */
+        LONG,
+        /** {@code float}, {@code double} or {@code decimal}; {@link #getDoubleValue()}. */
+        DOUBLE,
+        /** {@code dateTime}; {@link #getLongValue()} holds epoch milliseconds. */
+        DATE_TIME,
+        /** {@code string}; {@link #getObjectValue()} holds the {@link String}. */
+        STRING,
+        /** An {@code ArrayOf*} value; {@link #getObjectValue()} holds a {@code String[]} of element texts. */
+        ARRAY,
+        /** Any other type; {@link #getObjectValue()} holds the element text. */
+        OTHER
+    }
+
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private String subscriptionHandle;
+    private String itemPath;
+    private String itemName;
+    private String clientItemHandle;
+    private String resultId;
+    private String diagnosticInfo;
+    private String valueType;
+
+    private ValueKind valueKind = ValueKind.NULL;
+    private boolean booleanValue;
+    private long longValue;
+    private double doubleValue;
+    private Object objectValue;
+
+    private int quality = QualityCodes.GOOD;
+    private long timestamp = NO_TIMESTAMP;
+
+    StreamedItemValue() {}
+
+    void reset(String subscriptionHandle) {
+        this.subscriptionHandle = subscriptionHandle;
+        itemPath = null;
+        itemName = null;
+        clientItemHandle = null;
+        resultId = null;
+        diagnosticInfo = null;
+        valueType = null;
+        valueKind = ValueKind.NULL;
+        booleanValue = false;
+        longValue = 0L;
+        doubleValue = 0.0;
+        objectValue = null;
+        quality = QualityCodes.GOOD;
+        timestamp = NO_TIMESTAMP;
+    }
+
+    /**
+     * @return the SubscriptionHandle of the reply list this item was in, or {@code null} outside a
+     * SubscriptionPolledRefresh response.
+     */
+    public String getSubscriptionHandle() {
+        return subscriptionHandle;
+    }
+
+    public String getItemPath() {
+        return itemPath;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getClientItemHandle() {
+        return clientItemHandle;
+    }
+
+    /**
+     * @return the local part of the ResultID, e.g. {@code E_UNKNOWNITEMNAME}, or {@code null} if none.
+     */
+    public String getResultId() {
+        return resultId;
+    }
+
+    public String getDiagnosticInfo() {
+        return diagnosticInfo;
+    }
+
+    /**
+     * @return the local part of the value's {@code xsi:type}, e.g. {@code double}, or {@code null} if untyped.
+     */
+    public String getValueType() {
+        return valueType;
+    }
+
+    public ValueKind getValueKind() {
+        return valueKind;
+    }
+
+    public boolean getBooleanValue() {
+        return booleanValue;
+    }
+
+    public long getLongValue() {
+        return longValue;
+    }
+
+    public double getDoubleValue() {
+        return doubleValue;
+    }
+
+    public Object getObjectValue() {
+        return objectValue;
+    }
+
+    /**
+     * @return the value boxed as the closest Java type; allocates for primitive kinds.
+     */
+    public Object getValue() {
+        switch (valueKind) {
+            case BOOLEAN:
+                return booleanValue;
+            case LONG:
+            case DATE_TIME:
+                return longValue;
+            case DOUBLE:
+                return doubleValue;
+            default:
+                return objectValue;
+        }
+    }
+
+    /**
+     * @return the quality as an OPC DA quality word; see {@link QualityCodes}.
+     */
+    public int getQuality() {
+        return quality;
+    }
+
+    /**
+     * @return the timestamp in epoch milliseconds, or {@link #NO_TIMESTAMP}.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    void setItemPath(String itemPath) {
+        this.itemPath = itemPath;
+    }
+
+    void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    void setClientItemHandle(String clientItemHandle) {
+        this.clientItemHandle = clientItemHandle;
+    }
+
+    void setResultId(String resultId) {
+        this.resultId = resultId;
+    }
+
+    void setDiagnosticInfo(String diagnosticInfo) {
+        this.diagnosticInfo = diagnosticInfo;
+    }
+
+    void setValueType(String valueType) {
+        this.valueType = valueType;
+    }
+
+    void setBooleanValue(boolean value) {
+        valueKind = ValueKind.BOOLEAN;
+        booleanValue = value;
+    }
+
+    void setLongValue(long value) {
+        valueKind = ValueKind.LONG;
+        longValue = value;
+    }
+
+    void setDoubleValue(double value) {
+        valueKind = ValueKind.DOUBLE;
+        doubleValue = value;
+    }
+
+    void setDateTimeValue(long epochMillis) {
+        valueKind = ValueKind.DATE_TIME;
+        longValue = epochMillis;
+    }
+
+    void setObjectValue(ValueKind kind, Object value) {
+        valueKind = kind;
+        objectValue = value;
+    }
+
+    void setQuality(int quality) {
+        this.quality = quality;
+    }
+
+    void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedItemValue{" +
+            "itemName='" + itemName + '\'' +
+            ", value=" + getValue() +
+            ", quality=0x" + Integer.toHexString(quality) +
+            ", timestamp=" + timestamp +
+            '}';
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.ServerState;
+
+/**
+ * Everything in a streamed response except the item values, which were passed to an {@link ItemValueHandler}.
+ *
+ * @author Kevin Herron
+ */
+public class StreamingResponse {
+
+    private final List<OPCError> errors = new ArrayList<>();
+    private final List<String> invalidServerSubHandles = new ArrayList<>();
+
+    private ServerState serverState;
+    private String clientRequestHandle;
+    private long replyTime = StreamedItemValue.NO_TIMESTAMP;
+    private boolean dataBufferOverflow;
+    private int itemCount;
+
+    StreamingResponse() {}
+
+    public ServerState getServerState() {
+        return serverState;
+    }
+
+    public String getClientRequestHandle() {
+        return clientRequestHandle;
+    }
+
+    /**
+     * @return the ReplyTime in epoch milliseconds, or {@link StreamedItemValue#NO_TIMESTAMP}.
+     */
+    public long getReplyTime() {
+        return replyTime;
+    }
+
+    /**
+     * @return {@code true} if the server reported it discarded buffered values (SubscriptionPolledRefresh only).
+     */
+    public boolean isDataBufferOverflow() {
+        return dataBufferOverflow;
+    }
+
+    /**
+     * @return the number of item values passed to the {@link ItemValueHandler}.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public List<OPCError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the InvalidServerSubHandles reported (SubscriptionPolledRefresh only).
+     */
+    public List<String> getInvalidServerSubHandles() {
+        return invalidServerSubHandles;
+    }
+
+    void setServerState(ServerState serverState) {
+        this.serverState = serverState;
+    }
+
+    void setClientRequestHandle(String clientRequestHandle) {
+        this.clientRequestHandle = clientRequestHandle;
+    }
+
+    void setReplyTime(long replyTime) {
+        this.replyTime = replyTime;
+    }
+
+    void setDataBufferOverflow(boolean dataBufferOverflow) {
+        this.dataBufferOverflow = dataBufferOverflow;
+    }
+
+    void incrementItemCount() {
+        itemCount++;
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.ServerState;
+
+/**
+ * Decodes a ReadResponse, WriteResponse or SubscriptionPolledRefreshResponse with StAX, pushing each item value
+ * to an {@link ItemValueHandler} as soon as it has been read instead of building the JAXB object graph.
+ * <p>
+ * Memory use is independent of the number of items in the response, and when the reader is fed straight from the
+ * network the first value is handled before the last byte has arrived.
+ *
+ * @author Kevin Herron
+ */
+class StreamingResponseDecoder {
+
+    private static final String XSI_NS = XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
+
+    private final StreamedItemValue itemValue = new StreamedItemValue();
+
+    private final ItemValueHandler handler;
+
+    StreamingResponseDecoder(ItemValueHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Decode the response element {@code reader} is positioned on.
+     */
+    StreamingResponse decode(XMLStreamReader reader) throws XMLStreamException {
+        var response = new StreamingResponse();
+
+        String root = reader.getLocalName();
+        response.setDataBufferOverflow(Boolean.parseBoolean(reader.getAttributeValue(null, "DataBufferOverflow")));
+
+        String subscriptionHandle = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "ReadResult":
+                    case "WriteResult":
+                    case "SubscriptionPolledRefreshResult":
+                        readReplyBase(reader, response);
+                        break;
+
+                    case "InvalidServerSubHandles":
+                        response.getInvalidServerSubHandles().add(reader.getElementText());
+                        break;
+
+                    case "RItemList":
+                        subscriptionHandle = reader.getAttributeValue(null, "SubscriptionHandle");
+                        break;
+
+                    case "Items":
+                        readItem(reader, subscriptionHandle);
+                        response.incrementItemCount();
+                        handler.onItemValue(itemValue);
+                        break;
+
+                    case "Errors":
+                        response.getErrors().add(readError(reader));
+                        break;
+
+                    default:
+                        skipElement(reader);
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && root.equals(reader.getLocalName())) {
+                break;
+            }
+        }
+
+        return response;
+    }
+
+    private static void readReplyBase(XMLStreamReader reader, StreamingResponse response)
+        throws XMLStreamException {
+
+        String serverState = reader.getAttributeValue(null, "ServerState");
+        if (serverState != null) {
+            response.setServerState(ServerState.fromValue(serverState));
+        }
+
+        response.setClientRequestHandle(reader.getAttributeValue(null, "ClientRequestHandle"));
+
+        String replyTime = reader.getAttributeValue(null, "ReplyTime");
+        if (replyTime != null) {
+            response.setReplyTime(XmlTime.parseEpochMillis(replyTime));
+        }
+
+        skipElement(reader);
+    }
+
+    private void readItem(XMLStreamReader reader, String subscriptionHandle) throws XMLStreamException {
+        itemValue.reset(subscriptionHandle);
+        itemValue.setItemPath(reader.getAttributeValue(null, "ItemPath"));
+        itemValue.setItemName(reader.getAttributeValue(null, "ItemName"));
+        itemValue.setClientItemHandle(reader.getAttributeValue(null, "ClientItemHandle"));
+
+        String resultId = reader.getAttributeValue(null, "ResultID");
+        if (resultId != null) {
+            itemValue.setResultId(localPart(resultId));
+        }
+
+        String timestamp = reader.getAttributeValue(null, "Timestamp");
+        if (timestamp != null) {
+            itemValue.setTimestamp(XmlTime.parseEpochMillis(timestamp));
+        }
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "DiagnosticInfo":
+                    itemValue.setDiagnosticInfo(reader.getElementText());
+                    break;
+
+                case "Value":
+                    readValue(reader);
+                    break;
+
+                case "Quality":
+                    itemValue.setQuality(QualityCodes.encode(
+                        reader.getAttributeValue(null, "QualityField"),
+                        reader.getAttributeValue(null, "LimitField"),
+                        reader.getAttributeValue(null, "VendorField")
+                    ));
+                    skipElement(reader);
+                    break;
+
+                default:
+                    skipElement(reader);
+                    break;
+            }
+        }
+    }
+
+    private void readValue(XMLStreamReader reader) throws XMLStreamException {
+        if (Boolean.parseBoolean(reader.getAttributeValue(XSI_NS, "nil"))) {
+            skipElement(reader);
+            return;
+        }
+
+        String type = reader.getAttributeValue(XSI_NS, "type");
+        String localType = type != null ? localPart(type) : null;
+        itemValue.setValueType(localType);
+
+        if (localType != null && localType.startsWith("ArrayOf")) {
+            List<String> elements = new ArrayList<>();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                elements.add(reader.getElementText());
+            }
+            itemValue.setObjectValue(StreamedItemValue.ValueKind.ARRAY, elements.toArray(new String[0]));
+            return;
+        }
+
+        String text = reader.getElementText();
+
+        if (localType == null) {
+            itemValue.setObjectValue(StreamedItemValue.ValueKind.OTHER, text);
+            return;
+        }
+
+        switch (localType) {
+            case "boolean":
+                itemValue.setBooleanValue("true".equals(text.trim()) || "1".equals(text.trim()));
+                break;
+
+            case "byte":
+            case "short":
+            case "int":
+            case "long":
+            case "unsignedByte":
+            case "unsignedShort":
+            case "unsignedInt":
+                itemValue.setLongValue(Long.parseLong(text.trim()));
+                break;
+
+            case "unsignedLong":
+                itemValue.setLongValue(Long.parseUnsignedLong(text.trim()));
+                break;
+
+            case "float":
+            case "double":
+            case "decimal":
+                itemValue.setDoubleValue(parseDouble(text.trim()));
+                break;
+
+            case "dateTime":
+                itemValue.setDateTimeValue(XmlTime.parseEpochMillis(text));
+                break;
+
+            case "string":
+                itemValue.setObjectValue(StreamedItemValue.ValueKind.STRING, text);
+                break;
+
+            default:
+                itemValue.setObjectValue(StreamedItemValue.ValueKind.OTHER, text);
+                break;
+        }
+    }
+
+    private static OPCError readError(XMLStreamReader reader) throws XMLStreamException {
+        var error = new OPCError();
+
+        String id = reader.getAttributeValue(null, "ID");
+        if (id != null) {
+            int colon = id.indexOf(':');
+            if (colon > 0) {
+                String namespace = reader.getNamespaceContext().getNamespaceURI(id.substring(0, colon));
+                error.setID(new QName(namespace, id.substring(colon + 1)));
+            } else {
+                error.setID(new QName(id));
+            }
+        }
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("Text".equals(reader.getLocalName())) {
+                error.setText(reader.getElementText());
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        return error;
+    }
+
+    /**
+     * Skip past the end of the element {@code reader} is positioned on.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static double parseDouble(String text) {
+        switch (text) {
+            case "INF":     return Double.POSITIVE_INFINITY;
+            case "-INF":    return Double.NEGATIVE_INFINITY;
+            case "NaN":     return Double.NaN;
+            default:        return Double.parseDouble(text);
+        }
+    }
+
+    private static String localPart(String qualifiedName) {
+        int colon = qualifiedName.indexOf(':');
+
+        return colon >= 0 ? qualifiedName.substring(colon + 1) : qualifiedName;
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+/**
+ * Applies a {@link ChangeFilter} to the updates of one subscription.
+ * <p>
+ * Not thread-safe; a subscription filters on its delivery queue, which runs one task at a time.
+ *
+ * @author Kevin Herron
+ */
+class SubscriptionChangeFilter {
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder suppressedByDeadband = new LongAdder();
+
+    /**
+     * The last delivered update of each item, by {@link #key}.
+     */
+    private final Map<String, ItemState> items = new HashMap<>();
+
+    /**
+     * Deadbands set by the Subscribe request, by ClientItemHandle and by ItemName.
+     */
+    private final Map<String, Float> deadbands = new HashMap<>();
+
+    private final ChangeFilter filter;
+
+    SubscriptionChangeFilter(ChangeFilter filter, Subscribe subscribeRequest) {
+        this.filter = filter;
+
+        SubscribeRequestItemList itemList = subscribeRequest.getItemList();
+        if (itemList != null) {
+            for (SubscribeRequestItem item : itemList.getItems()) {
+                Float deadband = item.getDeadband() != null ? item.getDeadband() : itemList.getDeadband();
+                if (deadband != null) {
+                    if (item.getClientItemHandle() != null) {
+                        deadbands.put(item.getClientItemHandle(), deadband);
+                    }
+                    if (item.getItemName() != null) {
+                        deadbands.put(item.getItemName(), deadband);
+                    }
+                }
+            }
+        }
+    }
+
+    ChangeFilterStats getStats() {
+        return new ChangeFilterStats(received.sum(), suppressed.sum(), suppressedByDeadband.sum());
+    }
+
+    /**
+     * @return the item values in {@code itemValues} that should be delivered.
+     */
+    List<ItemValue> filter(List<ItemValue> itemValues) {
+        var delivered = new ArrayList<ItemValue>(itemValues.size());
+
+        for (ItemValue itemValue : itemValues) {
+            Object value = itemValue.getValue();
+            boolean numeric = value instanceof Number;
+
+            boolean deliver = evaluate(
+                itemValue.getClientItemHandle(),
+                itemValue.getItemPath(),
+                itemValue.getItemName(),
+                numeric,
+                numeric ? ((Number) value).doubleValue() : 0.0,
+                numeric ? null : value,
+                QualityCodes.encode(itemValue.getQuality()),
+                itemValue.getTimestamp() != null ?
+                    XmlTime.toEpochMillis(itemValue.getTimestamp()) : StreamedItemValue.NO_TIMESTAMP
+            );
+
+            if (deliver) {
+                delivered.add(itemValue);
+            }
+        }
+
+        return delivered;
+    }
+
+    /**
+     * Remove the item values that should not be delivered from {@code batch}.
+     */
+    void filter(ItemValueBatch batch) {
+        batch.retain(i -> {
+            StreamedItemValue.ValueKind kind = batch.getValueKind(i);
+            boolean numeric = kind == StreamedItemValue.ValueKind.LONG || kind == StreamedItemValue.ValueKind.DOUBLE;
+
+            Object value;
+            switch (kind) {
+                case LONG:
+                case DOUBLE:
+                    value = null;
+                    break;
+                case BOOLEAN:
+                    value = batch.getBooleanValue(i);
+                    break;
+                case DATE_TIME:
+                    value = batch.getLongValue(i);
+                    break;
+                default:
+                    value = batch.getObjectValue(i);
+                    break;
+            }
+
+            return evaluate(
+                batch.getClientItemHandle(i),
+                batch.getItemPath(i),
+                batch.getItemName(i),
+                numeric,
+                kind == StreamedItemValue.ValueKind.LONG ? batch.getLongValue(i) : batch.getDoubleValue(i),
+                value,
+                batch.getQuality(i),
+                batch.getTimestamp(i)
+            );
+        });
+    }
+
+    /**
+     * @return {@code true} if the update should be delivered, in which case it becomes the item's last delivered
+     * update.
+     */
+    private boolean evaluate(
+        String clientItemHandle,
+        String itemPath,
+        String itemName,
+        boolean numeric,
+        double number,
+        Object value,
+        int quality,
+        long timestamp) {
+
+        received.increment();
+
+        String key = key(clientItemHandle, itemPath, itemName);
+        ItemState state = items.get(key);
+
+        if (state == null) {
+            state = new ItemState(threshold(clientItemHandle, itemName));
+            items.put(key, state);
+            state.update(numeric, number, value, quality, timestamp);
+            return true;
+        }
+
+        ChangeFilter.Trigger trigger = filter.getTrigger();
+
+        boolean deliver;
+        if (trigger != ChangeFilter.Trigger.VALUE && quality != state.quality) {
+            deliver = true;
+        } else if (trigger == ChangeFilter.Trigger.VALUE_QUALITY_TIMESTAMP && timestamp != state.timestamp) {
+            deliver = true;
+        } else if (numeric && state.numeric) {
+            deliver = exceedsDeadband(state, number);
+        } else {
+            deliver = numeric != state.numeric || !Objects.deepEquals(value, state.value);
+        }
+
+        if (deliver) {
+            state.update(numeric, number, value, quality, timestamp);
+        } else {
+            suppressed.increment();
+        }
+
+        return deliver;
+    }
+
+    private boolean exceedsDeadband(ItemState state, double number) {
+        if (Double.isNaN(number) || Double.isNaN(state.number)) {
+            return Double.isNaN(number) != Double.isNaN(state.number);
+        }
+
+        double change = Math.abs(number - state.number);
+
+        if (change > state.threshold) {
+            return true;
+        }
+
+        if (change > 0.0) {
+            suppressedByDeadband.increment();
+        }
+        return false;
+    }
+
+    private double threshold(String clientItemHandle, String itemName) {
+        Float deadband = clientItemHandle != null ? deadbands.get(clientItemHandle) : null;
+        if (deadband == null && itemName != null) {
+            deadband = deadbands.get(itemName);
+        }
+
+        return filter.threshold(itemName, deadband != null ? deadband : filter.getDeadband());
+    }
+
+    private static String key(String clientItemHandle, String itemPath, String itemName) {
+        if (clientItemHandle != null) return clientItemHandle;
+
+        return itemPath == null || itemPath.isEmpty() ? itemName : itemPath + '\u0000' + itemName;
+    }
+
+    private static final class ItemState {
+
+        final double threshold;
+
+        boolean numeric;
+        double number;
+        Object value;
+        int quality;
+        long timestamp;
+
+        ItemState(double threshold) {
+            this.threshold = threshold;
+        }
+
+        void update(boolean numeric, double number, Object value, int quality, long timestamp) {
+            this.numeric = numeric;
+            this.number = number;
+            this.value = value;
+            this.quality = quality;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+
+import org.opcfoundation.xmlda.ItemValue;
+
+/**
+ * Receives updates for an {@link OpcXmlDaSubscription}.
+ * <p>
+ * Callbacks for a given subscription are delivered serially, in the order the server reported them.
+ *
+ * @author Kevin Herron
+ */
+public interface SubscriptionListener {
+
+    /**
+     * Called with the item values the server reported as changed since the previous refresh.
+     *
+     * @param subscription the subscription the values belong to.
+     * @param itemValues   the changed item values.
+     */
+    void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues);
+
+    /**
+     * Called instead of {@link #onItemValues} when the {@link OpcXmlDaSubscriptionManager} delivers batches.
+     * <p>
+     * The default implementation converts {@code batch} to {@link ItemValue}s and calls {@link #onItemValues};
+     * override it to read the batch's columns directly and avoid that allocation.
+     *
+     * @param subscription the subscription the values belong to.
+     * @param batch        the changed item values. The batch is reused once every listener has returned.
+     * @see OpcXmlDaSubscriptionManager.Builder#setBatchDelivery(boolean)
+     */
+    default void onItemValueBatch(OpcXmlDaSubscription subscription, ItemValueBatch batch) {
+        onItemValues(subscription, batch.toItemValues());
+    }
+
+    /**
+     * Called when a refresh for {@code subscription} failed.
+     *
+     * @param subscription the subscription whose refresh failed.
+     * @param error        the failure.
+     */
+    default void onError(OpcXmlDaSubscription subscription, Throwable error) {}
+
+    /**
+     * Called when {@code subscription} was re-created on the server, e.g. after a server restart, before the
+     * initial values of the new ServerSubHandle are delivered.
+     *
+     * @param subscription the subscription, now with its new ServerSubHandle.
+     * @see OpcXmlDaSubscriptionManager.Builder#setResubscribe(boolean)
+     */
+    default void onResubscribed(OpcXmlDaSubscription subscription) {}
+
+    /**
+     * Called when the server reported DataBufferOverflow on a refresh that included {@code subscription}, meaning
+     * it discarded some values, before that refresh's values are delivered.
+     * <p>
+     * The flag applies to the whole refresh, so every subscription refreshed with it is notified.
+     *
+     * @param subscription the subscription that may have lost values.
+     */
+    default void onDataBufferOverflow(OpcXmlDaSubscription subscription) {}
+
+    /**
+     * Called once when {@code subscription} stops being refreshed, because it was deleted or because the server
+     * reported its ServerSubHandle as invalid and it was not re-created. No further callbacks follow.
+     *
+     * @param subscription the subscription.
+     */
+    default void onDeactivated(OpcXmlDaSubscription subscription) {}
+
+}
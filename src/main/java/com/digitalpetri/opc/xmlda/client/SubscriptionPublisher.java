@@ -0,0 +1,406 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the updates of an {@link OpcXmlDaSubscription} to {@link Flow.Subscriber}s, honoring each
+ * subscriber's demand.
+ * <p>
+ * Every subscriber has its own buffer of {@code bufferSize} updates, filled as the subscription delivers values and
+ * drained as the subscriber requests them, so a slow subscriber holds up neither the refresh loop nor other
+ * subscribers. When an update arrives while the buffer is full the {@link OverflowStrategy} decides what is lost;
+ * {@link SubscriptionUpdate#getDiscardedCount()} tells the subscriber how much was. A DataBufferOverflow reported
+ * by the server is passed on with {@link SubscriptionUpdate#isDataBufferOverflow()}.
+ * <p>
+ * Subscribers are completed once the subscription is deleted and they have received every buffered update. If
+ * the server reported the subscription's ServerSubHandle as invalid and it was not re-created, they are sent
+ * {@code onError} instead, also after every buffered update. Failed refreshes are retried by the
+ * {@link OpcXmlDaSubscriptionManager} and are not signalled.
+ *
+ * @author Kevin Herron
+ */
+public class SubscriptionPublisher implements Flow.Publisher<SubscriptionUpdate> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriptionPublisher.class);
+
+    private final OpcXmlDaSubscription subscription;
+    private final int bufferSize;
+    private final OverflowStrategy overflowStrategy;
+    private final Executor executor;
+
+    private SubscriptionPublisher(
+        OpcXmlDaSubscription subscription,
+        int bufferSize,
+        OverflowStrategy overflowStrategy,
+        Executor executor) {
+
+        this.subscription = subscription;
+        this.bufferSize = bufferSize;
+        this.overflowStrategy = overflowStrategy;
+        this.executor = executor;
+    }
+
+    public OpcXmlDaSubscription getSubscription() {
+        return subscription;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SubscriptionUpdate> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+
+        new BufferedSubscription(subscriber).start();
+    }
+
+    public static Builder newBuilder(OpcXmlDaSubscription subscription) {
+        return new Builder(subscription);
+    }
+
+    /**
+     * Item values buffered for one subscriber, not yet published.
+     */
+    private final class Pending {
+
+        final List<ItemValue> itemValues;
+        boolean dataBufferOverflow;
+
+        /**
+         * Index into {@code itemValues} by item, built on the first merge.
+         */
+        private Map<ItemKey, Integer> indices;
+
+        Pending(List<ItemValue> itemValues, boolean dataBufferOverflow) {
+            this.itemValues = new ArrayList<>(itemValues);
+            this.dataBufferOverflow = dataBufferOverflow;
+        }
+
+        /**
+         * @return the number of buffered values replaced by a value in {@code newer}.
+         */
+        int merge(List<ItemValue> newer) {
+            if (indices == null) {
+                indices = new HashMap<>(itemValues.size() * 2);
+                for (int i = 0; i < itemValues.size(); i++) {
+                    indices.put(subscription.itemKey(itemValues.get(i)), i);
+                }
+            }
+
+            int replaced = 0;
+            for (ItemValue itemValue : newer) {
+                ItemKey key = subscription.itemKey(itemValue);
+                Integer index = indices.get(key);
+
+                if (index != null) {
+                    itemValues.set(index, itemValue);
+                    replaced++;
+                } else {
+                    indices.put(key, itemValues.size());
+                    itemValues.add(itemValue);
+                }
+            }
+            return replaced;
+        }
+
+    }
+
+    private final class BufferedSubscription implements Flow.Subscription, SubscriptionListener {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Pending> buffer = new ArrayDeque<>();
+
+        private long demand = 0L;
+        private boolean cancelled = false;
+        private boolean completed = false;
+        private boolean terminated = false;
+        private Throwable error;
+
+        /**
+         * Why the subscription was deactivated, signalled once the buffer is drained; {@code null} if deleted.
+         */
+        private Throwable deactivationCause;
+
+        /**
+         * Whether the server reported DataBufferOverflow for values not yet buffered, or for buffered values that
+         * were discarded.
+         */
+        private boolean dataBufferOverflow = false;
+
+        /**
+         * The number of values discarded since the last update was published.
+         */
+        private long discarded = 0L;
+
+        /**
+         * Serializes every signal to the subscriber.
+         */
+        private final ExecutionQueue signals = new ExecutionQueue(executor);
+
+        private final Flow.Subscriber<? super SubscriptionUpdate> subscriber;
+
+        BufferedSubscription(Flow.Subscriber<? super SubscriptionUpdate> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            signals.submit(() -> {
+                try {
+                    subscriber.onSubscribe(this);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable in onSubscribe; cancelling.", t);
+                    cancel();
+                }
+            });
+
+            subscription.addListenerOrNotify(this);
+        }
+
+        //region Flow.Subscription
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (cancelled) return;
+
+                if (n <= 0) {
+                    error = new IllegalArgumentException("non-positive request: " + n);
+                } else {
+                    demand += n;
+                    if (demand < 0) demand = Long.MAX_VALUE;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            signals.submit(this::drain);
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                buffer.clear();
+            } finally {
+                lock.unlock();
+            }
+
+            subscription.removeListener(this);
+        }
+
+        //endregion
+
+        //region SubscriptionListener
+
+        @Override
+        public void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues) {
+            lock.lock();
+            try {
+                if (cancelled || error != null) return;
+
+                if (buffer.size() < bufferSize) {
+                    buffer.add(new Pending(itemValues, takeDataBufferOverflow()));
+                } else {
+                    onOverflow(itemValues);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            signals.submit(this::drain);
+        }
+
+        @Override
+        public void onDataBufferOverflow(OpcXmlDaSubscription subscription) {
+            lock.lock();
+            try {
+                dataBufferOverflow = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void onDeactivated(OpcXmlDaSubscription subscription) {
+            lock.lock();
+            try {
+                completed = true;
+                deactivationCause = subscription.getDeactivationCause();
+            } finally {
+                lock.unlock();
+            }
+
+            signals.submit(this::drain);
+        }
+
+        //endregion
+
+        /**
+         * Apply the {@link OverflowStrategy} to {@code itemValues}, which don't fit in the buffer. Must be called
+         * holding {@code lock}.
+         */
+        private void onOverflow(List<ItemValue> itemValues) {
+            switch (overflowStrategy) {
+                case DROP_OLDEST: {
+                    Pending oldest = buffer.poll();
+                    discarded += oldest.itemValues.size();
+                    // the oldest update's overflow flag moves on to the update now first in line
+                    boolean oldestOverflow = oldest.dataBufferOverflow;
+                    buffer.add(new Pending(itemValues, takeDataBufferOverflow()));
+                    buffer.peek().dataBufferOverflow |= oldestOverflow;
+                    break;
+                }
+                case DROP_LATEST:
+                    discarded += itemValues.size();
+                    break;
+                case CONFLATE: {
+                    Pending newest = buffer.peekLast();
+                    discarded += newest.merge(itemValues);
+                    newest.dataBufferOverflow |= takeDataBufferOverflow();
+                    break;
+                }
+                case ERROR:
+                default:
+                    error = new IllegalStateException(
+                        "subscriber buffer of " + bufferSize + " updates overflowed for " + subscription);
+                    buffer.clear();
+                    break;
+            }
+        }
+
+        private boolean takeDataBufferOverflow() {
+            boolean overflow = dataBufferOverflow;
+            dataBufferOverflow = false;
+            return overflow;
+        }
+
+        /**
+         * Publish as many buffered updates as the subscriber has requested, then any terminal signal that is due.
+         * Only ever runs on {@code signals}.
+         */
+        private void drain() {
+            while (true) {
+                SubscriptionUpdate update;
+                Throwable failure = null;
+                boolean complete = false;
+
+                lock.lock();
+                try {
+                    if (cancelled || terminated) return;
+
+                    if (error != null) {
+                        terminated = true;
+                        failure = error;
+                        update = null;
+                    } else if (demand > 0 && !buffer.isEmpty()) {
+                        Pending pending = buffer.poll();
+                        if (demand != Long.MAX_VALUE) demand--;
+
+                        update = new SubscriptionUpdate(
+                            subscription,
+                            pending.itemValues,
+                            pending.dataBufferOverflow,
+                            discarded
+                        );
+                        discarded = 0L;
+                    } else if (buffer.isEmpty() && completed) {
+                        terminated = true;
+                        failure = deactivationCause;
+                        complete = failure == null;
+                        update = null;
+                    } else {
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                if (failure != null) {
+                    subscription.removeListener(this);
+                    subscriber.onError(failure);
+                    return;
+                }
+
+                if (complete) {
+                    subscriber.onComplete();
+                    return;
+                }
+
+                try {
+                    subscriber.onNext(update);
+                } catch (Throwable t) {
+                    LOG.warn("Uncaught Throwable in onNext; cancelling.", t);
+                    cancel();
+                    return;
+                }
+            }
+        }
+
+    }
+
+    public static class Builder {
+
+        private int bufferSize = Flow.defaultBufferSize();
+        private OverflowStrategy overflowStrategy = OverflowStrategy.CONFLATE;
+        private Executor executor;
+
+        private final OpcXmlDaSubscription subscription;
+
+        Builder(OpcXmlDaSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        /**
+         * Set how many updates each subscriber may have buffered. Defaults to {@link Flow#defaultBufferSize()}.
+         */
+        public Builder setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Set what happens to an update that arrives while a subscriber's buffer is full. Defaults to
+         * {@link OverflowStrategy#CONFLATE}.
+         */
+        public Builder setOverflowStrategy(OverflowStrategy overflowStrategy) {
+            this.overflowStrategy = overflowStrategy;
+            return this;
+        }
+
+        /**
+         * Set the {@link Executor} subscribers are signalled on. Each subscriber is signalled one at a time.
+         * Defaults to {@link ForkJoinPool#commonPool()}.
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public SubscriptionPublisher build() {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("bufferSize must be >= 1");
+            }
+
+            return new SubscriptionPublisher(
+                subscription,
+                bufferSize,
+                Objects.requireNonNull(overflowStrategy, "overflowStrategy"),
+                executor != null ? executor : ForkJoinPool.commonPool()
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+
+import org.opcfoundation.xmlda.ItemValue;
+
+/**
+ * Item values of one {@link OpcXmlDaSubscription} published by a {@link SubscriptionPublisher}.
+ *
+ * @author Kevin Herron
+ */
+public final class SubscriptionUpdate {
+
+    private final OpcXmlDaSubscription subscription;
+    private final List<ItemValue> itemValues;
+    private final boolean dataBufferOverflow;
+    private final long discardedCount;
+
+    SubscriptionUpdate(
+        OpcXmlDaSubscription subscription,
+        List<ItemValue> itemValues,
+        boolean dataBufferOverflow,
+        long discardedCount) {
+
+        this.subscription = subscription;
+        this.itemValues = itemValues;
+        this.dataBufferOverflow = dataBufferOverflow;
+        this.discardedCount = discardedCount;
+    }
+
+    public OpcXmlDaSubscription getSubscription() {
+        return subscription;
+    }
+
+    /**
+     * @return the changed item values, in the order the server reported them.
+     */
+    public List<ItemValue> getItemValues() {
+        return itemValues;
+    }
+
+    /**
+     * @return {@code true} if the server reported DataBufferOverflow since the previous update, i.e. it discarded
+     * values before they could be refreshed.
+     */
+    public boolean isDataBufferOverflow() {
+        return dataBufferOverflow;
+    }
+
+    /**
+     * @return the number of item values the subscriber's {@link OverflowStrategy} discarded, or replaced by a later
+     * value, since the previous update.
+     */
+    public long getDiscardedCount() {
+        return discardedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriptionUpdate{" +
+            "subscription=" + subscription +
+            ", itemValues=" + itemValues.size() +
+            ", dataBufferOverflow=" + dataBufferOverflow +
+            ", discardedCount=" + discardedCount +
+            '}';
+    }
+
+}
@@ -0,0 +1,413 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Captures the SOAP requests and responses of one or more {@link OpcXmlDaClient}s, with their timings, into
+ * compressed binary segment files, for offline analysis and for replay with {@link TrafficReplayer}.
+ * <p>
+ * Recording only hands the exchange to a queue; a background thread compresses and appends it to the current
+ * segment. If the thread falls behind and the queued exchanges reach {@code maxQueuedBytes}, further exchanges are
+ * dropped and counted rather than slowing down requests or exhausting the heap. Segments are rolled over once they
+ * reach {@code maxSegmentSize} and the oldest are deleted so at most {@code maxSegments} remain, bounding the
+ * capture's size on disk.
+ * <p>
+ * Each segment is a gzip stream flushed after every batch of records, so a capture can be read with
+ * {@link CapturedExchange#read(Path)} while it is being written, or after the process died.
+ *
+ * @author Kevin Herron
+ * @see OpcXmlDaClient.Builder#setTrafficRecorder(TrafficRecorder)
+ */
+public class TrafficRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x4F584443; // "OXDC"
+    static final int FORMAT_VERSION = 1;
+    static final int RECORD_MARKER = 1;
+
+    private static final String SEGMENT_PREFIX = "capture-";
+    private static final String SEGMENT_SUFFIX = ".oxc";
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    /**
+     * Queued to stop the writer thread.
+     */
+    private static final Record CLOSE = new Record(null, 0L, 0L, 0, null, null);
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong queuedBytes = new AtomicLong(0L);
+
+    private final long epochNanos = System.currentTimeMillis() * 1_000_000L;
+    private final long startNanos = System.nanoTime();
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final int maxSegments;
+    private final long maxQueuedBytes;
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    final Thread writer;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Set by the writer thread once it takes no more records; anything still queued is counted as dropped.
+     */
+    private volatile boolean stopped = false;
+
+    private long nextSegment;
+    private CountingOutputStream segmentOut;
+    private DataOutputStream out;
+
+    private TrafficRecorder(
+        Path directory, long maxSegmentSize, int maxSegments, long maxQueuedBytes) throws IOException {
+
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.maxSegments = maxSegments;
+        this.maxQueuedBytes = maxQueuedBytes;
+
+        Files.createDirectories(directory);
+
+        List<Path> existing = listSegments(directory);
+        nextSegment = existing.isEmpty() ? 0L : sequence(existing.get(existing.size() - 1)) + 1L;
+
+        openSegment();
+
+        writer = new Thread(this::write, "opc-xmlda-recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return the directory segments are written to.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of exchanges written so far.
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    /**
+     * @return the number of exchanges dropped because the writer fell behind or the recorder was closed.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write every queued exchange and close the current segment.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        try {
+            queue.put(CLOSE);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue an exchange to be written, or drop it if the queue is full or the recorder closed.
+     * <p>
+     * An exchange larger than {@code maxQueuedBytes} is always dropped.
+     *
+     * @param startNanos    {@link System#nanoTime()} when the request was sent.
+     * @param durationNanos nanoseconds until the response was received.
+     * @param statusCode    the HTTP status, or -1 if there was no response.
+     * @param response      the response envelope, or {@code null} if there was no response.
+     */
+    void record(
+        String operation,
+        long startNanos,
+        long durationNanos,
+        int statusCode,
+        byte[] request,
+        byte[] response) {
+
+        var record = new Record(
+            operation,
+            startNanos - this.startNanos,
+            durationNanos,
+            statusCode,
+            request,
+            response != null ? response : new byte[0]
+        );
+
+        long size = record.size();
+
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+
+        if (queuedBytes.addAndGet(size) > maxQueuedBytes) {
+            queuedBytes.addAndGet(-size);
+            dropped.increment();
+            return;
+        }
+
+        queue.add(record);
+
+        // the writer may have stopped between the check and the add; if so it didn't see this record
+        if (stopped && queue.remove(record)) {
+            queuedBytes.addAndGet(-size);
+            dropped.increment();
+        }
+    }
+
+    private void write() {
+        try {
+            writeRecords();
+        } finally {
+            stopped = true;
+
+            Record record;
+            while ((record = queue.poll()) != null) {
+                queuedBytes.addAndGet(-record.size());
+                if (record != CLOSE) dropped.increment();
+            }
+        }
+    }
+
+    private void writeRecords() {
+        var batch = new ArrayList<Record>();
+
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // nothing is written after this, so later exchanges are dropped rather than queued
+                closed = true;
+                batch.add(CLOSE);
+            }
+            queue.drainTo(batch);
+
+            boolean close = false;
+            try {
+                for (Record record : batch) {
+                    queuedBytes.addAndGet(-record.size());
+
+                    if (record == CLOSE) {
+                        close = true;
+                        break;
+                    }
+                    writeRecord(record);
+                    recorded.increment();
+
+                    if (segmentOut.count >= maxSegmentSize) {
+                        rollSegment();
+                    }
+                }
+
+                if (close) {
+                    out.close();
+                    return;
+                }
+
+                out.flush();
+            } catch (IOException e) {
+                LOG.warn("Failed to write traffic capture to {}; recording stopped.", directory, e);
+                closed = true;
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeRecord(Record record) throws IOException {
+        out.writeByte(RECORD_MARKER);
+        writeBytes(record.operation.getBytes(StandardCharsets.UTF_8));
+        out.writeLong(record.offsetNanos);
+        out.writeLong(record.durationNanos);
+        out.writeInt(record.statusCode);
+        writeBytes(record.request);
+        writeBytes(record.response);
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+
+        segmentOut = new CountingOutputStream(Files.newOutputStream(
+            segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(segmentOut, 8192, true), 8192));
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(epochNanos);
+        out.flush();
+
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        out.close();
+        openSegment();
+    }
+
+    /**
+     * @return the capture segments in {@code directory}, oldest first.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        var segments = new ArrayList<Path>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+
+        segments.sort(Comparator.comparingLong(TrafficRecorder::sequence));
+        return segments;
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    private static final class Record {
+        final String operation;
+        final long offsetNanos;
+        final long durationNanos;
+        final int statusCode;
+        final byte[] request;
+        final byte[] response;
+
+        Record(String operation, long offsetNanos, long durationNanos, int statusCode, byte[] request, byte[] response) {
+            this.operation = operation;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+            this.statusCode = statusCode;
+            this.request = request;
+            this.response = response;
+        }
+
+        long size() {
+            return request != null ? request.length + response.length : 0L;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        long count = 0L;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+    }
+
+    public static class Builder {
+
+        private long maxSegmentSize = 16L * 1024 * 1024;
+        private int maxSegments = 8;
+        private long maxQueuedBytes = 64L * 1024 * 1024;
+
+        private final Path directory;
+
+        Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Set the compressed size, in bytes, at which a segment is closed and a new one started. Defaults to 16MiB.
+         */
+        public Builder setMaxSegmentSize(long maxSegmentSize) {
+            this.maxSegmentSize = maxSegmentSize;
+            return this;
+        }
+
+        /**
+         * Set how many segments are kept; older ones are deleted. Defaults to 8.
+         */
+        public Builder setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        /**
+         * Set how many request and response bytes may wait to be written before further exchanges are dropped.
+         * Defaults to 64MiB.
+         */
+        public Builder setMaxQueuedBytes(long maxQueuedBytes) {
+            this.maxQueuedBytes = maxQueuedBytes;
+            return this;
+        }
+
+        /**
+         * Create the directory if needed and open a new segment in it. Segments already in the directory are kept,
+         * subject to {@link #setMaxSegments(int)}.
+         *
+         * @throws IOException if the directory or segment can't be created.
+         */
+        public TrafficRecorder build() throws IOException {
+            if (maxSegmentSize < 1) {
+                throw new IllegalArgumentException("maxSegmentSize must be >= 1");
+            }
+            if (maxSegments < 1) {
+                throw new IllegalArgumentException("maxSegments must be >= 1");
+            }
+            if (maxQueuedBytes < 1) {
+                throw new IllegalArgumentException("maxQueuedBytes must be >= 1");
+            }
+
+            return new TrafficRecorder(directory, maxSegmentSize, maxSegments, maxQueuedBytes);
+        }
+
+    }
+
+}
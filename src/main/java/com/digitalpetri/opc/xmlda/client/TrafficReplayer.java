@@ -0,0 +1,239 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-sends the requests of a captured session, at their captured pace or faster, and measures how long each took.
+ * <p>
+ * Requests are sent as captured, byte for byte, at the same offsets from the first request divided by
+ * {@code speed}, whether or not earlier requests have completed, so the concurrency of the session is reproduced
+ * too. Pointed at a {@link ReplayStub} serving the same capture, each request is answered with its captured
+ * response after its captured duration; pointed at a real server, the replay shows how that server handles the
+ * captured load.
+ *
+ * @author Kevin Herron
+ * @see TrafficRecorder
+ */
+public class TrafficReplayer {
+
+    private final List<CapturedExchange> exchanges;
+    private final double speed;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+
+    private TrafficReplayer(
+        List<CapturedExchange> exchanges,
+        double speed,
+        Duration requestTimeout,
+        HttpClient httpClient,
+        ScheduledExecutorService scheduler) {
+
+        this.exchanges = List.copyOf(exchanges);
+        this.speed = speed;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Replay the capture against {@code serverUrl}.
+     *
+     * @return the result of every exchange, in capture order, once the last has completed. Failed requests don't
+     * fail the replay; they are reported in their {@link Result}.
+     */
+    public CompletableFuture<List<Result>> replay(String serverUrl) {
+        URI serverUri = URI.create(serverUrl);
+
+        if (exchanges.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        long firstStartNanos = exchanges.get(0).getStartTimeNanos();
+
+        var futures = new ArrayList<CompletableFuture<Result>>(exchanges.size());
+
+        for (int i = 0; i < exchanges.size(); i++) {
+            CapturedExchange exchange = exchanges.get(i);
+            long delayNanos = (long) ((exchange.getStartTimeNanos() - firstStartNanos) / speed);
+
+            var future = new CompletableFuture<Result>();
+            futures.add(future);
+
+            int index = i;
+            scheduler.schedule(
+                () -> send(serverUri, index, exchange).whenComplete((r, ex) -> future.complete(r)),
+                delayNanos,
+                TimeUnit.NANOSECONDS
+            );
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            var results = new ArrayList<Result>(futures.size());
+            futures.forEach(f -> results.add(f.join()));
+            return results;
+        });
+    }
+
+    private CompletableFuture<Result> send(URI serverUri, int index, CapturedExchange exchange) {
+        HttpRequest request = HttpRequest.newBuilder(serverUri)
+            .timeout(requestTimeout)
+            .header("Content-Type", "text/xml; charset=utf-8")
+            .header("SOAPAction", "\"" + OpcXmlDaClient.SoapAction.ACTION_BASE + exchange.getOperation() + "\"")
+            .header(ReplayStub.CAPTURE_INDEX_HEADER, String.valueOf(index))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(exchange.getRequest()))
+            .build();
+
+        long sentNanos = System.nanoTime();
+
+        try {
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, ex) ->
+                new Result(
+                    exchange,
+                    System.nanoTime() - sentNanos,
+                    response != null ? response.statusCode() : -1,
+                    ex
+                )
+            );
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(new Result(exchange, System.nanoTime() - sentNanos, -1, e));
+        }
+    }
+
+    /**
+     * @param exchanges the captured exchanges to replay, in the order their requests were sent, e.g. from
+     *                  {@link CapturedExchange#read}.
+     */
+    public static Builder newBuilder(List<CapturedExchange> exchanges) {
+        return new Builder(exchanges);
+    }
+
+    /**
+     * The outcome of one replayed exchange.
+     */
+    public static final class Result {
+
+        private final CapturedExchange exchange;
+        private final long durationNanos;
+        private final int statusCode;
+        private final Throwable failure;
+
+        Result(CapturedExchange exchange, long durationNanos, int statusCode, Throwable failure) {
+            this.exchange = exchange;
+            this.durationNanos = durationNanos;
+            this.statusCode = statusCode;
+            this.failure = failure;
+        }
+
+        public CapturedExchange getExchange() {
+            return exchange;
+        }
+
+        /**
+         * @return how long the replayed request took, in nanoseconds, to compare with
+         * {@link CapturedExchange#getDurationNanos()}.
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * @return the HTTP status of the response, or -1 if the request failed.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return why the request failed, or {@code null} if a response was received.
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                "operation=" + exchange.getOperation() +
+                ", durationNanos=" + durationNanos +
+                ", capturedDurationNanos=" + exchange.getDurationNanos() +
+                ", statusCode=" + statusCode +
+                '}';
+        }
+
+    }
+
+    public static class Builder {
+
+        private double speed = 1.0;
+        private Duration requestTimeout = Duration.ofMillis(OpcXmlDaClient.Builder.DEFAULT_TIMEOUT);
+        private HttpClient httpClient;
+        private ScheduledExecutorService scheduler;
+
+        private final List<CapturedExchange> exchanges;
+
+        Builder(List<CapturedExchange> exchanges) {
+            this.exchanges = exchanges;
+        }
+
+        /**
+         * Set how much faster than captured to send requests, e.g. {@code 10.0} to send them ten times as close
+         * together. Defaults to {@code 1.0}.
+         */
+        public Builder setSpeed(double speed) {
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * Set how long to wait for each response. Defaults to 5 seconds.
+         */
+        public Builder setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Set the {@link HttpClient} to send requests with. If not set, a new one is created.
+         */
+        public Builder setHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Set the {@link ScheduledExecutorService} used to pace requests.
+         * <p>
+         * If not set, a daemon scheduler shared by all clients is used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public TrafficReplayer build() {
+            if (!(speed > 0.0)) {
+                throw new IllegalArgumentException("speed must be > 0");
+            }
+
+            return new TrafficReplayer(
+                exchanges,
+                speed,
+                requestTimeout,
+                httpClient != null ? httpClient : HttpClient.newHttpClient(),
+                scheduler != null ? scheduler : OpcXmlDaClient.sharedScheduler()
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, which this library can't reference directly while it targets Java 11.
+ * <p>
+ * On Java 21 and later {@link #newExecutor(String)} starts a virtual thread per task, so code that blocks on an
+ * {@link OpcXmlDaClient} operation costs a few hundred bytes of heap instead of a platform thread. On earlier
+ * releases {@link #isAvailable()} returns {@code false} and the factory methods throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Kevin Herron
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+    private static final MethodHandle IS_VIRTUAL;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        MethodHandle isVirtual = null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            name = lookup.findVirtual(virtualBuilderClass, "name",
+                MethodType.methodType(virtualBuilderClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {}
+
+    /**
+     * @return {@code true} if the running JVM supports virtual threads.
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return {@code true} if {@code thread} is a virtual thread.
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) return false;
+
+        try {
+            return (boolean) IS_VIRTUAL.invoke(thread);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /**
+     * Create a {@link ThreadFactory} for virtual threads named {@code namePrefix} followed by a counter.
+     *
+     * @throws UnsupportedOperationException if the running JVM doesn't support virtual threads.
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isAvailable()) {
+            throw new UnsupportedOperationException("virtual threads require Java 21 or later");
+        }
+
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (Throwable t) {
+            throw new UnsupportedOperationException("failed to create virtual thread factory", t);
+        }
+    }
+
+    /**
+     * Create an {@link ExecutorService} that starts a new virtual thread, named {@code namePrefix} followed by a
+     * counter, for each task.
+     *
+     * @throws UnsupportedOperationException if the running JVM doesn't support virtual threads.
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        ThreadFactory threadFactory = newThreadFactory(namePrefix);
+
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable t) {
+            throw new UnsupportedOperationException("failed to create virtual thread executor", t);
+        }
+    }
+
+}
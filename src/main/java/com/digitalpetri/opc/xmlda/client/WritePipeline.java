@@ -0,0 +1,390 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.xml.namespace.QName;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+import org.opcfoundation.xmlda.WriteResponse;
+
+/**
+ * Queues single-item writes to one server and sends them together.
+ * <p>
+ * Queued writes are sent as one {@link Write} when {@code maxDelay} has passed since the first of them was queued,
+ * or when {@code maxItems} are queued, whichever comes first. A write to an item that is already queued replaces
+ * the queued write, so only the last value is sent; the callers of both writes receive its result, the earlier
+ * one marked {@link WriteResult#isSuperseded() superseded}. With coalescing disabled the queued writes are sent
+ * first instead, so every value reaches the server in order.
+ * <p>
+ * Batches are sent one at a time, in the order they were cut, so a later value for an item never overtakes an
+ * earlier one.
+ *
+ * @author Kevin Herron
+ */
+public class WritePipeline {
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Map<ItemKey, PendingWrite> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> timeout;
+    private CompletableFuture<Void> lastSend = CompletableFuture.completedFuture(null);
+
+    private final OpcXmlDaClient client;
+    private final Duration maxDelay;
+    private final int maxItems;
+    private final boolean coalesce;
+    private final boolean returnValuesOnReply;
+    private final ScheduledExecutorService scheduler;
+
+    private WritePipeline(
+        OpcXmlDaClient client,
+        Duration maxDelay,
+        int maxItems,
+        boolean coalesce,
+        boolean returnValuesOnReply,
+        ScheduledExecutorService scheduler) {
+
+        this.client = client;
+        this.maxDelay = maxDelay;
+        this.maxItems = maxItems;
+        this.coalesce = coalesce;
+        this.returnValuesOnReply = returnValuesOnReply;
+        this.scheduler = scheduler;
+    }
+
+    public CompletableFuture<WriteResult> write(String itemName, Object value) {
+        return write(null, itemName, value);
+    }
+
+    public CompletableFuture<WriteResult> write(String itemPath, String itemName, Object value) {
+        var itemValue = new ItemValue();
+        itemValue.setItemPath(itemPath);
+        itemValue.setItemName(itemName);
+        itemValue.setValue(value);
+
+        return write(itemValue);
+    }
+
+    /**
+     * Queue a write of {@code itemValue}, which may also carry a Quality, Timestamp or ValueTypeQualifier.
+     *
+     * @return the result for this item, or a future failed with the exception that failed the whole request.
+     */
+    public CompletableFuture<WriteResult> write(ItemValue itemValue) {
+        var future = new CompletableFuture<WriteResult>();
+        ItemKey key = ItemKey.of(itemValue, null);
+
+        submitted.increment();
+
+        var sends = new ArrayList<Runnable>(1);
+
+        lock.lock();
+        try {
+            PendingWrite existing = pending.get(key);
+
+            if (existing != null && coalesce) {
+                coalesced.increment();
+
+                existing.superseded.addAll(existing.current);
+                existing.current.clear();
+                existing.current.add(future);
+                existing.itemValue = itemValue;
+
+                return future;
+            }
+
+            if (existing != null) {
+                // send the earlier value first so the server sees both, in order
+                sends.add(cut());
+            }
+
+            var write = new PendingWrite(itemValue);
+            write.current.add(future);
+            pending.put(key, write);
+
+            if (pending.size() >= maxItems) {
+                sends.add(cut());
+            } else if (timeout == null) {
+                timeout = scheduler.schedule(this::onTimeout, maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        sends.forEach(Runnable::run);
+
+        return future;
+    }
+
+    /**
+     * Send every queued write now.
+     *
+     * @return a future that completes once they, and every batch sent before them, have completed.
+     */
+    public CompletableFuture<Void> flush() {
+        Runnable send;
+        CompletableFuture<Void> sent;
+
+        lock.lock();
+        try {
+            send = cut();
+            sent = lastSend;
+        } finally {
+            lock.unlock();
+        }
+
+        send.run();
+
+        return sent;
+    }
+
+    /**
+     * @return the number of writes queued so far.
+     */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return the number of queued writes replaced by a later write to the same item.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of Write requests sent.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    private void onTimeout() {
+        Runnable send;
+
+        lock.lock();
+        try {
+            timeout = null;
+            send = cut();
+        } finally {
+            lock.unlock();
+        }
+
+        send.run();
+    }
+
+    /**
+     * Take the pending writes as a batch to be sent after the batch before it. Must be called holding
+     * {@code lock}.
+     *
+     * @return the action that sends the batch, to be run once {@code lock} is released.
+     */
+    private Runnable cut() {
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+
+        if (pending.isEmpty()) return () -> {};
+
+        List<PendingWrite> batch = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+
+        CompletableFuture<Void> previous = lastSend;
+        var sent = new CompletableFuture<Void>();
+        lastSend = sent;
+
+        return () -> previous.thenCompose(v -> send(batch)).thenRun(() -> sent.complete(null));
+    }
+
+    /**
+     * @return a future that completes, never exceptionally, once every caller in {@code batch} has its result.
+     */
+    private CompletableFuture<Void> send(List<PendingWrite> batch) {
+        var itemList = new WriteRequestItemList();
+
+        for (int i = 0; i < batch.size(); i++) {
+            ItemValue item = ItemValues.copy(batch.get(i).itemValue);
+            item.setClientItemHandle(String.valueOf(i));
+            itemList.getItems().add(item);
+        }
+
+        var write = new Write();
+        write.setItemList(itemList);
+        write.setReturnValuesOnReply(returnValuesOnReply);
+
+        requests.increment();
+
+        CompletableFuture<WriteResponse> response;
+        try {
+            response = client.writeAsync(write);
+        } catch (Throwable t) {
+            response = CompletableFuture.failedFuture(t);
+        }
+
+        return response.handle((r, ex) -> {
+            if (ex != null) {
+                batch.forEach(pendingWrite -> pendingWrite.fail(ex));
+            } else {
+                complete(batch, r);
+            }
+            return null;
+        });
+    }
+
+    private static void complete(List<PendingWrite> batch, WriteResponse response) {
+        List<ItemValue> items = response.getRItemList() != null ? response.getRItemList().getItems() : List.of();
+
+        Map<String, ItemValue> byHandle = ItemValues.indexByHandle(items, batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            ItemValue itemValue = byHandle.get(String.valueOf(i));
+
+            if (itemValue != null) {
+                itemValue.setClientItemHandle(write.itemValue.getClientItemHandle());
+            }
+
+            write.complete(itemValue, error(itemValue, response));
+        }
+    }
+
+    /**
+     * @return the error for {@code itemValue}, or {@code null} if it has no ResultID or a success ResultID such as
+     * {@code S_CLAMP}, which stays on the item value.
+     */
+    static OPCError error(ItemValue itemValue, WriteResponse response) {
+        if (itemValue == null) return null;
+
+        QName resultId = itemValue.getResultID();
+        if (resultId == null || !resultId.getLocalPart().startsWith("E_")) {
+            return null;
+        }
+
+        return response.getErrors().stream()
+            .filter(e -> resultId.equals(e.getID()))
+            .findFirst()
+            .orElseGet(() -> {
+                var e = new OPCError();
+                e.setID(resultId);
+                return e;
+            });
+    }
+
+    public static Builder newBuilder(OpcXmlDaClient client) {
+        return new Builder(client);
+    }
+
+    private static class PendingWrite {
+        final List<CompletableFuture<WriteResult>> current = new ArrayList<>(1);
+        final List<CompletableFuture<WriteResult>> superseded = new ArrayList<>(0);
+
+        ItemValue itemValue;
+
+        PendingWrite(ItemValue itemValue) {
+            this.itemValue = itemValue;
+        }
+
+        void complete(ItemValue itemValue, OPCError error) {
+            current.forEach(f -> f.complete(new WriteResult(itemValue, error, false)));
+            superseded.forEach(f -> f.complete(new WriteResult(itemValue, error, true)));
+        }
+
+        void fail(Throwable ex) {
+            current.forEach(f -> f.completeExceptionally(ex));
+            superseded.forEach(f -> f.completeExceptionally(ex));
+        }
+    }
+
+    public static class Builder {
+
+        private Duration maxDelay = Duration.ofMillis(50);
+        private int maxItems = 1000;
+        private boolean coalesce = true;
+        private boolean returnValuesOnReply = false;
+        private ScheduledExecutorService scheduler;
+
+        private final OpcXmlDaClient client;
+
+        Builder(OpcXmlDaClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Set how long a write may wait for others to be sent with. Defaults to 50ms.
+         */
+        public Builder setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Set the number of distinct queued items at which they are sent without waiting for
+         * {@link #setMaxDelay(Duration)}. Defaults to 1000.
+         */
+        public Builder setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+            return this;
+        }
+
+        /**
+         * Set whether a write replaces a queued write to the same item. Defaults to {@code true}; disable it when
+         * every value must reach the server, e.g. for counters or pulses.
+         */
+        public Builder setCoalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
+        /**
+         * Set whether the server should return the written items' values. Defaults to {@code false}.
+         */
+        public Builder setReturnValuesOnReply(boolean returnValuesOnReply) {
+            this.returnValuesOnReply = returnValuesOnReply;
+            return this;
+        }
+
+        /**
+         * Set the {@link ScheduledExecutorService} used to time {@link #setMaxDelay(Duration)}.
+         * <p>
+         * If not set, a daemon scheduler shared by all clients is used.
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public WritePipeline build() {
+            if (maxItems < 1) {
+                throw new IllegalArgumentException("maxItems must be >= 1");
+            }
+
+            return new WritePipeline(
+                client,
+                maxDelay,
+                maxItems,
+                coalesce,
+                returnValuesOnReply,
+                scheduler != null ? scheduler : OpcXmlDaClient.sharedScheduler()
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCError;
+
+/**
+ * The outcome of one item written through a {@link WritePipeline}.
+ *
+ * @author Kevin Herron
+ */
+public final class WriteResult {
+
+    private final ItemValue itemValue;
+    private final OPCError error;
+    private final boolean superseded;
+
+    WriteResult(ItemValue itemValue, OPCError error, boolean superseded) {
+        this.itemValue = itemValue;
+        this.error = error;
+        this.superseded = superseded;
+    }
+
+    /**
+     * @return the item as returned by the server, or {@code null} if the server didn't return it.
+     */
+    public ItemValue getItemValue() {
+        return itemValue;
+    }
+
+    /**
+     * @return the error the server reported for the item, or {@code null} if the write succeeded.
+     */
+    public OPCError getError() {
+        return error;
+    }
+
+    /**
+     * @return {@code true} if this write was replaced by a later write to the same item before it was sent, in
+     * which case the result is that of the later write.
+     */
+    public boolean isSuperseded() {
+        return superseded;
+    }
+
+    /**
+     * @return {@code true} if the write succeeded, possibly with a success ResultID such as {@code S_CLAMP}.
+     */
+    public boolean isGood() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "WriteResult{" +
+            "itemName=" + (itemValue != null ? itemValue.getItemName() : null) +
+            ", error=" + (error != null ? error.getID() : null) +
+            ", superseded=" + superseded +
+            '}';
+    }
+
+}
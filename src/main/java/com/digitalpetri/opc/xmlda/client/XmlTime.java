@@ -0,0 +1,133 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Conversions between epoch milliseconds and {@link XMLGregorianCalendar}.
+ *
+ * @author Kevin Herron
+ */
+final class XmlTime {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final DatatypeFactory DATATYPE_FACTORY;
+
+    static {
+        try {
+            DATATYPE_FACTORY = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private XmlTime() {}
+
+    static XMLGregorianCalendar fromEpochMillis(long epochMillis) {
+        var calendar = new GregorianCalendar(UTC);
+        calendar.setTimeInMillis(epochMillis);
+
+        return DATATYPE_FACTORY.newXMLGregorianCalendar(calendar);
+    }
+
+    static long toEpochMillis(XMLGregorianCalendar calendar) {
+        return calendar.toGregorianCalendar().getTimeInMillis();
+    }
+
+    /**
+     * Parse an {@code xsd:dateTime} lexical value, e.g. {@code 2021-08-01T12:34:56.789+02:00}, to epoch
+     * milliseconds without allocating. Fractional seconds beyond milliseconds are truncated and a value without a
+     * time zone is taken to be UTC.
+     *
+     * @throws IllegalArgumentException if {@code s} is not a valid {@code xsd:dateTime}.
+     */
+    static long parseEpochMillis(CharSequence s) {
+        int end = s.length();
+        while (end > 0 && Character.isWhitespace(s.charAt(end - 1))) end--;
+        int i = 0;
+        while (i < end && Character.isWhitespace(s.charAt(i))) i++;
+
+        try {
+            boolean negativeYear = s.charAt(i) == '-';
+            if (negativeYear) i++;
+
+            int yearStart = i;
+            while (s.charAt(i) != '-') i++;
+            long year = digits(s, yearStart, i);
+            if (negativeYear) year = -year;
+
+            int month = (int) digits(s, i + 1, i + 3);
+            int day = (int) digits(s, i + 4, i + 6);
+            expect(s, i + 6, 'T');
+            int hour = (int) digits(s, i + 7, i + 9);
+            int minute = (int) digits(s, i + 10, i + 12);
+            int second = (int) digits(s, i + 13, i + 15);
+            i += 15;
+
+            int millis = 0;
+            if (i < end && s.charAt(i) == '.') {
+                i++;
+                int scale = 100;
+                while (i < end && Character.isDigit(s.charAt(i))) {
+                    millis += (s.charAt(i) - '0') * scale;
+                    scale /= 10;
+                    i++;
+                }
+            }
+
+            long offsetMillis = 0L;
+            if (i < end) {
+                char c = s.charAt(i);
+                if (c == '+' || c == '-') {
+                    long offset = digits(s, i + 1, i + 3) * 3_600_000L + digits(s, i + 4, i + 6) * 60_000L;
+                    offsetMillis = c == '+' ? offset : -offset;
+                    i += 6;
+                } else if (c == 'Z') {
+                    i++;
+                }
+            }
+            if (i != end) {
+                throw new IllegalArgumentException("invalid dateTime: " + s);
+            }
+
+            long days = daysFromCivil(year, month, day);
+
+            return days * 86_400_000L + hour * 3_600_000L + minute * 60_000L + second * 1000L + millis - offsetMillis;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("invalid dateTime: " + s, e);
+        }
+    }
+
+    private static long digits(CharSequence s, int start, int end) {
+        if (start >= end) throw new IllegalArgumentException("invalid dateTime: " + s);
+
+        long value = 0L;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') throw new IllegalArgumentException("invalid dateTime: " + s);
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence s, int index, char c) {
+        if (s.charAt(index) != c) throw new IllegalArgumentException("invalid dateTime: " + s);
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (H. Hinnant's {@code days_from_civil}).
+     */
+    private static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+}
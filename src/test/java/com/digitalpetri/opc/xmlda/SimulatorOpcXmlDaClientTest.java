@@ -0,0 +1,46 @@
+package com.digitalpetri.opc.xmlda;
+
+import java.io.IOException;
+
+import com.digitalpetri.opc.xmlda.client.OpcXmlDaClient;
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/**
+ * Runs {@link AbstractOpcXmlDaClientTest} against an embedded {@link OpcXmlDaSimulator} populated with the items
+ * the tests expect from the Advosol demo server.
+ */
+public class SimulatorOpcXmlDaClientTest extends AbstractOpcXmlDaClientTest {
+
+    private static OpcXmlDaSimulator simulator;
+    private static OpcXmlDaClient client;
+
+    @BeforeClass
+    public static void startSimulator() throws IOException {
+        var addressSpace = new SimulatedAddressSpace()
+            .addItem("Static.Limited Access.Read Only 2", 50000.0, false)
+            .addItem("Static.Simple Types.String", "");
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @AfterClass
+    public static void stopSimulator() {
+        simulator.stop();
+    }
+
+    @Override
+    protected OpcXmlDaClient getClient() {
+        return client;
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.BrowseElement;
+import org.opcfoundation.xmlda.OPCError;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AddressSpaceCrawlerTest {
+
+    private static final int RANGE_SIZE = 2500;
+
+    // Static, Dynamic, Static.Double, Static.Simple Types, its two items, Dynamic.Range and the range's items
+    private static final int ELEMENT_COUNT = 7 + RANGE_SIZE;
+
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(
+                new SimulatedAddressSpace()
+                    .addItem("Static.Double", 1.0)
+                    .addItem("Static.Simple Types.String", "foo")
+                    .addItem("Static.Simple Types.Int", 42)
+                    .addRange("Dynamic.Range", RANGE_SIZE, Duration.ofSeconds(1))
+            )
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testCrawlFollowsContinuationPoints() throws Exception {
+        AddressSpaceCrawler crawler = AddressSpaceCrawler.newBuilder(client)
+            .setMaxConcurrentRequests(4)
+            .setMaxElementsReturned(100)
+            .build();
+
+        Set<String> itemNames = ConcurrentHashMap.newKeySet();
+
+        CrawlState state = crawler.crawl((parent, elements) -> {
+            for (BrowseElement element : elements) {
+                assertTrue(itemNames.add(element.getItemName()));
+            }
+        }).get(30, TimeUnit.SECONDS);
+
+        assertTrue(state.isComplete());
+        assertEquals(ELEMENT_COUNT, state.getElementCount());
+        assertEquals(ELEMENT_COUNT, itemNames.size());
+        assertTrue(itemNames.contains("Static.Simple Types.Int"));
+        assertTrue(itemNames.contains("Dynamic.Range.2499"));
+    }
+
+    @Test
+    public void testStopAndResume() throws Exception {
+        AddressSpaceCrawler crawler = AddressSpaceCrawler.newBuilder(client)
+            .setMaxConcurrentRequests(2)
+            .setMaxElementsReturned(100)
+            .build();
+
+        Set<String> itemNames = ConcurrentHashMap.newKeySet();
+
+        CrawlState stopped = crawler.crawl((parent, elements) -> {
+            elements.forEach(e -> itemNames.add(e.getItemName()));
+
+            if (itemNames.size() >= 500) crawler.stop();
+        }).get(30, TimeUnit.SECONDS);
+
+        assertFalse(stopped.isComplete());
+        assertTrue(itemNames.size() < ELEMENT_COUNT);
+
+        var bytes = new ByteArrayOutputStream();
+        stopped.writeTo(bytes);
+        CrawlState restored = CrawlState.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(stopped.getPending(), restored.getPending());
+        assertEquals(stopped.getElementCount(), restored.getElementCount());
+
+        CrawlState state = crawler.resume(
+            restored,
+            (parent, elements) -> elements.forEach(e -> itemNames.add(e.getItemName()))
+        ).get(30, TimeUnit.SECONDS);
+
+        assertTrue(state.isComplete());
+        assertEquals(ELEMENT_COUNT, state.getElementCount());
+        assertEquals(ELEMENT_COUNT, itemNames.size());
+    }
+
+    @Test
+    public void testResumeWithRejectedContinuationPoint() throws Exception {
+        AddressSpaceCrawler crawler = AddressSpaceCrawler.newBuilder(client)
+            .setMaxElementsReturned(100)
+            .build();
+
+        Set<String> itemNames = ConcurrentHashMap.newKeySet();
+        var branchErrors = new AtomicInteger(0);
+
+        var state = new CrawlState(List.of(new CrawlState.Position(null, "Dynamic.Range", "expired")), 0L);
+
+        CrawlState resumed = crawler.resume(state, new BrowseElementHandler() {
+            @Override
+            public void onElements(CrawlState.Position parent, List<BrowseElement> elements) {
+                elements.forEach(e -> itemNames.add(e.getItemName()));
+            }
+
+            @Override
+            public void onBranchErrors(CrawlState.Position parent, List<OPCError> errors) {
+                branchErrors.incrementAndGet();
+            }
+        }).get(30, TimeUnit.SECONDS);
+
+        assertTrue(resumed.isComplete());
+        assertEquals(0, branchErrors.get());
+        assertEquals(RANGE_SIZE, itemNames.size());
+        assertTrue(itemNames.contains("Dynamic.Range.0000"));
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AddressSpaceIndexTest {
+
+    // Static, Dynamic, Static.Double, Static.Simple Types, its two items, Dynamic.Range and the range's items
+    private static final int ELEMENT_COUNT = 7 + 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SimulatedAddressSpace addressSpace;
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        addressSpace = new SimulatedAddressSpace()
+            .addItem("Static.Double", 1.0, false)
+            .addItem("Static.Simple Types.String", "foo")
+            .addItem("Static.Simple Types.Int", 42)
+            .addRange("Dynamic.Range", 1000, Duration.ofSeconds(1));
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testRefreshIsPersistedAndReloaded() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("index.bin");
+
+        AddressSpaceIndexer indexer = AddressSpaceIndexer.newBuilder(client)
+            .setIndexFile(file)
+            .setMaxElementsReturned(100)
+            .build();
+
+        assertEquals(0, indexer.getIndex().size());
+
+        AddressSpaceIndex refreshed = indexer.refresh().get(30, TimeUnit.SECONDS);
+        assertEquals(ELEMENT_COUNT, refreshed.size());
+        assertTrue(Files.exists(file));
+
+        AddressSpaceIndex loaded = AddressSpaceIndexer.newBuilder(client)
+            .setIndexFile(file)
+            .build()
+            .getIndex();
+
+        assertEquals(ELEMENT_COUNT, loaded.size());
+        assertEquals(refreshed.getCreatedTime(), loaded.getCreatedTime());
+
+        AddressSpaceIndex.Entry item = loaded.get(null, "Static.Double");
+        assertNotNull(item);
+        assertTrue(item.isItem());
+        assertFalse(item.hasChildren());
+        assertEquals(new QName(XMLConstants.W3C_XML_SCHEMA_NS_URI, "double"), item.getDataType());
+        assertEquals("readable", item.getAccessRights());
+        assertEquals("readWritable", loaded.get(null, "Static.Simple Types.Int").getAccessRights());
+
+        AddressSpaceIndex.Entry branch = loaded.get(item.getParentIndex());
+        assertEquals("Static", branch.getItemName());
+        assertTrue(branch.hasChildren());
+        assertNull(branch.getDataType());
+        assertEquals(2, loaded.getChildren(branch).size());
+        assertEquals(2, loaded.getChildren(null).size());
+        assertEquals(1000, loaded.getChildren(loaded.get(null, "Dynamic.Range")).size());
+    }
+
+    @Test
+    public void testRefreshBranch() throws Exception {
+        AddressSpaceIndexer indexer = AddressSpaceIndexer.newBuilder(client)
+            .setMaxElementsReturned(100)
+            .build();
+
+        indexer.refresh().get(30, TimeUnit.SECONDS);
+
+        addressSpace.addItem("Static.Simple Types.Boolean", true);
+
+        AddressSpaceIndex index = indexer.refresh(null, "Static.Simple Types").get(30, TimeUnit.SECONDS);
+        assertEquals(ELEMENT_COUNT + 1, index.size());
+
+        AddressSpaceIndex.Entry branch = index.get(null, "Static.Simple Types");
+        List<AddressSpaceIndex.Entry> children = index.getChildren(branch);
+        assertEquals(3, children.size());
+        assertEquals("Static", index.get(branch.getParentIndex()).getItemName());
+        assertEquals(1000, index.getChildren(index.get(null, "Dynamic.Range")).size());
+
+        for (int i = 0; i < index.size(); i++) {
+            assertTrue(index.get(i).getParentIndex() < i);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCQuality;
+import org.opcfoundation.xmlda.QualityBits;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChangeFilterTest {
+
+    @Test
+    public void testAbsoluteDeadband() {
+        ChangeFilter filter = ChangeFilter.newBuilder()
+            .setDeadbandType(ChangeFilter.DeadbandType.ABSOLUTE)
+            .setDeadband(1.0)
+            .build();
+
+        var subscriptionFilter = new SubscriptionChangeFilter(filter, newSubscribe(null));
+
+        assertEquals(1, subscriptionFilter.filter(List.of(itemValue("A", 10.0, QualityBits.GOOD))).size());
+        assertEquals(0, subscriptionFilter.filter(List.of(itemValue("A", 10.5, QualityBits.GOOD))).size());
+        assertEquals(0, subscriptionFilter.filter(List.of(itemValue("A", 10.9, QualityBits.GOOD))).size());
+        // measured against the last delivered value, so a slow drift is still reported
+        assertEquals(1, subscriptionFilter.filter(List.of(itemValue("A", 11.5, QualityBits.GOOD))).size());
+        // a change in quality is delivered regardless of the deadband
+        assertEquals(1, subscriptionFilter.filter(List.of(itemValue("A", 11.5, QualityBits.BAD))).size());
+
+        ChangeFilterStats stats = subscriptionFilter.getStats();
+        assertEquals(5, stats.getReceived());
+        assertEquals(3, stats.getDelivered());
+        assertEquals(2, stats.getSuppressed());
+        assertEquals(2, stats.getSuppressedByDeadband());
+    }
+
+    @Test
+    public void testPercentDeadbandFromSubscribe() {
+        ChangeFilter filter = ChangeFilter.newBuilder()
+            .setEuRange("A", 0.0, 200.0)
+            .build();
+
+        var subscriptionFilter = new SubscriptionChangeFilter(filter, newSubscribe(5.0f));
+
+        List<ItemValue> first = List.of(
+            itemValue("A", 100, QualityBits.GOOD),
+            itemValue("B", 100, QualityBits.GOOD),
+            itemValue("C", "foo", QualityBits.GOOD)
+        );
+        assertEquals(3, subscriptionFilter.filter(first).size());
+
+        // 5% of A's range is 10; B has no range, so every change is delivered
+        List<ItemValue> second = List.of(
+            itemValue("A", 109, QualityBits.GOOD),
+            itemValue("B", 101, QualityBits.GOOD),
+            itemValue("C", "foo", QualityBits.GOOD)
+        );
+        List<ItemValue> delivered = subscriptionFilter.filter(second);
+        assertEquals(1, delivered.size());
+        assertEquals("B", delivered.get(0).getItemName());
+
+        assertEquals(1, subscriptionFilter.filter(List.of(itemValue("A", 111, QualityBits.GOOD))).size());
+        assertEquals(1, subscriptionFilter.filter(List.of(itemValue("C", "bar", QualityBits.GOOD))).size());
+    }
+
+    @Test
+    public void testTimestampTrigger() {
+        ChangeFilter filter = ChangeFilter.newBuilder()
+            .setTrigger(ChangeFilter.Trigger.VALUE_QUALITY_TIMESTAMP)
+            .build();
+
+        var subscriptionFilter = new SubscriptionChangeFilter(filter, newSubscribe(null));
+
+        ItemValue first = itemValue("A", 1, QualityBits.GOOD);
+        first.setTimestamp(XmlTime.fromEpochMillis(1000L));
+        ItemValue same = itemValue("A", 1, QualityBits.GOOD);
+        same.setTimestamp(XmlTime.fromEpochMillis(1000L));
+        ItemValue later = itemValue("A", 1, QualityBits.GOOD);
+        later.setTimestamp(XmlTime.fromEpochMillis(2000L));
+
+        assertEquals(1, subscriptionFilter.filter(List.of(first)).size());
+        assertEquals(0, subscriptionFilter.filter(List.of(same)).size());
+        assertEquals(1, subscriptionFilter.filter(List.of(later)).size());
+    }
+
+    @Test
+    public void testBatch() {
+        ChangeFilter filter = ChangeFilter.newBuilder()
+            .setDeadbandType(ChangeFilter.DeadbandType.ABSOLUTE)
+            .setDeadband(1.0)
+            .build();
+
+        var subscriptionFilter = new SubscriptionChangeFilter(filter, newSubscribe(null));
+
+        var batch = new ItemValueBatch();
+        batch.onItemValue(streamedValue("A", 10.0));
+        batch.onItemValue(streamedValue("B", 10.0));
+        subscriptionFilter.filter(batch);
+        assertEquals(2, batch.size());
+
+        batch.clear();
+        batch.onItemValue(streamedValue("A", 10.5));
+        batch.onItemValue(streamedValue("B", 12.0));
+        batch.onItemValue(streamedValue("C", 1.0));
+        subscriptionFilter.filter(batch);
+
+        assertEquals(2, batch.size());
+        assertEquals("B", batch.getItemName(0));
+        assertEquals(12.0, batch.getDoubleValue(0), 0.0);
+        assertEquals("C", batch.getItemName(1));
+    }
+
+    private static StreamedItemValue streamedValue(String itemName, double value) {
+        var itemValue = new StreamedItemValue();
+        itemValue.reset(null);
+        itemValue.setItemName(itemName);
+        itemValue.setDoubleValue(value);
+        return itemValue;
+    }
+
+    private static Subscribe newSubscribe(Float deadband) {
+        var itemList = new SubscribeRequestItemList();
+        itemList.setDeadband(deadband);
+        for (String itemName : new String[]{"A", "B", "C"}) {
+            var item = new SubscribeRequestItem();
+            item.setItemName(itemName);
+            itemList.getItems().add(item);
+        }
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        return subscribe;
+    }
+
+    private static ItemValue itemValue(String itemName, Object value, QualityBits qualityBits) {
+        var quality = new OPCQuality();
+        quality.setQualityField(qualityBits);
+
+        var itemValue = new ItemValue();
+        itemValue.setItemName(itemName);
+        itemValue.setValue(value);
+        itemValue.setQuality(quality);
+        return itemValue;
+    }
+
+}
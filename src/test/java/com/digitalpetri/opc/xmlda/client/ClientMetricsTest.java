@@ -0,0 +1,187 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClientMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(
+                new SimulatedAddressSpace()
+                    .addItem("Static.Double", 1.0)
+                    .addItem("Static.Int", 42)
+            )
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testSamples() {
+        var samples = new CopyOnWriteArrayList<OperationSample>();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMetrics((context, sample) -> samples.add(sample))
+            .build();
+
+        client.readAsync(newRead("Static.Double", "Static.Int", "Unknown")).join();
+
+        OperationSample async = samples.get(0);
+        assertEquals("Read", async.getOperation());
+        assertFalse(async.isBlocking());
+        assertEquals(3, async.getRequestItemCount());
+        assertEquals(3, async.getResponseItemCount());
+        assertEquals(1, async.getOpcErrorCount());
+        assertTrue(async.getRequestBytes() > 0);
+        assertTrue(async.getResponseBytes() > 0);
+        assertTrue(async.getMarshalNanos() >= 0);
+        assertTrue(async.getNetworkNanos() > 0);
+        assertTrue(async.getUnmarshalNanos() >= 0);
+        assertTrue(async.getTotalNanos() >=
+            async.getMarshalNanos() + async.getNetworkNanos() + async.getUnmarshalNanos());
+        assertNull(async.getFailure());
+
+        client.read(newRead("Static.Double"));
+
+        OperationSample blocking = samples.get(1);
+        assertTrue(blocking.isBlocking());
+        assertEquals(1, blocking.getResponseItemCount());
+        assertEquals(-1, blocking.getRequestBytes());
+        assertTrue(blocking.getNetworkNanos() > 0);
+        assertTrue(blocking.getUnmarshalNanos() >= 0);
+
+        simulator.setFaultRate(1.0);
+        try {
+            client.getStatus();
+            fail("expected fault");
+        } catch (SoapFaultClientException expected) {
+            // expected
+        }
+
+        OperationSample failed = samples.get(2);
+        assertEquals("GetStatus", failed.getOperation());
+        assertTrue(failed.getFailure() instanceof SoapFaultClientException);
+    }
+
+    @Test
+    public void testMicrometer() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMetrics(new MicrometerClientMetrics(registry))
+            .build();
+
+        client.readAsync(newRead("Static.Double", "Unknown")).join();
+        client.read(newRead("Static.Int"));
+
+        simulator.setFaultRate(1.0);
+        client.getStatusAsync().exceptionally(ex -> null).join();
+
+        assertEquals(2, registry.get("opcxmlda.client.requests")
+            .tags("operation", "Read", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("opcxmlda.client.requests")
+            .tags("operation", "GetStatus", "outcome", "fault").timer().count());
+        assertEquals(2, registry.get("opcxmlda.client.request.phase")
+            .tags("operation", "Read", "phase", "network").timer().count());
+        assertEquals(1, registry.get("opcxmlda.client.response.size")
+            .tags("operation", "Read").summary().count());
+        assertEquals(3.0, registry.get("opcxmlda.client.items")
+            .tags("operation", "Read", "direction", "response").summary().totalAmount(), 0.0);
+        assertEquals(1.0, registry.get("opcxmlda.client.opc.errors")
+            .tags("operation", "Read").counter().count(), 0.0);
+        assertEquals(0.0, registry.get("opcxmlda.client.requests.active")
+            .tags("operation", "Read").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testJfr() throws IOException {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMetrics(new JfrClientMetrics())
+            .build();
+
+        // not recorded: nothing has the event enabled yet
+        client.readAsync(newRead("Static.Double")).join();
+
+        Path file = folder.getRoot().toPath().resolve("recording.jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable("com.digitalpetri.opc.xmlda.Operation").withThreshold(Duration.ZERO);
+            recording.start();
+
+            client.readAsync(newRead("Static.Double", "Static.Int")).join();
+            client.getStatus();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(2, events.size());
+
+        RecordedEvent read = events.stream()
+            .filter(e -> "Read".equals(e.getString("operation")))
+            .findFirst()
+            .orElse(null);
+
+        assertNotNull(read);
+        assertEquals(2, read.getInt("requestItems"));
+        assertEquals(2, read.getInt("responseItems"));
+        assertTrue(read.getLong("responseSize") > 0);
+        assertFalse(read.getBoolean("blocking"));
+    }
+
+    private static Read newRead(String... itemNames) {
+        var itemList = new ReadRequestItemList();
+        for (String itemName : itemNames) {
+            var item = new ReadRequestItem();
+            item.setItemName(itemName);
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
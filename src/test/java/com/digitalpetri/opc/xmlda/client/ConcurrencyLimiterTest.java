@@ -0,0 +1,213 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.Test;
+import org.opcfoundation.xmlda.GetStatusResponse;
+import org.springframework.ws.client.WebServiceTransportException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testExcessRequestsAreQueued() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+            .setInitialLimit(2)
+            .setMinLimit(2)
+            .setMaxLimit(2)
+            .build();
+
+        var operations = new ArrayList<CompletableFuture<String>>();
+        var results = new ArrayList<CompletableFuture<String>>();
+
+        for (int i = 0; i < 5; i++) {
+            var operation = new CompletableFuture<String>();
+            operations.add(operation);
+            results.add(limiter.submit(() -> operation));
+        }
+
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(3, limiter.getQueueDepth());
+
+        operations.get(0).complete("0");
+
+        assertEquals("0", results.get(0).join());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(2, limiter.getQueueDepth());
+
+        for (int i = 1; i < 5; i++) {
+            operations.get(i).complete(String.valueOf(i));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(String.valueOf(i), results.get(i).join());
+        }
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    public void testCancellation() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+            .setInitialLimit(1)
+            .setMinLimit(1)
+            .setMaxLimit(1)
+            .build();
+
+        var first = new CompletableFuture<String>();
+        var queuedStarted = new AtomicBoolean(false);
+
+        CompletableFuture<String> running = limiter.submit(() -> first);
+        CompletableFuture<String> queued = limiter.submit(() -> {
+            queuedStarted.set(true);
+            return CompletableFuture.completedFuture("queued");
+        });
+
+        assertEquals(1, limiter.getQueueDepth());
+
+        // a cancelled request leaves the queue and is never started
+        queued.cancel(false);
+        assertEquals(0, limiter.getQueueDepth());
+
+        // cancelling a started request cancels its operation and frees the permit
+        running.cancel(false);
+        assertTrue(first.isCancelled());
+        assertEquals(0, limiter.getInFlight());
+        assertFalse(queuedStarted.get());
+
+        assertEquals("next", limiter.submit(() -> CompletableFuture.completedFuture("next")).join());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testRejectedWhenQueueFull() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+            .setInitialLimit(1)
+            .setMaxQueueSize(1)
+            .build();
+
+        limiter.submit(CompletableFuture::new);
+        limiter.submit(CompletableFuture::new);
+
+        CompletableFuture<Object> rejected = limiter.submit(CompletableFuture::new);
+
+        assertRejected(rejected);
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(1, limiter.getQueueDepth());
+    }
+
+    @Test
+    public void testRejectedAfterMaxQueueTime() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+            .setInitialLimit(1)
+            .setMaxQueueTime(Duration.ofMillis(50))
+            .build();
+
+        limiter.submit(CompletableFuture::new);
+        CompletableFuture<Object> queued = limiter.submit(CompletableFuture::new);
+
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            fail("expected rejection");
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof ConcurrencyLimitExceededException);
+        }
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    public void testLimitAdapts() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+            .setInitialLimit(10)
+            .setBackoffRatio(0.5)
+            .setLatencyTolerance(Double.MAX_VALUE)
+            .build();
+
+        limiter.submit(() -> CompletableFuture.failedFuture(new WebServiceTransportException("HTTP 503")));
+        assertEquals(5, limiter.getLimit());
+        assertEquals(1, limiter.getDecreaseCount());
+
+        // failures that aren't a sign of overload leave the limit alone
+        limiter.submit(() -> CompletableFuture.failedFuture(new SoapFaultException(null, "fault")));
+        assertEquals(5, limiter.getLimit());
+
+        // the limit only grows while at least half of it is in use
+        for (int i = 0; i < 20; i++) {
+            limiter.submit(() -> CompletableFuture.completedFuture(null));
+        }
+        assertEquals(5, limiter.getLimit());
+
+        for (int round = 0; round < 10; round++) {
+            var operations = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                var operation = new CompletableFuture<Void>();
+                operations.add(operation);
+                limiter.submit(() -> operation);
+            }
+            operations.forEach(operation -> operation.complete(null));
+        }
+        assertTrue(limiter.getLimit() > 5);
+    }
+
+    @Test
+    public void testClientRequestsAreLimited() throws IOException {
+        OpcXmlDaSimulator simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Double", 1.0))
+            .build()
+            .start();
+
+        try {
+            simulator.setLatency(Duration.ofMillis(20), Duration.ZERO);
+
+            ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+                .setInitialLimit(2)
+                .setMaxLimit(2)
+                .build();
+
+            OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+                .setServerUrl(simulator.getEndpointUrl())
+                .setConcurrencyLimiter(limiter)
+                .build();
+
+            List<CompletableFuture<GetStatusResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(client.getStatusAsync());
+            }
+
+            assertTrue(limiter.getInFlight() <= 2);
+            assertTrue(limiter.getQueueDepth() > 0);
+
+            futures.forEach(CompletableFuture::join);
+            client.getStatus();
+
+            assertEquals(0, limiter.getInFlight());
+            assertEquals(0, limiter.getQueueDepth());
+            assertFalse(limiter.getRejectedCount() > 0);
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) {
+        try {
+            future.join();
+            fail("expected rejection");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ConcurrencyLimitExceededException);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConnectionPoolTest {
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Double", 1.0))
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testConnectionsAreReused() {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMaxConnections(4)
+            .build();
+
+        for (int i = 0; i < 20; i++) {
+            client.read(read());
+        }
+
+        ConnectionPoolStats stats = client.getConnectionPoolStats();
+        assertEquals(1, stats.getConnectionsCreated());
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+        assertEquals(4, stats.getMax());
+    }
+
+    @Test
+    public void testCompression() {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestCompression(true)
+            .build();
+
+        assertEquals(1.0, client.read(read()).getRItemList().getItems().get(0).getValue());
+        assertEquals(1.0, client.readAsync(read()).join().getRItemList().getItems().get(0).getValue());
+
+        assertEquals(2, simulator.getCompressedRequestCount());
+        assertEquals(2, simulator.getCompressedResponseCount());
+    }
+
+    private static Read read() {
+        var item = new ReadRequestItem();
+        item.setItemName("Static.Double");
+
+        var itemList = new ReadRequestItemList();
+        itemList.getItems().add(item);
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.LimitBits;
+import org.opcfoundation.xmlda.OPCQuality;
+import org.opcfoundation.xmlda.QualityBits;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.RequestOptions;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FastPathRequestEncoderTest {
+
+    private static final String XSD_NS = "http://www.w3.org/2001/XMLSchema";
+
+    private final JAXBContext jaxbContext;
+    private final JaxbRequestEncoder jaxbEncoder;
+    private final FastPathRequestEncoder fastPathEncoder;
+
+    public FastPathRequestEncoderTest() throws Exception {
+        jaxbContext = JAXBContext.newInstance("org.opcfoundation.xmlda");
+        jaxbEncoder = new JaxbRequestEncoder(jaxbContext);
+        fastPathEncoder = new FastPathRequestEncoder(jaxbEncoder);
+    }
+
+    @Test
+    public void testReadMatchesJaxb() throws Exception {
+        var read = new Read();
+        read.setOptions(options());
+
+        var itemList = new ReadRequestItemList();
+        itemList.setMaxAge(500);
+        itemList.setReqType(new QName(XSD_NS, "double"));
+
+        var item1 = new ReadRequestItem();
+        item1.setItemName("Dynamic/Analog Types/Double");
+        item1.setClientItemHandle("0");
+        var item2 = new ReadRequestItem();
+        item2.setItemPath("path & <more>");
+        item2.setItemName("Temp \"°C\" 😀");
+        item2.setMaxAge(0);
+        itemList.getItems().addAll(List.of(item1, item2));
+        read.setItemList(itemList);
+
+        assertEquivalent(read);
+    }
+
+    @Test
+    public void testWriteMatchesJaxb() throws Exception {
+        var write = new Write();
+        write.setReturnValuesOnReply(true);
+        write.setOptions(options());
+
+        var itemList = new WriteRequestItemList();
+        itemList.setItemPath("");
+
+        Object[] values = {"a<b>&c", 1.5, Double.NaN, Float.NEGATIVE_INFINITY, 42, 42L, (short) 7, (byte) -1, true,
+            XmlTime.fromEpochMillis(1_627_819_200_000L)};
+
+        for (int i = 0; i < values.length; i++) {
+            var item = new ItemValue();
+            item.setItemName("Item" + i);
+            item.setClientItemHandle(String.valueOf(i));
+            item.setValue(values[i]);
+            itemList.getItems().add(item);
+        }
+
+        var quality = new OPCQuality();
+        quality.setQualityField(QualityBits.UNCERTAIN);
+        quality.setLimitField(LimitBits.HIGH);
+        quality.setVendorField((short) 3);
+        itemList.getItems().get(0).setQuality(quality);
+        itemList.getItems().get(0).setTimestamp(XmlTime.fromEpochMillis(1_627_819_200_250L));
+        itemList.getItems().get(0).setDiagnosticInfo("line1\nline2");
+
+        write.setItemList(itemList);
+
+        assertEquivalent(write);
+    }
+
+    @Test
+    public void testSubscriptionPolledRefreshMatchesJaxb() throws Exception {
+        var refresh = new SubscriptionPolledRefresh();
+        refresh.setOptions(options());
+        refresh.setHoldTime(XmlTime.fromEpochMillis(1_627_819_200_000L));
+        refresh.setWaitTime(10_000);
+        refresh.getServerSubHandles().addAll(List.of("s1", "s2"));
+
+        assertEquivalent(refresh);
+    }
+
+    @Test
+    public void testUnsupportedValueFallsBackToJaxb() throws Exception {
+        var write = new Write();
+        write.setOptions(options());
+
+        var item = new ItemValue();
+        item.setItemName("Array");
+        item.setValue(new org.opcfoundation.xmlda.ArrayOfInt());
+
+        var itemList = new WriteRequestItemList();
+        itemList.getItems().add(item);
+        write.setItemList(itemList);
+
+        assertArrayEquals(jaxbEncoder.encode(write), fastPathEncoder.encode(write));
+    }
+
+    private void assertEquivalent(Object request) throws Exception {
+        Object expected = decode(jaxbEncoder.encode(request));
+        Object actual = decode(fastPathEncoder.encode(request));
+
+        assertEquals(marshal(expected), marshal(actual));
+    }
+
+    private Object decode(byte[] envelope) throws Exception {
+        XMLStreamReader reader = XMLInputFactory.newFactory()
+            .createXMLStreamReader(new ByteArrayInputStream(envelope), StandardCharsets.UTF_8.name());
+        HttpSoapTransport.advanceToBodyContent(reader);
+
+        return jaxbContext.createUnmarshaller().unmarshal(reader);
+    }
+
+    private String marshal(Object request) throws Exception {
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+        var writer = new StringWriter();
+        marshaller.marshal(request, writer);
+        return writer.toString();
+    }
+
+    private static RequestOptions options() {
+        var options = new RequestOptions();
+        options.setLocaleID("en-US");
+        options.setClientRequestHandle("42");
+        options.setReturnErrorText(false);
+        options.setReturnItemTime(true);
+        options.setReturnItemName(true);
+        return options;
+    }
+
+}
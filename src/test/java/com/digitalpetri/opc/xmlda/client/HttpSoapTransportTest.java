@@ -0,0 +1,236 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.GetStatus;
+import org.opcfoundation.xmlda.GetStatusResponse;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.springframework.ws.client.WebServiceIOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpSoapTransportTest {
+
+    private static JAXBContext jaxbContext;
+
+    private SoapStubServer server;
+
+    @Before
+    public void setUp() throws IOException, JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(OpcXmlDaClient.Builder.CONTEXT_PATH);
+        }
+
+        server = new SoapStubServer().start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testInvoke() {
+        HttpSoapTransport transport = newTransport(Duration.ofSeconds(5), false);
+
+        GetStatusResponse response = transport.invoke(
+            OpcXmlDaClient.SoapAction.GET_STATUS, new GetStatus(), GetStatusResponse.class).join();
+
+        assertNotNull(response.getStatus());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, server.getCompressedResponseCount());
+    }
+
+    @Test
+    public void testSoapFault() {
+        HttpSoapTransport transport = newTransport(Duration.ofSeconds(5), false);
+        server.setFault(true);
+
+        try {
+            transport.invoke(OpcXmlDaClient.SoapAction.READ, read(), ReadResponse.class).join();
+            fail("expected fault");
+        } catch (CompletionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof SoapFaultException);
+
+            var fault = (SoapFaultException) e.getCause();
+            assertEquals(new QName(HttpSoapTransport.SOAP_ENV_NS, "Server"), fault.getFaultCode());
+            assertEquals("injected fault", fault.getFaultString());
+        }
+    }
+
+    @Test
+    public void testTimeout() {
+        HttpSoapTransport transport = newTransport(Duration.ofMillis(100), false);
+        server.setLatency(Duration.ofMillis(1000));
+
+        try {
+            transport.invoke(OpcXmlDaClient.SoapAction.READ, read(), ReadResponse.class).join();
+            fail("expected timeout");
+        } catch (CompletionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof WebServiceIOException);
+            assertTrue(e.getCause().getCause() instanceof HttpTimeoutException);
+        }
+    }
+
+    @Test
+    public void testCancelCancelsExchange() {
+        var httpClient = new CapturingHttpClient(HttpClient.newHttpClient());
+        var transport = new HttpSoapTransport(
+            httpClient, URI.create(server.getEndpointUrl()), Duration.ofSeconds(5), jaxbContext);
+        server.setLatency(Duration.ofMillis(1000));
+
+        CompletableFuture<ReadResponse> future =
+            transport.invoke(OpcXmlDaClient.SoapAction.READ, read(), ReadResponse.class);
+        future.cancel(false);
+
+        assertTrue(httpClient.exchange.isCancelled());
+    }
+
+    @Test
+    public void testGzipResponse() {
+        HttpSoapTransport transport = newTransport(Duration.ofSeconds(5), true);
+
+        ReadResponse response = transport.invoke(
+            OpcXmlDaClient.SoapAction.READ, read(), ReadResponse.class).join();
+
+        assertEquals(1, response.getRItemList().getItems().size());
+        assertEquals(42, response.getRItemList().getItems().get(0).getValue());
+        assertEquals(1, server.getCompressedResponseCount());
+    }
+
+    private HttpSoapTransport newTransport(Duration requestTimeout, boolean responseCompression) {
+        return new HttpSoapTransport(
+            HttpClient.newHttpClient(),
+            URI.create(server.getEndpointUrl()),
+            requestTimeout,
+            jaxbContext,
+            RequestEncoding.JAXB,
+            false,
+            responseCompression
+        );
+    }
+
+    private static Read read() {
+        var item = new ReadRequestItem();
+        item.setItemName("Static.Int");
+
+        var read = new Read();
+        read.setItemList(new ReadRequestItemList());
+        read.getItemList().getItems().add(item);
+        return read;
+    }
+
+    /**
+     * Delegates to another {@link HttpClient}, keeping the future of the last asynchronous exchange.
+     */
+    private static class CapturingHttpClient extends HttpClient {
+
+        volatile CompletableFuture<?> exchange;
+
+        private final HttpClient delegate;
+
+        CapturingHttpClient(HttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<CookieHandler> cookieHandler() {
+            return delegate.cookieHandler();
+        }
+
+        @Override
+        public Optional<Duration> connectTimeout() {
+            return delegate.connectTimeout();
+        }
+
+        @Override
+        public Redirect followRedirects() {
+            return delegate.followRedirects();
+        }
+
+        @Override
+        public Optional<ProxySelector> proxy() {
+            return delegate.proxy();
+        }
+
+        @Override
+        public SSLContext sslContext() {
+            return delegate.sslContext();
+        }
+
+        @Override
+        public SSLParameters sslParameters() {
+            return delegate.sslParameters();
+        }
+
+        @Override
+        public Optional<Authenticator> authenticator() {
+            return delegate.authenticator();
+        }
+
+        @Override
+        public Version version() {
+            return delegate.version();
+        }
+
+        @Override
+        public Optional<Executor> executor() {
+            return delegate.executor();
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+
+            return delegate.send(request, handler);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+            HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+
+            CompletableFuture<HttpResponse<T>> future = delegate.sendAsync(request, handler);
+            exchange = future;
+            return future;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+            HttpRequest request, HttpResponse.BodyHandler<T> handler,
+            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+
+            CompletableFuture<HttpResponse<T>> future = delegate.sendAsync(request, handler, pushPromiseHandler);
+            exchange = future;
+            return future;
+        }
+
+    }
+
+}
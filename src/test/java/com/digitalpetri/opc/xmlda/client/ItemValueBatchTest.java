@@ -0,0 +1,184 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.QualityBits;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ItemValueBatchTest {
+
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(
+                new SimulatedAddressSpace()
+                    .addItem("Static.Double", 1.5)
+                    .addItem("Static.Int", 42)
+                    .addItem("Static.Boolean", true)
+                    .addItem("Static.String", "foo")
+                    .addRange("Dynamic.Range", 100, Duration.ofMillis(50))
+            )
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testFilledFromStreamingRead() {
+        Read read = newRead("Static.Double", "Static.Int", "Static.Boolean", "Static.String", "Unknown");
+
+        var batch = new ItemValueBatch(2);
+        client.readStreaming(read, batch).join();
+
+        assertEquals(5, batch.size());
+        assertEquals(StreamedItemValue.ValueKind.DOUBLE, batch.getValueKind(0));
+        assertEquals(1.5, batch.getDoubleValue(0), 0.0);
+        assertEquals(42L, batch.getLongValue(1));
+        assertTrue(batch.getBooleanValue(2));
+        assertEquals("foo", batch.getObjectValue(3));
+        assertTrue(QualityCodes.isGood(batch.getQuality(0)));
+        assertTrue(batch.getTimestamp(0) != StreamedItemValue.NO_TIMESTAMP);
+        assertEquals("E_UNKNOWNITEMNAME", batch.getResultId(4));
+
+        // converted values match what the JAXB path unmarshals
+        List<ItemValue> expected = client.read(newRead("Static.Double", "Static.Int", "Static.Boolean"))
+            .getRItemList()
+            .getItems();
+        for (int i = 0; i < expected.size(); i++) {
+            ItemValue itemValue = batch.toItemValue(i);
+            assertEquals(expected.get(i).getItemName(), itemValue.getItemName());
+            assertEquals(expected.get(i).getValue(), itemValue.getValue());
+            assertEquals(QualityBits.GOOD, itemValue.getQuality().getQualityField());
+        }
+        assertNotNull(batch.toItemValue(4).getResultID());
+
+        String itemName = batch.getItemName(0);
+
+        batch.clear();
+        assertEquals(0, batch.size());
+
+        client.readStreaming(newRead("Static.Double"), batch).join();
+        assertEquals(1, batch.size());
+        assertSame(itemName, batch.getItemName(0));
+        assertNull(batch.getResultId(0));
+    }
+
+    @Test
+    public void testCachedFromBatch() {
+        var cache = new ItemValueCache(10, Duration.ofMinutes(1));
+        Read read = newRead("Static.Double", "Static.Int", "Unknown");
+
+        var batch = new ItemValueBatch();
+        client.readStreaming(read, batch).join();
+
+        for (int i = 0; i < batch.size(); i++) {
+            cache.put(new ItemKey(null, batch.getItemName(i), null), batch, i, cache.generation());
+        }
+
+        // the cached rows outlive the batch being refilled
+        batch.clear();
+        client.readStreaming(newRead("Static.String"), batch).join();
+
+        assertEquals(2, cache.size());
+        assertEquals(1.5, cache.get(new ItemKey(null, "Static.Double", null), 60_000).getValue());
+        assertEquals(42, cache.get(new ItemKey(null, "Static.Int", null), 60_000).getValue());
+        assertNull(cache.get(new ItemKey(null, "Unknown", null), 60_000));
+    }
+
+    @Test
+    public void testSubscriptionBatchDelivery() throws Exception {
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setWaitTime(Duration.ofMillis(500))
+            .setBatchDelivery(true)
+            .build();
+
+        var itemList = new SubscribeRequestItemList();
+        for (int i = 0; i < 100; i++) {
+            var item = new SubscribeRequestItem();
+            item.setItemName(String.format("Dynamic.Range.%02d", i));
+            itemList.getItems().add(item);
+        }
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        subscribe.setSubscriptionPingRate(10_000);
+
+        Set<ItemValueBatch> batches = ConcurrentHashMap.newKeySet();
+        var values = new AtomicInteger(0);
+        var convertedValues = new AtomicInteger(0);
+        var deliveries = new CountDownLatch(10);
+
+        OpcXmlDaSubscription subscription = manager.createSubscription(subscribe, new SubscriptionListener() {
+            @Override
+            public void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues) {
+                throw new AssertionError("expected batch delivery");
+            }
+
+            @Override
+            public void onItemValueBatch(OpcXmlDaSubscription subscription, ItemValueBatch batch) {
+                batches.add(batch);
+                values.addAndGet(batch.size());
+                deliveries.countDown();
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        // listeners that don't override onItemValueBatch receive converted ItemValues
+        subscription.addListener((s, itemValues) -> convertedValues.addAndGet(itemValues.size()));
+
+        assertTrue(deliveries.await(10, TimeUnit.SECONDS));
+        manager.deleteAll().get(5, TimeUnit.SECONDS);
+
+        assertTrue(values.get() > 0);
+        assertTrue(convertedValues.get() > 0);
+        // batches are returned to the pool after delivery and reused
+        assertTrue("batches=" + batches.size(), batches.size() <= 3);
+    }
+
+    private static Read newRead(String... itemNames) {
+        var itemList = new ReadRequestItemList();
+        for (String itemName : itemNames) {
+            var item = new ReadRequestItem();
+            item.setItemName(itemName);
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ItemValueCacheTest {
+
+    private final List<Read> sent = new ArrayList<>();
+
+    @Test
+    public void testMaxAge() {
+        var cache = new ItemValueCache(10, Duration.ofMinutes(1));
+        var key = new ItemKey(null, "A", null);
+
+        cache.put(key, itemValue("A", 42, System.currentTimeMillis() - 500));
+
+        assertNull(cache.get(key, null));
+        assertNull(cache.get(key, 0));
+        assertNull(cache.get(key, 100));
+        assertNotNull(cache.get(new ItemKey("", "A", null), 1000));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        var cache = new ItemValueCache(2, Duration.ofMinutes(1));
+        long now = System.currentTimeMillis();
+
+        cache.put(new ItemKey(null, "A", null), itemValue("A", 1, now));
+        cache.put(new ItemKey(null, "B", null), itemValue("B", 2, now));
+        cache.get(new ItemKey(null, "A", null), 1000);
+        cache.put(new ItemKey(null, "C", null), itemValue("C", 3, now));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(new ItemKey(null, "B", null), 1000));
+        assertNotNull(cache.get(new ItemKey(null, "A", null), 1000));
+    }
+
+    @Test
+    public void testOnlyMissesAreSent() {
+        var cache = new ItemValueCache(10, Duration.ofMinutes(1));
+        cache.put(new ItemKey(null, "A", null), itemValue("A", "cached", System.currentTimeMillis()));
+
+        var reader = new CachingReader(cache, this::reply);
+
+        ReadResponse response = reader.read(read(1000, "A", "B")).join();
+
+        assertEquals(1, sent.size());
+        assertEquals(1, sent.get(0).getItemList().getItems().size());
+        assertEquals("B", sent.get(0).getItemList().getItems().get(0).getItemName());
+
+        List<ItemValue> items = response.getRItemList().getItems();
+        assertEquals("cached", items.get(0).getValue());
+        assertEquals("h0", items.get(0).getClientItemHandle());
+        assertEquals("B", items.get(1).getValue());
+        assertEquals("h1", items.get(1).getClientItemHandle());
+
+        // B is now cached too
+        reader.read(read(1000, "A", "B")).join();
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void testStaleReadNotCachedAfterInvalidation() {
+        var cache = new ItemValueCache(10, Duration.ofMinutes(1));
+        var pending = new CompletableFuture<ReadResponse>();
+
+        var reader = new CachingReader(cache, read -> {
+            sent.add(read);
+            return pending;
+        });
+        CompletableFuture<ReadResponse> stale = reader.read(read(1000, "A", "B"));
+
+        // a write to A completes while the read is in flight
+        cache.invalidate(null, "A");
+        pending.complete(reply(sent.get(0)).join());
+
+        assertEquals(2, stale.join().getRItemList().getItems().size());
+        assertNull(cache.get(new ItemKey(null, "A", null), 1000));
+        assertNotNull(cache.get(new ItemKey(null, "B", null), 1000));
+
+        // a read sent after the invalidation is cached
+        new CachingReader(cache, this::reply).read(read(1000, "A")).join();
+        assertNotNull(cache.get(new ItemKey(null, "A", null), 1000));
+    }
+
+    @Test
+    public void testForgottenInvalidationRejectsOlderReads() {
+        var cache = new ItemValueCache(1, Duration.ofMinutes(1));
+        long generation = cache.generation();
+
+        cache.invalidate(null, "A");
+        cache.invalidate(null, "B");
+
+        // A's invalidation is no longer tracked, so any read from before it is rejected
+        cache.put(new ItemKey(null, "A", null), itemValue("A", 1, System.currentTimeMillis()), generation);
+        cache.put(new ItemKey(null, "C", null), itemValue("C", 3, System.currentTimeMillis()), generation);
+        assertEquals(0, cache.size());
+
+        cache.put(new ItemKey(null, "A", null), itemValue("A", 1, System.currentTimeMillis()), cache.generation());
+        assertEquals(1, cache.size());
+    }
+
+    private CompletableFuture<ReadResponse> reply(Read read) {
+        sent.add(read);
+
+        var itemList = new ReplyItemList();
+        for (ReadRequestItem item : read.getItemList().getItems()) {
+            ItemValue itemValue = itemValue(item.getItemName(), item.getItemName(), System.currentTimeMillis());
+            itemValue.setClientItemHandle(item.getClientItemHandle());
+            itemList.getItems().add(itemValue);
+        }
+
+        var response = new ReadResponse();
+        response.setRItemList(itemList);
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static Read read(int maxAge, String... itemNames) {
+        var itemList = new ReadRequestItemList();
+        itemList.setMaxAge(maxAge);
+
+        for (int i = 0; i < itemNames.length; i++) {
+            var item = new ReadRequestItem();
+            item.setItemName(itemNames[i]);
+            item.setClientItemHandle("h" + i);
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+    private static ItemValue itemValue(String itemName, Object value, long timestamp) {
+        var itemValue = new ItemValue();
+        itemValue.setItemName(itemName);
+        itemValue.setValue(value);
+        itemValue.setTimestamp(XmlTime.fromEpochMillis(timestamp));
+        return itemValue;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class OpcXmlDaClientFaultTest {
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Int", 1))
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testBlockingReadFaultMatchesUnbatchedRead() {
+        simulator.setFaultRate(1.0);
+
+        // reads sent through the non-blocking transport fail the same way a plain blocking read does
+        List<OpcXmlDaClient> clients = List.of(
+            newClient().build(),
+            newClient().setReadBatchWindow(Duration.ofMillis(10)).build(),
+            newClient().setItemValueCache(new ItemValueCache(10, Duration.ofMinutes(1))).build(),
+            newClient().setRequestHedger(RequestHedger.newBuilder().build()).build()
+        );
+
+        for (OpcXmlDaClient client : clients) {
+            try {
+                client.read(read("Static.Int"));
+                fail("expected fault");
+            } catch (SoapFaultClientException e) {
+                assertEquals("Server", e.getFaultCode().getLocalPart());
+                assertEquals("injected fault", e.getFaultStringOrReason());
+            }
+        }
+    }
+
+    private OpcXmlDaClient.Builder newClient() {
+        return OpcXmlDaClient.newBuilder().setServerUrl(simulator.getEndpointUrl());
+    }
+
+    private static Read read(String itemName) {
+        var item = new ReadRequestItem();
+        item.setItemName(itemName);
+
+        var read = new Read();
+        read.setItemList(new ReadRequestItemList());
+        read.getItemList().getItems().add(item);
+        return read;
+    }
+
+}
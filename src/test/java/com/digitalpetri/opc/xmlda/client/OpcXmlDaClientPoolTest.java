@@ -0,0 +1,128 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class OpcXmlDaClientPoolTest {
+
+    private OpcXmlDaSimulator simulator1;
+    private OpcXmlDaSimulator simulator2;
+    private OpcXmlDaClientPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator1 = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Double", 1.0))
+            .build()
+            .start();
+
+        simulator2 = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Double", 2.0))
+            .build()
+            .start();
+
+        pool = OpcXmlDaClientPool.newBuilder()
+            .setMaxConnections(10)
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        simulator1.stop();
+        simulator2.stop();
+    }
+
+    @Test
+    public void testClientsShareResources() {
+        ClientMetrics metrics = (context, sample) -> {};
+
+        OpcXmlDaClient client1 = pool.addServer("s1", simulator1.getEndpointUrl());
+        OpcXmlDaClient client2 = pool.addServer("s2", simulator2.getEndpointUrl(), builder -> builder
+            .setMaxConnectionsPerRoute(2)
+            .setMetrics(metrics));
+
+        assertEquals(1.0, client1.read(read()).getRItemList().getItems().get(0).getValue());
+        assertEquals(2.0, client2.read(read()).getRItemList().getItems().get(0).getValue());
+        assertEquals(1.0, client1.readAsync(read()).join().getRItemList().getItems().get(0).getValue());
+        assertEquals(2.0, client2.readAsync(read()).join().getRItemList().getItems().get(0).getValue());
+
+        assertSame(
+            client1.getWebServiceTemplate().getMarshaller(),
+            client2.getWebServiceTemplate().getMarshaller()
+        );
+        assertNull(client1.getMetrics());
+        assertSame(metrics, client2.getMetrics());
+
+        // per-server connection limits within the shared pool
+        assertEquals(20, client1.getConnectionPoolStats().getMax());
+        assertEquals(2, client2.getConnectionPoolStats().getMax());
+        assertEquals(1, client1.getConnectionPoolStats().getConnectionsCreated());
+        assertEquals(1, client2.getConnectionPoolStats().getConnectionsCreated());
+
+        ConnectionPoolStats stats = pool.getConnectionPoolStats();
+        assertEquals(10, stats.getMax());
+        assertEquals(2, stats.getAvailable());
+        assertEquals(2, stats.getConnectionsCreated());
+    }
+
+    @Test
+    public void testAddAndRemoveServers() {
+        OpcXmlDaClient client1 = pool.addServer("s1", simulator1.getEndpointUrl());
+        pool.addServer("s2", simulator2.getEndpointUrl());
+
+        assertEquals(Set.of("s1", "s2"), pool.getServerIds());
+        assertSame(client1, pool.getClient("s1"));
+
+        try {
+            pool.addServer("s1", simulator2.getEndpointUrl());
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+
+        assertSame(client1, pool.removeServer("s1"));
+        assertNull(pool.getClient("s1"));
+        assertNull(pool.removeServer("s1"));
+        assertEquals(1, pool.size());
+
+        assertNotNull(pool.getClient("s2").getStatus());
+
+        pool.close();
+
+        try {
+            pool.addServer("s3", simulator1.getEndpointUrl());
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+
+    private static Read read() {
+        var item = new ReadRequestItem();
+        item.setItemName("Static.Double");
+
+        var itemList = new ReadRequestItemList();
+        itemList.getItems().add(item);
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class OpcXmlDaSubscriptionManagerTest {
+
+    private SoapStubServer server;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new SoapStubServer().start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(server.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testRefreshUsesHoldTimeAndWaitTime() throws Exception {
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setHoldTime(Duration.ofMillis(300))
+            .setWaitTime(Duration.ofMillis(1000))
+            .build();
+
+        var deliveryTimes = new CopyOnWriteArrayList<Long>();
+        var deliveries = new CountDownLatch(4);
+
+        manager.createSubscription(newSubscribe("Dynamic.Range.0"), (subscription, itemValues) -> {
+            if (!itemValues.isEmpty()) {
+                deliveryTimes.add(System.nanoTime());
+                deliveries.countDown();
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+        long now = System.currentTimeMillis();
+        manager.deleteAll().get(5, TimeUnit.SECONDS);
+
+        assertEquals(1000, server.getLastRefreshWaitTime());
+
+        assertNotNull(server.getLastRefreshHoldTime());
+        long holdTime = XmlTime.toEpochMillis(server.getLastRefreshHoldTime());
+        assertTrue("holdTime=" + holdTime + " now=" + now, holdTime > now - 1000 && holdTime <= now + 400);
+
+        // the item changes on every refresh, so refreshes are paced by the hold time
+        for (int i = 2; i < deliveryTimes.size(); i++) {
+            long gapNanos = deliveryTimes.get(i) - deliveryTimes.get(i - 1);
+            assertTrue("gap=" + gapNanos + "ns", gapNanos >= TimeUnit.MILLISECONDS.toNanos(200));
+        }
+    }
+
+    @Test
+    public void testSubscriptionsShareOneRefresh() throws Exception {
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setHoldTime(Duration.ofMillis(100))
+            .setWaitTime(Duration.ofMillis(1000))
+            .build();
+
+        var itemNamesA = new CopyOnWriteArrayList<String>();
+        var itemNamesB = new CopyOnWriteArrayList<String>();
+        var deliveriesA = new AtomicInteger(0);
+        var deliveriesB = new AtomicInteger(0);
+
+        manager.createSubscription(newSubscribe("Dynamic.Range.0", "Dynamic.Range.1"), (subscription, itemValues) -> {
+            itemValues.forEach(v -> itemNamesA.add(v.getItemName()));
+            deliveriesA.incrementAndGet();
+        }).get(5, TimeUnit.SECONDS);
+
+        manager.createSubscription(newSubscribe("Dynamic.Range.2", "Dynamic.Range.3"), (subscription, itemValues) -> {
+            itemValues.forEach(v -> itemNamesB.add(v.getItemName()));
+            deliveriesB.incrementAndGet();
+        }).get(5, TimeUnit.SECONDS);
+
+        // let both subscriptions join the refresh cycle
+        awaitCount(deliveriesB, 2);
+
+        long requests = server.getRequestCount();
+        int cyclesA = deliveriesA.get();
+        int cyclesB = deliveriesB.get();
+
+        awaitCount(deliveriesA, cyclesA + 10);
+        awaitCount(deliveriesB, cyclesB + 10);
+
+        long refreshes = server.getRequestCount() - requests;
+        int deliveredA = deliveriesA.get() - cyclesA;
+        int deliveredB = deliveriesB.get() - cyclesB;
+
+        manager.deleteAll().get(5, TimeUnit.SECONDS);
+
+        // every item changes on every refresh, so each refresh delivers to both; one pipelined refresh may be
+        // outstanding at either end of the window
+        assertTrue("refreshes=" + refreshes + " A=" + deliveredA, refreshes <= deliveredA + 2);
+        assertTrue("refreshes=" + refreshes + " B=" + deliveredB, refreshes <= deliveredB + 2);
+
+        assertFalse(itemNamesA.isEmpty());
+        assertFalse(itemNamesB.isEmpty());
+        assertTrue(itemNamesA.stream().allMatch(n -> n.equals("Dynamic.Range.0") || n.equals("Dynamic.Range.1")));
+        assertTrue(itemNamesB.stream().allMatch(n -> n.equals("Dynamic.Range.2") || n.equals("Dynamic.Range.3")));
+    }
+
+    private static void awaitCount(AtomicInteger count, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(count.get() >= expected);
+    }
+
+    private static Subscribe newSubscribe(String... itemNames) {
+        var itemList = new SubscribeRequestItemList();
+        for (String itemName : itemNames) {
+            var item = new SubscribeRequestItem();
+            item.setItemName(itemName);
+            item.setClientItemHandle(itemName);
+            itemList.getItems().add(item);
+        }
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        subscribe.setSubscriptionPingRate(10_000);
+        return subscribe;
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.RequestOptions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PreparedReadTest {
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        var addressSpace = new SimulatedAddressSpace();
+        for (int i = 0; i < 10; i++) {
+            addressSpace.addItem("Static.Int" + i, i);
+        }
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testRepeatedReadsJaxb() {
+        testRepeatedReads(RequestEncoding.JAXB);
+    }
+
+    @Test
+    public void testRepeatedReadsFastPath() {
+        testRepeatedReads(RequestEncoding.FAST_PATH);
+    }
+
+    private void testRepeatedReads(RequestEncoding encoding) {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestEncoding(encoding)
+            .build();
+
+        PreparedRead prepared = client.prepareRead(read(10));
+        assertEquals(10, prepared.getItemCount());
+
+        var handles = new HashSet<String>();
+        for (int i = 0; i < 5; i++) {
+            ReadResponse response = i % 2 == 0 ?
+                client.read(prepared) :
+                client.readAsync(prepared).join();
+
+            assertValues(response, 10);
+            handles.add(response.getReadResult().getClientRequestHandle());
+            assertNull(simulator.getLastReadDeadline());
+        }
+
+        assertEquals(5, handles.size());
+    }
+
+    @Test
+    public void testDeadline() {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestEncoding(RequestEncoding.FAST_PATH)
+            .build();
+
+        PreparedRead prepared = client.prepareRead(read(3));
+
+        long before = System.currentTimeMillis();
+        assertValues(client.readAsync(prepared, Duration.ofSeconds(10)).join(), 3);
+
+        assertNotNull(simulator.getLastReadDeadline());
+        long deadline = XmlTime.toEpochMillis(simulator.getLastReadDeadline());
+        assertTrue(deadline >= before + 10_000 && deadline <= System.currentTimeMillis() + 10_000);
+
+        // the deadline isn't carried into the next send
+        assertValues(client.readAsync(prepared).join(), 3);
+        assertNull(simulator.getLastReadDeadline());
+    }
+
+    @Test
+    public void testOptionsAppliedOnce() {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setDefaultLocale(Locale.GERMANY)
+            .build();
+
+        Read read = read(2);
+        read.setOptions(new RequestOptions());
+        read.getOptions().setClientRequestHandle("ignored");
+
+        PreparedRead prepared = client.prepareRead(read);
+
+        // the caller's request is left alone
+        assertEquals("ignored", read.getOptions().getClientRequestHandle());
+        assertNull(read.getOptions().getLocaleID());
+
+        RequestOptions options = prepared.getTemplate().getOptions();
+        assertEquals("de-DE", options.getLocaleID());
+        assertTrue(options.isReturnItemName());
+
+        ReadResponse response = client.read(prepared);
+        assertValues(response, 2);
+        assertNotEquals("ignored", response.getReadResult().getClientRequestHandle());
+    }
+
+    @Test
+    public void testChunkedPreparedRead() {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMaxItemsPerRequest(4)
+            .build();
+
+        PreparedRead prepared = client.prepareRead(read(10));
+
+        long requestCount = simulator.getRequestCount();
+        assertValues(client.read(prepared), 10);
+        assertEquals(3, simulator.getRequestCount() - requestCount);
+    }
+
+    private static void assertValues(ReadResponse response, int count) {
+        List<ItemValue> items = response.getRItemList().getItems();
+        assertEquals(count, items.size());
+
+        for (int i = 0; i < count; i++) {
+            assertEquals("Static.Int" + i, items.get(i).getItemName());
+            assertEquals(i, items.get(i).getValue());
+        }
+    }
+
+    private static Read read(int count) {
+        var itemList = new ReadRequestItemList();
+        for (int i = 0; i < count; i++) {
+            var item = new ReadRequestItem();
+            item.setItemName("Static.Int" + i);
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
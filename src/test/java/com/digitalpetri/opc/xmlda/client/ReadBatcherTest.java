@@ -0,0 +1,159 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.RequestOptions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadBatcherTest {
+
+    private static final QName E_UNKNOWN_ITEM_NAME = new QName("E_UNKNOWNITEMNAME");
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<Read> dispatched = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentReadsAreMergedAndSplit() {
+        var batcher = new ReadBatcher(this::echo, Duration.ofMillis(50), 1000, scheduler);
+
+        CompletableFuture<ReadResponse> r1 = batcher.read(read("a1", "A", "b1", "B"));
+        CompletableFuture<ReadResponse> r2 = batcher.read(read("c2", "Missing", "a2", "A"));
+
+        ReadResponse response1 = r1.join();
+        ReadResponse response2 = r2.join();
+
+        assertEquals(1, dispatched.size());
+        assertEquals("duplicate items are read once", 3, dispatched.get(0).getItemList().getItems().size());
+
+        List<ItemValue> items1 = response1.getRItemList().getItems();
+        assertEquals(2, items1.size());
+        assertEquals("a1", items1.get(0).getClientItemHandle());
+        assertEquals("A", items1.get(0).getValue());
+        assertEquals("b1", items1.get(1).getClientItemHandle());
+        assertEquals("B", items1.get(1).getValue());
+        assertTrue(response1.getErrors().isEmpty());
+
+        List<ItemValue> items2 = response2.getRItemList().getItems();
+        assertEquals("c2", items2.get(0).getClientItemHandle());
+        assertEquals(E_UNKNOWN_ITEM_NAME, items2.get(0).getResultID());
+        assertEquals("a2", items2.get(1).getClientItemHandle());
+        assertEquals("A", items2.get(1).getValue());
+        assertEquals(1, response2.getErrors().size());
+    }
+
+    @Test
+    public void testBatchSentWhenMaxItemsReached() {
+        var batcher = new ReadBatcher(this::echo, Duration.ofHours(1), 3, scheduler);
+
+        CompletableFuture<ReadResponse> r1 = batcher.read(read("1", "A", "2", "B"));
+        CompletableFuture<ReadResponse> r2 = batcher.read(read("3", "C"));
+
+        assertEquals(2, r1.join().getRItemList().getItems().size());
+        assertEquals(1, r2.join().getRItemList().getItems().size());
+        assertEquals(1, dispatched.size());
+    }
+
+    @Test
+    public void testDifferentLocalesAreNotMerged() {
+        var batcher = new ReadBatcher(this::echo, Duration.ofMillis(20), 1000, scheduler);
+
+        Read english = read("1", "A");
+        Read german = read("2", "A");
+        german.getOptions().setLocaleID("de-DE");
+
+        CompletableFuture.allOf(batcher.read(english), batcher.read(german)).join();
+
+        assertEquals(2, dispatched.size());
+    }
+
+    @Test
+    public void testReadsWithDeadlineAreNotMerged() {
+        var batcher = new ReadBatcher(this::echo, Duration.ofMillis(20), 1000, scheduler);
+
+        Read withDeadline = read("1", "A");
+        withDeadline.getOptions().setRequestDeadline(XmlTime.fromEpochMillis(System.currentTimeMillis() + 100));
+
+        CompletableFuture.allOf(batcher.read(read("2", "B")), batcher.read(withDeadline), batcher.read(read("3", "C")))
+            .join();
+
+        assertEquals(2, dispatched.size());
+        assertTrue(dispatched.contains(withDeadline));
+    }
+
+    /**
+     * Reply with each item's name as its value, or E_UNKNOWNITEMNAME for items named "Missing".
+     */
+    private synchronized CompletableFuture<ReadResponse> echo(Read read) {
+        dispatched.add(read);
+
+        var itemList = new ReplyItemList();
+        var response = new ReadResponse();
+
+        for (ReadRequestItem requestItem : read.getItemList().getItems()) {
+            var itemValue = new ItemValue();
+            itemValue.setItemName(requestItem.getItemName());
+            itemValue.setClientItemHandle(requestItem.getClientItemHandle());
+
+            if ("Missing".equals(requestItem.getItemName())) {
+                itemValue.setResultID(E_UNKNOWN_ITEM_NAME);
+
+                if (response.getErrors().isEmpty()) {
+                    var error = new OPCError();
+                    error.setID(E_UNKNOWN_ITEM_NAME);
+                    response.getErrors().add(error);
+                }
+            } else {
+                itemValue.setValue(requestItem.getItemName());
+            }
+
+            itemList.getItems().add(itemValue);
+        }
+
+        response.setRItemList(itemList);
+
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static Read read(String... handlesAndNames) {
+        var itemList = new ReadRequestItemList();
+
+        for (int i = 0; i < handlesAndNames.length; i += 2) {
+            var item = new ReadRequestItem();
+            item.setClientItemHandle(handlesAndNames[i]);
+            item.setItemName(handlesAndNames[i + 1]);
+            itemList.getItems().add(item);
+        }
+
+        var options = new RequestOptions();
+        options.setLocaleID("en-US");
+
+        var read = new Read();
+        read.setItemList(itemList);
+        read.setOptions(options);
+        return read;
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+import org.opcfoundation.xmlda.WriteResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestChunkerTest {
+
+    private static final int RANGE_SIZE = 2500;
+
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        var addressSpace = new SimulatedAddressSpace()
+            .addRange("Dynamic.Range", RANGE_SIZE, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 5; i++) {
+            addressSpace.addItem("Static.Int" + i, 0);
+        }
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMaxItemsPerRequest(1000)
+            .setMaxConcurrentChunks(2)
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testReadIsSplitAndMerged() {
+        var itemList = new ReadRequestItemList();
+        for (int i = 0; i < RANGE_SIZE; i++) {
+            var item = new ReadRequestItem();
+            item.setItemName(String.format("Dynamic.Range.%04d", i));
+            item.setClientItemHandle(String.valueOf(i));
+            itemList.getItems().add(item);
+
+            if (i == 500 || i == 1500) {
+                var unknown = new ReadRequestItem();
+                unknown.setItemName("Unknown" + i);
+                itemList.getItems().add(unknown);
+            }
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+
+        long requestCount = simulator.getRequestCount();
+        ReadResponse response = client.read(read);
+
+        assertEquals(3, simulator.getRequestCount() - requestCount);
+        assertNotNull(response.getReadResult());
+        assertEquals(read.getOptions().getClientRequestHandle(), response.getReadResult().getClientRequestHandle());
+
+        List<ItemValue> items = response.getRItemList().getItems();
+        assertEquals(RANGE_SIZE + 2, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(itemList.getItems().get(i).getItemName(), items.get(i).getItemName());
+        }
+        assertNull(items.get(0).getResultID());
+        assertNotNull(items.get(501).getResultID());
+
+        // both unknown items reference the same error, reported once
+        assertEquals(1, response.getErrors().size());
+        assertEquals(items.get(501).getResultID(), response.getErrors().get(0).getID());
+    }
+
+    @Test
+    public void testWriteIsSplitAndMerged() {
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMaxItemsPerRequest(2)
+            .build();
+
+        var itemList = new WriteRequestItemList();
+        for (int i = 0; i < 5; i++) {
+            var item = new ItemValue();
+            item.setItemName("Static.Int" + i);
+            item.setValue(i * 10);
+            itemList.getItems().add(item);
+        }
+
+        var write = new Write();
+        write.setItemList(itemList);
+        write.setReturnValuesOnReply(true);
+
+        long requestCount = simulator.getRequestCount();
+        WriteResponse response = client.writeAsync(write).join();
+
+        assertEquals(3, simulator.getRequestCount() - requestCount);
+        assertEquals(5, response.getRItemList().getItems().size());
+        assertEquals(0, response.getErrors().size());
+
+        for (int i = 0; i < 5; i++) {
+            ItemValue item = response.getRItemList().getItems().get(i);
+            assertEquals("Static.Int" + i, item.getItemName());
+            assertEquals(i * 10, item.getValue());
+        }
+    }
+
+    @Test
+    public void testSubscribeChunked() {
+        var itemList = new SubscribeRequestItemList();
+        for (int i = 0; i < RANGE_SIZE; i++) {
+            var item = new SubscribeRequestItem();
+            item.setItemName(String.format("Dynamic.Range.%04d", i));
+            itemList.getItems().add(item);
+        }
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        subscribe.setReturnValuesOnReply(true);
+
+        List<SubscribeResponse> responses = client.subscribeChunked(subscribe).join();
+
+        assertEquals(3, responses.size());
+        assertEquals(3, simulator.getSubscriptionCount());
+        assertNotEquals(responses.get(0).getServerSubHandle(), responses.get(1).getServerSubHandle());
+        assertEquals(1000, responses.get(0).getRItemList().getItems().size());
+        assertEquals(500, responses.get(2).getRItemList().getItems().size());
+    }
+
+    @Test
+    public void testSubscribeFailureAbandonsSuccessfulChunks() {
+        var chunker = new RequestChunker(1000, 3);
+
+        var itemList = new SubscribeRequestItemList();
+        for (int i = 0; i < RANGE_SIZE; i++) {
+            var item = new SubscribeRequestItem();
+            item.setItemName(String.format("Dynamic.Range.%04d", i));
+            itemList.getItems().add(item);
+        }
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+
+        var chunkFutures = new ArrayList<CompletableFuture<SubscribeResponse>>();
+        var abandoned = new CopyOnWriteArrayList<String>();
+
+        CompletableFuture<List<SubscribeResponse>> future = chunker.subscribe(
+            subscribe,
+            chunk -> {
+                var chunkFuture = new CompletableFuture<SubscribeResponse>();
+                chunkFutures.add(chunkFuture);
+                return chunkFuture;
+            },
+            response -> abandoned.add(response.getServerSubHandle())
+        );
+
+        assertEquals(3, chunkFutures.size());
+
+        chunkFutures.get(0).complete(subscribeResponse("sub-0"));
+        chunkFutures.get(1).completeExceptionally(new Exception("chunk failed"));
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(List.of("sub-0"), abandoned);
+
+        // a chunk that succeeds after the failure is abandoned too
+        chunkFutures.get(2).complete(subscribeResponse("sub-2"));
+        assertEquals(List.of("sub-0", "sub-2"), abandoned);
+    }
+
+    private static SubscribeResponse subscribeResponse(String serverSubHandle) {
+        var response = new SubscribeResponse();
+        response.setServerSubHandle(serverSubHandle);
+        return response;
+    }
+
+}
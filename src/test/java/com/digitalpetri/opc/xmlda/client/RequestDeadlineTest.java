@@ -0,0 +1,148 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.GetStatus;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.springframework.ws.client.WebServiceIOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestDeadlineTest {
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        var addressSpace = new SimulatedAddressSpace();
+        for (int i = 0; i < 3; i++) {
+            addressSpace.addItem("Static.Int" + i, i);
+        }
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testReadDeadlinePropagated() {
+        OpcXmlDaClient client = newClient(5000);
+
+        long before = System.currentTimeMillis();
+        assertEquals(3, client.read(read(), Duration.ofSeconds(10)).getRItemList().getItems().size());
+
+        assertNotNull(simulator.getLastReadDeadline());
+        long deadline = XmlTime.toEpochMillis(simulator.getLastReadDeadline());
+        assertTrue(deadline >= before + 10_000 && deadline <= System.currentTimeMillis() + 10_000);
+    }
+
+    @Test
+    public void testDeadlineNotKeptOnReusedRead() {
+        OpcXmlDaClient client = newClient(5000);
+        Read read = read();
+
+        client.read(read, Duration.ofSeconds(10));
+        assertNotNull(simulator.getLastReadDeadline());
+
+        client.read(read);
+        assertNull(simulator.getLastReadDeadline());
+        assertTrue(read.getOptions() == null || read.getOptions().getRequestDeadline() == null);
+    }
+
+    @Test
+    public void testDeadlineReplacesRequestTimeout() {
+        OpcXmlDaClient client = newClient(200);
+        simulator.setLatency(Duration.ofMillis(400), Duration.ZERO);
+
+        assertEquals(3, client.readAsync(read(), Duration.ofSeconds(2)).join().getRItemList().getItems().size());
+
+        expectTimeout(() -> client.readAsync(read()).join());
+    }
+
+    @Test
+    public void testDeadlineExceeded() {
+        OpcXmlDaClient client = newClient(5000);
+        simulator.setLatency(Duration.ofMillis(1000), Duration.ZERO);
+
+        long start = System.nanoTime();
+        expectTimeout(() -> client.read(read(), Duration.ofMillis(100)));
+        expectTimeout(() -> client.getStatus(new GetStatus(), Duration.ofMillis(100)));
+
+        PreparedRead prepared = client.prepareRead(read());
+        expectTimeout(() -> client.readAsync(prepared, Duration.ofMillis(100)).join());
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    public void testExpiredDeadlineNotSent() {
+        OpcXmlDaClient client = newClient(5000);
+
+        long requestCount = simulator.getRequestCount();
+        expectTimeout(() -> client.read(read(), Duration.ZERO));
+        assertEquals(requestCount, simulator.getRequestCount());
+    }
+
+    @Test
+    public void testExpiredDeadlineNotSentForPreparedRead() {
+        OpcXmlDaClient client = newClient(5000);
+        PreparedRead prepared = client.prepareRead(read());
+        assertTrue(prepared.isEncoded());
+
+        long requestCount = simulator.getRequestCount();
+        expectTimeout(() -> client.readAsync(prepared, Duration.ZERO).join());
+        expectTimeout(() -> client.readAsync(prepared, Duration.ofMillis(-1)).join());
+        assertEquals(requestCount, simulator.getRequestCount());
+    }
+
+    private OpcXmlDaClient newClient(int requestTimeout) {
+        return OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestTimeout(requestTimeout)
+            .build();
+    }
+
+    private static void expectTimeout(Runnable call) {
+        try {
+            call.run();
+            fail("expected timeout");
+        } catch (WebServiceIOException expected) {
+            // expected
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e), e.getCause() instanceof WebServiceIOException);
+        }
+    }
+
+    private static Read read() {
+        var itemList = new ReadRequestItemList();
+        for (int i = 0; i < 3; i++) {
+            var item = new ReadRequestItem();
+            item.setItemName("Static.Int" + i);
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestHedgerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Int", 1))
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testHedgedReadsAvoidSlowRequests() {
+        RequestHedger hedger = RequestHedger.newBuilder()
+            .setMinSamples(10)
+            .setMaxHedgeRatio(0.5)
+            .build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestHedger(hedger)
+            .build();
+
+        // warm up before any request is slow
+        for (int i = 0; i < 20; i++) {
+            client.read(read());
+        }
+
+        simulator.setLatency(Duration.ofMillis(5), Duration.ZERO);
+        simulator.setSlowRequests(40, Duration.ofSeconds(2));
+
+        long maxNanos = 0L;
+        for (int i = 0; i < 120; i++) {
+            long start = System.nanoTime();
+            assertEquals(1, client.read(read()).getRItemList().getItems().size());
+            maxNanos = Math.max(maxNanos, System.nanoTime() - start);
+        }
+
+        assertTrue("max read " + maxNanos + "ns", maxNanos < TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(hedger.getHedgeWinCount() >= 2);
+        assertTrue(hedger.getHedgeCount() >= hedger.getHedgeWinCount());
+        assertEquals(140, hedger.getRequestCount());
+    }
+
+    @Test
+    public void testHedgeBudget() {
+        RequestHedger hedger = RequestHedger.newBuilder()
+            .setMinSamples(10)
+            .setMaxHedgeRatio(0.0)
+            .build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestHedger(hedger)
+            .build();
+
+        simulator.setSlowRequests(20, Duration.ofMillis(200));
+
+        for (int i = 0; i < 25; i++) {
+            client.readAsync(read()).join();
+        }
+
+        assertEquals(25, hedger.getRequestCount());
+        assertEquals(0, hedger.getHedgeCount());
+    }
+
+    @Test
+    public void testWritesNotHedged() {
+        RequestHedger hedger = RequestHedger.newBuilder().build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setRequestHedger(hedger)
+            .build();
+
+        var itemValue = new ItemValue();
+        itemValue.setItemName("Static.Int");
+        itemValue.setValue(2);
+
+        var write = new Write();
+        write.setItemList(new WriteRequestItemList());
+        write.getItemList().getItems().add(itemValue);
+
+        client.writeAsync(write).join();
+        client.getStatus();
+
+        assertEquals(1, hedger.getRequestCount());
+    }
+
+    @Test
+    public void testFirstSuccessWins() throws Exception {
+        RequestHedger hedger = warmHedger();
+        var sent = new CopyOnWriteArrayList<CompletableFuture<String>>();
+
+        CompletableFuture<String> result = hedger.invoke(OpcXmlDaClient.SoapAction.READ, TIMEOUT, () -> send(sent));
+
+        awaitSent(sent, 2);
+        sent.get(1).complete("hedge");
+
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+        assertTrue(sent.get(0).isCancelled());
+        assertEquals(1, hedger.getHedgeWinCount());
+    }
+
+    @Test
+    public void testFailedRequestWaitsForOther() throws Exception {
+        RequestHedger hedger = warmHedger();
+        var sent = new CopyOnWriteArrayList<CompletableFuture<String>>();
+
+        CompletableFuture<String> result = hedger.invoke(OpcXmlDaClient.SoapAction.READ, TIMEOUT, () -> send(sent));
+
+        awaitSent(sent, 2);
+        sent.get(0).completeExceptionally(new IllegalStateException("primary"));
+        assertFalse(result.isDone());
+
+        sent.get(1).complete("hedge");
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBothFailed() throws Exception {
+        RequestHedger hedger = warmHedger();
+        var sent = new CopyOnWriteArrayList<CompletableFuture<String>>();
+
+        CompletableFuture<String> result = hedger.invoke(OpcXmlDaClient.SoapAction.READ, TIMEOUT, () -> send(sent));
+
+        awaitSent(sent, 2);
+        var primaryFailure = new IllegalStateException("primary");
+        sent.get(1).completeExceptionally(new IllegalStateException("hedge"));
+        sent.get(0).completeExceptionally(primaryFailure);
+
+        try {
+            result.join();
+            fail("expected failure");
+        } catch (CompletionException e) {
+            assertSame(primaryFailure, e.getCause());
+        }
+    }
+
+    @Test
+    public void testNotHedgedAfterPrimaryFailure() throws Exception {
+        RequestHedger hedger = warmHedger();
+        var sent = new CopyOnWriteArrayList<CompletableFuture<String>>();
+
+        CompletableFuture<String> result = hedger.invoke(OpcXmlDaClient.SoapAction.READ, TIMEOUT, () -> send(sent));
+
+        sent.get(0).completeExceptionally(new IllegalStateException("primary"));
+        assertTrue(result.isCompletedExceptionally());
+
+        Thread.sleep(100);
+        assertEquals(1, sent.size());
+        assertEquals(0, hedger.getHedgeCount());
+    }
+
+    /**
+     * @return a hedger that hedges reads after its minimum delay.
+     */
+    private static RequestHedger warmHedger() {
+        RequestHedger hedger = RequestHedger.newBuilder()
+            .setMinSamples(1)
+            .setMinDelay(Duration.ofMillis(20))
+            .setMaxHedgeRatio(1.0)
+            .build();
+
+        hedger.invoke(OpcXmlDaClient.SoapAction.READ, TIMEOUT, () -> CompletableFuture.completedFuture("warm")).join();
+
+        return hedger;
+    }
+
+    private static CompletableFuture<String> send(List<CompletableFuture<String>> sent) {
+        var future = new CompletableFuture<String>();
+        sent.add(future);
+        return future;
+    }
+
+    private static void awaitSent(List<?> sent, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, sent.size());
+    }
+
+    private static Read read() {
+        var item = new ReadRequestItem();
+        item.setItemName("Static.Int");
+
+        var read = new Read();
+        read.setItemList(new ReadRequestItemList());
+        read.getItemList().getItems().add(item);
+        return read;
+    }
+
+}
@@ -0,0 +1,342 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.opcfoundation.xmlda.GetStatus;
+import org.opcfoundation.xmlda.GetStatusResponse;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyBase;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.ServerState;
+import org.opcfoundation.xmlda.ServerStatus;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribePolledRefreshReplyItemList;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.SubscriptionCancel;
+import org.opcfoundation.xmlda.SubscriptionCancelResponse;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.opcfoundation.xmlda.SubscriptionPolledRefreshResponse;
+
+/**
+ * A minimal SOAP endpoint for transport and subscription tests.
+ * <p>
+ * Reads return 42 for every item. Every subscribed item changes on every refresh, which is held until the
+ * request's {@code HoldTime}.
+ */
+class SoapStubServer {
+
+    private static final String SOAP_ENV_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private final Map<String, List<String>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong nextHandle = new AtomicLong(0L);
+    private final AtomicLong requestCount = new AtomicLong(0L);
+    private final AtomicLong compressedResponseCount = new AtomicLong(0L);
+    private final AtomicLong refreshCount = new AtomicLong(0L);
+
+    private volatile long latencyMillis = 0L;
+    private volatile boolean fault = false;
+    private volatile XMLGregorianCalendar lastRefreshHoldTime;
+    private volatile int lastRefreshWaitTime = -1;
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+    private final JAXBContext jaxbContext;
+    private final DatatypeFactory datatypeFactory;
+    private final HttpServer server;
+
+    SoapStubServer() throws IOException {
+        try {
+            jaxbContext = JAXBContext.newInstance(OpcXmlDaClient.Builder.CONTEXT_PATH);
+            datatypeFactory = DatatypeFactory.newInstance();
+        } catch (JAXBException | DatatypeConfigurationException e) {
+            throw new IOException(e);
+        }
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    SoapStubServer start() {
+        server.start();
+        return this;
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    String getEndpointUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    void setLatency(Duration latency) {
+        this.latencyMillis = latency.toMillis();
+    }
+
+    void setFault(boolean fault) {
+        this.fault = fault;
+    }
+
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    long getCompressedResponseCount() {
+        return compressedResponseCount.get();
+    }
+
+    XMLGregorianCalendar getLastRefreshHoldTime() {
+        return lastRefreshHoldTime;
+    }
+
+    int getLastRefreshWaitTime() {
+        return lastRefreshWaitTime;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+
+        try {
+            Object request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = decode(in);
+            }
+
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            if (fault) {
+                sendFault(exchange, "soap:Server", "injected fault");
+            } else {
+                send(exchange, 200, encode(dispatch(request)));
+            }
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Object dispatch(Object request) throws InterruptedException {
+        if (request instanceof GetStatus) {
+            var status = new ServerStatus();
+            status.setVendorInfo("stub");
+
+            var response = new GetStatusResponse();
+            response.setGetStatusResult(replyBase());
+            response.setStatus(status);
+            return response;
+        } else if (request instanceof Read) {
+            var items = new ReplyItemList();
+            for (ReadRequestItem item : ((Read) request).getItemList().getItems()) {
+                items.getItems().add(itemValue(item.getItemName(), 42));
+            }
+
+            var response = new ReadResponse();
+            response.setReadResult(replyBase());
+            response.setRItemList(items);
+            return response;
+        } else if (request instanceof Subscribe) {
+            String handle = "sub-" + nextHandle.incrementAndGet();
+            subscriptions.put(handle, ((Subscribe) request).getItemList().getItems().stream()
+                .map(SubscribeRequestItem::getItemName)
+                .collect(Collectors.toList()));
+
+            var response = new SubscribeResponse();
+            response.setSubscribeResult(replyBase());
+            response.setServerSubHandle(handle);
+            return response;
+        } else if (request instanceof SubscriptionPolledRefresh) {
+            return refresh((SubscriptionPolledRefresh) request);
+        } else if (request instanceof SubscriptionCancel) {
+            subscriptions.remove(((SubscriptionCancel) request).getServerSubHandle());
+
+            return new SubscriptionCancelResponse();
+        } else {
+            throw new IllegalArgumentException("unsupported operation: " + request.getClass().getSimpleName());
+        }
+    }
+
+    private SubscriptionPolledRefreshResponse refresh(SubscriptionPolledRefresh request) throws InterruptedException {
+        lastRefreshHoldTime = request.getHoldTime();
+        lastRefreshWaitTime = request.getWaitTime();
+
+        if (request.getHoldTime() != null) {
+            long holdMillis = request.getHoldTime().toGregorianCalendar().getTimeInMillis();
+            long delay = holdMillis - System.currentTimeMillis();
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+        }
+
+        long value = refreshCount.incrementAndGet();
+
+        var response = new SubscriptionPolledRefreshResponse();
+        response.setSubscriptionPolledRefreshResult(replyBase());
+
+        for (String handle : request.getServerSubHandles()) {
+            List<String> itemNames = subscriptions.get(handle);
+            if (itemNames == null) {
+                response.getInvalidServerSubHandles().add(handle);
+                continue;
+            }
+
+            var itemList = new SubscribePolledRefreshReplyItemList();
+            itemList.setSubscriptionHandle(handle);
+            for (String itemName : itemNames) {
+                itemList.getItems().add(itemValue(itemName, value));
+            }
+            response.getRItemList().add(itemList);
+        }
+
+        return response;
+    }
+
+    private ItemValue itemValue(String itemName, Object value) {
+        var itemValue = new ItemValue();
+        itemValue.setItemName(itemName);
+        itemValue.setClientItemHandle(itemName);
+        itemValue.setValue(value);
+        itemValue.setTimestamp(now());
+        return itemValue;
+    }
+
+    private ReplyBase replyBase() {
+        var replyBase = new ReplyBase();
+        replyBase.setRcvTime(now());
+        replyBase.setReplyTime(now());
+        replyBase.setServerState(ServerState.RUNNING);
+        return replyBase;
+    }
+
+    private XMLGregorianCalendar now() {
+        var calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(System.currentTimeMillis());
+        return datatypeFactory.newXMLGregorianCalendar(calendar);
+    }
+
+    private Object decode(InputStream in) throws JAXBException, XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+
+        boolean inBody = false;
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                if (inBody) {
+                    Object request = jaxbContext.createUnmarshaller().unmarshal(reader);
+                    return request instanceof JAXBElement ? ((JAXBElement<?>) request).getValue() : request;
+                }
+                inBody = SOAP_ENV_NS.equals(reader.getNamespaceURI()) && "Body".equals(reader.getLocalName());
+            }
+        }
+
+        throw new XMLStreamException("no SOAP Body content");
+    }
+
+    private byte[] encode(Object response) throws JAXBException, XMLStreamException {
+        var buffer = new ByteArrayOutputStream(1024);
+
+        XMLStreamWriter writer = startEnvelope(buffer);
+
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        marshaller.marshal(response, writer);
+
+        endEnvelope(writer);
+
+        return buffer.toByteArray();
+    }
+
+    private void sendFault(HttpExchange exchange, String faultCode, String faultString)
+        throws IOException, XMLStreamException {
+
+        var buffer = new ByteArrayOutputStream(512);
+
+        XMLStreamWriter writer = startEnvelope(buffer);
+        writer.writeStartElement("soap", "Fault", SOAP_ENV_NS);
+        writer.writeStartElement("faultcode");
+        writer.writeCharacters(faultCode);
+        writer.writeEndElement();
+        writer.writeStartElement("faultstring");
+        writer.writeCharacters(faultString);
+        writer.writeEndElement();
+        writer.writeEndElement();
+        endEnvelope(writer);
+
+        send(exchange, 500, buffer.toByteArray());
+    }
+
+    private XMLStreamWriter startEnvelope(OutputStream out) throws XMLStreamException {
+        XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("soap", "Envelope", SOAP_ENV_NS);
+        writer.writeNamespace("soap", SOAP_ENV_NS);
+        writer.writeStartElement("soap", "Body", SOAP_ENV_NS);
+        return writer;
+    }
+
+    private static void endEnvelope(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            var buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (var out = new GZIPOutputStream(buffer)) {
+                out.write(body);
+            }
+            body = buffer.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            compressedResponseCount.incrementAndGet();
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.StringReader;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+import org.opcfoundation.xmlda.ServerState;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingResponseDecoderTest {
+
+    private static final String RESPONSE =
+        "<soap:Envelope xmlns:soap='http://schemas.xmlsoap.org/soap/envelope/'" +
+        " xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+        "<soap:Body>" +
+        "<SubscriptionPolledRefreshResponse DataBufferOverflow='true'" +
+        " xmlns='http://opcfoundation.org/webservices/XMLDA/1.0/'>" +
+        "<SubscriptionPolledRefreshResult RcvTime='2021-08-01T12:00:00Z' ReplyTime='2021-08-01T12:00:01.5Z'" +
+        " ClientRequestHandle='7' ServerState='running'/>" +
+        "<InvalidServerSubHandles>gone</InvalidServerSubHandles>" +
+        "<RItemList SubscriptionHandle='s1'>" +
+        "<Items ItemName='Ramp' ClientItemHandle='a' Timestamp='2021-08-01T14:00:00.250+02:00'>" +
+        "<Value xsi:type='xsd:double'>1.5</Value>" +
+        "<Quality QualityField='uncertain' LimitField='high'/>" +
+        "</Items>" +
+        "<Items ItemName='Array'><Value xsi:type='ArrayOfInt'><int>1</int><int>2</int></Value></Items>" +
+        "</RItemList>" +
+        "<RItemList SubscriptionHandle='s2'>" +
+        "<Items ItemName='Missing' ResultID='E_UNKNOWNITEMNAME'/>" +
+        "<Items ItemName='Flag'><Value xsi:type='xsd:boolean'>true</Value></Items>" +
+        "</RItemList>" +
+        "<Errors ID='E_UNKNOWNITEMNAME'><Text>unknown item</Text></Errors>" +
+        "</SubscriptionPolledRefreshResponse>" +
+        "</soap:Body></soap:Envelope>";
+
+    @Test
+    public void testDecodeSubscriptionPolledRefreshResponse() throws Exception {
+        XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(RESPONSE));
+        HttpSoapTransport.advanceToBodyContent(reader);
+
+        List<String> seen = new ArrayList<>();
+
+        StreamingResponse response = new StreamingResponseDecoder(itemValue -> {
+            switch (itemValue.getItemName()) {
+                case "Ramp":
+                    assertEquals("s1", itemValue.getSubscriptionHandle());
+                    assertEquals("a", itemValue.getClientItemHandle());
+                    assertEquals(StreamedItemValue.ValueKind.DOUBLE, itemValue.getValueKind());
+                    assertEquals(1.5, itemValue.getDoubleValue(), 0.0);
+                    assertEquals(0x42, itemValue.getQuality());
+                    assertEquals(Instant.parse("2021-08-01T12:00:00.250Z").toEpochMilli(), itemValue.getTimestamp());
+                    break;
+                case "Array":
+                    assertEquals(StreamedItemValue.ValueKind.ARRAY, itemValue.getValueKind());
+                    assertArrayEquals(new String[]{"1", "2"}, (String[]) itemValue.getObjectValue());
+                    assertEquals(QualityCodes.GOOD, itemValue.getQuality());
+                    break;
+                case "Missing":
+                    assertEquals("s2", itemValue.getSubscriptionHandle());
+                    assertEquals("E_UNKNOWNITEMNAME", itemValue.getResultId());
+                    assertEquals(StreamedItemValue.ValueKind.NULL, itemValue.getValueKind());
+                    break;
+                case "Flag":
+                    assertTrue(itemValue.getBooleanValue());
+                    break;
+            }
+            seen.add(itemValue.getItemName());
+        }).decode(reader);
+
+        assertEquals(List.of("Ramp", "Array", "Missing", "Flag"), seen);
+        assertEquals(4, response.getItemCount());
+        assertEquals(ServerState.RUNNING, response.getServerState());
+        assertEquals("7", response.getClientRequestHandle());
+        assertEquals(Instant.parse("2021-08-01T12:00:01.500Z").toEpochMilli(), response.getReplyTime());
+        assertTrue(response.isDataBufferOverflow());
+        assertEquals(List.of("gone"), response.getInvalidServerSubHandles());
+        assertEquals(1, response.getErrors().size());
+        assertEquals("E_UNKNOWNITEMNAME", response.getErrors().get(0).getID().getLocalPart());
+        assertEquals("unknown item", response.getErrors().get(0).getText());
+    }
+
+    @Test
+    public void testParseDateTime() {
+        String[] values = {
+            "1970-01-01T00:00:00Z",
+            "2021-02-28T23:59:59.999Z",
+            "2024-02-29T12:00:00-05:30",
+            "1969-12-31T23:59:59.5+00:00",
+            "2000-03-01T00:00:00.1234567Z"
+        };
+
+        for (String value : values) {
+            long expected = OffsetDateTime.parse(value).toInstant().toEpochMilli();
+            assertEquals(value, expected, XmlTime.parseEpochMillis(value));
+        }
+
+        assertEquals(
+            Instant.parse("2021-08-01T12:00:00Z").toEpochMilli(),
+            XmlTime.parseEpochMillis("2021-08-01T12:00:00")
+        );
+    }
+
+}
@@ -0,0 +1,313 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SubscriptionPublisherTest {
+
+    @Test
+    public void testDemand() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+
+        publisher(subscription, 16, OverflowStrategy.ERROR).subscribe(subscriber);
+
+        subscription.deliverItemValues(List.of(itemValue("A", 1)));
+        subscription.deliverItemValues(List.of(itemValue("A", 2)));
+        subscription.deliverItemValues(List.of(itemValue("A", 3)));
+        assertEquals(0, subscriber.updates.size());
+
+        subscriber.subscription.request(2);
+        assertEquals(List.of(1, 2), subscriber.values("A"));
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of(1, 2, 3), subscriber.values("A"));
+
+        // demand carries over to later updates
+        subscriber.subscription.request(1);
+        subscription.deliverItemValues(List.of(itemValue("A", 4)));
+        assertEquals(List.of(1, 2, 3, 4), subscriber.values("A"));
+        assertEquals(0, subscriber.updates.get(3).getDiscardedCount());
+    }
+
+    @Test
+    public void testDropOldest() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+
+        publisher(subscription, 2, OverflowStrategy.DROP_OLDEST).subscribe(subscriber);
+
+        for (int i = 1; i <= 4; i++) {
+            subscription.deliverItemValues(List.of(itemValue("A", i)));
+        }
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(3, 4), subscriber.values("A"));
+        assertEquals(2, subscriber.updates.get(0).getDiscardedCount());
+        assertEquals(0, subscriber.updates.get(1).getDiscardedCount());
+    }
+
+    @Test
+    public void testDropLatest() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+
+        publisher(subscription, 2, OverflowStrategy.DROP_LATEST).subscribe(subscriber);
+
+        for (int i = 1; i <= 4; i++) {
+            subscription.deliverItemValues(List.of(itemValue("A", i)));
+        }
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(1, 2), subscriber.values("A"));
+        assertEquals(2, subscriber.updates.get(0).getDiscardedCount());
+    }
+
+    @Test
+    public void testConflate() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+
+        publisher(subscription, 1, OverflowStrategy.CONFLATE).subscribe(subscriber);
+
+        subscription.deliverItemValues(List.of(itemValue("A", 1), itemValue("B", 1)));
+        subscription.deliverItemValues(List.of(itemValue("A", 2)));
+        subscription.deliverItemValues(List.of(itemValue("C", 1)));
+        subscription.deliverItemValues(List.of(itemValue("B", 3)));
+
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.updates.size());
+
+        SubscriptionUpdate update = subscriber.updates.get(0);
+        assertEquals(3, update.getItemValues().size());
+        assertEquals("A", update.getItemValues().get(0).getItemName());
+        assertEquals(2, update.getItemValues().get(0).getValue());
+        assertEquals("B", update.getItemValues().get(1).getItemName());
+        assertEquals(3, update.getItemValues().get(1).getValue());
+        assertEquals("C", update.getItemValues().get(2).getItemName());
+        assertEquals(2, update.getDiscardedCount());
+    }
+
+    @Test
+    public void testErrorOnOverflow() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+
+        publisher(subscription, 1, OverflowStrategy.ERROR).subscribe(subscriber);
+
+        subscription.deliverItemValues(List.of(itemValue("A", 1)));
+        subscription.deliverItemValues(List.of(itemValue("A", 2)));
+
+        assertTrue(subscriber.error.getNow(null) instanceof IllegalStateException);
+        assertEquals(0, subscriber.updates.size());
+
+        // no longer listening
+        subscriber.subscription.request(1);
+        subscription.deliverItemValues(List.of(itemValue("A", 3)));
+        assertEquals(0, subscriber.updates.size());
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+
+        publisher(subscription, 1, OverflowStrategy.ERROR).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error.getNow(null) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCompleteAfterBufferDrained() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+        SubscriptionPublisher publisher = publisher(subscription, 4, OverflowStrategy.ERROR);
+
+        publisher.subscribe(subscriber);
+
+        subscription.deliverItemValues(List.of(itemValue("A", 1)));
+        subscription.deactivate();
+        assertFalse(subscriber.completed.isDone());
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of(1), subscriber.values("A"));
+        assertTrue(subscriber.completed.isDone());
+
+        // a subscriber arriving after deactivation is completed right away
+        var late = new RecordingSubscriber();
+        publisher.subscribe(late);
+        assertTrue(late.completed.isDone());
+        assertNull(late.error.getNow(null));
+    }
+
+    @Test
+    public void testErrorAfterBufferDrainedWhenInvalidated() {
+        OpcXmlDaSubscription subscription = newSubscription();
+        var subscriber = new RecordingSubscriber();
+        SubscriptionPublisher publisher = publisher(subscription, 4, OverflowStrategy.ERROR);
+
+        publisher.subscribe(subscriber);
+
+        var invalid = new IllegalStateException("invalid ServerSubHandle");
+        subscription.deliverItemValues(List.of(itemValue("A", 1)));
+        subscription.deliverError(invalid);
+        subscription.deactivate(invalid);
+        assertFalse(subscriber.error.isDone());
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of(1), subscriber.values("A"));
+        assertSame(invalid, subscriber.error.getNow(null));
+        assertFalse(subscriber.completed.isDone());
+
+        var late = new RecordingSubscriber();
+        publisher.subscribe(late);
+        assertSame(invalid, late.error.getNow(null));
+    }
+
+    @Test
+    public void testPublishFromManager() throws Exception {
+        OpcXmlDaSimulator simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addRange("Dynamic", 5, Duration.ofMillis(20)))
+            .build()
+            .start();
+
+        try {
+            OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+                .setServerUrl(simulator.getEndpointUrl())
+                .build();
+
+            OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+                .setWaitTime(Duration.ofMillis(500))
+                .build();
+
+            var subscribe = new Subscribe();
+            subscribe.setItemList(new SubscribeRequestItemList());
+            for (int i = 0; i < 5; i++) {
+                var item = new SubscribeRequestItem();
+                item.setItemName("Dynamic." + i);
+                subscribe.getItemList().getItems().add(item);
+            }
+
+            OpcXmlDaSubscription subscription = manager.createSubscription(subscribe).get(5, TimeUnit.SECONDS);
+
+            var overflow = new CompletableFuture<SubscriptionUpdate>();
+            var subscriber = new RecordingSubscriber() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    super.onSubscribe(subscription);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(SubscriptionUpdate update) {
+                    super.onNext(update);
+                    if (update.isDataBufferOverflow()) overflow.complete(update);
+                    this.subscription.request(1);
+                }
+            };
+
+            SubscriptionPublisher.newBuilder(subscription)
+                .setBufferSize(4)
+                .build()
+                .subscribe(subscriber);
+
+            simulator.setDataBufferOverflow(true);
+
+            SubscriptionUpdate update = overflow.get(5, TimeUnit.SECONDS);
+            assertFalse(update.getItemValues().isEmpty());
+            assertEquals(subscription, update.getSubscription());
+
+            manager.deleteSubscription(subscription).get(5, TimeUnit.SECONDS);
+            subscriber.completed.get(5, TimeUnit.SECONDS);
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    private static SubscriptionPublisher publisher(
+        OpcXmlDaSubscription subscription, int bufferSize, OverflowStrategy overflowStrategy) {
+
+        return SubscriptionPublisher.newBuilder(subscription)
+            .setBufferSize(bufferSize)
+            .setOverflowStrategy(overflowStrategy)
+            .setExecutor(Runnable::run)
+            .build();
+    }
+
+    private static OpcXmlDaSubscription newSubscription() {
+        var subscribe = new Subscribe();
+        subscribe.setItemList(new SubscribeRequestItemList());
+
+        return new OpcXmlDaSubscription(subscribe, "handle", Runnable::run);
+    }
+
+    private static ItemValue itemValue(String itemName, Object value) {
+        var itemValue = new ItemValue();
+        itemValue.setItemName(itemName);
+        itemValue.setValue(value);
+        return itemValue;
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<SubscriptionUpdate> {
+
+        final List<SubscriptionUpdate> updates = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(SubscriptionUpdate update) {
+            updates.add(update);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(null);
+        }
+
+        List<Object> values(String itemName) {
+            var values = new ArrayList<>();
+            for (SubscriptionUpdate update : updates) {
+                for (ItemValue itemValue : update.getItemValues()) {
+                    if (itemName.equals(itemValue.getItemName())) {
+                        values.add(itemValue.getValue());
+                    }
+                }
+            }
+            return values;
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SubscriptionRecoveryTest {
+
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace()
+                .addItem("Static.Int", 0)
+                .addRange("Dynamic.Range", 2, Duration.ofMillis(100)))
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testResubscribeAfterServerRestart() throws Exception {
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setWaitTime(Duration.ofMillis(500))
+            .setRetryDelay(Duration.ofMillis(100))
+            .build();
+
+        var resubscribed = new CountDownLatch(1);
+        var valuesAfterResubscribe = new CountDownLatch(3);
+
+        OpcXmlDaSubscription subscription = manager.createSubscription(
+            newSubscribe("Dynamic.Range.0", 0),
+            new SubscriptionListener() {
+                @Override
+                public void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues) {
+                    if (resubscribed.getCount() == 0) {
+                        valuesAfterResubscribe.countDown();
+                    }
+                }
+
+                @Override
+                public void onResubscribed(OpcXmlDaSubscription subscription) {
+                    resubscribed.countDown();
+                }
+            }
+        ).get(5, TimeUnit.SECONDS);
+
+        String serverSubHandle = subscription.getServerSubHandle();
+
+        simulator.restart();
+
+        assertTrue(resubscribed.await(5, TimeUnit.SECONDS));
+        assertTrue(valuesAfterResubscribe.await(5, TimeUnit.SECONDS));
+
+        assertNotEquals(serverSubHandle, subscription.getServerSubHandle());
+        assertEquals(1, subscription.getResubscribeCount());
+        assertEquals(1, simulator.getSubscriptionCount());
+        assertEquals(List.of(subscription), manager.getSubscriptions());
+
+        manager.deleteAll().get(5, TimeUnit.SECONDS);
+        assertEquals(0, simulator.getSubscriptionCount());
+    }
+
+    @Test
+    public void testRefreshesKeepPingRateAlive() throws Exception {
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setWaitTime(Duration.ofSeconds(10))
+            .build();
+
+        var errors = new AtomicInteger();
+
+        OpcXmlDaSubscription subscription = manager.createSubscription(
+            newSubscribe("Static.Int", 1000),
+            new SubscriptionListener() {
+                @Override
+                public void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues) {}
+
+                @Override
+                public void onError(OpcXmlDaSubscription subscription, Throwable error) {
+                    errors.incrementAndGet();
+                }
+            }
+        ).get(5, TimeUnit.SECONDS);
+
+        String serverSubHandle = subscription.getServerSubHandle();
+
+        // a 10s WaitTime would let the server expire the subscription during the first refresh
+        Thread.sleep(3000);
+
+        assertEquals(serverSubHandle, subscription.getServerSubHandle());
+        assertEquals(0, subscription.getResubscribeCount());
+        assertEquals(0, errors.get());
+        assertEquals(1, simulator.getSubscriptionCount());
+
+        manager.deleteAll().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testNoResubscribeWhenDisabled() throws Exception {
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setWaitTime(Duration.ofMillis(500))
+            .setResubscribe(false)
+            .build();
+
+        var error = new CountDownLatch(1);
+
+        OpcXmlDaSubscription subscription = manager.createSubscription(
+            newSubscribe("Dynamic.Range.0", 0),
+            new SubscriptionListener() {
+                @Override
+                public void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues) {}
+
+                @Override
+                public void onError(OpcXmlDaSubscription subscription, Throwable e) {
+                    error.countDown();
+                }
+            }
+        ).get(5, TimeUnit.SECONDS);
+
+        simulator.restart();
+
+        assertTrue(error.await(5, TimeUnit.SECONDS));
+        assertEquals(0, subscription.getResubscribeCount());
+        assertTrue(manager.getSubscriptions().isEmpty());
+        assertEquals(0, simulator.getSubscriptionCount());
+    }
+
+    private static Subscribe newSubscribe(String itemName, int pingRate) {
+        var item = new SubscribeRequestItem();
+        item.setItemName(itemName);
+
+        var itemList = new SubscribeRequestItemList();
+        itemList.getItems().add(item);
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        subscribe.setReturnValuesOnReply(true);
+        subscribe.setSubscriptionPingRate(pingRate);
+        return subscribe;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.GetStatusResponse;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class TemplateClientTest {
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Int", 42))
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testAsyncWithCustomMessageSender() {
+        WebServiceTemplate template = newTemplate();
+
+        var client = new OpcXmlDaClient(template);
+
+        assertNotNull(client.getStatus().getStatus());
+        assertNotNull(client.getStatusAsync().join().getStatus());
+        assertEquals(2, simulator.getRequestCount());
+    }
+
+    @Test
+    public void testAsyncWithExplicitSettings() {
+        WebServiceTemplate template = newTemplate();
+        template.setDefaultUri(null);
+
+        var client = new OpcXmlDaClient(
+            template,
+            Locale.US,
+            URI.create(simulator.getEndpointUrl()),
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(1)
+        );
+
+        GetStatusResponse response = client.getStatusAsync().join();
+        assertNotNull(response.getStatus());
+    }
+
+    private WebServiceTemplate newTemplate() {
+        var marshaller = new Jaxb2Marshaller();
+        marshaller.setContextPath(OpcXmlDaClient.Builder.CONTEXT_PATH);
+
+        var messageSender = new HttpComponentsMessageSender();
+        messageSender.setConnectionTimeout(1000);
+        messageSender.setReadTimeout(1000);
+
+        var template = new WebServiceTemplate(marshaller);
+        template.setDefaultUri(simulator.getEndpointUrl());
+        template.setMessageSender(messageSender);
+        return template;
+    }
+
+}
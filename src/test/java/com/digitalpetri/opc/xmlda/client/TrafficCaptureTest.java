@@ -0,0 +1,261 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TrafficCaptureTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        var addressSpace = new SimulatedAddressSpace();
+        for (int i = 0; i < 5; i++) {
+            addressSpace.addItem("Static.Int" + i, i);
+        }
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testCaptureBothTransports() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        TrafficRecorder recorder = TrafficRecorder.newBuilder(directory).build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setTrafficRecorder(recorder)
+            .build();
+
+        simulator.setLatency(Duration.ofMillis(50), Duration.ZERO);
+
+        client.getStatus();
+        client.read(read(5));
+        client.readAsync(read(3)).get(5, TimeUnit.SECONDS);
+
+        // segments are readable while still being written
+        awaitRecorded(recorder, 3);
+        assertEquals(3, CapturedExchange.read(directory).size());
+
+        recorder.close();
+
+        List<CapturedExchange> exchanges = CapturedExchange.read(directory);
+        assertEquals(3, exchanges.size());
+        assertEquals("GetStatus", exchanges.get(0).getOperation());
+        assertEquals("Read", exchanges.get(1).getOperation());
+        assertEquals("Read", exchanges.get(2).getOperation());
+
+        for (CapturedExchange exchange : exchanges) {
+            assertEquals(200, exchange.getStatusCode());
+            assertTrue(exchange.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+
+            String request = new String(exchange.getRequest(), StandardCharsets.UTF_8);
+            String response = new String(exchange.getResponse(), StandardCharsets.UTF_8);
+            assertTrue(request.contains(exchange.getOperation()));
+            assertTrue(response.contains(exchange.getOperation() + "Response"));
+        }
+
+        assertTrue(new String(exchanges.get(1).getRequest(), StandardCharsets.UTF_8).contains("Static.Int4"));
+        assertTrue(new String(exchanges.get(2).getResponse(), StandardCharsets.UTF_8).contains("Static.Int2"));
+        assertTrue(exchanges.get(0).getStartTimeNanos() < exchanges.get(1).getStartTimeNanos());
+        assertEquals(0, recorder.getDroppedCount());
+    }
+
+    @Test
+    public void testCaptureFailure() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        TrafficRecorder recorder = TrafficRecorder.newBuilder(directory).build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setTrafficRecorder(recorder)
+            .build();
+
+        simulator.stop();
+
+        try {
+            client.readAsync(read(1)).get(5, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+            // expected
+        }
+
+        recorder.close();
+
+        List<CapturedExchange> exchanges = CapturedExchange.read(directory);
+        assertEquals(1, exchanges.size());
+        assertEquals(-1, exchanges.get(0).getStatusCode());
+        assertEquals(0, exchanges.get(0).getResponse().length);
+    }
+
+    @Test
+    public void testQueueBoundedByBytes() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        TrafficRecorder recorder = TrafficRecorder.newBuilder(directory)
+            .setMaxQueuedBytes(1024)
+            .build();
+
+        recorder.record("Read", System.nanoTime(), 0L, 200, new byte[512], new byte[256]);
+        recorder.record("Read", System.nanoTime(), 0L, 200, new byte[2048], null);
+        recorder.close();
+
+        assertEquals(1, recorder.getRecordedCount());
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(1, CapturedExchange.read(directory).size());
+    }
+
+    @Test
+    public void testRecordAfterWriterInterrupted() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        TrafficRecorder recorder = TrafficRecorder.newBuilder(directory).build();
+
+        recorder.record("Read", System.nanoTime(), 0L, 200, new byte[16], new byte[16]);
+        awaitRecorded(recorder, 1);
+
+        recorder.writer.interrupt();
+        recorder.writer.join(5000);
+
+        recorder.record("Read", System.nanoTime(), 0L, 200, new byte[16], new byte[16]);
+        recorder.close();
+
+        assertEquals(1, recorder.getRecordedCount());
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(1, CapturedExchange.read(directory).size());
+    }
+
+    @Test
+    public void testSegmentRotation() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        TrafficRecorder recorder = TrafficRecorder.newBuilder(directory)
+            .setMaxSegmentSize(1)
+            .setMaxSegments(3)
+            .build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setTrafficRecorder(recorder)
+            .build();
+
+        for (int i = 0; i < 10; i++) {
+            client.readAsync(read(1)).get(5, TimeUnit.SECONDS);
+        }
+        client.getStatusAsync().get(5, TimeUnit.SECONDS);
+
+        recorder.close();
+
+        assertEquals(3, TrafficRecorder.listSegments(directory).size());
+
+        // every record rolls the segment, so the newest segment is empty
+        List<CapturedExchange> exchanges = CapturedExchange.read(directory);
+        assertEquals(2, exchanges.size());
+        assertEquals("GetStatus", exchanges.get(1).getOperation());
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        TrafficRecorder recorder = TrafficRecorder.newBuilder(directory).build();
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setTrafficRecorder(recorder)
+            .build();
+
+        simulator.setLatency(Duration.ofMillis(100), Duration.ZERO);
+
+        for (int i = 0; i < 3; i++) {
+            client.readAsync(read(i + 1)).get(5, TimeUnit.SECONDS);
+        }
+        recorder.close();
+
+        List<CapturedExchange> exchanges = CapturedExchange.read(directory);
+        assertEquals(3, exchanges.size());
+
+        long requestsBefore = simulator.getRequestCount();
+
+        try (ReplayStub stub = ReplayStub.newBuilder(exchanges).build()) {
+            List<TrafficReplayer.Result> results = TrafficReplayer.newBuilder(exchanges)
+                .setSpeed(10.0)
+                .build()
+                .replay(stub.getEndpointUrl())
+                .get(10, TimeUnit.SECONDS);
+
+            assertEquals(3, results.size());
+            for (TrafficReplayer.Result result : results) {
+                assertNull(result.getFailure());
+                assertEquals(200, result.getStatusCode());
+                assertTrue(result.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(90));
+            }
+        }
+
+        // a client pointed at the stub gets the captured responses, in capture order
+        try (ReplayStub stub = ReplayStub.newBuilder(exchanges).setSpeed(10.0).build()) {
+            OpcXmlDaClient replayClient = OpcXmlDaClient.newBuilder()
+                .setServerUrl(stub.getEndpointUrl())
+                .build();
+
+            for (int i = 0; i < 3; i++) {
+                ReadResponse response = replayClient.read(read(1));
+
+                assertEquals(i + 1, response.getRItemList().getItems().size());
+            }
+
+            assertEquals(3, stub.getRequestCount());
+            assertEquals(0, stub.getUnmatchedCount());
+        }
+
+        assertEquals(requestsBefore, simulator.getRequestCount());
+    }
+
+    private static void awaitRecorded(TrafficRecorder recorder, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (recorder.getRecordedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, recorder.getRecordedCount());
+    }
+
+    private static Read read(int itemCount) {
+        var read = new Read();
+        read.setItemList(new ReadRequestItemList());
+
+        for (int i = 0; i < itemCount; i++) {
+            var item = new ReadRequestItem();
+            item.setItemName("Static.Int" + i);
+            read.getItemList().getItems().add(item);
+        }
+
+        return read;
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadsTest {
+
+    private OpcXmlDaSimulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(new SimulatedAddressSpace().addItem("Static.Double", 1.0))
+            .build()
+            .start();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testBlockingReadsOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable());
+
+        simulator.setLatency(Duration.ofMillis(50), Duration.ZERO);
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setMaxConnections(500)
+            .setMaxConnectionsPerRoute(500)
+            .setRequestEncoding(RequestEncoding.FAST_PATH)
+            .setVirtualThreads(true)
+            .build();
+
+        ExecutorService executor = VirtualThreads.newExecutor("test-");
+        try {
+            var futures = new ArrayList<CompletableFuture<Object>>();
+            for (int i = 0; i < 500; i++) {
+                boolean blocking = i % 2 == 0;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    assertTrue(VirtualThreads.isVirtual(Thread.currentThread()));
+
+                    return blocking ?
+                        client.read(read()).getRItemList().getItems().get(0).getValue() :
+                        client.readAsync(read()).join().getRItemList().getItems().get(0).getValue();
+                }, executor));
+            }
+
+            for (CompletableFuture<Object> future : futures) {
+                assertEquals(1.0, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testListenersNotifiedOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable());
+
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+
+        OpcXmlDaSubscriptionManager manager = OpcXmlDaSubscriptionManager.newBuilder(client)
+            .setVirtualThreads(true)
+            .build();
+
+        var delivered = new CompletableFuture<Boolean>();
+
+        manager.createSubscription(subscribe(), new SubscriptionListener() {
+            @Override
+            public void onItemValues(OpcXmlDaSubscription subscription, List<ItemValue> itemValues) {
+                delivered.complete(VirtualThreads.isVirtual(Thread.currentThread()));
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(delivered.get(5, TimeUnit.SECONDS));
+
+        manager.deleteAll().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testUnavailableBeforeJava21() {
+        assumeFalse(VirtualThreads.isAvailable());
+
+        assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+
+        try {
+            OpcXmlDaClient.newBuilder()
+                .setServerUrl(simulator.getEndpointUrl())
+                .setVirtualThreads(true)
+                .build();
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+
+        // an explicit executor takes precedence
+        var delivered = new AtomicBoolean();
+        OpcXmlDaClient client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .setExecutor(r -> {
+                delivered.set(true);
+                r.run();
+            })
+            .setVirtualThreads(true)
+            .build();
+
+        assertEquals(1.0, client.readAsync(read()).join().getRItemList().getItems().get(0).getValue());
+        assertTrue(delivered.get());
+    }
+
+    private static Read read() {
+        var item = new ReadRequestItem();
+        item.setItemName("Static.Double");
+
+        var itemList = new ReadRequestItemList();
+        itemList.getItems().add(item);
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+    private static Subscribe subscribe() {
+        var item = new SubscribeRequestItem();
+        item.setItemName("Static.Double");
+
+        var itemList = new SubscribeRequestItemList();
+        itemList.getItems().add(item);
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        subscribe.setReturnValuesOnReply(true);
+        return subscribe;
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.digitalpetri.opc.xmlda.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+
+import com.digitalpetri.opc.xmlda.simulator.OpcXmlDaSimulator;
+import com.digitalpetri.opc.xmlda.simulator.SimulatedAddressSpace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.WriteResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WritePipelineTest {
+
+    private static final String OPC_NAMESPACE = "http://opcfoundation.org/webservices/XMLDA/1.0/";
+
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        var addressSpace = new SimulatedAddressSpace()
+            .addItem("Static.ReadOnly", 0, false);
+
+        for (int i = 0; i < 10; i++) {
+            addressSpace.addItem("Static.Int" + i, 0);
+        }
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testLastValueWins() throws Exception {
+        WritePipeline pipeline = WritePipeline.newBuilder(client)
+            .setMaxDelay(Duration.ofMillis(100))
+            .build();
+
+        long requestCount = simulator.getRequestCount();
+
+        var superseded = new ArrayList<CompletableFuture<WriteResult>>();
+        for (int i = 1; i < 5; i++) {
+            superseded.add(pipeline.write("Static.Int0", i));
+        }
+        CompletableFuture<WriteResult> last = pipeline.write("Static.Int0", 5);
+        CompletableFuture<WriteResult> other = pipeline.write("Static.Int1", 42);
+
+        WriteResult result = last.get(5, TimeUnit.SECONDS);
+        assertTrue(result.isGood());
+        assertFalse(result.isSuperseded());
+        assertTrue(other.get(5, TimeUnit.SECONDS).isGood());
+
+        for (CompletableFuture<WriteResult> future : superseded) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isSuperseded());
+        }
+
+        assertEquals(1, simulator.getRequestCount() - requestCount);
+        assertEquals(1, pipeline.getRequestCount());
+        assertEquals(4, pipeline.getCoalescedCount());
+        assertEquals(5, read("Static.Int0"));
+        assertEquals(42, read("Static.Int1"));
+    }
+
+    @Test
+    public void testPerItemErrors() throws Exception {
+        WritePipeline pipeline = WritePipeline.newBuilder(client).build();
+
+        CompletableFuture<WriteResult> good = pipeline.write("Static.Int2", 1);
+        CompletableFuture<WriteResult> readOnly = pipeline.write("Static.ReadOnly", 1);
+
+        pipeline.flush().get(5, TimeUnit.SECONDS);
+
+        assertTrue(good.get().isGood());
+        assertNull(good.get().getError());
+
+        WriteResult result = readOnly.get();
+        assertFalse(result.isGood());
+        assertNotNull(result.getError());
+        assertEquals(result.getItemValue().getResultID(), result.getError().getID());
+        assertEquals("Static.ReadOnly", result.getItemValue().getItemName());
+    }
+
+    @Test
+    public void testSuccessResultIdIsNotAnError() {
+        var response = new WriteResponse();
+
+        var clamped = new ItemValue();
+        clamped.setResultID(new QName(OPC_NAMESPACE, "S_CLAMP"));
+        assertNull(WritePipeline.error(clamped, response));
+        assertTrue(new WriteResult(clamped, null, false).isGood());
+
+        var failed = new ItemValue();
+        failed.setResultID(new QName(OPC_NAMESPACE, "E_BADRIGHTS"));
+        assertEquals(failed.getResultID(), WritePipeline.error(failed, response).getID());
+    }
+
+    @Test
+    public void testMaxItemsAndNoCoalescing() throws Exception {
+        WritePipeline pipeline = WritePipeline.newBuilder(client)
+            .setMaxDelay(Duration.ofSeconds(10))
+            .setMaxItems(5)
+            .setCoalesce(false)
+            .build();
+
+        var futures = new ArrayList<CompletableFuture<WriteResult>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(pipeline.write("Static.Int" + i, i));
+        }
+
+        // two full batches are sent without waiting for maxDelay
+        for (CompletableFuture<WriteResult> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isGood());
+        }
+        assertEquals(2, pipeline.getRequestCount());
+
+        // a second write to a queued item sends the first, so the server sees both in order
+        CompletableFuture<WriteResult> first = pipeline.write("Static.Int0", 100);
+        CompletableFuture<WriteResult> second = pipeline.write("Static.Int0", 200);
+        pipeline.flush().get(5, TimeUnit.SECONDS);
+
+        assertFalse(first.get().isSuperseded());
+        assertFalse(second.get().isSuperseded());
+        assertEquals(4, pipeline.getRequestCount());
+        assertEquals(200, read("Static.Int0"));
+    }
+
+    @Test
+    public void testRequestFailureFailsEveryWrite() throws Exception {
+        WritePipeline pipeline = WritePipeline.newBuilder(client).build();
+
+        simulator.setFaultRate(1.0);
+
+        CompletableFuture<WriteResult> a = pipeline.write("Static.Int0", 1);
+        CompletableFuture<WriteResult> b = pipeline.write("Static.Int0", 2);
+        pipeline.flush().get(5, TimeUnit.SECONDS);
+
+        for (CompletableFuture<WriteResult> future : List.of(a, b)) {
+            try {
+                future.get();
+                fail("expected failure");
+            } catch (Exception e) {
+                assertTrue(e.getCause() instanceof SoapFaultException);
+            }
+        }
+    }
+
+    private Object read(String itemName) {
+        var item = new ReadRequestItem();
+        item.setItemName(itemName);
+
+        var itemList = new ReadRequestItemList();
+        itemList.getItems().add(item);
+
+        var read = new Read();
+        read.setItemList(itemList);
+
+        return client.read(read).getRItemList().getItems().get(0).getValue();
+    }
+
+}
@@ -0,0 +1,1043 @@
+package com.digitalpetri.opc.xmlda.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.opcfoundation.xmlda.Browse;
+import org.opcfoundation.xmlda.BrowseElement;
+import org.opcfoundation.xmlda.BrowseFilter;
+import org.opcfoundation.xmlda.BrowseResponse;
+import org.opcfoundation.xmlda.GetProperties;
+import org.opcfoundation.xmlda.GetPropertiesResponse;
+import org.opcfoundation.xmlda.GetStatus;
+import org.opcfoundation.xmlda.GetStatusResponse;
+import org.opcfoundation.xmlda.InterfaceVersion;
+import org.opcfoundation.xmlda.ItemIdentifier;
+import org.opcfoundation.xmlda.ItemProperty;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.OPCError;
+import org.opcfoundation.xmlda.OPCQuality;
+import org.opcfoundation.xmlda.PropertyReplyList;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.ReplyBase;
+import org.opcfoundation.xmlda.ReplyItemList;
+import org.opcfoundation.xmlda.RequestOptions;
+import org.opcfoundation.xmlda.ServerState;
+import org.opcfoundation.xmlda.ServerStatus;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeItemValue;
+import org.opcfoundation.xmlda.SubscribePolledRefreshReplyItemList;
+import org.opcfoundation.xmlda.SubscribeReplyItemList;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.SubscriptionCancel;
+import org.opcfoundation.xmlda.SubscriptionCancelResponse;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.opcfoundation.xmlda.SubscriptionPolledRefreshResponse;
+import org.opcfoundation.xmlda.Write;
+import org.opcfoundation.xmlda.WriteResponse;
+
+/**
+ * An embedded OPC XML-DA server implementing all eight operations of the XML-DA 1.0 WSDL against a
+ * {@link SimulatedAddressSpace}, for testing and load-testing the client without a real server.
+ * <p>
+ * Latency, SOAP faults, HTTP 503 responses and the reported {@link ServerState} can be injected and changed while
+ * the simulator is running.
+ *
+ * @author Kevin Herron
+ */
+public class OpcXmlDaSimulator implements AutoCloseable {
+
+    static {
+        // otherwise Nagle's algorithm on the server side dominates small-response latency
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final String OPC_NS = "http://opcfoundation.org/webservices/XMLDA/1.0/";
+    private static final String SOAP_ENV_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private static final QName E_UNKNOWNITEMNAME = new QName(OPC_NS, "E_UNKNOWNITEMNAME");
+    private static final QName E_READONLY = new QName(OPC_NS, "E_READONLY");
+    private static final QName E_INVALIDPID = new QName(OPC_NS, "E_INVALIDPID");
+    private static final QName E_INVALIDCONTINUATIONPOINT = new QName(OPC_NS, "E_INVALIDCONTINUATIONPOINT");
+
+    private static final Map<QName, String> ERROR_TEXT = Map.of(
+        E_UNKNOWNITEMNAME, "The item name is not known to the server.",
+        E_READONLY, "The item is read-only.",
+        E_INVALIDPID, "The property is not valid for the item.",
+        E_INVALIDCONTINUATIONPOINT, "The continuation point is not valid."
+    );
+
+    private static final List<String> PROPERTY_NAMES =
+        List.of("dataType", "value", "quality", "timestamp", "accessRights", "description");
+
+    private static final long WAIT_POLL_INTERVAL_MILLIS = 10L;
+
+    private static final DatatypeFactory DATATYPE_FACTORY;
+
+    static {
+        try {
+            DATATYPE_FACTORY = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<String, SimulatedSubscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong subscriptionHandles = new AtomicLong(0L);
+    private final AtomicLong requestCount = new AtomicLong(0L);
+    private final AtomicLong compressedRequestCount = new AtomicLong(0L);
+    private final AtomicLong compressedResponseCount = new AtomicLong(0L);
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+    private volatile long startTime = System.currentTimeMillis();
+
+    private volatile long latencyMillis = 0L;
+    private volatile long latencyJitterMillis = 0L;
+    private volatile int slowRequestInterval = 0;
+    private volatile long slowRequestMillis = 0L;
+    private volatile double faultRate = 0.0;
+    private volatile double unavailableRate = 0.0;
+    private volatile ServerState serverState = ServerState.RUNNING;
+    private volatile boolean dataBufferOverflow = false;
+    private volatile XMLGregorianCalendar lastReadDeadline;
+
+    private final SimulatedAddressSpace addressSpace;
+    private final JAXBContext jaxbContext;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+
+    private OpcXmlDaSimulator(SimulatedAddressSpace addressSpace, int port) throws IOException {
+        this.addressSpace = addressSpace;
+
+        try {
+            jaxbContext = JAXBContext.newInstance("org.opcfoundation.xmlda");
+        } catch (JAXBException e) {
+            throw new IOException("failed to create JAXBContext", e);
+        }
+
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        // long-polling refreshes hold a thread each, so the pool is unbounded
+        executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "opc-xmlda-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "opc-xmlda-simulator-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public OpcXmlDaSimulator start() {
+        server.start();
+
+        scheduler.scheduleWithFixedDelay(this::expireSubscriptions, 1, 1, TimeUnit.SECONDS);
+
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public String getEndpointUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public SimulatedAddressSpace getAddressSpace() {
+        return addressSpace;
+    }
+
+    /**
+     * Delay every response by {@code latency} plus a uniformly distributed random amount up to {@code jitter}.
+     */
+    public void setLatency(Duration latency, Duration jitter) {
+        this.latencyMillis = latency.toMillis();
+        this.latencyJitterMillis = jitter.toMillis();
+    }
+
+    /**
+     * Delay every {@code interval}th request by an extra {@code latency}, on top of {@link #setLatency}, or none if
+     * {@code interval} is 0.
+     */
+    public void setSlowRequests(int interval, Duration latency) {
+        this.slowRequestMillis = latency.toMillis();
+        this.slowRequestInterval = interval;
+    }
+
+    /**
+     * Answer the given fraction of requests, between 0.0 and 1.0, with a SOAP fault.
+     */
+    public void setFaultRate(double faultRate) {
+        this.faultRate = faultRate;
+    }
+
+    /**
+     * Answer the given fraction of requests, between 0.0 and 1.0, with HTTP 503 Service Unavailable.
+     */
+    public void setUnavailableRate(double unavailableRate) {
+        this.unavailableRate = unavailableRate;
+    }
+
+    /**
+     * Set the ServerState reported in every reply.
+     */
+    public void setServerState(ServerState serverState) {
+        this.serverState = serverState;
+    }
+
+    /**
+     * Set whether every SubscriptionPolledRefresh reply reports DataBufferOverflow.
+     */
+    public void setDataBufferOverflow(boolean dataBufferOverflow) {
+        this.dataBufferOverflow = dataBufferOverflow;
+    }
+
+    /**
+     * Simulate a server restart: every subscription is forgotten and GetStatus reports a new StartTime.
+     */
+    public void restart() {
+        subscriptions.clear();
+        startTime = Math.max(System.currentTimeMillis(), startTime + 1);
+    }
+
+    /**
+     * @return the RequestDeadline of the last Read received, or {@code null} if it had none.
+     */
+    public XMLGregorianCalendar getLastReadDeadline() {
+        return lastReadDeadline;
+    }
+
+    /**
+     * @return the number of HTTP requests received so far.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of requests received with a gzip-compressed body.
+     */
+    public long getCompressedRequestCount() {
+        return compressedRequestCount.get();
+    }
+
+    /**
+     * @return the number of responses sent gzip-compressed because the request accepted it.
+     */
+    public long getCompressedResponseCount() {
+        return compressedResponseCount.get();
+    }
+
+    /**
+     * @return the number of subscriptions that have not been cancelled or expired.
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    //region Transport
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long requestNumber = requestCount.incrementAndGet();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            compressedRequestCount.incrementAndGet();
+        }
+
+        long rcvTime = System.currentTimeMillis();
+
+        try {
+            Object request;
+            try (InputStream in = requestBody(exchange)) {
+                request = decode(in);
+            } catch (JAXBException | XMLStreamException e) {
+                sendFault(exchange, "soap:Client", "malformed request: " + e.getMessage());
+                return;
+            }
+
+            injectLatency(requestNumber);
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            if (random.nextDouble() < unavailableRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            if (random.nextDouble() < faultRate) {
+                sendFault(exchange, "soap:Server", "injected fault");
+                return;
+            }
+
+            Object response;
+            try {
+                response = dispatch(request, rcvTime);
+            } catch (IllegalArgumentException e) {
+                sendFault(exchange, "soap:Client", e.getMessage());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendFault(exchange, "soap:Server", "interrupted");
+                return;
+            }
+
+            send(exchange, 200, encode(response));
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Object dispatch(Object request, long rcvTime) throws InterruptedException {
+        if (request instanceof GetStatus) {
+            return getStatus((GetStatus) request, rcvTime);
+        } else if (request instanceof Browse) {
+            return browse((Browse) request, rcvTime);
+        } else if (request instanceof GetProperties) {
+            return getProperties((GetProperties) request, rcvTime);
+        } else if (request instanceof Read) {
+            return read((Read) request, rcvTime);
+        } else if (request instanceof Write) {
+            return write((Write) request, rcvTime);
+        } else if (request instanceof Subscribe) {
+            return subscribe((Subscribe) request, rcvTime);
+        } else if (request instanceof SubscriptionPolledRefresh) {
+            return subscriptionPolledRefresh((SubscriptionPolledRefresh) request, rcvTime);
+        } else if (request instanceof SubscriptionCancel) {
+            return subscriptionCancel((SubscriptionCancel) request);
+        } else {
+            throw new IllegalArgumentException("unsupported operation: " + request.getClass().getSimpleName());
+        }
+    }
+
+    private void injectLatency(long requestNumber) {
+        long delay = latencyMillis;
+        long jitter = latencyJitterMillis;
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        int interval = slowRequestInterval;
+        if (interval > 0 && requestNumber % interval == 0) {
+            delay += slowRequestMillis;
+        }
+
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Object decode(InputStream in) throws JAXBException, XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+
+        boolean inBody = false;
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                if (inBody) {
+                    Object request = jaxbContext.createUnmarshaller().unmarshal(reader);
+                    return request instanceof JAXBElement ? ((JAXBElement<?>) request).getValue() : request;
+                }
+                inBody = SOAP_ENV_NS.equals(reader.getNamespaceURI()) && "Body".equals(reader.getLocalName());
+            }
+        }
+
+        throw new XMLStreamException("no SOAP Body content");
+    }
+
+    private byte[] encode(Object response) throws JAXBException, XMLStreamException {
+        var buffer = new ByteArrayOutputStream(1024);
+
+        XMLStreamWriter writer = startEnvelope(buffer);
+
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        marshaller.marshal(response, writer);
+
+        endEnvelope(writer);
+
+        return buffer.toByteArray();
+    }
+
+    private void sendFault(HttpExchange exchange, String faultCode, String faultString) throws IOException {
+        var buffer = new ByteArrayOutputStream(512);
+
+        try {
+            XMLStreamWriter writer = startEnvelope(buffer);
+            writer.writeStartElement("soap", "Fault", SOAP_ENV_NS);
+            writer.writeStartElement("faultcode");
+            writer.writeCharacters(faultCode);
+            writer.writeEndElement();
+            writer.writeStartElement("faultstring");
+            writer.writeCharacters(faultString);
+            writer.writeEndElement();
+            writer.writeEndElement();
+            endEnvelope(writer);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+
+        send(exchange, 500, buffer.toByteArray());
+    }
+
+    private XMLStreamWriter startEnvelope(OutputStream out) throws XMLStreamException {
+        XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("soap", "Envelope", SOAP_ENV_NS);
+        writer.writeNamespace("soap", SOAP_ENV_NS);
+        writer.writeStartElement("soap", "Body", SOAP_ENV_NS);
+        return writer;
+    }
+
+    private static void endEnvelope(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+    }
+
+    private static InputStream requestBody(HttpExchange exchange) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+
+        return "gzip".equalsIgnoreCase(contentEncoding) ?
+            new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            var buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (var out = new GZIPOutputStream(buffer)) {
+                out.write(body);
+            }
+            body = buffer.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            compressedResponseCount.incrementAndGet();
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    //endregion
+
+    //region Operations
+
+    private GetStatusResponse getStatus(GetStatus request, long rcvTime) {
+        var status = new ServerStatus();
+        status.setStatusInfo(serverState.value());
+        status.setVendorInfo("digitalpetri OPC XML-DA Simulator");
+        status.setProductVersion("1.0");
+        status.setStartTime(calendar(startTime));
+        status.getSupportedLocaleIDs().add("en-US");
+        status.getSupportedInterfaceVersions().add(InterfaceVersion.XML_DA_VERSION_1_0);
+
+        var response = new GetStatusResponse();
+        response.setGetStatusResult(replyBase(rcvTime, request.getClientRequestHandle(), request.getLocaleID()));
+        response.setStatus(status);
+        return response;
+    }
+
+    private BrowseResponse browse(Browse request, long rcvTime) {
+        var response = new BrowseResponse();
+        response.setBrowseResult(replyBase(rcvTime, request.getClientRequestHandle(), request.getLocaleID()));
+
+        String parent = request.getItemName() != null ? request.getItemName() : "";
+
+        if (!addressSpace.isBranch(parent)) {
+            if (addressSpace.getItem(parent) == null) {
+                response.getErrors().add(error(E_UNKNOWNITEMNAME, request.isReturnErrorText()));
+            }
+            return response;
+        }
+
+        int offset = 0;
+        if (request.getContinuationPoint() != null && !request.getContinuationPoint().isEmpty()) {
+            try {
+                offset = Integer.parseInt(request.getContinuationPoint());
+            } catch (NumberFormatException e) {
+                response.getErrors().add(error(E_INVALIDCONTINUATIONPOINT, request.isReturnErrorText()));
+                return response;
+            }
+        }
+
+        int max = request.getMaxElementsReturned() > 0 ? request.getMaxElementsReturned() : Integer.MAX_VALUE;
+        int childCount = addressSpace.getChildCount(parent);
+        BrowseFilter filter = request.getBrowseFilter();
+        Pattern namePattern = wildcardPattern(request.getElementNameFilter());
+        boolean includeProperties = request.isReturnAllProperties() || !request.getPropertyNames().isEmpty();
+        long now = System.currentTimeMillis();
+
+        while (offset < childCount && response.getElements().size() < max) {
+            List<SimulatedAddressSpace.Child> children = addressSpace.browse(parent, offset, 1024);
+
+            for (SimulatedAddressSpace.Child child : children) {
+                offset++;
+
+                SimulatedItem item = child.hasChildren ? null : addressSpace.getItem(child.itemName);
+                boolean isItem = item != null;
+
+                if (filter == BrowseFilter.BRANCH && !child.hasChildren) continue;
+                if (filter == BrowseFilter.ITEM && !isItem) continue;
+                if (namePattern != null && !namePattern.matcher(child.name).matches()) continue;
+
+                var element = new BrowseElement();
+                element.setName(child.name);
+                element.setItemName(child.itemName);
+                element.setItemPath(request.getItemPath());
+                element.setIsItem(isItem);
+                element.setHasChildren(child.hasChildren);
+
+                if (isItem && includeProperties) {
+                    element.getProperties().addAll(properties(
+                        item,
+                        request.isReturnAllProperties(),
+                        request.getPropertyNames(),
+                        request.isReturnPropertyValues(),
+                        request.isReturnErrorText(),
+                        now
+                    ));
+                }
+
+                response.getElements().add(element);
+
+                if (response.getElements().size() >= max) break;
+            }
+        }
+
+        if (offset < childCount) {
+            response.setContinuationPoint(String.valueOf(offset));
+            response.setMoreElements(true);
+        }
+
+        return response;
+    }
+
+    private GetPropertiesResponse getProperties(GetProperties request, long rcvTime) {
+        var response = new GetPropertiesResponse();
+        response.setGetPropertiesResult(
+            replyBase(rcvTime, request.getClientRequestHandle(), request.getLocaleID()));
+
+        long now = System.currentTimeMillis();
+
+        for (ItemIdentifier itemId : request.getItemIDs()) {
+            var replyList = new PropertyReplyList();
+            replyList.setItemPath(itemId.getItemPath() != null ? itemId.getItemPath() : request.getItemPath());
+            replyList.setItemName(itemId.getItemName());
+
+            SimulatedItem item = addressSpace.getItem(itemId.getItemName());
+
+            if (item == null) {
+                replyList.setResultID(E_UNKNOWNITEMNAME);
+                addError(response.getErrors(), E_UNKNOWNITEMNAME, request.isReturnErrorText());
+            } else {
+                replyList.getProperties().addAll(properties(
+                    item,
+                    request.isReturnAllProperties(),
+                    request.getPropertyNames(),
+                    request.isReturnPropertyValues(),
+                    request.isReturnErrorText(),
+                    now
+                ));
+            }
+
+            response.getPropertyLists().add(replyList);
+        }
+
+        return response;
+    }
+
+    private ReadResponse read(Read request, long rcvTime) {
+        RequestOptions options = options(request.getOptions());
+        lastReadDeadline = options.getRequestDeadline();
+        ReadRequestItemList itemList = request.getItemList();
+
+        var replyList = new ReplyItemList();
+        var errors = new ArrayList<OPCError>();
+        long now = System.currentTimeMillis();
+
+        if (itemList != null) {
+            for (ReadRequestItem requestItem : itemList.getItems()) {
+                String itemPath = requestItem.getItemPath() != null ?
+                    requestItem.getItemPath() : itemList.getItemPath();
+
+                ItemValue itemValue = itemValue(
+                    addressSpace.getItem(requestItem.getItemName()),
+                    itemPath,
+                    requestItem.getItemName(),
+                    requestItem.getClientItemHandle(),
+                    options,
+                    true,
+                    now
+                );
+
+                if (itemValue.getResultID() != null) {
+                    addError(errors, itemValue.getResultID(), options.isReturnErrorText());
+                }
+
+                replyList.getItems().add(itemValue);
+            }
+        }
+
+        var response = new ReadResponse();
+        response.setReadResult(replyBase(rcvTime, options.getClientRequestHandle(), options.getLocaleID()));
+        response.setRItemList(replyList);
+        response.getErrors().addAll(errors);
+        return response;
+    }
+
+    private WriteResponse write(Write request, long rcvTime) {
+        RequestOptions options = options(request.getOptions());
+
+        var replyList = new ReplyItemList();
+        var errors = new ArrayList<OPCError>();
+        long now = System.currentTimeMillis();
+
+        if (request.getItemList() != null) {
+            for (ItemValue requestItem : request.getItemList().getItems()) {
+                String itemPath = requestItem.getItemPath() != null ?
+                    requestItem.getItemPath() : request.getItemList().getItemPath();
+
+                SimulatedItem item = addressSpace.getItem(requestItem.getItemName());
+
+                ItemValue itemValue;
+                if (item != null && !item.isWritable()) {
+                    itemValue = itemValue(null, itemPath, requestItem.getItemName(),
+                        requestItem.getClientItemHandle(), options, false, now);
+                    itemValue.setResultID(E_READONLY);
+                } else {
+                    if (item != null) {
+                        item.setValue(requestItem.getValue(), now);
+                    }
+                    itemValue = itemValue(item, itemPath, requestItem.getItemName(),
+                        requestItem.getClientItemHandle(), options, request.isReturnValuesOnReply(), now);
+                }
+
+                if (itemValue.getResultID() != null) {
+                    addError(errors, itemValue.getResultID(), options.isReturnErrorText());
+                }
+
+                replyList.getItems().add(itemValue);
+            }
+        }
+
+        var response = new WriteResponse();
+        response.setWriteResult(replyBase(rcvTime, options.getClientRequestHandle(), options.getLocaleID()));
+        response.setRItemList(replyList);
+        response.getErrors().addAll(errors);
+        return response;
+    }
+
+    private SubscribeResponse subscribe(Subscribe request, long rcvTime) {
+        RequestOptions options = options(request.getOptions());
+        SubscribeRequestItemList itemList = request.getItemList();
+
+        var replyList = new SubscribeReplyItemList();
+        var errors = new ArrayList<OPCError>();
+        var entries = new ArrayList<SimulatedSubscription.Entry>();
+        long now = System.currentTimeMillis();
+
+        if (itemList != null) {
+            replyList.setRevisedSamplingRate(itemList.getRequestedSamplingRate());
+
+            for (SubscribeRequestItem requestItem : itemList.getItems()) {
+                String itemPath = requestItem.getItemPath() != null ?
+                    requestItem.getItemPath() : itemList.getItemPath();
+
+                SimulatedItem item = addressSpace.getItem(requestItem.getItemName());
+
+                if (item != null) {
+                    entries.add(new SimulatedSubscription.Entry(item, itemPath, requestItem.getClientItemHandle()));
+                }
+
+                if (item == null || request.isReturnValuesOnReply()) {
+                    ItemValue itemValue = itemValue(item, itemPath, requestItem.getItemName(),
+                        requestItem.getClientItemHandle(), options, true, now);
+
+                    if (itemValue.getResultID() != null) {
+                        addError(errors, itemValue.getResultID(), options.isReturnErrorText());
+                    }
+
+                    var subscribeItemValue = new SubscribeItemValue();
+                    subscribeItemValue.setItemValue(itemValue);
+                    replyList.getItems().add(subscribeItemValue);
+                }
+            }
+        }
+
+        String serverSubHandle = String.valueOf(subscriptionHandles.incrementAndGet());
+
+        var subscription = new SimulatedSubscription(
+            serverSubHandle,
+            request.getSubscriptionPingRate(),
+            entries,
+            now
+        );
+
+        if (request.isReturnValuesOnReply()) {
+            subscription.markAllReported(now);
+        }
+
+        subscriptions.put(serverSubHandle, subscription);
+
+        var response = new SubscribeResponse();
+        response.setSubscribeResult(replyBase(rcvTime, options.getClientRequestHandle(), options.getLocaleID()));
+        response.setRItemList(replyList);
+        response.setServerSubHandle(serverSubHandle);
+        response.getErrors().addAll(errors);
+        return response;
+    }
+
+    private SubscriptionPolledRefreshResponse subscriptionPolledRefresh(
+        SubscriptionPolledRefresh request, long rcvTime) throws InterruptedException {
+
+        RequestOptions options = options(request.getOptions());
+
+        var active = new ArrayList<SimulatedSubscription>();
+        var response = new SubscriptionPolledRefreshResponse();
+
+        for (String handle : request.getServerSubHandles()) {
+            SimulatedSubscription subscription = subscriptions.get(handle);
+
+            if (subscription != null) {
+                subscription.touch(rcvTime);
+                active.add(subscription);
+            } else {
+                response.getInvalidServerSubHandles().add(handle);
+            }
+        }
+
+        long holdTime = request.getHoldTime() != null ? toEpochMillis(request.getHoldTime()) : rcvTime;
+        long deadline = Math.max(holdTime, rcvTime) + request.getWaitTime();
+
+        long now = System.currentTimeMillis();
+        if (holdTime > now) {
+            Thread.sleep(holdTime - now);
+        }
+
+        if (!request.isReturnAllItems()) {
+            while ((now = System.currentTimeMillis()) < deadline && !active.isEmpty()) {
+                long checkTime = now;
+                if (active.stream().anyMatch(s -> s.hasChanges(checkTime))) break;
+
+                Thread.sleep(Math.min(WAIT_POLL_INTERVAL_MILLIS, deadline - now));
+            }
+        }
+
+        now = System.currentTimeMillis();
+
+        var errors = new ArrayList<OPCError>();
+
+        for (SimulatedSubscription subscription : active) {
+            subscription.touch(now);
+
+            List<SimulatedSubscription.Entry> collected = subscription.collect(now, request.isReturnAllItems());
+            if (collected.isEmpty()) continue;
+
+            var replyList = new SubscribePolledRefreshReplyItemList();
+            replyList.setSubscriptionHandle(subscription.getServerSubHandle());
+
+            for (SimulatedSubscription.Entry entry : collected) {
+                ItemValue itemValue = itemValue(entry.item, entry.itemPath, entry.item.getItemName(),
+                    entry.clientItemHandle, options, true, now);
+
+                if (itemValue.getResultID() != null) {
+                    addError(errors, itemValue.getResultID(), options.isReturnErrorText());
+                }
+
+                replyList.getItems().add(itemValue);
+            }
+
+            response.getRItemList().add(replyList);
+        }
+
+        response.setSubscriptionPolledRefreshResult(
+            replyBase(rcvTime, options.getClientRequestHandle(), options.getLocaleID()));
+        response.getErrors().addAll(errors);
+        if (dataBufferOverflow) {
+            response.setDataBufferOverflow(true);
+        }
+        return response;
+    }
+
+    private SubscriptionCancelResponse subscriptionCancel(SubscriptionCancel request) {
+        subscriptions.remove(request.getServerSubHandle());
+
+        var response = new SubscriptionCancelResponse();
+        response.setClientRequestHandle(request.getClientRequestHandle());
+        return response;
+    }
+
+    private void expireSubscriptions() {
+        long now = System.currentTimeMillis();
+
+        subscriptions.values().removeIf(subscription -> subscription.isExpired(now));
+    }
+
+    //endregion
+
+    //region Helpers
+
+    private ItemValue itemValue(
+        SimulatedItem item,
+        String itemPath,
+        String itemName,
+        String clientItemHandle,
+        RequestOptions options,
+        boolean returnValue,
+        long now) {
+
+        var itemValue = new ItemValue();
+        itemValue.setClientItemHandle(clientItemHandle);
+
+        if (options.isReturnItemPath()) {
+            itemValue.setItemPath(itemPath);
+        }
+        if (options.isReturnItemName()) {
+            itemValue.setItemName(itemName);
+        }
+
+        if (item == null) {
+            itemValue.setResultID(E_UNKNOWNITEMNAME);
+            if (options.isReturnDiagnosticInfo()) {
+                itemValue.setDiagnosticInfo("no such item: " + itemName);
+            }
+        } else if (returnValue) {
+            itemValue.setValue(item.getValue(now));
+            itemValue.setQuality(new OPCQuality());
+            if (options.isReturnItemTime()) {
+                itemValue.setTimestamp(calendar(item.getTimestamp(now)));
+            }
+        }
+
+        return itemValue;
+    }
+
+    private List<ItemProperty> properties(
+        SimulatedItem item,
+        boolean returnAll,
+        List<QName> propertyNames,
+        boolean returnValues,
+        boolean returnErrorText,
+        long now) {
+
+        var properties = new ArrayList<ItemProperty>();
+
+        if (returnAll) {
+            for (String name : PROPERTY_NAMES) {
+                properties.add(property(item, name, returnValues, now));
+            }
+        } else {
+            for (QName name : propertyNames) {
+                if (PROPERTY_NAMES.contains(name.getLocalPart())) {
+                    properties.add(property(item, name.getLocalPart(), returnValues, now));
+                } else {
+                    var property = new ItemProperty();
+                    property.setName(name);
+                    property.setResultID(E_INVALIDPID);
+                    if (returnErrorText) {
+                        property.setDescription(ERROR_TEXT.get(E_INVALIDPID));
+                    }
+                    properties.add(property);
+                }
+            }
+        }
+
+        return properties;
+    }
+
+    private ItemProperty property(SimulatedItem item, String name, boolean returnValue, long now) {
+        var property = new ItemProperty();
+        property.setName(new QName(OPC_NS, name));
+
+        Object value;
+        switch (name) {
+            case "dataType":
+                property.setDescription("Item Canonical DataType");
+                value = item.getDataType(now);
+                break;
+            case "value":
+                property.setDescription("Item Value");
+                value = item.getValue(now);
+                break;
+            case "quality":
+                property.setDescription("Item Quality");
+                value = new OPCQuality();
+                break;
+            case "timestamp":
+                property.setDescription("Item Timestamp");
+                value = calendar(item.getTimestamp(now));
+                break;
+            case "accessRights":
+                property.setDescription("Item Access Rights");
+                value = item.isWritable() ? "readWritable" : "readable";
+                break;
+            default:
+                property.setDescription("Item Description");
+                value = "Simulated item " + item.getItemName();
+                break;
+        }
+
+        if (returnValue) {
+            property.setValue(value);
+        }
+
+        return property;
+    }
+
+    private ReplyBase replyBase(long rcvTime, String clientRequestHandle, String localeId) {
+        var replyBase = new ReplyBase();
+        replyBase.setRcvTime(calendar(rcvTime));
+        replyBase.setReplyTime(calendar(System.currentTimeMillis()));
+        replyBase.setClientRequestHandle(clientRequestHandle);
+        replyBase.setRevisedLocaleID(localeId != null && !localeId.isEmpty() ? "en-US" : null);
+        replyBase.setServerState(serverState);
+        return replyBase;
+    }
+
+    private static RequestOptions options(RequestOptions options) {
+        return options != null ? options : new RequestOptions();
+    }
+
+    private static void addError(List<OPCError> errors, QName resultId, boolean returnErrorText) {
+        for (OPCError error : errors) {
+            if (resultId.equals(error.getID())) return;
+        }
+        errors.add(error(resultId, returnErrorText));
+    }
+
+    private static OPCError error(QName id, boolean returnErrorText) {
+        var error = new OPCError();
+        error.setID(id);
+        if (returnErrorText) {
+            error.setText(ERROR_TEXT.get(id));
+        }
+        return error;
+    }
+
+    /**
+     * Translate a name filter using {@code *} and {@code ?} wildcards to a {@link Pattern}.
+     */
+    private static Pattern wildcardPattern(String filter) {
+        if (filter == null || filter.isEmpty()) return null;
+
+        var regex = new StringBuilder();
+        for (char c : filter.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+
+    private static XMLGregorianCalendar calendar(long epochMillis) {
+        var calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(epochMillis);
+
+        return DATATYPE_FACTORY.newXMLGregorianCalendar(calendar);
+    }
+
+    private static long toEpochMillis(XMLGregorianCalendar calendar) {
+        return calendar.toGregorianCalendar().getTimeInMillis();
+    }
+
+    //endregion
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private SimulatedAddressSpace addressSpace = new SimulatedAddressSpace();
+        private int port = 0;
+
+        public Builder setAddressSpace(SimulatedAddressSpace addressSpace) {
+            this.addressSpace = addressSpace;
+            return this;
+        }
+
+        /**
+         * Set the local port to listen on; 0, the default, picks a free port.
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public OpcXmlDaSimulator build() throws IOException {
+            return new OpcXmlDaSimulator(addressSpace, port);
+        }
+
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.digitalpetri.opc.xmlda.simulator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+import com.digitalpetri.opc.xmlda.client.OpcXmlDaClient;
+import com.digitalpetri.opc.xmlda.client.SoapFaultException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opcfoundation.xmlda.BrowseResponse;
+import org.opcfoundation.xmlda.ItemValue;
+import org.opcfoundation.xmlda.Read;
+import org.opcfoundation.xmlda.ReadRequestItem;
+import org.opcfoundation.xmlda.ReadRequestItemList;
+import org.opcfoundation.xmlda.ReadResponse;
+import org.opcfoundation.xmlda.Subscribe;
+import org.opcfoundation.xmlda.SubscribeRequestItem;
+import org.opcfoundation.xmlda.SubscribeRequestItemList;
+import org.opcfoundation.xmlda.SubscribeResponse;
+import org.opcfoundation.xmlda.SubscriptionPolledRefresh;
+import org.opcfoundation.xmlda.SubscriptionPolledRefreshResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OpcXmlDaSimulatorTest {
+
+    private static final int RANGE_SIZE = 1_000_000;
+
+    private OpcXmlDaSimulator simulator;
+    private OpcXmlDaClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        var addressSpace = new SimulatedAddressSpace()
+            .addItem("Static.Int", 42)
+            .addRange("Dynamic.Fast", RANGE_SIZE, Duration.ofSeconds(1));
+
+        simulator = OpcXmlDaSimulator.newBuilder()
+            .setAddressSpace(addressSpace)
+            .build()
+            .start();
+
+        client = OpcXmlDaClient.newBuilder()
+            .setServerUrl(simulator.getEndpointUrl())
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.stop();
+    }
+
+    @Test
+    public void testBrowseLargeRangeWithContinuationPoints() {
+        Set<String> itemNames = new HashSet<>();
+        String continuationPoint = null;
+
+        for (int page = 0; page < 3; page++) {
+            String cp = continuationPoint;
+            BrowseResponse response = client.browse(request -> {
+                request.setItemName("Dynamic.Fast");
+                request.setMaxElementsReturned(1000);
+                request.setContinuationPoint(cp);
+            });
+
+            assertEquals(1000, response.getElements().size());
+            assertTrue(response.isMoreElements());
+            response.getElements().forEach(e -> itemNames.add(e.getItemName()));
+            continuationPoint = response.getContinuationPoint();
+        }
+
+        assertEquals(3000, itemNames.size());
+        assertTrue(itemNames.contains("Dynamic.Fast.002999"));
+    }
+
+    @Test
+    public void testReadGeneratedAndUnknownItems() {
+        ReadResponse response = client.read(read("Dynamic.Fast.999999", "Dynamic.Fast.1000000", "Static.Int"));
+
+        ItemValue generated = response.getRItemList().getItems().get(0);
+        ItemValue unknown = response.getRItemList().getItems().get(1);
+        ItemValue fixed = response.getRItemList().getItems().get(2);
+
+        assertTrue(generated.getValue() instanceof Double);
+        assertNull(generated.getResultID());
+        assertEquals("E_UNKNOWNITEMNAME", unknown.getResultID().getLocalPart());
+        assertEquals(42, fixed.getValue());
+        assertEquals(1, response.getErrors().size());
+    }
+
+    @Test
+    public void testPolledRefreshWaitsForChanges() {
+        var itemList = new SubscribeRequestItemList();
+        for (int i = 0; i < 100; i++) {
+            var item = new SubscribeRequestItem();
+            item.setItemName(String.format("Dynamic.Fast.%06d", i * 10_000));
+            item.setClientItemHandle(String.valueOf(i));
+            itemList.getItems().add(item);
+        }
+
+        var subscribe = new Subscribe();
+        subscribe.setItemList(itemList);
+        subscribe.setReturnValuesOnReply(true);
+        subscribe.setSubscriptionPingRate(10_000);
+
+        SubscribeResponse subscribeResponse = client.subscribe(subscribe);
+        assertEquals(100, subscribeResponse.getRItemList().getItems().size());
+
+        var refresh = new SubscriptionPolledRefresh();
+        refresh.getServerSubHandles().add(subscribeResponse.getServerSubHandle());
+        refresh.getServerSubHandles().add("no-such-handle");
+        refresh.setWaitTime(1000);
+
+        SubscriptionPolledRefreshResponse refreshResponse = client.subscriptionPolledRefresh(refresh);
+
+        assertEquals(1, refreshResponse.getRItemList().size());
+        int changed = refreshResponse.getRItemList().get(0).getItems().size();
+        assertTrue(changed > 0 && changed < 100);
+        assertEquals("no-such-handle", refreshResponse.getInvalidServerSubHandles().get(0));
+    }
+
+    @Test
+    public void testInjectedFaults() {
+        simulator.setFaultRate(1.0);
+
+        try {
+            client.readAsync(read("Static.Int")).join();
+            fail("expected a SOAP fault");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof SoapFaultException);
+        }
+
+        simulator.setFaultRate(0.0);
+        simulator.setLatency(Duration.ofMillis(100), Duration.ZERO);
+
+        long start = System.nanoTime();
+        client.read(read("Static.Int"));
+        assertTrue(System.nanoTime() - start >= 100_000_000L);
+
+        assertFalse(simulator.getRequestCount() < 2);
+    }
+
+    private static Read read(String... itemNames) {
+        var itemList = new ReadRequestItemList();
+        for (String itemName : itemNames) {
+            var item = new ReadRequestItem();
+            item.setItemName(itemName);
+            itemList.getItems().add(item);
+        }
+
+        var read = new Read();
+        read.setItemList(itemList);
+        return read;
+    }
+
+}
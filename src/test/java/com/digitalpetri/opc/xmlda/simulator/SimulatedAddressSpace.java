@@ -0,0 +1,216 @@
+package com.digitalpetri.opc.xmlda.simulator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The items served by an {@link OpcXmlDaSimulator}.
+ * <p>
+ * Item names are hierarchical, with {@code .} separating the branches browsed through to reach an item. Static
+ * items are held in memory; ranges of generated items are computed on demand, so an address space can hold
+ * millions of items at no cost beyond the ones being read or subscribed to.
+ * <p>
+ * An address space is not thread-safe while it is being configured and must not be changed once the simulator
+ * serving it has started, other than by writes.
+ *
+ * @author Kevin Herron
+ */
+public class SimulatedAddressSpace {
+
+    private final Branch root = new Branch();
+
+    private final Map<String, Branch> branches = new HashMap<>();
+    private final Map<String, Range> ranges = new HashMap<>();
+    private final Map<String, SimulatedItem.StaticItem> staticItems = new HashMap<>();
+
+    public SimulatedAddressSpace() {
+        branches.put("", root);
+    }
+
+    /**
+     * Add a writable item with an initial value.
+     */
+    public SimulatedAddressSpace addItem(String itemName, Object value) {
+        return addItem(itemName, value, true);
+    }
+
+    public SimulatedAddressSpace addItem(String itemName, Object value, boolean writable) {
+        var item = new SimulatedItem.StaticItem(itemName, value, writable, System.currentTimeMillis());
+
+        parentOf(itemName).children.put(itemName, item);
+        staticItems.put(itemName, item);
+
+        return this;
+    }
+
+    /**
+     * Add a branch of {@code count} generated, read-only {@code double} items named {@code branchName.000000}
+     * and so on, each changing once every {@code changeInterval}.
+     */
+    public SimulatedAddressSpace addRange(String branchName, int count, Duration changeInterval) {
+        if (count <= 0) throw new IllegalArgumentException("count must be > 0");
+        if (changeInterval.toMillis() <= 0) throw new IllegalArgumentException("changeInterval must be >= 1ms");
+
+        var range = new Range(branchName, count, changeInterval.toMillis());
+
+        parentOf(branchName).children.put(branchName, range);
+        ranges.put(branchName, range);
+
+        return this;
+    }
+
+    /**
+     * @return the item named {@code itemName}, or {@code null} if there is none.
+     */
+    SimulatedItem getItem(String itemName) {
+        if (itemName == null) return null;
+
+        SimulatedItem item = staticItems.get(itemName);
+        if (item != null) return item;
+
+        int dot = itemName.lastIndexOf('.');
+        if (dot < 0) return null;
+
+        Range range = ranges.get(itemName.substring(0, dot));
+
+        return range != null ? range.getItem(itemName.substring(dot + 1)) : null;
+    }
+
+    /**
+     * @return whether {@code itemName} names a branch that can be browsed.
+     */
+    boolean isBranch(String itemName) {
+        return branches.containsKey(itemName) || ranges.containsKey(itemName);
+    }
+
+    /**
+     * @return the number of children of the branch {@code itemName}.
+     */
+    int getChildCount(String itemName) {
+        Range range = ranges.get(itemName);
+        if (range != null) return range.count;
+
+        Branch branch = branches.get(itemName);
+        return branch != null ? branch.children.size() : 0;
+    }
+
+    /**
+     * Browse up to {@code max} children of the branch {@code itemName}, starting at child {@code offset}.
+     */
+    List<Child> browse(String itemName, int offset, int max) {
+        var children = new ArrayList<Child>();
+
+        Range range = ranges.get(itemName);
+        if (range != null) {
+            int end = (int) Math.min(range.count, (long) offset + max);
+            for (int i = offset; i < end; i++) {
+                children.add(new Child(range.childName(i), range.itemName(i), false));
+            }
+            return children;
+        }
+
+        Branch branch = branches.get(itemName);
+        if (branch == null) return children;
+
+        int i = 0;
+        for (Map.Entry<String, Object> entry : branch.children.entrySet()) {
+            if (i >= offset && children.size() < max) {
+                String childItemName = entry.getKey();
+                boolean hasChildren = !(entry.getValue() instanceof SimulatedItem);
+                children.add(new Child(lastSegment(childItemName), childItemName, hasChildren));
+            }
+            i++;
+        }
+
+        return children;
+    }
+
+    private Branch parentOf(String itemName) {
+        int dot = itemName.lastIndexOf('.');
+        if (dot < 0) return root;
+
+        String parentName = itemName.substring(0, dot);
+
+        Branch parent = branches.get(parentName);
+        if (parent == null) {
+            parent = new Branch();
+            parentOf(parentName).children.put(parentName, parent);
+            branches.put(parentName, parent);
+        }
+
+        return parent;
+    }
+
+    private static String lastSegment(String itemName) {
+        return itemName.substring(itemName.lastIndexOf('.') + 1);
+    }
+
+    static final class Child {
+
+        final String name;
+        final String itemName;
+        final boolean hasChildren;
+
+        Child(String name, String itemName, boolean hasChildren) {
+            this.name = name;
+            this.itemName = itemName;
+            this.hasChildren = hasChildren;
+        }
+
+    }
+
+    private static final class Branch {
+
+        /**
+         * Child item name to {@link Branch}, {@link Range} or {@link SimulatedItem}.
+         */
+        final TreeMap<String, Object> children = new TreeMap<>();
+
+    }
+
+    static final class Range {
+
+        final String branchName;
+        final int count;
+        final long intervalMillis;
+
+        private final String format;
+
+        Range(String branchName, int count, long intervalMillis) {
+            this.branchName = branchName;
+            this.count = count;
+            this.intervalMillis = intervalMillis;
+            this.format = "%0" + String.valueOf(count - 1).length() + "d";
+        }
+
+        String childName(int index) {
+            return String.format(format, index);
+        }
+
+        String itemName(int index) {
+            return branchName + "." + childName(index);
+        }
+
+        SimulatedItem getItem(String childName) {
+            if (childName.length() != String.valueOf(count - 1).length()) return null;
+
+            int index;
+            try {
+                index = Integer.parseInt(childName);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (index < 0 || index >= count) return null;
+
+            long phase = intervalMillis * index / count;
+
+            return new SimulatedItem.GeneratedItem(branchName + "." + childName, index, intervalMillis, phase);
+        }
+
+    }
+
+}
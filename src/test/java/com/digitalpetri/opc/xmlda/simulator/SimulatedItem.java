@@ -0,0 +1,173 @@
+package com.digitalpetri.opc.xmlda.simulator;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+/**
+ * An item in a {@link SimulatedAddressSpace}.
+ * <p>
+ * The value of an item is a function of time; {@link #getVersion(long)} changes whenever the value does, which is
+ * how subscriptions detect changes without keeping copies of the values they last reported.
+ *
+ * @author Kevin Herron
+ */
+abstract class SimulatedItem {
+
+    private final String itemName;
+
+    SimulatedItem(String itemName) {
+        this.itemName = itemName;
+    }
+
+    String getItemName() {
+        return itemName;
+    }
+
+    abstract Object getValue(long now);
+
+    abstract long getTimestamp(long now);
+
+    abstract long getVersion(long now);
+
+    abstract boolean isWritable();
+
+    abstract void setValue(Object value, long now);
+
+    QName getDataType(long now) {
+        return dataTypeOf(getValue(now));
+    }
+
+    static QName dataTypeOf(Object value) {
+        String type;
+
+        if (value instanceof String) {
+            type = "string";
+        } else if (value instanceof Double) {
+            type = "double";
+        } else if (value instanceof Float) {
+            type = "float";
+        } else if (value instanceof Integer) {
+            type = "int";
+        } else if (value instanceof Long) {
+            type = "long";
+        } else if (value instanceof Short) {
+            type = "short";
+        } else if (value instanceof Byte) {
+            type = "byte";
+        } else if (value instanceof Boolean) {
+            type = "boolean";
+        } else {
+            type = "anyType";
+        }
+
+        return new QName(XMLConstants.W3C_XML_SCHEMA_NS_URI, type);
+    }
+
+    /**
+     * An item whose value only changes when it is written.
+     */
+    static final class StaticItem extends SimulatedItem {
+
+        private final boolean writable;
+
+        private volatile Sample sample;
+
+        StaticItem(String itemName, Object value, boolean writable, long now) {
+            super(itemName);
+
+            this.writable = writable;
+            this.sample = new Sample(value, now, 0L);
+        }
+
+        @Override
+        Object getValue(long now) {
+            return sample.value;
+        }
+
+        @Override
+        long getTimestamp(long now) {
+            return sample.timestamp;
+        }
+
+        @Override
+        long getVersion(long now) {
+            return sample.version;
+        }
+
+        @Override
+        boolean isWritable() {
+            return writable;
+        }
+
+        @Override
+        void setValue(Object value, long now) {
+            sample = new Sample(value, now, sample.version + 1);
+        }
+
+        private static final class Sample {
+
+            final Object value;
+            final long timestamp;
+            final long version;
+
+            Sample(Object value, long timestamp, long version) {
+                this.value = value;
+                this.timestamp = timestamp;
+                this.version = version;
+            }
+
+        }
+
+    }
+
+    /**
+     * A read-only {@code double} item of a {@link SimulatedAddressSpace.Range} that changes once every change
+     * interval. Items of a range are phase-shifted so their changes are spread evenly across the interval.
+     */
+    static final class GeneratedItem extends SimulatedItem {
+
+        private final long intervalMillis;
+        private final long phaseMillis;
+        private final int index;
+
+        GeneratedItem(String itemName, int index, long intervalMillis, long phaseMillis) {
+            super(itemName);
+
+            this.index = index;
+            this.intervalMillis = intervalMillis;
+            this.phaseMillis = phaseMillis;
+        }
+
+        @Override
+        Object getValue(long now) {
+            return (double) (getVersion(now) % 1000) + index / 1000.0;
+        }
+
+        @Override
+        long getTimestamp(long now) {
+            return getVersion(now) * intervalMillis - phaseMillis;
+        }
+
+        @Override
+        long getVersion(long now) {
+            return (now + phaseMillis) / intervalMillis;
+        }
+
+        @Override
+        boolean isWritable() {
+            return false;
+        }
+
+        @Override
+        void setValue(Object value, long now) {
+            throw new UnsupportedOperationException("read-only: " + getItemName());
+        }
+
+        @Override
+        QName getDataType(long now) {
+            return new QName(XMLConstants.W3C_XML_SCHEMA_NS_URI, "double");
+        }
+
+    }
+
+}
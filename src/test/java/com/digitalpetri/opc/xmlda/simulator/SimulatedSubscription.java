@@ -0,0 +1,117 @@
+package com.digitalpetri.opc.xmlda.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A subscription created by an {@link OpcXmlDaSimulator}: the subscribed items and the version of each that was
+ * last reported to the client.
+ *
+ * @author Kevin Herron
+ */
+class SimulatedSubscription {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final String serverSubHandle;
+    private final long pingRateMillis;
+    private final List<Entry> entries;
+    private final long[] reportedVersions;
+
+    private volatile long lastPolled;
+
+    SimulatedSubscription(String serverSubHandle, long pingRateMillis, List<Entry> entries, long now) {
+        this.serverSubHandle = serverSubHandle;
+        this.pingRateMillis = pingRateMillis;
+        this.entries = entries;
+        this.reportedVersions = new long[entries.size()];
+        this.lastPolled = now;
+
+        Arrays.fill(reportedVersions, Long.MIN_VALUE);
+    }
+
+    String getServerSubHandle() {
+        return serverSubHandle;
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    void touch(long now) {
+        lastPolled = now;
+    }
+
+    boolean isExpired(long now) {
+        return pingRateMillis > 0 && now - lastPolled > pingRateMillis;
+    }
+
+    /**
+     * Mark every item as reported at its current version, e.g. after returning values on a Subscribe reply.
+     */
+    void markAllReported(long now) {
+        lock.lock();
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                reportedVersions[i] = entries.get(i).item.getVersion(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean hasChanges(long now) {
+        lock.lock();
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).item.getVersion(now) != reportedVersions[i]) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the entries that changed since last reported, or all of them if {@code all}, marking them reported.
+     */
+    List<Entry> collect(long now, boolean all) {
+        var collected = new ArrayList<Entry>();
+
+        lock.lock();
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                long version = entry.item.getVersion(now);
+
+                if (all || version != reportedVersions[i]) {
+                    reportedVersions[i] = version;
+                    collected.add(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return collected;
+    }
+
+    static final class Entry {
+
+        final SimulatedItem item;
+        final String itemPath;
+        final String clientItemHandle;
+
+        Entry(SimulatedItem item, String itemPath, String clientItemHandle) {
+            this.item = item;
+            this.itemPath = itemPath;
+            this.clientItemHandle = clientItemHandle;
+        }
+
+    }
+
+}
@@ -1,5 +1,9 @@
 package com.digitalpetri.opc.xmlda.spring;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+
 import com.digitalpetri.opc.xmlda.client.OpcXmlDaClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -19,6 +23,7 @@ import org.springframework.ws.transport.http.HttpComponentsMessageSender;
 public class SpringOpcXmlDaClientConfiguration {
 
     private static final String SERVER_URL_PROPERTY = "opc.xmlda.server.url";
+    private static final int TIMEOUT = 5000;
 
     private final Environment env;
 
@@ -37,8 +42,8 @@ public class SpringOpcXmlDaClientConfiguration {
     @Bean
     public WebServiceMessageSender messageSender() {
         HttpComponentsMessageSender messageSender = new HttpComponentsMessageSender();
-        messageSender.setConnectionTimeout(5000);
-        messageSender.setReadTimeout(5000);
+        messageSender.setConnectionTimeout(TIMEOUT);
+        messageSender.setReadTimeout(TIMEOUT);
         return messageSender;
     }
 
@@ -57,7 +62,14 @@ public class SpringOpcXmlDaClientConfiguration {
 
     @Bean
     public OpcXmlDaClient opcXmlDaClient() {
-        return new OpcXmlDaClient(webServiceTemplate());
+        // async operations don't go through the message sender, so give them the same timeouts
+        return new OpcXmlDaClient(
+            webServiceTemplate(),
+            Locale.US,
+            URI.create(env.getRequiredProperty(SERVER_URL_PROPERTY)),
+            Duration.ofMillis(TIMEOUT),
+            Duration.ofMillis(TIMEOUT)
+        );
     }
 
 }